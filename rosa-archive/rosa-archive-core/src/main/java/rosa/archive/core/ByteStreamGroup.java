@@ -124,6 +124,12 @@ public interface ByteStreamGroup {
      */
     long getLastModified(String streamName);
 
+    /**
+     * @param streamName name of byte stream of interest
+     * @return size of the byte stream in bytes, -1 if it does not exist
+     */
+    long getSize(String streamName);
+
     /**
      * Create a new byte stream group relative to this group.
      *
@@ -0,0 +1,230 @@
+package rosa.archive.core;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link FSByteStreamGroup} which answers questions about the names, types,
+ * sizes, and modification times of its contents from a snapshot of the
+ * directory instead of asking the file system each time. All groups obtained
+ * from a caching group share its {@link FSDirectoryCache}.
+ *
+ * Changes made through the group drop the affected snapshots. Changes made
+ * by others are seen once the cache notices them.
+ */
+public class CachingFSByteStreamGroup extends FSByteStreamGroup {
+    private final FSDirectoryCache cache;
+
+    /**
+     * @param base base path of the byte stream group
+     * @param cache cache of directory snapshots
+     */
+    public CachingFSByteStreamGroup(Path base, FSDirectoryCache cache) {
+        super(base);
+        this.cache = cache;
+    }
+
+    private FSDirectoryCache.Snapshot snapshot() {
+        try {
+            return cache.get(base);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private FSDirectoryCache.Snapshot existingSnapshot() throws IOException {
+        FSDirectoryCache.Snapshot snapshot = cache.get(base);
+
+        if (!snapshot.exists()) {
+            throw new NoSuchFileException(base.toString());
+        }
+
+        return snapshot;
+    }
+
+    private FSDirectoryCache.Entry entry(String name) {
+        FSDirectoryCache.Snapshot snapshot = snapshot();
+
+        return snapshot == null ? null : snapshot.get(name);
+    }
+
+    // Names with separators are not in the snapshot of this directory
+    private boolean isSimpleName(String name) {
+        return name.indexOf('/') == -1 && name.indexOf(base.getFileSystem().getSeparator().charAt(0)) == -1;
+    }
+
+    private List<String> list(boolean directories, boolean ids) throws IOException {
+        List<String> result = new ArrayList<>();
+
+        for (Map.Entry<String, FSDirectoryCache.Entry> e : existingSnapshot().entries().entrySet()) {
+            if (e.getValue().isDirectory() == directories) {
+                result.add(ids ? base.resolve(e.getKey()).toString() : e.getKey());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int numberOfByteStreams() throws IOException {
+        return list(false, false).size();
+    }
+
+    @Override
+    public int numberOfByteStreamGroups() throws IOException {
+        return list(true, false).size();
+    }
+
+    @Override
+    public List<String> listByteStreamIds() throws IOException {
+        return list(false, true);
+    }
+
+    @Override
+    public List<String> listByteStreamNames() throws IOException {
+        return list(false, false);
+    }
+
+    @Override
+    public List<String> listByteStreamGroupIds() throws IOException {
+        return list(true, true);
+    }
+
+    @Override
+    public List<String> listByteStreamGroupNames() throws IOException {
+        return list(true, false);
+    }
+
+    @Override
+    public List<ByteStreamGroup> listByteStreamGroups() throws IOException {
+        List<ByteStreamGroup> result = new ArrayList<>();
+
+        for (String name : list(true, false)) {
+            result.add(new CachingFSByteStreamGroup(base.resolve(name), cache));
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean hasByteStream(String name) {
+        if (!isSimpleName(name)) {
+            return super.hasByteStream(name);
+        }
+
+        FSDirectoryCache.Entry entry = entry(name);
+
+        return entry != null && !entry.isDirectory();
+    }
+
+    @Override
+    public boolean hasByteStreamGroup(String name) {
+        if (!isSimpleName(name)) {
+            return super.hasByteStreamGroup(name);
+        }
+
+        FSDirectoryCache.Entry entry = entry(name);
+
+        return entry != null && entry.isDirectory();
+    }
+
+    @Override
+    public long getLastModified(String streamName) {
+        if (streamName == null || !isSimpleName(streamName)) {
+            return super.getLastModified(streamName);
+        }
+
+        FSDirectoryCache.Entry entry = entry(streamName);
+
+        return entry == null || entry.isDirectory() ? -1L : entry.getLastModified();
+    }
+
+    @Override
+    public long getSize(String streamName) {
+        if (streamName == null || !isSimpleName(streamName)) {
+            return super.getSize(streamName);
+        }
+
+        FSDirectoryCache.Entry entry = entry(streamName);
+
+        return entry == null || entry.isDirectory() ? -1L : entry.getSize();
+    }
+
+    @Override
+    public OutputStream getOutputStream(String name) throws IOException {
+        Path dir = base.resolve(name).getParent();
+        cache.invalidate(dir);
+
+        // The size and modification time change until the stream is closed
+        return new FilterOutputStream(super.getOutputStream(name)) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    cache.invalidate(dir);
+                }
+            }
+        };
+    }
+
+    @Override
+    public ByteStreamGroup getByteStreamGroup(String name) {
+        return new CachingFSByteStreamGroup(base.resolve(name), cache);
+    }
+
+    @Override
+    public ByteStreamGroup newByteStreamGroup(String name) throws IOException {
+        Path path = base.resolve(name);
+
+        try {
+            super.newByteStreamGroup(name);
+        } finally {
+            cache.invalidate(base);
+            cache.invalidate(path);
+        }
+
+        return new CachingFSByteStreamGroup(path, cache);
+    }
+
+    @Override
+    public void copyMetadataInto(ByteStreamGroup targetGroup) throws IOException {
+        try {
+            super.copyMetadataInto(targetGroup);
+        } finally {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void copyByteStream(String sourceStream, String targetStream, ByteStreamGroup targetGroup)
+            throws IOException {
+        try {
+            super.copyByteStream(sourceStream, targetStream, targetGroup);
+        } finally {
+            cache.invalidate(Paths.get(targetGroup.id()).resolve(targetStream).getParent());
+        }
+    }
+
+    @Override
+    public void renameByteStream(String originalStream, String targetStream) throws IOException {
+        try {
+            super.renameByteStream(originalStream, targetStream);
+        } finally {
+            cache.invalidate(base.resolve(originalStream).getParent());
+            cache.invalidate(base.resolve(targetStream).getParent());
+        }
+    }
+}
@@ -28,7 +28,7 @@ public class FSByteStreamGroup implements ByteStreamGroup {
      */
     private static String[] METADATA_COPY_FILE_EXT = {"xml", "csv", "txt", "properties", "html", "jsonld"};
     
-    private Path base;
+    protected final Path base;
 
     /**
      * @param base base path of the byte stream group
@@ -204,6 +204,20 @@ public class FSByteStreamGroup implements ByteStreamGroup {
         return path.toFile().lastModified();
     }
 
+    @Override
+    public long getSize(String streamName) {
+        if (streamName == null) {
+            return -1L;
+        }
+
+        Path path = base.resolve(streamName);
+        if (!Files.isRegularFile(path)) {
+            return -1L;
+        }
+
+        return path.toFile().length();
+    }
+
     @Override
     public ByteStreamGroup newByteStreamGroup(String name) throws IOException {
         if (hasByteStreamGroup(name)) {
@@ -0,0 +1,339 @@
+package rosa.archive.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Snapshots of the entries of directories, so that listing a directory or
+ * asking about its entries does not touch the file system each time.
+ *
+ * A snapshot is dropped when it is older than the maximum age. If watching is
+ * enabled, snapshotted directories are also registered with a
+ * {@link WatchService} and a snapshot is dropped as soon as its directory
+ * changes. File systems such as NFS do not report all changes, so the maximum
+ * age still applies. Only the most recently used directories are kept and
+ * watched.
+ */
+public class FSDirectoryCache implements Closeable {
+    private static final Logger logger = Logger.getLogger(FSDirectoryCache.class.getName());
+
+    private static final int DEFAULT_MAX_SNAPSHOTS = 10000;
+
+    private final long maxAge;
+    private final boolean watch;
+    private final Map<Path, Slot> snapshots;
+    private final Map<FileSystem, WatchService> watchers;
+
+    private volatile boolean watchFailed;
+    private volatile boolean closed;
+
+    /**
+     * @param maxAge maximum age of a snapshot in milliseconds
+     * @param watch watch snapshotted directories for changes
+     */
+    public FSDirectoryCache(long maxAge, boolean watch) {
+        this(maxAge, watch, DEFAULT_MAX_SNAPSHOTS);
+    }
+
+    /**
+     * @param maxAge maximum age of a snapshot in milliseconds
+     * @param watch watch snapshotted directories for changes
+     * @param maxSnapshots maximum number of directories to keep snapshots of
+     */
+    public FSDirectoryCache(long maxAge, boolean watch, int maxSnapshots) {
+        this.maxAge = maxAge;
+        this.watch = watch;
+        this.watchers = new ConcurrentHashMap<>();
+
+        // Guarded by itself
+        this.snapshots = new LinkedHashMap<Path, Slot>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Slot> eldest) {
+                if (size() > maxSnapshots) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    // State of a directory. The version changes whenever its snapshot is dropped.
+    private static class Slot {
+        Snapshot snapshot;
+        long version;
+        WatchKey key;
+        boolean evicted;
+
+        void evict() {
+            evicted = true;
+
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+
+    /**
+     * Properties of a directory entry.
+     */
+    public static class Entry {
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+
+        Entry(BasicFileAttributes attrs) {
+            this.directory = attrs.isDirectory();
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+        }
+
+        /**
+         * @return whether the entry is a directory rather than a file
+         */
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        /**
+         * @return size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return last modified time in milliseconds
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * The entries of a directory at some time. Entries which are neither
+     * regular files nor directories are left out.
+     */
+    public static class Snapshot {
+        private final boolean exists;
+        private final Map<String, Entry> entries;
+        private final long created;
+
+        Snapshot(boolean exists, Map<String, Entry> entries) {
+            this.exists = exists;
+            this.entries = Collections.unmodifiableMap(entries);
+            this.created = System.currentTimeMillis();
+        }
+
+        /**
+         * @return whether the directory existed
+         */
+        public boolean exists() {
+            return exists;
+        }
+
+        /**
+         * @return entries by name in directory order
+         */
+        public Map<String, Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * @param name name of entry
+         * @return entry or null if it does not exist
+         */
+        public Entry get(String name) {
+            return entries.get(name);
+        }
+    }
+
+    /**
+     * @param dir directory
+     * @return current snapshot of the directory, read if needed
+     * @throws IOException if the directory cannot be read
+     */
+    public Snapshot get(Path dir) throws IOException {
+        Slot slot;
+        long version;
+
+        synchronized (snapshots) {
+            slot = snapshots.get(dir);
+
+            if (slot == null) {
+                slot = new Slot();
+                snapshots.put(dir, slot);
+            }
+
+            Snapshot snapshot = slot.snapshot;
+
+            if (snapshot != null && System.currentTimeMillis() - snapshot.created <= maxAge) {
+                return snapshot;
+            }
+
+            version = slot.version;
+        }
+
+        // Register before reading so that no change is missed
+        WatchKey key = watch && Files.isDirectory(dir) ? register(dir) : null;
+        Snapshot snapshot = read(dir);
+
+        synchronized (snapshots) {
+            // Do not keep a snapshot which may have missed a change
+            if (slot.version == version) {
+                slot.snapshot = snapshot;
+            }
+
+            if (key != null) {
+                if (!slot.evicted) {
+                    slot.key = key;
+                } else if (!snapshots.containsKey(dir)) {
+                    key.cancel();
+                }
+            }
+        }
+
+        return snapshot;
+    }
+
+    private Snapshot read(Path dir) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path path : ds) {
+                BasicFileAttributes attrs;
+
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // For example a broken link
+                    continue;
+                }
+
+                if (attrs.isRegularFile() || attrs.isDirectory()) {
+                    entries.put(path.getFileName().toString(), new Entry(attrs));
+                }
+            }
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            return new Snapshot(false, entries);
+        }
+
+        return new Snapshot(true, entries);
+    }
+
+    private WatchKey register(Path dir) {
+        if (watchFailed || closed) {
+            return null;
+        }
+
+        try {
+            WatchService service = watchers.computeIfAbsent(dir.getFileSystem(), this::startWatching);
+
+            if (service != null) {
+                return dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+            logger.log(Level.FINE, "Not watching " + dir, e);
+        }
+
+        return null;
+    }
+
+    private WatchService startWatching(FileSystem fs) {
+        WatchService service;
+
+        try {
+            service = fs.newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.log(Level.INFO, "Cannot watch for changes, relying on maximum age", e);
+            watchFailed = true;
+            return null;
+        }
+
+        Thread t = new Thread(() -> {
+            try {
+                for (;;) {
+                    WatchKey key = service.take();
+
+                    if (key.pollEvents().stream().anyMatch(e -> e.kind() == StandardWatchEventKinds.OVERFLOW)) {
+                        clear();
+                    } else {
+                        invalidate((Path) key.watchable());
+                    }
+
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Stopped
+            }
+        }, "directory-watch");
+
+        t.setDaemon(true);
+        t.start();
+
+        return service;
+    }
+
+    /**
+     * Drop the snapshot of a directory.
+     *
+     * @param dir directory
+     */
+    public void invalidate(Path dir) {
+        synchronized (snapshots) {
+            Slot slot = snapshots.get(dir);
+
+            if (slot != null) {
+                slot.snapshot = null;
+                slot.version++;
+            }
+        }
+    }
+
+    /**
+     * Drop all snapshots.
+     */
+    public void clear() {
+        synchronized (snapshots) {
+            for (Slot slot : snapshots.values()) {
+                slot.snapshot = null;
+                slot.version++;
+            }
+        }
+    }
+
+    /**
+     * Stop watching for changes.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        for (WatchService service : watchers.values()) {
+            service.close();
+        }
+
+        watchers.clear();
+    }
+}
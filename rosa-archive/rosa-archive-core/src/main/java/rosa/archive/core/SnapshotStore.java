@@ -0,0 +1,344 @@
+package rosa.archive.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.codec.binary.Hex;
+
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+import rosa.archive.model.SHA1Checksum;
+
+/**
+ * Store which keeps a binary snapshot of each book and collection it loads so
+ * that they need not be parsed again, for example when a server restarts.
+ *
+ * A snapshot holds the loaded object and the errors found while loading it.
+ * It is used only while the names, sizes, and last modified times of the
+ * streams it was loaded from are unchanged. A collection depends on the
+ * streams of its group, and a book on the streams of its group and of its
+ * collection group. Otherwise, and whenever a snapshot cannot be read, the
+ * object is loaded by the wrapped store and a new snapshot is written.
+ *
+ * AoR transcriptions which a book loads on demand are left out of its snapshot
+ * and are loaded by the wrapped store when the snapshot is read. Snapshots can
+ * be written by an executor so that loading does not wait for that.
+ *
+ * All other operations are passed to the wrapped store.
+ */
+public class SnapshotStore implements Store {
+    private static final Logger logger = Logger.getLogger(SnapshotStore.class.getName());
+
+    // Change when the model or snapshot layout changes, as model classes keep a fixed serialVersionUID
+    private static final int VERSION = 3;
+    private static final String SNAPSHOT_EXT = ".snapshot";
+
+    private final Store store;
+    private final ByteStreamGroup base;
+    private final Path dir;
+    private final ExecutorService executor;
+
+    /**
+     * @param store store which loads books and collections
+     * @param base byte stream group of the archive read by the store
+     * @param dir directory holding the snapshots
+     * @param executor executor used to write snapshots, NULL to write them while loading
+     */
+    public SnapshotStore(Store store, ByteStreamGroup base, Path dir, ExecutorService executor) {
+        this.store = store;
+        this.base = base;
+        this.dir = dir;
+        this.executor = executor;
+    }
+
+    /**
+     * Snapshots are written to the directory while loading.
+     *
+     * @param store store which loads books and collections
+     * @param base byte stream group of the archive read by the store
+     * @param dir directory holding the snapshots
+     */
+    public SnapshotStore(Store store, ByteStreamGroup base, Path dir) {
+        this(store, base, dir, null);
+    }
+
+    @Override
+    public String[] listBookCollections() throws IOException {
+        return store.listBookCollections();
+    }
+
+    @Override
+    public String[] listBooks(String collectionId) throws IOException {
+        return store.listBooks(collectionId);
+    }
+
+    @Override
+    public BookCollection loadBookCollection(String collectionId, List<String> errors) throws IOException {
+        if (!base.hasByteStreamGroup(collectionId)) {
+            return store.loadBookCollection(collectionId, errors);
+        }
+
+        Path path = dir.resolve(collectionId + SNAPSHOT_EXT);
+        String fingerprint = fingerprint(base.getByteStreamGroup(collectionId));
+        BookCollection result = readSnapshot(path, fingerprint, BookCollection.class, errors);
+
+        if (result == null) {
+            int start = errors == null ? 0 : errors.size();
+            result = store.loadBookCollection(collectionId, errors);
+
+            if (result != null) {
+                writeSnapshot(path, fingerprint, result, errors, start);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Book loadBook(BookCollection collection, String bookId, List<String> errors) throws IOException {
+        if (!base.hasByteStreamGroup(collection.getId())
+                || !base.getByteStreamGroup(collection.getId()).hasByteStreamGroup(bookId)) {
+            return store.loadBook(collection, bookId, errors);
+        }
+
+        ByteStreamGroup collectionGroup = base.getByteStreamGroup(collection.getId());
+        Path path = dir.resolve(collection.getId()).resolve(bookId + SNAPSHOT_EXT);
+        String fingerprint = fingerprint(collectionGroup, collectionGroup.getByteStreamGroup(bookId));
+        Book result = readSnapshot(path, fingerprint, Book.class, errors);
+
+        if (result != null && !result.hasAnnotatedPages()) {
+            store.loadAnnotatedPages(collection, result, errors);
+        } else if (result == null) {
+            int start = errors == null ? 0 : errors.size();
+            result = store.loadBook(collection, bookId, errors);
+
+            if (result != null) {
+                writeSnapshot(path, fingerprint, result, errors, start);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public SHA1Checksum loadBookChecksum(BookCollection collection, String bookId, List<String> errors)
+            throws IOException {
+        return store.loadBookChecksum(collection, bookId, errors);
+    }
+
+    @Override
+    public void loadAnnotatedPages(BookCollection collection, Book book, List<String> errors) throws IOException {
+        store.loadAnnotatedPages(collection, book, errors);
+    }
+
+    /**
+     * @param groups byte stream groups
+     * @return hash of the names, sizes and last modified times of the
+     *         streams in the groups, and the names of groups they hold
+     * @throws IOException if a group cannot be listed
+     */
+    private static String fingerprint(ByteStreamGroup... groups) throws IOException {
+        MessageDigest md;
+
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        for (ByteStreamGroup group : groups) {
+            // Listings are not in a defined order
+            TreeMap<String, String> entries = new TreeMap<>();
+
+            for (String name : group.listByteStreamNames()) {
+                entries.put(name, group.getSize(name) + "\t" + group.getLastModified(name));
+            }
+            for (String name : group.listByteStreamGroupNames()) {
+                entries.put(name, "-");
+            }
+
+            for (String name : entries.keySet()) {
+                md.update((name + "\t" + entries.get(name) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+
+            md.update((byte) 0);
+        }
+
+        return Hex.encodeHexString(md.digest());
+    }
+
+    /**
+     * @return object from the snapshot or null if there is no usable snapshot
+     */
+    private <T> T readSnapshot(Path path, String fingerprint, Class<T> type, List<String> errors) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != VERSION || !in.readUTF().equals(fingerprint)) {
+                return null;
+            }
+
+            T result = type.cast(in.readObject());
+            @SuppressWarnings("unchecked")
+            List<String> loadErrors = (List<String>) in.readObject();
+
+            if (errors != null) {
+                errors.addAll(loadErrors);
+            }
+
+            return result;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // For example written before the model changed
+            logger.log(Level.FINE, "Ignoring snapshot " + path, e);
+            return null;
+        }
+    }
+
+    private void writeSnapshot(Path path, String fingerprint, Serializable object, List<String> errors, int start) {
+        List<String> loadErrors = errors == null ? new ArrayList<>() : new ArrayList<>(errors.subList(start,
+                errors.size()));
+        Runnable write = () -> {
+            try {
+                writeSnapshot(path, fingerprint, object, loadErrors);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to write snapshot " + path, e);
+            }
+        };
+
+        if (executor == null) {
+            write.run();
+        } else {
+            executor.execute(write);
+        }
+    }
+
+    private static void writeSnapshot(Path path, String fingerprint, Serializable object, List<String> errors)
+            throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp);
+                    ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(out))) {
+                oos.writeInt(VERSION);
+                oos.writeUTF(fingerprint);
+                oos.writeObject(object);
+                oos.writeObject(errors);
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean check(BookCollection collection, Book book, boolean checkBits, List<String> errors,
+            List<String> warnings) {
+        return store.check(collection, book, checkBits, errors, warnings);
+    }
+
+    @Override
+    public boolean check(BookCollection collection, boolean checkBits, List<String> errors, List<String> warnings) {
+        return store.check(collection, checkBits, errors, warnings);
+    }
+
+    @Override
+    public boolean updateChecksum(String collection, boolean force, List<String> errors) throws IOException {
+        return store.updateChecksum(collection, force, errors);
+    }
+
+    @Override
+    public boolean updateChecksum(BookCollection collection, boolean force, List<String> errors) throws IOException {
+        return store.updateChecksum(collection, force, errors);
+    }
+
+    @Override
+    public boolean updateAllChecksums(String collection, boolean force, List<String> errors) throws IOException {
+        return store.updateAllChecksums(collection, force, errors);
+    }
+
+    @Override
+    public boolean updateChecksum(String collection, String book, boolean force, List<String> errors)
+            throws IOException {
+        return store.updateChecksum(collection, book, force, errors);
+    }
+
+    @Override
+    public boolean updateChecksum(BookCollection collection, Book book, boolean force, List<String> errors)
+            throws IOException {
+        return store.updateChecksum(collection, book, force, errors);
+    }
+
+    @Override
+    public void generateAndWriteImageList(String collection, String book, boolean force, List<String> errors)
+            throws IOException {
+        store.generateAndWriteImageList(collection, book, force, errors);
+    }
+
+    @Override
+    public void generateAndWriteCropList(String collection, String book, boolean force, List<String> errors)
+            throws IOException {
+        store.generateAndWriteCropList(collection, book, force, errors);
+    }
+
+    @Override
+    public void cropImages(String collection, String book, boolean force, List<String> errors) throws IOException {
+        store.cropImages(collection, book, force, errors);
+    }
+
+    @Override
+    public void generateFileMap(String collection, String book, String newId, boolean hasFrontCover,
+            boolean hasBackCover, int numFrontmatter, int numEndmatter, int numMisc, List<String> errors)
+            throws IOException {
+        store.generateFileMap(collection, book, newId, hasFrontCover, hasBackCover, numFrontmatter, numEndmatter,
+                numMisc, errors);
+    }
+
+    @Override
+    public void validateXml(String collection, String book, List<String> errors, List<String> warnings)
+            throws IOException {
+        store.validateXml(collection, book, errors, warnings);
+    }
+
+    @Override
+    public void renameImages(String collection, String book, boolean changeId, boolean reverse, List<String> errors)
+            throws IOException {
+        store.renameImages(collection, book, changeId, reverse, errors);
+    }
+
+    @Override
+    public void renameTranscriptions(String collection, String book, boolean reverse, List<String> errors)
+            throws IOException {
+        store.renameTranscriptions(collection, book, reverse, errors);
+    }
+
+    @Override
+    public void generateTEITranscriptions(String collection, String book, List<String> errors,
+            List<String> warnings) throws IOException {
+        store.generateTEITranscriptions(collection, book, errors, warnings);
+    }
+
+    @Override
+    public void shallowCopy(ByteStreamGroup destination) throws IOException {
+        store.shallowCopy(destination);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
+import rosa.archive.model.SHA1Checksum;
 
 /**
  *
@@ -64,6 +65,38 @@ public interface Store {
      */
     Book loadBook(BookCollection collection, String bookId, List<String> errors) throws IOException;
 
+    /**
+     * Get only the checksums of a book, without loading the rest of the book.
+     *
+     * @param collection
+     *          the collection
+     * @param bookId
+     *          id of the book
+     * @param errors
+     *          list of errors encountered while loading
+     * @return
+     *          checksums of the book or null if the book or its checksums do not exist
+     * @throws IOException
+     *          if the archive cannot be read
+     */
+    SHA1Checksum loadBookChecksum(BookCollection collection, String bookId, List<String> errors) throws IOException;
+
+    /**
+     * Give a book read from somewhere other than this store, such as a
+     * snapshot, the AoR transcriptions it was written without. They are loaded
+     * the way this store loads them, on demand or all at once.
+     *
+     * @param collection
+     *          the collection
+     * @param book
+     *          book without annotated pages
+     * @param errors
+     *          list of errors encountered while loading
+     * @throws IOException
+     *          if the archive cannot be read
+     */
+    void loadAnnotatedPages(BookCollection collection, Book book, List<String> errors) throws IOException;
+
     /**
      * Check the internal data consistency and bit integrity of an archive within this Store.
      *
@@ -135,6 +168,22 @@ public interface Store {
      */
     boolean updateChecksum(BookCollection collection, boolean force, List<String> errors) throws IOException;
 
+    /**
+     * Update the checksum data in the archive for the specified collection and
+     * for every book in the collection. Items of all the books may be hashed
+     * at the same time.
+     *
+     * @param collection id of the book collection
+     * @param force force the update? If false, any items that are unchanged
+     *              will be skipped
+     * @param errors list of errors encountered while updating
+     * @return TRUE if all updates were successful, FALSE otherwise
+     * @throws IOException
+     *          if the collection does not exist, or the Store fails to load
+     *          an item in the archive
+     */
+    boolean updateAllChecksums(String collection, boolean force, List<String> errors) throws IOException;
+
     /**
      * Update the checksum data in the archive for the specified book in a
      * collection. If the update operation is NOT forced, then checksum
@@ -201,8 +250,9 @@ public interface Store {
     /**
      * Crop images in a book. If cropping information is available for the images
      * of a book, this operation will copy the images into the book's 'cropped'
-     * location and crop those images. ImageMagick is required for this
-     * operation.
+     * location and crop those images. Unless forced, cropped images which are
+     * newer than their source image and the cropping information are kept, so
+     * an interrupted operation can be run again to finish it.
      *
      * @param collection id of the collection
      * @param book id of the book
@@ -1,6 +1,5 @@
 package rosa.archive.core;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -20,9 +19,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +39,7 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import rosa.archive.core.check.BookChecker;
 import rosa.archive.core.check.BookCollectionChecker;
+import rosa.archive.core.serialize.AORAnnotatedPageSerializer;
 import rosa.archive.core.serialize.SerializerSet;
 import rosa.archive.core.util.*;
 import rosa.archive.model.ArchiveItemType;
@@ -68,7 +74,6 @@ import rosa.archive.model.aor.*;
 
 import com.google.inject.Inject;
 
-import javax.imageio.ImageIO;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -78,14 +83,21 @@ import javax.xml.transform.stream.StreamResult;
  *
  */
 public class StoreImpl implements Store, ArchiveConstants {
+    private static final Logger logger = Logger.getLogger(StoreImpl.class.getName());
     private static final ArchiveNameParser parser = new ArchiveNameParser();
     private static final CachingUrlResourceResolver aorResourceResolver = new CachingUrlResourceResolver();
+    private static final long MB = 1024 * 1024;
 
     private final SerializerSet serializers;
     private final ByteStreamGroup base;
     private final BookCollectionChecker collectionChecker;
     private final BookChecker bookChecker;
+    private final ExecutorService loadExecutor;
+    // Megabytes of heap which crops of all books being cropped at once may use, half of the heap
+    private final int cropMemory;
+    private final Semaphore cropPermits;
     private boolean loadDeprecated;
+    private boolean lazyAnnotatedPages;
 
     /**
      * @param serializers object containing all required serializers
@@ -97,11 +109,42 @@ public class StoreImpl implements Store, ArchiveConstants {
     @Inject
     public StoreImpl(SerializerSet serializers, BookChecker bookChecker, BookCollectionChecker collectionChecker,
             ByteStreamGroup base, boolean loadDeprecated) {
+        this(serializers, bookChecker, collectionChecker, base, loadDeprecated, null);
+    }
+
+    /**
+     * Create a Store that loads and hashes the items of a book in parallel. The
+     * executor is shared by all loads and is not shut down by the Store, so its
+     * size bounds the number of items read at once.
+     *
+     * @param serializers object containing all required serializers
+     * @param bookChecker object that knows how to validate the contents of a book
+     * @param collectionChecker knows how to validate contents of a book collection
+     * @param base byte stream group representing the base of the archive
+     * @param loadDeprecated load deprecated files
+     * @param loadExecutor executor used to load and hash items of a book, NULL to do so sequentially
+     */
+    public StoreImpl(SerializerSet serializers, BookChecker bookChecker, BookCollectionChecker collectionChecker,
+            ByteStreamGroup base, boolean loadDeprecated, ExecutorService loadExecutor) {
         this.serializers = serializers;
         this.base = base;
         this.collectionChecker = collectionChecker;
         this.bookChecker = bookChecker;
         this.loadDeprecated = loadDeprecated;
+        this.loadExecutor = loadExecutor;
+        this.cropMemory = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 2 / MB));
+        this.cropPermits = new Semaphore(cropMemory, true);
+    }
+
+    /**
+     * Load the AoR annotated pages of a book only when they are needed. Errors
+     * reading a page are then logged rather than returned by loadBook, so this
+     * is meant for serving books rather than checking them.
+     *
+     * @param lazyAnnotatedPages whether to load annotated pages on demand
+     */
+    public void setLazyAnnotatedPages(boolean lazyAnnotatedPages) {
+        this.lazyAnnotatedPages = lazyAnnotatedPages;
     }
 
     @Override
@@ -215,6 +258,21 @@ public class StoreImpl implements Store, ArchiveConstants {
         return collection;
     }
 
+    @Override
+    public SHA1Checksum loadBookChecksum(BookCollection collection, String bookId, List<String> errors)
+            throws IOException {
+        errors = nonNullList(errors);
+
+        if (!base.hasByteStreamGroup(collection.getId())
+                || !base.getByteStreamGroup(collection.getId()).hasByteStreamGroup(bookId)) {
+            return null;
+        }
+
+        ByteStreamGroup bookStreams = base.getByteStreamGroup(collection.getId()).getByteStreamGroup(bookId);
+
+        return loadItem(bookId + SHA1SUM, bookStreams, SHA1Checksum.class, errors);
+    }
+
     @Override
     public Book loadBook(BookCollection collection, String bookId, List<String> errors) throws IOException {
         errors = nonNullList(errors);
@@ -232,52 +290,262 @@ public class StoreImpl implements Store, ArchiveConstants {
 
         ByteStreamGroup bookStreams = byteStreams.getByteStreamGroup(bookId);
         Book book = new Book();
-
-        book.setId(bookId);
-        book.setImages(loadItem(bookId + IMAGES, bookStreams, ImageList.class, errors));
-        book.setCroppedImages(loadItem(bookId + IMAGES_CROP, bookStreams, ImageList.class, errors));
-        book.setCropInfo(loadItem(bookId + CROP, bookStreams, CropInfo.class, errors));
-        book.setBookStructure(loadItem(bookId + REDUCED_TAGGING, bookStreams, BookStructure.class, errors));
-        book.setChecksum(loadItem(bookId + SHA1SUM, bookStreams, SHA1Checksum.class, errors));
-        book.setIllustrationTagging(loadItem(bookId + IMAGE_TAGGING, bookStreams, IllustrationTagging.class, errors));
-        book.setManualNarrativeTagging(loadItem(bookId + NARRATIVE_TAGGING_MAN, bookStreams, NarrativeTagging.class,
-                errors));
-        book.setAutomaticNarrativeTagging(loadItem(bookId + NARRATIVE_TAGGING, bookStreams, NarrativeTagging.class,
-                errors));
-        book.setTranscription(loadItem(bookId + TRANSCRIPTION + XML_EXT, bookStreams, Transcription.class, errors));
-        book.setBookMetadata(loadItem(bookId + METADATA, bookStreams, BookMetadata.class, errors));
+        ItemLoader loader = new ItemLoader(bookStreams);
+
+        // Items are queued in a fixed order so errors are reported in the same order
+        // whether or not they are loaded in parallel.
+        Future<ImageList> images = loader.load(bookId + IMAGES, ImageList.class);
+        Future<ImageList> croppedImages = loader.load(bookId + IMAGES_CROP, ImageList.class);
+        Future<CropInfo> cropInfo = loader.load(bookId + CROP, CropInfo.class);
+        Future<BookStructure> structure = loader.load(bookId + REDUCED_TAGGING, BookStructure.class);
+        Future<SHA1Checksum> checksum = loader.load(bookId + SHA1SUM, SHA1Checksum.class);
+        Future<IllustrationTagging> illustrationTagging = loader.load(bookId + IMAGE_TAGGING,
+                IllustrationTagging.class);
+        Future<NarrativeTagging> manualNarrativeTagging = loader.load(bookId + NARRATIVE_TAGGING_MAN,
+                NarrativeTagging.class);
+        Future<NarrativeTagging> automaticNarrativeTagging = loader.load(bookId + NARRATIVE_TAGGING,
+                NarrativeTagging.class);
+        Future<Transcription> transcription = loader.load(bookId + TRANSCRIPTION + XML_EXT, Transcription.class);
+        Future<BookMetadata> metadata = loader.load(bookId + METADATA, BookMetadata.class);
 
         List<String> content = bookStreams.listByteStreamNames();
-        book.setContent(content.toArray(new String[]{}));
-
-        // For all image lists, add in dimensions of missing images
-        setMissingDimensions(book.getImages(), collection.getMissingImage());
-        setMissingDimensions(book.getCroppedImages(), collection.getMissingImage());
-
-        List<AnnotatedPage> pages = book.getAnnotatedPages();
 
         // Handle permission and description in all languages
-        for (String lang : collection.getAllSupportedLanguages()) {
+        String[] langs = collection.getAllSupportedLanguages();
+        List<Future<Permission>> permissions = new ArrayList<>();
+        List<Future<DeprecatedBookMetadata>> deprecatedDescriptions = new ArrayList<>();
+        List<Future<BookDescription>> descriptions = new ArrayList<>();
+
+        for (String lang : langs) {
             String perm_name = bookId + PERMISSION + lang + HTML_EXT;
-            book.addPermission(loadItem(perm_name, bookStreams, Permission.class, errors), lang);
-            
+            permissions.add(loader.load(perm_name, Permission.class));
+
             String descr_name = bookId + DESCRIPTION + lang + XML_EXT;
-            
+
             if (loadDeprecated) {
-                book.addDeprecatedBookMetadata(loadItem(descr_name, bookStreams, DeprecatedBookMetadata.class, errors), lang);
+                deprecatedDescriptions.add(loader.load(descr_name, DeprecatedBookMetadata.class));
             }
-            
-            book.addBookDescription(loadItem(descr_name, bookStreams, BookDescription.class, errors), lang);
+
+            descriptions.add(loader.load(descr_name, BookDescription.class));
         }
 
         // Handle AoR annotations
+        List<String> pageNames = annotatedPageNames(content);
+        List<Future<AnnotatedPage>> pages = new ArrayList<>();
+        List<Future<AnnotatedPageHeader>> pageHeaders = new ArrayList<>();
+
+        for (String name : pageNames) {
+            if (lazyAnnotatedPages) {
+                pageHeaders.add(loader.loadHeader(name));
+            } else {
+                pages.add(loader.load(name, AnnotatedPage.class));
+            }
+        }
+
+        try {
+            book.setId(bookId);
+            book.setImages(loader.get(images));
+            book.setCroppedImages(loader.get(croppedImages));
+            book.setCropInfo(loader.get(cropInfo));
+            book.setBookStructure(loader.get(structure));
+            book.setChecksum(loader.get(checksum));
+            book.setIllustrationTagging(loader.get(illustrationTagging));
+            book.setManualNarrativeTagging(loader.get(manualNarrativeTagging));
+            book.setAutomaticNarrativeTagging(loader.get(automaticNarrativeTagging));
+            book.setTranscription(loader.get(transcription));
+            book.setBookMetadata(loader.get(metadata));
+            book.setContent(content.toArray(new String[]{}));
+
+            // For all image lists, add in dimensions of missing images
+            setMissingDimensions(book.getImages(), collection.getMissingImage());
+            setMissingDimensions(book.getCroppedImages(), collection.getMissingImage());
+
+            for (int i = 0; i < langs.length; i++) {
+                book.addPermission(loader.get(permissions.get(i)), langs[i]);
+
+                if (loadDeprecated) {
+                    book.addDeprecatedBookMetadata(loader.get(deprecatedDescriptions.get(i)), langs[i]);
+                }
+
+                book.addBookDescription(loader.get(descriptions.get(i)), langs[i]);
+            }
+
+            for (Future<AnnotatedPage> page : pages) {
+                book.getAnnotatedPages().add(loader.get(page));
+            }
+
+            if (lazyAnnotatedPages) {
+                book.setAnnotatedPageLoader(new LazyAnnotatedPageLoader(bookStreams, getAll(loader, pageHeaders)));
+            }
+        } finally {
+            loader.finish(errors);
+        }
+
+        return book;
+    }
+
+    @Override
+    public void loadAnnotatedPages(BookCollection collection, Book book, List<String> errors) throws IOException {
+        errors = nonNullList(errors);
+
+        ByteStreamGroup bookStreams = base.getByteStreamGroup(collection.getId()).getByteStreamGroup(book.getId());
+
+        // Headers written with the book are still good
+        if (lazyAnnotatedPages && book.getAnnotatedPageHeaders() != null) {
+            book.setAnnotatedPageLoader(new LazyAnnotatedPageLoader(bookStreams, book.getAnnotatedPageHeaders()));
+            return;
+        }
+
+        ItemLoader loader = new ItemLoader(bookStreams);
+        List<Future<AnnotatedPage>> pages = new ArrayList<>();
+        List<Future<AnnotatedPageHeader>> pageHeaders = new ArrayList<>();
+
+        // In the order loadBook finds them
+        for (String name : annotatedPageNames(bookStreams.listByteStreamNames())) {
+            if (lazyAnnotatedPages) {
+                pageHeaders.add(loader.loadHeader(name));
+            } else {
+                pages.add(loader.load(name, AnnotatedPage.class));
+            }
+        }
+
+        try {
+            if (lazyAnnotatedPages) {
+                book.setAnnotatedPageLoader(new LazyAnnotatedPageLoader(bookStreams, getAll(loader, pageHeaders)));
+            } else {
+                book.setAnnotatedPages(getAll(loader, pages));
+            }
+        } finally {
+            loader.finish(errors);
+        }
+    }
+
+    private <T> List<T> getAll(ItemLoader loader, List<Future<T>> tasks) throws IOException {
+        List<T> result = new ArrayList<>();
+
+        for (Future<T> task : tasks) {
+            result.add(loader.get(task));
+        }
+
+        return result;
+    }
+
+    private List<String> annotatedPageNames(List<String> content) {
+        List<String> result = new ArrayList<>();
+
         for (String name : content) {
             if (parser.getArchiveItemType(name) == ArchiveItemType.TRANSCRIPTION_AOR) {
-                pages.add(loadItem(name, bookStreams, AnnotatedPage.class, errors));
+                result.add(name);
             }
         }
 
-        return book;
+        return result;
+    }
+
+    /**
+     * Loads the items of a single byte stream group, either on the load executor or
+     * immediately in the calling thread if there is no load executor. Each item
+     * gets its own list of errors so that errors can be reported in the order the
+     * items were requested.
+     */
+    private class ItemLoader {
+        private final ByteStreamGroup bsg;
+        private final List<Future<?>> tasks;
+        private final List<List<String>> taskErrors;
+
+        ItemLoader(ByteStreamGroup bsg) {
+            this.bsg = bsg;
+            this.tasks = new ArrayList<>();
+            this.taskErrors = new ArrayList<>();
+        }
+
+        <T extends HasId> Future<T> load(String name, Class<T> type) {
+            return submit(errors -> loadItem(name, bsg, type, errors));
+        }
+
+        Future<AnnotatedPageHeader> loadHeader(String name) {
+            return submit(errors -> loadAnnotatedPageHeader(name, bsg, errors));
+        }
+
+        private <T> Future<T> submit(Function<List<String>, T> item) {
+            List<String> errors = new ArrayList<>();
+            FutureTask<T> task = new FutureTask<>(() -> item.apply(errors));
+
+            tasks.add(task);
+            taskErrors.add(errors);
+
+            if (loadExecutor == null) {
+                task.run();
+            } else {
+                loadExecutor.execute(task);
+            }
+
+            return task;
+        }
+
+        <T> T get(Future<T> task) throws IOException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + bsg.name(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw new IOException("Failed to load item in " + bsg.name(), e.getCause());
+            }
+        }
+
+        /**
+         * Cancel any outstanding tasks and gather errors in request order.
+         *
+         * @param errors list of errors to add to
+         */
+        void finish(List<String> errors) {
+            for (int i = 0; i < tasks.size(); i++) {
+                Future<?> task = tasks.get(i);
+
+                if (!task.isDone()) {
+                    task.cancel(false);
+                } else if (!task.isCancelled()) {
+                    errors.addAll(taskErrors.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads annotated pages of a book as they are requested. The headers of
+     * the pages, read when the book is loaded, say which item holds the page
+     * of an image.
+     */
+    private class LazyAnnotatedPageLoader implements AnnotatedPageLoader {
+        private final ByteStreamGroup bsg;
+        private final List<AnnotatedPageHeader> headers;
+
+        LazyAnnotatedPageLoader(ByteStreamGroup bsg, List<AnnotatedPageHeader> headers) {
+            this.bsg = bsg;
+            this.headers = Collections.unmodifiableList(headers);
+        }
+
+        @Override
+        public List<AnnotatedPageHeader> headers() {
+            return headers;
+        }
+
+        @Override
+        public AnnotatedPage load(String name) {
+            List<String> errors = new ArrayList<>();
+            AnnotatedPage page = loadItem(name, bsg, AnnotatedPage.class, errors);
+
+            if (!errors.isEmpty()) {
+                logger.warning("Errors loading annotated page [" + bsg.name() + ":" + name + "]: " + errors);
+            }
+
+            return page;
+        }
     }
 
     private void setMissingDimensions(ImageList images, BookImage missingImage) {
@@ -342,6 +610,53 @@ public class StoreImpl implements Store, ArchiveConstants {
         return updateChecksum(checksums, collectionStreams, force, errors);
     }
 
+    @Override
+    public boolean updateAllChecksums(String collection, boolean force, List<String> errors) throws IOException {
+        errors = nonNullList(errors);
+        BookCollection col = loadBookCollection(collection, errors);
+
+        if (col == null) {
+            return false;
+        }
+
+        ChecksumEngine engine = new ChecksumEngine(loadExecutor, HashAlgorithm.SHA1);
+        ByteStreamGroup colStreams = base.getByteStreamGroup(collection);
+        List<ChecksumUpdate> updates = new ArrayList<>();
+        boolean success = true;
+
+        try {
+            // Start hashing everything before waiting on any of it
+            updates.add(new ChecksumUpdate(newChecksumIfAbsent(col.getChecksum(), collection), colStreams,
+                    force, engine));
+
+            for (String book : listBooks(collection)) {
+                ByteStreamGroup bookStreams = colStreams.getByteStreamGroup(book);
+                SHA1Checksum checksums = loadItem(book + SHA1SUM, bookStreams, SHA1Checksum.class, errors);
+
+                updates.add(new ChecksumUpdate(newChecksumIfAbsent(checksums, book), bookStreams, force, engine));
+            }
+
+            for (ChecksumUpdate update : updates) {
+                success &= update.finish(errors);
+            }
+        } finally {
+            updates.forEach(ChecksumUpdate::cancel);
+        }
+
+        logger.info(collection + ": " + engine);
+
+        return success;
+    }
+
+    private SHA1Checksum newChecksumIfAbsent(SHA1Checksum checksums, String id) {
+        if (checksums == null) {
+            checksums = new SHA1Checksum();
+            checksums.setId(id + SHA1SUM);
+        }
+
+        return checksums;
+    }
+
     @Override
     public boolean updateChecksum(String collection, String book, boolean force, List<String> errors)
             throws IOException {
@@ -459,8 +774,12 @@ public class StoreImpl implements Store, ArchiveConstants {
         CropInfo cropInfo = b.getCropInfo();
         ImageList images = b.getImages();
 
-        // Crop images using ImageMagick, 4 at a time
-        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        // Crops newer than their source and the crop information are kept
+        // unless forced, so an interrupted run can be restarted
+        long cropInfoLastMod = bookStreams.getLastModified(book + CROP);
+        List<String> cropErrors = Collections.synchronizedList(new ArrayList<>());
+        List<BookImage> toCrop = new ArrayList<>();
+
         for (BookImage image : images) {
             if (image.isMissing()) {
                 continue;
@@ -473,16 +792,89 @@ public class StoreImpl implements Store, ArchiveConstants {
                 continue;
             }
 
-            Runnable cropper = new CropRunnable(bookStreams.id(), image, cropping, CROPPED_DIR, errors);
-            executorService.execute(cropper);
+            long cropLastMod = cropGroup.getLastModified(image.getId());
+
+            if (!force && cropLastMod >= bookStreams.getLastModified(image.getId())
+                    && cropLastMod >= cropInfoLastMod) {
+                logger.fine("Skipping up to date crop [" + image.getId() + "]");
+                continue;
+            }
+
+            toCrop.add(image);
         }
-        executorService.shutdown();
+
+        int threads = cropThreads(toCrop);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        AtomicInteger done = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+
+        logger.info("Cropping " + toCrop.size() + " images of [" + collection + ":" + book + "] on " + threads
+                + " threads");
 
         try {
-            executorService.awaitTermination(30, TimeUnit.MINUTES);
+            for (BookImage image : toCrop) {
+                Runnable cropper = new CropRunnable(bookStreams.id(), image,
+                        cropInfo.getCropDataForPage(image.getId()), CROPPED_DIR, cropErrors);
+
+                int permits = cropPermits(image);
+
+                tasks.add(executorService.submit(() -> {
+                    cropPermits.acquire(permits);
+
+                    try {
+                        cropper.run();
+                    } finally {
+                        cropPermits.release(permits);
+                    }
+
+                    logger.info("Cropped [" + image.getId() + "] " + done.incrementAndGet() + "/" + toCrop.size());
+                    return null;
+                }));
+            }
+
+            for (Future<?> task : tasks) {
+                task.get();
+            }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             errors.add("Cropping was interrupted!\n" + stacktrace(e));
+        } catch (ExecutionException e) {
+            errors.add("Cropping failed!\n" + stacktrace(e));
+        } finally {
+            executorService.shutdownNow();
+            errors.addAll(cropErrors);
+        }
+    }
+
+    /**
+     * Decoding a crop needs memory for its pixels and the TIFF writer needs
+     * about as much again. Each crop holds that much of the crop memory while it
+     * runs, which is shared by all books cropped at once.
+     *
+     * @param image image to crop
+     * @return megabytes of crop memory needed, at most all of it
+     */
+    private int cropPermits(BookImage image) {
+        long bytes = 8L * image.getWidth() * image.getHeight();
+
+        return (int) Math.max(1, Math.min(cropMemory, (bytes + MB - 1) / MB));
+    }
+
+    /**
+     * Only start as many threads as crops of the largest image fit in the crop
+     * memory.
+     *
+     * @param images images to crop
+     * @return number of threads to crop with
+     */
+    private int cropThreads(List<BookImage> images) {
+        int largest = 1;
+
+        for (BookImage image : images) {
+            largest = Math.max(largest, cropPermits(image));
         }
+
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), cropMemory / largest));
     }
 
     @Override
@@ -1125,12 +1517,31 @@ public class StoreImpl implements Store, ArchiveConstants {
      */
     private List<BookImage> buildImageList(String collection, String book, boolean addMissing,
             ByteStreamGroup bookStreams) throws IOException {
-        List<BookImage> images = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        List<Future<int[]>> dimensionTasks = new ArrayList<>();
+
+        // Read the image headers on the load executor if there is one
         for (String file : bookStreams.listByteStreamNames()) {
             if (parser.getArchiveItemType(file) == ArchiveItemType.IMAGE) {
+                Path path = Paths.get(bookStreams.id()).resolve(file);
+                FutureTask<int[]> task = new FutureTask<>(() -> getImageDimensions(path));
 
-                int[] dimensions = getImageDimensions(Paths.get(bookStreams.id()).resolve(file));
-                file = file.trim();
+                if (loadExecutor == null) {
+                    task.run();
+                } else {
+                    loadExecutor.execute(task);
+                }
+
+                files.add(file);
+                dimensionTasks.add(task);
+            }
+        }
+
+        List<BookImage> images = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                int[] dimensions = getDimensions(dimensionTasks.get(i));
+                String file = files.get(i).trim();
 
                 BookImage img = new BookImage();
                 img.setId(file);
@@ -1143,6 +1554,8 @@ public class StoreImpl implements Store, ArchiveConstants {
                 System.out.println(img.toString());
                 images.add(img);
             }
+        } finally {
+            dimensionTasks.forEach(t -> t.cancel(true));
         }
         Collections.sort(images, BookImageComparator.instance());
 
@@ -1154,6 +1567,23 @@ public class StoreImpl implements Store, ArchiveConstants {
         return images;
     }
 
+    private static int[] getDimensions(Future<int[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading image dimensions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IOException("Failed to read image dimensions", e.getCause());
+        }
+    }
+
     private int[] getMissingImageDimensions(String collection) throws IOException {
         return base.getByteStreamGroup(collection).hasByteStream(MISSING_IMAGE) ? getImageDimensions(Paths
                 .get(base.getByteStreamGroup(collection).id()).resolve(MISSING_IMAGE))
@@ -1225,13 +1655,7 @@ public class StoreImpl implements Store, ArchiveConstants {
      * @throws IOException if archive is not available
      */
     private static int[] getImageDimensions(Path path) throws IOException {
-        BufferedImage img = ImageIO.read(path.toFile());
-        
-        if (img == null) {
-            throw new IOException("Failed to load image: " + path);
-        }
-        
-        return new int[] {img.getWidth(), img.getHeight()};
+        return ImageUtil.readDimensions(path);
     }
 
     /**
@@ -1270,46 +1694,106 @@ public class StoreImpl implements Store, ArchiveConstants {
      */
     private boolean updateChecksum(SHA1Checksum checksums, ByteStreamGroup bsg, boolean force, List<String> errors)
             throws IOException {
-        boolean success = true;
+        ChecksumEngine engine = new ChecksumEngine(loadExecutor, HashAlgorithm.SHA1);
+        boolean result = new ChecksumUpdate(checksums, bsg, force, engine).finish(errors);
 
-        long checksumLastMod = bsg.getLastModified(checksums.getId());
-        Map<String, String> checksumMap = new HashMap<>();
+        logger.fine(bsg.name() + ": " + engine);
 
-        for (String streamName : bsg.listByteStreamNames()) {
-            // Do not record checksum for the checksum file!
-            if (streamName.equals(checksums.getId())) {
-                continue;
-            }
+        return result;
+    }
 
-            long lastMod = bsg.getLastModified(streamName);
-            String checksum = checksums.checksums().get(streamName);
+    /**
+     * Updates the checksums of a single byte stream group. Streams which need a
+     * new checksum are submitted to the checksum engine when the update is
+     * created, so the streams of many groups can be hashed at once.
+     */
+    private class ChecksumUpdate {
+        private final SHA1Checksum checksums;
+        private final ByteStreamGroup bsg;
+        private final Map<String, String> checksumMap;
+        private final Map<String, Future<String>> pending;
+
+        ChecksumUpdate(SHA1Checksum checksums, ByteStreamGroup bsg, boolean force, ChecksumEngine engine)
+                throws IOException {
+            this.checksums = checksums;
+            this.bsg = bsg;
+            this.checksumMap = new HashMap<>();
+            this.pending = new HashMap<>();
+
+            long checksumLastMod = bsg.getLastModified(checksums.getId());
+
+            for (String streamName : bsg.listByteStreamNames()) {
+                // Do not record checksum for the checksum file!
+                if (streamName.equals(checksums.getId())) {
+                    continue;
+                }
 
-            if (force || lastMod >= checksumLastMod || checksum == null) {
-                // Write checksum if it is out of date or doesn't exist or it is
-                // forced.
-                try (InputStream in = bsg.getByteStream(streamName)) {
+                long lastMod = bsg.getLastModified(streamName);
+                String checksum = checksums.checksums().get(streamName);
+
+                if (force || lastMod >= checksumLastMod || checksum == null) {
+                    // Write checksum if it is out of date or doesn't exist or it is
+                    // forced.
+                    pending.put(streamName, engine.submit(bsg, streamName));
+                } else if (lastMod < checksumLastMod) {
+                    // Keep if the item already has a checksum value that is
+                    // up-to-date AND it still exists in the archive.
+                    checksumMap.put(streamName, checksum);
+                }
+            }
+        }
 
-                    String checksumValue = ChecksumUtil.calculateChecksum(in, HashAlgorithm.SHA1);
-                    checksumMap.put(streamName, checksumValue);
+        /**
+         * Wait for the checksums of this group and write them out.
+         *
+         * @param errors list of errors found while calculating checksums
+         * @return if checksums were updated and written successfully
+         * @throws IOException if a byte stream could not be read
+         */
+        boolean finish(List<String> errors) throws IOException {
+            boolean success = true;
 
-                } catch (NoSuchAlgorithmException e) {
-                    errors.add("Failed to generate checksum. [" + bsg.name() + ":" + streamName + "]");
-                    success = false;
+            try {
+                for (Entry<String, Future<String>> entry : pending.entrySet()) {
+                    try {
+                        checksumMap.put(entry.getKey(), entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof NoSuchAlgorithmException) {
+                            errors.add("Failed to generate checksum. [" + bsg.name() + ":" + entry.getKey() + "]");
+                            success = false;
+                        } else if (e.getCause() instanceof IOException) {
+                            throw (IOException) e.getCause();
+                        } else if (e.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) e.getCause();
+                        } else {
+                            throw new IOException("Failed to generate checksum. [" + bsg.name() + ":"
+                                    + entry.getKey() + "]", e.getCause());
+                        }
+                    }
                 }
-            } else if (lastMod < checksumLastMod) {
-                // Keep if the item already has a checksum value that is
-                // up-to-date AND it still exists in the archive.
-                checksumMap.put(streamName, checksum);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while generating checksums for " + bsg.name(), e);
+            } finally {
+                cancel();
             }
+
+            // Replace old checksum map. This serves to remove all checksum entries
+            // that exist for
+            // files that are no longer in the archive.
+            checksums.checksums().clear();
+            checksums.checksums().putAll(checksumMap);
+
+            // Write out checksums only if nothing has failed yet.
+            return success && writeItem(checksums, bsg, SHA1Checksum.class, errors);
         }
-        // Replace old checksum map. This serves to remove all checksum entries
-        // that exist for
-        // files that are no longer in the archive.
-        checksums.checksums().clear();
-        checksums.checksums().putAll(checksumMap);
 
-        // Write out checksums only if nothing has failed yet.
-        return success && writeItem(checksums, bsg, SHA1Checksum.class, errors);
+        /**
+         * Stop hashing any streams which are not yet finished.
+         */
+        void cancel() {
+            pending.values().forEach(f -> f.cancel(true));
+        }
     }
 
     /**
@@ -1368,6 +1852,15 @@ public class StoreImpl implements Store, ArchiveConstants {
         }
     }
 
+    private AnnotatedPageHeader loadAnnotatedPageHeader(String name, ByteStreamGroup bsg, List<String> errors) {
+        try (InputStream in = bsg.getByteStream(name)) {
+            return AORAnnotatedPageSerializer.readHeader(in, name);
+        } catch (IOException e) {
+            errors.add("Failed to read item in archive. [" + name + "]\n" + stacktrace(e));
+            return new AnnotatedPageHeader(name, null, "", "");
+        }
+    }
+
     private String stacktrace(Exception e) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         e.printStackTrace(new PrintStream(out));
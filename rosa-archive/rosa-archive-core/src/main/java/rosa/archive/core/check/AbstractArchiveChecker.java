@@ -4,14 +4,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
 
 import rosa.archive.core.ArchiveConstants;
 import rosa.archive.core.ByteStreamGroup;
 import rosa.archive.core.serialize.SerializerSet;
-import rosa.archive.core.util.ChecksumUtil;
+import rosa.archive.core.util.ChecksumEngine;
 import rosa.archive.model.HasId;
 import rosa.archive.model.HashAlgorithm;
 import rosa.archive.model.SHA1Checksum;
@@ -20,7 +25,11 @@ import rosa.archive.model.SHA1Checksum;
  *
  */
 public abstract class AbstractArchiveChecker implements ArchiveConstants {
+    private static final Logger logger = Logger.getLogger(AbstractArchiveChecker.class.getName());
+
     protected final SerializerSet serializers;
+    private ExecutorService fixityExecutor;
+    private FixityLedger fixityLedger;
 
     /**
      * @param serializers set of all required serializers
@@ -29,6 +38,27 @@ public abstract class AbstractArchiveChecker implements ArchiveConstants {
         this.serializers = serializers;
     }
 
+    /**
+     * Hash the streams of a group in parallel when checking bit integrity. The
+     * executor is not shut down by the checker, so its size bounds the number
+     * of streams read at once.
+     *
+     * @param fixityExecutor executor used to hash streams, NULL to hash sequentially
+     */
+    public void setFixityExecutor(ExecutorService fixityExecutor) {
+        this.fixityExecutor = fixityExecutor;
+    }
+
+    /**
+     * Skip hashing streams which are unchanged since the ledger recorded them
+     * as verified, and record streams as they are verified.
+     *
+     * @param fixityLedger ledger of verified streams, NULL to always hash
+     */
+    public void setFixityLedger(FixityLedger fixityLedger) {
+        this.fixityLedger = fixityLedger;
+    }
+
     /**
      * Read an item from the archive, as identified by {@code item.getId()}. This ensures
      * that the object in the archive is readable. It does not check the bit integrity of
@@ -115,6 +145,8 @@ public abstract class AbstractArchiveChecker implements ArchiveConstants {
      * If a ByteStreamGroup contains stored checksum values for the other streams, the checksum
      * of each stream is calculated and compared to the stored value. Otherwise, the stream is
      * read. In either case, each stream is checked to see if it can be opened and read successfully.
+     * Streams which the fixity ledger shows are unchanged since they were last verified are
+     * skipped with a warning.
      *
      * @param bsg byte stream group
      * @param checksumName name of checksum item in this group
@@ -150,6 +182,11 @@ public abstract class AbstractArchiveChecker implements ArchiveConstants {
         }
 
         // Calculate checksum for all InputStreams, compare to stored values
+        ChecksumEngine engine = new ChecksumEngine(fixityExecutor, HashAlgorithm.SHA1);
+        Map<String, Future<String>> hashes = new LinkedHashMap<>();
+        Map<String, long[]> properties = new LinkedHashMap<>();
+        int skipped = 0;
+
         for (String streamId : streamIds) {
             // Do not validate checksum for checksum file...
             if (streamId.equalsIgnoreCase(checksumName)) {
@@ -161,24 +198,78 @@ public abstract class AbstractArchiveChecker implements ArchiveConstants {
                 continue;
             }
 
-            try (InputStream in = bsg.getByteStream(streamId)){
-                String hash = ChecksumUtil.calculateChecksum(in, HashAlgorithm.SHA1);
+            long[] props = {bsg.getSize(streamId), bsg.getLastModified(streamId)};
 
-                if (!storedHash.equalsIgnoreCase(hash)) {
-                    errors.add("Calculated hash value is different from stored value!\n"
-                                    + "    Calc:   {" + streamId + ", " + hash + "}\n"
-                                    + "    Stored: {" + streamId + ", " + storedHash + "}"
-                    );
-                }
+            if (fixityLedger != null
+                    && fixityLedger.isVerified(bsg.resolveName(streamId), props[0], props[1], storedHash)) {
+                skipped++;
+                continue;
+            }
+
+            properties.put(streamId, props);
+            hashes.put(streamId, engine.submit(bsg, streamId));
+        }
+
+        if (skipped > 0) {
+            warnings.add("Skipped " + skipped + " items unchanged since last verified. [" + bsg.name() + "]");
+        }
 
-            } catch (IOException | NoSuchAlgorithmException e) {
-                errors.add("Could not read item. [" + streamId + "]\n" + stacktrace(e));
+        try {
+            for (Map.Entry<String, Future<String>> entry : hashes.entrySet()) {
+                String streamId = entry.getKey();
+                String storedHash = SHA1Checksum.checksums().get(streamId);
+
+                try {
+                    String hash = entry.getValue().get();
+
+                    if (!storedHash.equalsIgnoreCase(hash)) {
+                        errors.add("Calculated hash value is different from stored value!\n"
+                                        + "    Calc:   {" + streamId + ", " + hash + "}\n"
+                                        + "    Stored: {" + streamId + ", " + storedHash + "}"
+                        );
+                        forget(bsg, streamId, errors);
+                    } else {
+                        remember(bsg, streamId, properties.get(streamId), storedHash, errors);
+                    }
+                } catch (ExecutionException e) {
+                    errors.add("Could not read item. [" + streamId + "]\n" + stacktrace(e));
+                    forget(bsg, streamId, errors);
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add("Interrupted while checking bit integrity. [" + bsg.name() + "]");
+        } finally {
+            hashes.values().forEach(f -> f.cancel(true));
+        }
+
+        if (engine.getFileCount() > 0) {
+            logger.fine(bsg.name() + ": " + engine);
         }
 
         return errors;
     }
 
+    private void remember(ByteStreamGroup bsg, String streamId, long[] props, String hash, List<String> errors) {
+        if (fixityLedger != null) {
+            try {
+                fixityLedger.record(bsg.resolveName(streamId), props[0], props[1], hash);
+            } catch (IOException e) {
+                errors.add("Failed to record verified item in fixity ledger. [" + streamId + "]\n" + stacktrace(e));
+            }
+        }
+    }
+
+    private void forget(ByteStreamGroup bsg, String streamId, List<String> errors) {
+        if (fixityLedger != null) {
+            try {
+                fixityLedger.remove(bsg.resolveName(streamId));
+            } catch (IOException e) {
+                errors.add("Failed to remove item from fixity ledger. [" + streamId + "]\n" + stacktrace(e));
+            }
+        }
+    }
+
     /**
      * Print the stacktrace to a String!
      *
@@ -61,9 +61,9 @@ public class BookChecker extends AbstractArchiveChecker {
     private static final LSResourceResolver resourceResolver = new CachingUrlResourceResolver();
     private static final String TEI_SCHEMA_RESOURCE = "/tei_ms.xsd";
 
-    private static Schema aorAnnotationSchema;
-    private static Schema teiSchema;
-    private static Schema desecriptionSchema;
+    private static volatile Schema aorAnnotationSchema;
+    private static volatile Schema teiSchema;
+    private static volatile Schema desecriptionSchema;
 
     /**
      * @param serializers all required serializers
@@ -0,0 +1,171 @@
+package rosa.archive.core.check;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record of byte streams whose bits were verified against their stored
+ * checksum. A stream which has the same size, last modified time, and stored
+ * checksum as when it was verified does not need to be hashed again.
+ *
+ * Each verification is appended to the ledger file as soon as it happens, so
+ * a check which is interrupted can be resumed without repeating work. Each
+ * line of the file is a stream id, size, last modified time, and checksum
+ * separated by tabs. A stream which failed verification is recorded with
+ * dashes in place of its properties.
+ */
+public class FixityLedger {
+    private static final String REMOVED = "-\t-\t-";
+
+    private final Path file;
+    private final Map<String, String> entries;
+
+    // Guarded by this
+    private BufferedWriter journal;
+
+    /**
+     * @param file ledger file
+     */
+    public FixityLedger(Path file) {
+        this.file = file;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Read the ledger file if it exists. Lines recorded later replace earlier
+     * lines for the same stream. The file is then rewritten without replaced
+     * or partial lines so that new lines can be appended to it.
+     *
+     * @throws IOException if the ledger cannot be read
+     */
+    public synchronized void load() throws IOException {
+        close();
+
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                int i = line.indexOf('\t');
+
+                // A partial line may be left by an interruption
+                if (i <= 0 || line.split("\t").length != 4) {
+                    continue;
+                }
+
+                String id = line.substring(0, i);
+                String value = line.substring(i + 1);
+
+                if (value.equals(REMOVED)) {
+                    entries.remove(id);
+                } else {
+                    entries.put(id, value);
+                }
+            }
+        }
+
+        compact();
+    }
+
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.write(entry.getKey() + "\t" + entry.getValue());
+                out.newLine();
+            }
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String value(long size, long lastModified, String checksum) {
+        return size + "\t" + lastModified + "\t" + checksum.toLowerCase();
+    }
+
+    /**
+     * @param id stream id
+     * @param size size of the stream
+     * @param lastModified last modified time of the stream
+     * @param checksum checksum stored for the stream
+     * @return whether the stream was verified when it had these properties
+     */
+    public boolean isVerified(String id, long size, long lastModified, String checksum) {
+        return value(size, lastModified, checksum).equals(entries.get(id));
+    }
+
+    /**
+     * Record that a stream was verified and append it to the ledger file.
+     *
+     * @param id stream id
+     * @param size size of the stream
+     * @param lastModified last modified time of the stream
+     * @param checksum checksum stored for the stream
+     * @throws IOException if the ledger file cannot be written
+     */
+    public synchronized void record(String id, long size, long lastModified, String checksum) throws IOException {
+        String value = value(size, lastModified, checksum);
+
+        if (!value.equals(entries.put(id, value))) {
+            append(id, value);
+        }
+    }
+
+    /**
+     * Forget a stream so that it will be verified again.
+     *
+     * @param id stream id
+     * @throws IOException if the ledger file cannot be written
+     */
+    public synchronized void remove(String id) throws IOException {
+        if (entries.remove(id) != null) {
+            append(id, REMOVED);
+        }
+    }
+
+    private void append(String id, String value) throws IOException {
+        if (journal == null) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+
+            journal = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+
+        journal.write(id + "\t" + value);
+        journal.newLine();
+        journal.flush();
+    }
+
+    /**
+     * @return number of streams in the ledger
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Close the ledger file. Recording another stream reopens it.
+     *
+     * @throws IOException if the ledger file cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+}
@@ -0,0 +1,847 @@
+package rosa.archive.core.serialize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.SAXException;
+
+import rosa.archive.core.util.Annotations;
+import rosa.archive.core.util.CachingUrlResourceResolver;
+import rosa.archive.model.aor.*;
+
+/**
+ * Reads an AoR transcription with a StAX stream reader instead of building a
+ * DOM. The page built is the same as the one built from a DOM, including the
+ * way nested elements are found, so the two can be used interchangeably.
+ *
+ * The transcription is not validated. Use a schema validator as a separate
+ * step when that is needed.
+ *
+ * An instance reads a single transcription and must not be shared.
+ */
+class AORAnnotatedPageReader implements AORAnnotatedPageConstants {
+    private static final ThreadLocal<XMLInputFactory> factories = new ThreadLocal<>();
+
+    private final XMLStreamReader reader;
+    private final AnnotatedPage page;
+
+    private int pageCount;
+    private int annotationCount;
+
+    /**
+     * Called for an element being read. The handler either reads the element
+     * up to its end tag or leaves it untouched.
+     */
+    @FunctionalInterface
+    private interface ElementHandler {
+        /**
+         * @param tag name of the element
+         * @return whether the element was read up to its end tag
+         * @throws XMLStreamException if the element cannot be read
+         */
+        boolean handle(String tag) throws XMLStreamException;
+    }
+
+    private AORAnnotatedPageReader(XMLStreamReader reader) {
+        this.reader = reader;
+        this.page = new AnnotatedPage();
+    }
+
+    /**
+     * @param is input stream of a transcription
+     * @param resolver resolves the DTD and any other external entities
+     * @param errors list of errors
+     * @return annotated page
+     * @throws IOException if the transcription cannot be parsed
+     */
+    static AnnotatedPage read(InputStream is, CachingUrlResourceResolver resolver, List<String> errors)
+            throws IOException {
+        XMLStreamReader reader = null;
+
+        try {
+            reader = factory(resolver).createXMLStreamReader(is);
+            return new AORAnnotatedPageReader(reader).readPage(errors);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Does not close the underlying stream
+                }
+            }
+        }
+    }
+
+    /**
+     * Read only the attributes of the page element, stopping there without
+     * reading the annotations.
+     *
+     * @param is input stream of a transcription
+     * @param resolver resolves the DTD and any other external entities
+     * @param name name of the item holding the transcription
+     * @return header, with a null page if there is no page element
+     * @throws IOException if the transcription cannot be parsed
+     */
+    static AnnotatedPageHeader readHeader(InputStream is, CachingUrlResourceResolver resolver, String name)
+            throws IOException {
+        XMLStreamReader reader = null;
+
+        try {
+            reader = factory(resolver).createXMLStreamReader(is);
+            return new AORAnnotatedPageReader(reader).readHeader(name);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Does not close the underlying stream
+                }
+            }
+        }
+    }
+
+    // Factories are not guaranteed to be thread safe, but are costly to find
+    private static XMLInputFactory factory(CachingUrlResourceResolver resolver) {
+        XMLInputFactory factory = factories.get();
+
+        if (factory == null) {
+            factory = XMLInputFactory.newFactory();
+
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+            factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+            factories.set(factory);
+        }
+
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> {
+            try {
+                return resolver.resolveEntity(publicId, expand(systemId, baseUri)).getByteStream();
+            } catch (SAXException | IOException e) {
+                throw new XMLStreamException("Failed to resolve " + systemId, e);
+            }
+        });
+
+        return factory;
+    }
+
+    /**
+     * Make a relative system id absolute, as a DOM parser does before asking
+     * its entity resolver. Without a base, the working directory is used.
+     */
+    private static String expand(String systemId, String baseUri) {
+        try {
+            if (new URI(systemId).isAbsolute()) {
+                return systemId;
+            }
+
+            URI base = baseUri == null ? Paths.get("").toAbsolutePath().toUri() : new URI(baseUri);
+            return base.resolve(systemId).toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return systemId;
+        }
+    }
+
+    private AnnotatedPageHeader readHeader(String name) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(TAG_PAGE)) {
+                return new AnnotatedPageHeader(name, attribute(ATTR_FILENAME), attribute(ATTR_PAGINATION),
+                        attribute(ATTR_SIGNATURE));
+            }
+        }
+
+        return new AnnotatedPageHeader(name, null, "", "");
+    }
+
+    private AnnotatedPage readPage(List<String> errors) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                readDescendants(this::readTopLevel);
+                break;
+            }
+        }
+
+        // Report the same errors as the DOM reader, which counts elements anywhere in the document
+        if (pageCount != 1) {
+            errors.add("Transcription file must have exactly ONE <page> element! Current document" +
+                    " has [" + pageCount + "]");
+
+            page.setPage(null);
+            page.setPagination(null);
+            page.setReader(null);
+            page.setSignature(null);
+        }
+
+        if (annotationCount != 1) {
+            errors.add("Transcription file must have ONE <annotation> element! Current document " +
+                    "has [" + annotationCount + "]");
+
+            page.getMarginalia().clear();
+            page.getUnderlines().clear();
+            page.getSymbols().clear();
+            page.getMarks().clear();
+            page.getNumerals().clear();
+            page.getErrata().clear();
+            page.getDrawings().clear();
+            page.getCalculations().clear();
+            page.getGraphs().clear();
+            page.getTables().clear();
+            page.getLinks().clear();
+        }
+
+        return page;
+    }
+
+    private boolean readTopLevel(String tag) throws XMLStreamException {
+        switch (tag) {
+            case TAG_PAGE:
+                if (pageCount++ == 0) {
+                    page.setPage(attribute(ATTR_FILENAME));
+                    page.setPagination(attribute(ATTR_PAGINATION));
+                    page.setReader(attribute(ATTR_READER));
+                    page.setSignature(attribute(ATTR_SIGNATURE));
+                }
+                return false;
+            case TAG_ANNOTATION:
+                if (annotationCount++ == 0) {
+                    readChildren(this::readAnnotation);
+                } else {
+                    skip();
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * IDs are assigned to annotations without one in the same way as the DOM
+     * reader.
+     *
+     * @see rosa.archive.core.util.Annotations#annotationId(String, String, int)
+     */
+    private boolean readAnnotation(String tag) throws XMLStreamException {
+        String id = attribute(ATTR_ID);
+        boolean hasId = !id.isEmpty();
+
+        Location loc = getLocation(attribute(ATTR_PLACE));
+        switch (tag) {
+            case TAG_MARGINALIA:
+                Marginalia marg = readMarginalia();
+                if (hasId) {
+                    marg.setId(id);
+                } else {
+                    marg.setId(Annotations.annotationId(page.getPage(), TAG_MARGINALIA, page.getMarginalia().size()), true);
+                }
+                page.getMarginalia().add(marg);
+                return true;
+            case TAG_UNDERLINE:
+                Underline u = new Underline(
+                        id,
+                        attribute(ATTR_TEXT),
+                        attribute(ATTR_METHOD),
+                        attribute(ATTR_TYPE),
+                        attribute(ATTR_LANGUAGE),
+                        Location.INTEXT
+                );
+                if (!hasId) {
+                    u.setId(Annotations.annotationId(page.getPage(), TAG_UNDERLINE, page.getUnderlines().size()), true);
+                }
+                page.getUnderlines().add(u);
+                return false;
+            case TAG_SYMBOL:
+                Symbol s = new Symbol(
+                        id,
+                        attribute(ATTR_TEXT),
+                        attribute(ATTR_NAME),
+                        attribute(ATTR_LANGUAGE),
+                        loc
+                );
+                if (!hasId) {
+                    s.setId(Annotations.annotationId(page.getPage(), TAG_SYMBOL, page.getSymbols().size()), true);
+                }
+                page.getSymbols().add(s);
+                return false;
+            case TAG_MARK:
+                Mark m = new Mark(
+                        id,
+                        attribute(ATTR_TEXT),
+                        attribute(ATTR_NAME),
+                        attribute(ATTR_METHOD),
+                        attribute(ATTR_LANGUAGE),
+                        loc
+                );
+                if (!hasId) {
+                    m.setId(Annotations.annotationId(page.getPage(), TAG_MARK, page.getMarks().size()), true);
+                }
+                page.getMarks().add(m);
+                return false;
+            case TAG_NUMERAL:
+                String text = attribute(ATTR_TEXT);
+                Numeral n = new Numeral(
+                        id,
+                        text,
+                        readText(null),
+                        null,
+                        loc
+                );
+                if (!hasId) {
+                    n.setId(Annotations.annotationId(page.getPage(), TAG_NUMERAL, page.getNumerals().size()), true);
+                }
+                page.getNumerals().add(n);
+                return true;
+            case TAG_ERRATA:
+                Errata e = new Errata(
+                        id,
+                        attribute(ATTR_LANGUAGE),
+                        attribute(ATTR_COPYTEXT),
+                        attribute(ATTR_AMENDEDTEXT)
+                );
+                if (!hasId) {
+                    e.setId(Annotations.annotationId(page.getPage(), TAG_ERRATA, page.getErrata().size()), true);
+                }
+                page.getErrata().add(e);
+                return false;
+            case TAG_DRAWING:
+                Drawing d = readDrawing(id, loc);
+                if (!hasId) {
+                    d.setId(Annotations.annotationId(page.getPage(), TAG_DRAWING, page.getDrawings().size()), true);
+                }
+                page.getDrawings().add(d);
+                return true;
+            case TAG_CALCULATION:
+                Calculation c = readCalculation(id, loc);
+                if (!hasId) {
+                    c.setId(Annotations.annotationId(page.getPage(), TAG_CALCULATION, page.getCalculations().size()), true);
+                }
+                page.getCalculations().add(c);
+                return true;
+            case TAG_GRAPH:
+                Graph g = readGraph(id, loc);
+                if (!hasId) {
+                    g.setId(Annotations.annotationId(page.getPage(), TAG_GRAPH, page.getGraphs().size()), true);
+                }
+                page.getGraphs().add(g);
+                return true;
+            case TAG_TABLE:
+                Table t = readTable(id, loc);
+                if (!hasId) {
+                    t.setId(Annotations.annotationId(page.getPage(), TAG_TABLE, page.getTables().size()), true);
+                }
+                page.getTables().add(t);
+                return true;
+            case TAG_PHYSICAL_LINK:
+                PhysicalLink l = readPhysicalLink();
+                if (!hasId) {
+                    l.setId(Annotations.annotationId(page.getPage(), TAG_PHYSICAL_LINK, page.getLinks().size()), true);
+                }
+                page.getLinks().add(l);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Marginalia readMarginalia() throws XMLStreamException {
+        Marginalia marg = new Marginalia();
+
+        marg.setDate(attribute(ATTR_DATE));
+        marg.setHand(attribute(ATTR_HAND));
+        marg.setOtherReader(attribute(ATTR_OTHER_READER));
+        marg.setTopic(attribute(ATTR_TOPIC));
+        marg.setReferencedText(attribute(ATTR_ANCHOR_TEXT));
+        marg.setContinuesTo(attribute(ATTR_MARG_CONT_TO));
+        marg.setContinuesFrom(attribute(ATTR_MARG_CONT_FROM));
+        marg.setToTranscription(attribute(ATTR_MARG_TO_TRANSC));
+        marg.setFromTranscription(attribute(ATTR_MARG_FROM_TRANSC));
+        marg.setInternalRef(attribute(ATTR_INTERNAL_REF));
+        marg.setColor(attribute(ATTR_COLOR));
+
+        readChildren(tag -> {
+            switch (tag) {
+                case TAG_LANGUAGE:
+                    MarginaliaLanguage lang = new MarginaliaLanguage();
+                    lang.setLang(attribute(ATTR_IDENT));
+
+                    readDescendants(t -> {
+                        if (t.equals(TAG_POSITION)) {
+                            lang.getPositions().add(readPosition());
+                            return true;
+                        }
+                        return false;
+                    });
+
+                    marg.getLanguages().add(lang);
+                    return true;
+                case TAG_TRANSLATION:
+                    String translation = attribute(ATTR_TRANSLATION_TEXT);
+                    String content = readText(null);
+                    marg.setTranslation(translation.isEmpty() ? content : translation);
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        return marg;
+    }
+
+    private Position readPosition() throws XMLStreamException {
+        Position pos = new Position();
+        pos.setPlace(Location.valueOf(attribute(ATTR_PLACE).toUpperCase().trim()));
+
+        // book_orientation is integer value: (0|90|180|270)
+        String orientation = attribute(ATTR_BOOK_ORIENTATION);
+        if (orientation.matches("\\d+")) {
+            pos.setOrientation(Integer.parseInt(orientation));
+        }
+
+        readChildren(tag -> {
+            switch (tag) {
+                case TAG_PERSON:
+                    pos.getPeople().add(attribute(ATTR_NAME, ATTR_PERSON_NAME));
+                    return false;
+                case TAG_BOOK:
+                    pos.getBooks().add(attribute(ATTR_TITLE));
+                    return false;
+                case TAG_LOCATION:
+                    pos.getLocations().add(attribute(ATTR_NAME, ATTR_LOCATION_NAME));
+                    return false;
+                case TAG_MARGINALIA_TEXT:
+                    pos.getTexts().add(readText(TAG_MARGINALIA_REF));
+                    return true;
+                case TAG_EMPHASIS:
+                    StringBuilder id = new StringBuilder(page.getPage());
+                    id.append('_');
+                    id.append(TAG_EMPHASIS);
+                    id.append('_');
+                    id.append(pos.getEmphasis().size() + 1);
+
+                    pos.getEmphasis().add(new Underline(id.toString(),
+                            attribute(ATTR_TEXT, ATTR_EMPHASIS_TEXT),
+                            attribute(ATTR_METHOD),
+                            attribute(ATTR_TYPE),
+                            attribute(ATTR_LANGUAGE),
+                            pos.getPlace()
+                    ));
+                    return false;
+                case TAG_X_REF:
+                    pos.getxRefs().add(new XRef(attribute(ATTR_PERSON), attribute(ATTR_BOOK_TITLE, ATTR_TITLE),
+                            attribute(ATTR_TEXT), attribute(ATTR_LANGUAGE)));
+                    return false;
+                case TAG_SYMBOL_IN_TEXT:
+                    pos.getSymbols().add(attribute(ATTR_NAME));
+                    return false;
+                case TAG_INTERNAL_REF:
+                    pos.getInternalRefs().add(readInternalRef());
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        return pos;
+    }
+
+    private InternalReference readInternalRef() throws XMLStreamException {
+        InternalReference ir = new InternalReference();
+
+        ir.setText(attribute(ATTR_TEXT));
+        ir.setAnchorPrefix(attribute(ATTR_ANCHOR_PREFIX));
+        ir.setAnchorSuffix(attribute(ATTR_ANCHOR_SUFFIX));
+
+        readChildren(tag -> {
+            if (!tag.equals(TAG_TARGET)) {
+                return false;
+            }
+
+            String filename = attribute(ATTR_FILENAME);
+            String bookId = attribute(ATTR_BOOK_ID);
+
+            if (!filename.isEmpty() || !bookId.isEmpty()) {
+                ir.addTargets(new ReferenceTarget(filename, bookId, attribute(ATTR_TEXT)));
+            } else if (!attribute(ATTR_REF).isEmpty()) {
+                ir.addTargets(new ReferenceTarget(
+                        attribute(ATTR_REF),
+                        attribute(ATTR_TEXT),
+                        attribute(ATTR_PREFIX),
+                        attribute(ATTR_SUFFIX)
+                ));
+            }
+            return false;
+        });
+
+        return ir;
+    }
+
+    private Drawing readDrawing(String id, Location loc) throws XMLStreamException {
+        Drawing d = new Drawing(
+                id,
+                attribute(ATTR_ANCHOR_TEXT),
+                loc,
+                attribute(ATTR_NAME),
+                attribute(ATTR_METHOD),
+                attribute(ATTR_LANGUAGE)
+        );
+        d.setType(attribute(ATTR_TYPE));
+
+        readDescendants(tag -> {
+            if (!tag.equals(TAG_TEXT)) {
+                return false;
+            }
+
+            String hand = attribute(ATTR_HAND);
+            String language = attribute(ATTR_LANGUAGE);
+            String anchor = attribute(ATTR_ANCHOR_TEXT);
+
+            d.getTexts().add(new TextEl(hand, language, anchor, readText(null)));
+            return true;
+        });
+
+        return d;
+    }
+
+    private Table readTable(String id, Location loc) throws XMLStreamException {
+        Table table = new Table(id, loc);
+
+        table.setType(attribute(ATTR_TYPE));
+        table.setAggregatedInfo(attribute(ATTR_AGGREGATED_INFO));
+
+        List<TableHeader> headers = new ArrayList<>();
+        List<TableCell> cols = new ArrayList<>();
+        int[] rows = {0};
+
+        readChildren(tag -> {
+            switch (tag) {
+                case TAG_TR:
+                    rows[0]++;
+                    readDescendants(t -> {
+                        if (t.equals(TAG_TH)) {
+                            String label = attribute(ATTR_LABEL);
+                            String anchorText = attribute(ATTR_ANCHOR_TEXT);
+                            String anchorData = attribute(ATTR_ANCHOR_DATA);
+                            headers.add(new TableHeader(label, anchorText, anchorData, readText(null)));
+                            return true;
+                        } else if (t.equals(TAG_TD)) {
+                            String anchorText = attribute(ATTR_ANCHOR_TEXT);
+                            String anchorData = attribute(ATTR_ANCHOR_DATA);
+                            cols.add(new TableCell(0, cols.size(), anchorText, anchorData, readText(null)));
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                case TAG_TEXT:
+                    String hand = attribute(ATTR_HAND);
+                    String language = attribute(ATTR_LANGUAGE);
+                    String anchor = attribute(ATTR_ANCHOR_TEXT);
+                    table.getTexts().add(new TextEl(hand, language, anchor, readText(null).trim()));
+                    return true;
+                case TAG_PERSON:
+                    table.getPeople().add(attribute(ATTR_NAME));
+                    return false;
+                case TAG_BOOK:
+                    table.getBooks().add(attribute(ATTR_TITLE));
+                    return false;
+                case TAG_LOCATION:
+                    table.getLocations().add(attribute(ATTR_NAME));
+                    return false;
+                case TAG_SYMBOL_IN_TEXT:
+                    table.getSymbols().add(attribute(ATTR_NAME));
+                    return false;
+                case TAG_INTERNAL_REF:
+                    table.getInternalRefs().add(readInternalRef());
+                    return true;
+                case TAG_TRANSLATION:
+                    table.setTranslation(readText(null));
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        // Like the DOM reader, each row gets the first header and all cells of the table
+        for (int i = 0; i < rows[0]; i++) {
+            if (!headers.isEmpty()) {
+                TableHeader h = headers.get(0);
+                table.getColHeaders().add(new TableHeader(h.getHeaderLabel(), h.getHeaderAnchorText(),
+                        h.getHeaderAnchorData(), h.getHeaderContent()));
+            }
+
+            for (TableCell c : cols) {
+                table.getCells().add(new TableCell(c.row, c.col, c.anchorText, c.anchorData, c.content));
+            }
+        }
+
+        return table;
+    }
+
+    private Graph readGraph(String id, Location loc) throws XMLStreamException {
+        Graph g = new Graph(
+                id,
+                attribute(ATTR_TYPE),
+                getOrientationAngle(attribute(ATTR_BOOK_ORIENTATION)),
+                loc,
+                attribute(ATTR_METHOD)
+        );
+
+        readChildren(tag -> {
+            switch (tag) {
+                case TAG_NODE:
+                    String nodeId = attribute(ATTR_ID);
+                    String person = attribute(ATTR_PERSON);
+                    String anchor = attribute(ATTR_ANCHOR_TEXT);
+                    g.addNode(new GraphNode(nodeId, person, anchor, readText(null).trim()));
+                    return true;
+                case TAG_LINK:
+                    g.addLink(new AnnotationLink(
+                            null,
+                            attribute(ATTR_FROM),
+                            attribute(ATTR_TO),
+                            attribute(ATTR_RELATIONSHIP)
+                    ));
+                    return false;
+                case TAG_GRAPH_TEXT:
+                    g.addGraphText(readGraphText());
+                    return true;
+                case TAG_INTERNAL_REF:
+                    g.getInternalRefs().add(readInternalRef());
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        return g;
+    }
+
+    private GraphText readGraphText() throws XMLStreamException {
+        GraphText gt = new GraphText();
+
+        readChildren(tag -> {
+            switch (tag) {
+                case TAG_NOTE:
+                    String id = attribute(ATTR_ID);
+                    String hand = attribute(ATTR_HAND);
+                    String language = attribute(ATTR_LANGUAGE);
+                    String link = attribute(ATTR_INTERNAL_LINK);
+                    String anchor = attribute(ATTR_ANCHOR_TEXT);
+                    gt.addNote(new GraphNote(id, hand, language, link, anchor, readText(null)));
+                    return true;
+                case TAG_PERSON:
+                    gt.addPerson(attribute(ATTR_NAME));
+                    return false;
+                case TAG_BOOK:
+                    gt.addBook(attribute(ATTR_TITLE));
+                    return false;
+                case TAG_LOCATION:
+                    gt.addLocation(attribute(ATTR_NAME));
+                    return false;
+                case TAG_SYMBOL_IN_TEXT:
+                    gt.addSymbol(attribute(ATTR_NAME));
+                    return false;
+                case TAG_TRANSLATION:
+                    gt.addTranslation(readText(null));
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        return gt;
+    }
+
+    private Calculation readCalculation(String id, Location loc) throws XMLStreamException {
+        Calculation calc = new Calculation(
+                id,
+                attribute(ATTR_TYPE),
+                getOrientationAngle(attribute(ATTR_BOOK_ORIENTATION)),
+                loc,
+                attribute(ATTR_METHOD),
+                attribute(ATTR_INTERNAL_REF)
+        );
+
+        // Content is all text in the calculation, read alongside the anchors
+        StringBuilder content = new StringBuilder();
+        int depth = 1;
+
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (reader.getLocalName().equals(TAG_CALCULATION_ANCHOR)) {
+                        calc.addData(attribute(ATTR_DATA));
+                    }
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    content.append(reader.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        calc.setContent(content.toString());
+
+        return calc;
+    }
+
+    private PhysicalLink readPhysicalLink() throws XMLStreamException {
+        PhysicalLink link = new PhysicalLink();
+
+        readDescendants(tag -> {
+            if (tag.equals(TAG_RELATION)) {
+                link.getLinks().add(new AnnotationLink(
+                        null,
+                        attribute(ATTR_FROM),
+                        attribute(ATTR_TO),
+                        attribute(ATTR_TYPE)
+                ));
+            }
+            return false;
+        });
+
+        return link;
+    }
+
+    private Location getLocation(String loc) {
+        if (loc.isEmpty()) {
+            return null;
+        }
+        for (Location l : Location.values()) {
+            if (l.name().equalsIgnoreCase(loc)) {
+                return l;
+            }
+        }
+        return null;
+    }
+
+    private int getOrientationAngle(String val) {
+        try {
+            return Integer.parseInt(val);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param name attribute name
+     * @return value of attribute of the current element, empty if not present
+     */
+    private String attribute(String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * @param name attribute name
+     * @param fallback attribute name used if the first is empty
+     * @return value of one of the attributes of the current element
+     */
+    private String attribute(String name, String fallback) {
+        String value = attribute(name);
+        return value.isEmpty() ? attribute(fallback) : value;
+    }
+
+    /**
+     * Pass each child element of the current element to the handler. Child
+     * elements not read by the handler are skipped. Afterwards the reader is at
+     * the end tag of the current element.
+     */
+    private void readChildren(ElementHandler handler) throws XMLStreamException {
+        for (;;) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (!handler.handle(reader.getLocalName())) {
+                    skip();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pass each element below the current element to the handler in document
+     * order. Elements not read by the handler are descended into. Afterwards
+     * the reader is at the end tag of the current element.
+     */
+    private void readDescendants(ElementHandler handler) throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (!handler.handle(reader.getLocalName())) {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Move the reader from the start tag of the current element to its end tag.
+     */
+    private void skip() throws XMLStreamException {
+        readDescendants(tag -> false);
+    }
+
+    /**
+     * Read all text below the current element, leaving the reader at its end
+     * tag.
+     *
+     * @param unsupported name of a child element which is not supported or null
+     * @return text content of the element
+     */
+    private String readText(String unsupported) throws XMLStreamException {
+        StringBuilder result = new StringBuilder();
+        int depth = 1;
+
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth == 1 && reader.getLocalName().equals(unsupported)) {
+                        throw new UnsupportedOperationException("Element not yet supported: " + unsupported);
+                    }
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    result.append(reader.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return result.toString();
+    }
+}
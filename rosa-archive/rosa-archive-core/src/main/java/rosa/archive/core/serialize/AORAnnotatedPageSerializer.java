@@ -36,9 +36,43 @@ public class AORAnnotatedPageSerializer implements Serializer<AnnotatedPage>, Ar
     /** Caches DTDs for write validation */
     private static final CachingUrlResourceResolver resourceResolver = new CachingUrlResourceResolver();
 
+    /**
+     * The transcription is streamed rather than read into a DOM, and is not
+     * validated.
+     *
+     * @see AORAnnotatedPageReader
+     */
     @Override
     public AnnotatedPage read(InputStream is, final List<String> errors) throws IOException {
+        if (is == null) {
+            return null;
+        }
+
+        return AORAnnotatedPageReader.read(is, resourceResolver, errors);
+    }
 
+    /**
+     * Read the header of a transcription without reading its annotations.
+     *
+     * @param is input stream
+     * @param name name of the item holding the transcription
+     * @return header of the transcription
+     * @throws IOException if the transcription cannot be parsed
+     */
+    public static AnnotatedPageHeader readHeader(InputStream is, String name) throws IOException {
+        return AORAnnotatedPageReader.readHeader(is, resourceResolver, name);
+    }
+
+    /**
+     * Read a transcription by building a DOM. This is slower than
+     * {@link #read(InputStream, List)}, which must build the same page.
+     *
+     * @param is input stream
+     * @param errors list of errors
+     * @return annotated page
+     * @throws IOException if the transcription cannot be parsed
+     */
+    AnnotatedPage readDocument(InputStream is, final List<String> errors) throws IOException {
         if (is == null) {
             return null;
         }
@@ -0,0 +1,172 @@
+package rosa.archive.core.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rosa.archive.core.ByteStreamGroup;
+import rosa.archive.core.FSByteStreamGroup;
+import rosa.archive.model.HashAlgorithm;
+
+/**
+ * Hashes byte streams, many at once if given an executor. The executor is not
+ * shut down by the engine, so its size bounds the number of streams read at
+ * once and should suit the disk being read.
+ *
+ * Byte streams backed by files are read through a file channel. The engine
+ * keeps track of how much was hashed so that throughput can be reported.
+ */
+public class ChecksumEngine {
+    private final ExecutorService executor;
+    private final HashAlgorithm algorithm;
+    private final AtomicLong fileCount;
+    private final AtomicLong byteCount;
+    private final long start;
+
+    /**
+     * @param executor executor used to hash streams, NULL to hash in the calling thread
+     * @param algorithm hashing algorithm to use
+     */
+    public ChecksumEngine(ExecutorService executor, HashAlgorithm algorithm) {
+        this.executor = executor;
+        this.algorithm = algorithm;
+        this.fileCount = new AtomicLong();
+        this.byteCount = new AtomicLong();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Start hashing a byte stream. Without an executor, the stream is hashed
+     * before this method returns.
+     *
+     * @param bsg byte stream group containing the stream
+     * @param name name of the byte stream
+     * @return hash value as hex string
+     */
+    public Future<String> submit(ByteStreamGroup bsg, String name) {
+        FutureTask<String> task = new FutureTask<>(() -> checksum(bsg, name));
+
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+
+        return task;
+    }
+
+    private String checksum(ByteStreamGroup bsg, String name) throws Exception {
+        String result;
+        long size;
+
+        if (bsg instanceof FSByteStreamGroup) {
+            Path path = Paths.get(bsg.id()).resolve(name);
+
+            result = ChecksumUtil.calculateChecksum(path, algorithm);
+            size = Files.size(path);
+        } else {
+            try (CountingInputStream in = new CountingInputStream(bsg.getByteStream(name))) {
+                result = ChecksumUtil.calculateChecksum(in, algorithm);
+                size = in.count;
+            }
+        }
+
+        fileCount.incrementAndGet();
+        byteCount.addAndGet(size);
+
+        return result;
+    }
+
+    /**
+     * @return number of streams hashed
+     */
+    public long getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * @return number of bytes hashed
+     */
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
+    /**
+     * @return seconds since the engine was created
+     */
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * @return megabytes hashed per second since the engine was created
+     */
+    public double getMegabytesPerSecond() {
+        return rate(getByteCount() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * @return streams hashed per second since the engine was created
+     */
+    public double getFilesPerSecond() {
+        return rate(getFileCount());
+    }
+
+    private double rate(double amount) {
+        double elapsed = getElapsedSeconds();
+
+        return elapsed == 0 ? 0 : amount / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hashed %d files, %.1f MB in %.1f s (%.1f MB/s, %.1f files/s)", getFileCount(),
+                getByteCount() / (1024.0 * 1024.0), getElapsedSeconds(), getMegabytesPerSecond(),
+                getFilesPerSecond());
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b != -1) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+
+            if (n > 0) {
+                count += n;
+            }
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+
+            return skipped;
+        }
+    }
+}
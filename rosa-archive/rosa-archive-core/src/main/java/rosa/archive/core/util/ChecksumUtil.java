@@ -6,6 +6,10 @@ import rosa.archive.model.HashAlgorithm;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -13,6 +17,11 @@ import java.security.NoSuchAlgorithmException;
  *
  */
 public class ChecksumUtil {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Direct buffers are expensive to allocate, so each thread keeps one
+    private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
 
     /**
      * Compute the hash of an input stream using the specified algorithm.
@@ -31,4 +40,35 @@ public class ChecksumUtil {
         return Hex.encodeHexString(md.digest());
     }
 
+    /**
+     * Compute the hash of a file using the specified algorithm. The file is
+     * read through a channel in large blocks. The buffer is direct so the
+     * channel reads straight into it rather than through a temporary direct
+     * buffer of its own. The digest still copies each block onto the heap in
+     * small pieces, so the bytes are copied once, as with a heap buffer.
+     *
+     * @param path file
+     * @param algorithm hashing algorithm to use
+     * @return hash value as hex string
+     *
+     * @throws java.io.IOException file inaccessible
+     * @throws java.security.NoSuchAlgorithmException hash algorithm not supported
+     */
+    public static String calculateChecksum(Path path, HashAlgorithm algorithm)
+            throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = DigestUtils.getDigest(algorithm.toString());
+        ByteBuffer buffer = buffers.get();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer.clear();
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return Hex.encodeHexString(md.digest());
+    }
 }
@@ -1,17 +1,29 @@
 package rosa.archive.core.util;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
 import java.util.List;
 
 import rosa.archive.model.BookImage;
 import rosa.archive.model.CropData;
 
 import javax.imageio.ImageIO;
-
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Crop a single image. Only the cropped region of the source image is decoded.
+ * The cropped image is written to a temporary file first, so a cropped image
+ * which exists is always complete.
+ */
 public class CropRunnable implements Runnable {
     private BookImage image;
     private CropData crop;
@@ -25,7 +37,7 @@ public class CropRunnable implements Runnable {
      * @param image image to crop
      * @param crop crop information
      * @param cropDir directory to save the cropped image
-     * @param errors list of errors
+     * @param errors list of errors, must be safe to add to from several threads
      */
     public CropRunnable(String basePath, BookImage image, CropData crop, String cropDir, List<String> errors) {
         this.image = image;
@@ -39,21 +51,8 @@ public class CropRunnable implements Runnable {
     @Override
     public void run() {
         Path sourcePath = basePath.resolve(image.getId());
-        Path destPath = basePath.resolve(cropDir).resolve(image.getId());
-
-        BufferedImage im;
-
-        try {
-            im = ImageIO.read(Files.newInputStream(sourcePath));
-        } catch (IOException e) {
-            errors.add("Failed to read image. [" + basePath.toString() + "]");
-            return;
-        }
-
-        // Check image dimensions against BookImage
-        if (image.getWidth() != im.getWidth() || image.getHeight() != im.getHeight()) {
-            errors.add("Image dimensions from Book does not match actual image dimensions.");
-        }
+        Path cropPath = basePath.resolve(cropDir);
+        Path destPath = cropPath.resolve(image.getId());
 
         int[] points = calcPoints();
 
@@ -62,16 +61,59 @@ public class CropRunnable implements Runnable {
         int w = points[3] - points[2];
         int h = points[1] - points[0];
 
+        BufferedImage im;
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(sourcePath.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+
+            if (readers == null || !readers.hasNext()) {
+                errors.add("Failed to read image. [" + sourcePath.toString() + "]");
+                return;
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(in, true, true);
+
+                // Check image dimensions against BookImage
+                if (image.getWidth() != reader.getWidth(0) || image.getHeight() != reader.getHeight(0)) {
+                    errors.add("Image dimensions from Book does not match actual image dimensions.");
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(x, y, w, h));
+
+                im = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            errors.add("Failed to read image. [" + sourcePath.toString() + "]");
+            return;
+        }
+
+        Path tmpPath = cropPath.resolve(image.getId() + ".tmp");
+
         try {
             // Create crop directory if it does not already exist
-            if (!Files.exists(basePath.resolve(cropDir))) {
-                Files.createDirectory(basePath.resolve(cropDir));
-            }
+            Files.createDirectories(cropPath);
 
-            ImageIO.write(im.getSubimage(x, y, w, h), "tif", Files.newOutputStream(destPath));
+            try (OutputStream out = Files.newOutputStream(tmpPath)) {
+                if (!ImageIO.write(im, "tif", out)) {
+                    throw new IOException("No TIFF writer available");
+                }
+            }
 
+            Files.move(tmpPath, destPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             errors.add("Failed to write cropped image to file. [" + destPath.toString() + "]");
+
+            try {
+                Files.deleteIfExists(tmpPath);
+            } catch (IOException ignored) {
+                // Left for the next run to replace
+            }
         }
     }
 
@@ -86,4 +128,4 @@ public class CropRunnable implements Runnable {
                 (int) (image.getWidth() - (image.getWidth() * crop.getRight()))
         };
     }
-}
\ No newline at end of file
+}
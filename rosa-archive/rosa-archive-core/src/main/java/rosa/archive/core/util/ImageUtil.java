@@ -0,0 +1,47 @@
+package rosa.archive.core.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Read properties of images without decoding their pixels.
+ */
+public class ImageUtil {
+    /**
+     * Read the dimensions of the first image in a file from its header.
+     *
+     * @param path
+     *            file path of image
+     * @return array: [width, height]
+     * @throws IOException
+     *             if the file cannot be read or is not a supported image
+     */
+    public static int[] readDimensions(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            if (in == null) {
+                throw new IOException("Failed to load image: " + path);
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+
+            if (!readers.hasNext()) {
+                throw new IOException("Failed to load image: " + path);
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(in, true, true);
+
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -21,10 +21,10 @@ public class TranscriptionSplitter {
 
     /**
      * Split up transcription data for a book into fragments according to page and
-     * column.
+     * column. The result is kept by the transcription, so it is only split once.
      *
      * @param transcription transcription object from a book
-     * @return transcription text split per page
+     * @return unmodifiable map of transcription text split per page
      * 
      * @see #split(String)
      */
@@ -34,7 +34,14 @@ public class TranscriptionSplitter {
             return Collections.emptyMap();
         }
 
-        return split(transcription.getXML());
+        Map<String, String> result = transcription.getPages();
+
+        if (result == null) {
+            result = Collections.unmodifiableMap(split(transcription.getXML()));
+            transcription.setPages(result);
+        }
+
+        return result;
     }
 
     /**
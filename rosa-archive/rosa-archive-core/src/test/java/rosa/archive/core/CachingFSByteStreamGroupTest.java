@@ -0,0 +1,166 @@
+package rosa.archive.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import rosa.archive.model.Book;
+
+/**
+ * @see rosa.archive.core.CachingFSByteStreamGroup
+ */
+public class CachingFSByteStreamGroupTest extends BaseArchiveTest {
+    private FSDirectoryCache cache;
+
+    @After
+    public void closeCache() throws Exception {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /**
+     * Metadata of the caching group must match the plain group.
+     */
+    @Test
+    public void sameAsUncached() throws Exception {
+        cache = new FSDirectoryCache(Long.MAX_VALUE, false);
+
+        ByteStreamGroup plain = base.getByteStreamGroup(VALID_COLLECTION).getByteStreamGroup(VALID_BOOK_LUDWIGXV7);
+        ByteStreamGroup cached = new CachingFSByteStreamGroup(basePath, cache).getByteStreamGroup(VALID_COLLECTION)
+                .getByteStreamGroup(VALID_BOOK_LUDWIGXV7);
+
+        assertEquals(plain.numberOfByteStreams(), cached.numberOfByteStreams());
+        assertEquals(plain.numberOfByteStreamGroups(), cached.numberOfByteStreamGroups());
+        assertEquals(new HashSet<>(plain.listByteStreamNames()), new HashSet<>(cached.listByteStreamNames()));
+        assertEquals(new HashSet<>(plain.listByteStreamIds()), new HashSet<>(cached.listByteStreamIds()));
+        assertEquals(new HashSet<>(plain.listByteStreamGroupNames()),
+                new HashSet<>(cached.listByteStreamGroupNames()));
+
+        for (String name : plain.listByteStreamNames()) {
+            assertTrue(cached.hasByteStream(name));
+            assertFalse(cached.hasByteStreamGroup(name));
+            assertEquals(plain.getLastModified(name), cached.getLastModified(name));
+            assertEquals(plain.getSize(name), cached.getSize(name));
+        }
+
+        assertFalse(cached.hasByteStream("missing"));
+        assertEquals(-1L, cached.getLastModified("missing"));
+        assertEquals(-1L, cached.getSize("missing"));
+        assertFalse(cached.getByteStreamGroup("missing").hasByteStream("missing"));
+    }
+
+    /**
+     * A book loaded through the caching group must be the same.
+     */
+    @Test
+    public void loadBook() throws Exception {
+        cache = new FSDirectoryCache(Long.MAX_VALUE, false);
+
+        StoreImpl cachedStore = new StoreImpl(serializers, bookChecker, collectionChecker,
+                new CachingFSByteStreamGroup(basePath, cache), true);
+        List<String> errors = new ArrayList<>();
+
+        Book book = cachedStore.loadBook(cachedStore.loadBookCollection(VALID_COLLECTION, errors),
+                VALID_BOOK_LUDWIGXV7, errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(loadValidLudwigXV7(), book);
+    }
+
+    /**
+     * Writes through the group are seen immediately.
+     */
+    @Test
+    public void writesInvalidate() throws Exception {
+        cache = new FSDirectoryCache(Long.MAX_VALUE, false);
+
+        ByteStreamGroup cached = new CachingFSByteStreamGroup(basePath, cache).getByteStreamGroup(VALID_COLLECTION);
+        int count = cached.numberOfByteStreams();
+
+        try (OutputStream out = cached.getOutputStream("new.txt")) {
+            out.write(new byte[10]);
+        }
+
+        assertEquals(count + 1, cached.numberOfByteStreams());
+        assertEquals(10, cached.getSize("new.txt"));
+
+        cached.renameByteStream("new.txt", "renamed.txt");
+        assertFalse(cached.hasByteStream("new.txt"));
+        assertTrue(cached.hasByteStream("renamed.txt"));
+
+        ByteStreamGroup group = cached.newByteStreamGroup("group");
+        assertTrue(cached.hasByteStreamGroup("group"));
+        assertEquals(0, group.numberOfByteStreams());
+
+        cached.copyByteStream("renamed.txt", group);
+        assertTrue(group.hasByteStream("renamed.txt"));
+    }
+
+    /**
+     * Changes made directly to the file system are seen once a snapshot is too
+     * old, or once the watch service reports them.
+     */
+    @Test
+    public void externalChanges() throws Exception {
+        Path dir = basePath.resolve(VALID_COLLECTION);
+
+        cache = new FSDirectoryCache(0, false);
+        ByteStreamGroup cached = new CachingFSByteStreamGroup(basePath, cache).getByteStreamGroup(VALID_COLLECTION);
+
+        assertFalse(cached.hasByteStream("external.txt"));
+        Thread.sleep(5);
+        Files.write(dir.resolve("external.txt"), "a".getBytes(StandardCharsets.UTF_8));
+        assertTrue(cached.hasByteStream("external.txt"));
+        cache.close();
+
+        cache = new FSDirectoryCache(Long.MAX_VALUE, true);
+        cached = new CachingFSByteStreamGroup(basePath, cache).getByteStreamGroup(VALID_COLLECTION);
+
+        assertFalse(cached.hasByteStream("watched.txt"));
+        Files.write(dir.resolve("watched.txt"), "a".getBytes(StandardCharsets.UTF_8));
+
+        // Watch services may poll, so allow some time
+        long deadline = System.currentTimeMillis() + 30000;
+
+        while (!cached.hasByteStream("watched.txt") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(cached.hasByteStream("watched.txt"));
+    }
+
+    /**
+     * Only the most recently used snapshots are kept, and dropping the snapshot
+     * of one directory leaves the others.
+     */
+    @Test
+    public void boundedSnapshots() throws Exception {
+        Path first = basePath.resolve(VALID_COLLECTION);
+        Path second = first.resolve(VALID_BOOK_LUDWIGXV7);
+
+        cache = new FSDirectoryCache(Long.MAX_VALUE, false, 1);
+
+        assertFalse(cache.get(second).entries().containsKey("kept.txt"));
+        Files.write(second.resolve("kept.txt"), "a".getBytes(StandardCharsets.UTF_8));
+        cache.invalidate(first);
+        assertFalse(cache.get(second).entries().containsKey("kept.txt"));
+
+        // Each snapshot evicts the other
+        assertFalse(cache.get(first).entries().containsKey("evicted.txt"));
+        assertTrue(cache.get(second).entries().containsKey("kept.txt"));
+        Files.write(first.resolve("evicted.txt"), "a".getBytes(StandardCharsets.UTF_8));
+        assertTrue(cache.get(first).entries().containsKey("evicted.txt"));
+    }
+}
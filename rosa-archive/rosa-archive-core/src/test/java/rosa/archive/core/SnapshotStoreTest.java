@@ -0,0 +1,154 @@
+package rosa.archive.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+
+/**
+ * @see rosa.archive.core.SnapshotStore
+ */
+public class SnapshotStoreTest extends BaseArchiveTest {
+    private Path snapshotPath;
+    private StoreImpl loader;
+
+    @Before
+    public void setupSnapshots() throws Exception {
+        snapshotPath = tempFolder.newFolder().toPath();
+        loader = spy(store);
+    }
+
+    private Book load(Store snapshots, String bookId) throws Exception {
+        List<String> errors = new ArrayList<>();
+        BookCollection col = snapshots.loadBookCollection(VALID_COLLECTION, errors);
+        Book book = snapshots.loadBook(col, bookId, errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(loadValidCollection(), col);
+
+        return book;
+    }
+
+    /**
+     * A book and collection are parsed once, and afterwards read from their
+     * snapshots, even by another store.
+     */
+    @Test
+    public void snapshotsReused() throws Exception {
+        store.setLazyAnnotatedPages(true);
+        loader.setLazyAnnotatedPages(true);
+
+        Book expected = loadValidFolgersHa2();
+        expected.getAnnotatedPages();
+
+        Book book = load(new SnapshotStore(loader, base, snapshotPath), VALID_BOOK_FOLGERSHA2);
+        book.getAnnotatedPages();
+        assertEquals(expected, book);
+        assertTrue(Files.exists(snapshotPath.resolve(VALID_COLLECTION + ".snapshot")));
+        assertTrue(Files.exists(snapshotPath.resolve(VALID_COLLECTION).resolve(VALID_BOOK_FOLGERSHA2 + ".snapshot")));
+
+        book = load(new SnapshotStore(loader, base, snapshotPath), VALID_BOOK_FOLGERSHA2);
+        book.getAnnotatedPages();
+        assertEquals(expected, book);
+
+        verify(loader, times(1)).loadBookCollection(eq(VALID_COLLECTION), anyListOf(String.class));
+        verify(loader, times(1)).loadBook(any(BookCollection.class), eq(VALID_BOOK_FOLGERSHA2),
+                anyListOf(String.class));
+    }
+
+    /**
+     * Writing a snapshot does not load the annotated pages of a book which loads
+     * them on demand, and a book read from the snapshot loads them on demand.
+     */
+    @Test
+    public void lazyPagesNotLoaded() throws Exception {
+        loader.setLazyAnnotatedPages(true);
+
+        String image = VALID_BOOK_FOLGERSHA2 + ".001r.tif";
+        Book expected = loadValidFolgersHa2();
+        int count = expected.getAnnotatedPages().size();
+
+        Book book = load(new SnapshotStore(loader, base, snapshotPath), VALID_BOOK_FOLGERSHA2);
+        Book snapshotBook = load(new SnapshotStore(loader, base, snapshotPath), VALID_BOOK_FOLGERSHA2);
+
+        verify(loader, times(1)).loadBook(any(BookCollection.class), eq(VALID_BOOK_FOLGERSHA2),
+                anyListOf(String.class));
+
+        // Only pages not yet loaded are missed once their items are gone
+        Path bookPath = basePath.resolve(VALID_COLLECTION).resolve(VALID_BOOK_FOLGERSHA2);
+
+        for (String name : book.getContent()) {
+            if (name.contains(".aor.") && !name.endsWith(".001r.xml")) {
+                Files.delete(bookPath.resolve(name));
+            }
+        }
+
+        assertTrue(count > 1);
+        assertEquals(expected.getAnnotationPage(image), book.getAnnotationPage(image));
+        assertEquals(expected.getAnnotationPage(image), snapshotBook.getAnnotationPage(image));
+        assertEquals(count, snapshotBook.getAnnotatedPageCount());
+        assertEquals("322", snapshotBook.getAnnotatedPageHeader(VALID_BOOK_FOLGERSHA2 + ".001v.tif").getPagination());
+        assertEquals(1, book.getAnnotatedPages().size());
+        assertEquals(1, snapshotBook.getAnnotatedPages().size());
+    }
+
+    /**
+     * Errors found while loading are reported again from the snapshot.
+     */
+    @Test
+    public void errorsKept() throws Exception {
+        SnapshotStore snapshots = new SnapshotStore(loader, base, snapshotPath);
+        BookCollection col = loadValidCollection();
+
+        Files.write(basePath.resolve(VALID_COLLECTION).resolve(VALID_BOOK_LUDWIGXV7)
+                .resolve(VALID_BOOK_LUDWIGXV7 + ArchiveConstants.CROP), "malformed".getBytes(StandardCharsets.UTF_8));
+
+        List<String> errors = new ArrayList<>();
+        snapshots.loadBook(col, VALID_BOOK_LUDWIGXV7, errors);
+        assertTrue(errors.size() > 0);
+
+        List<String> snapshotErrors = new ArrayList<>();
+        snapshots.loadBook(col, VALID_BOOK_LUDWIGXV7, snapshotErrors);
+        assertEquals(errors, snapshotErrors);
+
+        verify(loader, times(1)).loadBook(any(BookCollection.class), eq(VALID_BOOK_LUDWIGXV7),
+                anyListOf(String.class));
+    }
+
+    /**
+     * A snapshot is not used once the book changes or if it cannot be read.
+     */
+    @Test
+    public void staleSnapshotsReplaced() throws Exception {
+        SnapshotStore snapshots = new SnapshotStore(loader, base, snapshotPath);
+        Path bookPath = basePath.resolve(VALID_COLLECTION).resolve(VALID_BOOK_LUDWIGXV7);
+        Path snapshot = snapshotPath.resolve(VALID_COLLECTION).resolve(VALID_BOOK_LUDWIGXV7 + ".snapshot");
+
+        load(snapshots, VALID_BOOK_LUDWIGXV7);
+        Files.write(bookPath.resolve("notes.txt"), "changed".getBytes(StandardCharsets.UTF_8));
+        assertEquals(loadValidLudwigXV7(), load(snapshots, VALID_BOOK_LUDWIGXV7));
+
+        Files.write(snapshot, "corrupt".getBytes(StandardCharsets.UTF_8));
+        assertEquals(loadValidLudwigXV7(), load(snapshots, VALID_BOOK_LUDWIGXV7));
+        assertEquals(loadValidLudwigXV7(), load(snapshots, VALID_BOOK_LUDWIGXV7));
+
+        verify(loader, times(3)).loadBook(any(BookCollection.class), eq(VALID_BOOK_LUDWIGXV7),
+                anyListOf(String.class));
+    }
+}
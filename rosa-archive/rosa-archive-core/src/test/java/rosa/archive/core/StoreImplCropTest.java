@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -69,6 +70,33 @@ public class StoreImplCropTest extends BaseArchiveTest {
         assertEquals(287, countImages(crop_dir));
     }
 
+    /**
+     * Cropped images which are up to date are kept when cropping is run again
+     * without the cropped image list, as after an interruption.
+     */
+    @Test
+    public void restartSkipsUpToDateCrops() throws Exception {
+        Path crop_dir = getCroppedDir(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7);
+        List<String> errors = new ArrayList<>();
+
+        store.cropImages(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7, true, errors);
+        assertEquals(0, errors.size());
+
+        Path kept = crop_dir.resolve("LudwigXV7.001r.tif");
+        Path deleted = crop_dir.resolve("LudwigXV7.001v.tif");
+        FileTime keptTime = Files.getLastModifiedTime(kept);
+
+        Files.delete(deleted);
+        removeBookFile(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7, VALID_BOOK_LUDWIGXV7 + ".images.crop.csv");
+
+        store.cropImages(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7, false, errors);
+
+        assertEquals(0, errors.size());
+        assertEquals(287, countImages(crop_dir));
+        assertTrue(Files.exists(deleted));
+        assertEquals(keptTime, Files.getLastModifiedTime(kept));
+    }
+
     /**
      * Count the number of TIFF images in a directory
      */
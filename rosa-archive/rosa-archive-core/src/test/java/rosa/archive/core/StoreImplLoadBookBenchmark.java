@@ -0,0 +1,114 @@
+package rosa.archive.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import rosa.archive.core.check.BookChecker;
+import rosa.archive.core.check.BookCollectionChecker;
+import rosa.archive.core.serialize.AORAnnotatedPageSerializer;
+import rosa.archive.core.serialize.BookDescriptionSerializer;
+import rosa.archive.core.serialize.BookMetadataSerializer;
+import rosa.archive.core.serialize.BookReferenceSheetSerializer;
+import rosa.archive.core.serialize.BookStructureSerializer;
+import rosa.archive.core.serialize.CharacterNamesSerializer;
+import rosa.archive.core.serialize.CropInfoSerializer;
+import rosa.archive.core.serialize.DeprecatedBookMetadataSerializer;
+import rosa.archive.core.serialize.FileMapSerializer;
+import rosa.archive.core.serialize.HTMLAnnotationsSerializer;
+import rosa.archive.core.serialize.IllustrationTaggingSerializer;
+import rosa.archive.core.serialize.IllustrationTitlesSerializer;
+import rosa.archive.core.serialize.ImageListSerializer;
+import rosa.archive.core.serialize.NarrativeSectionsSerializer;
+import rosa.archive.core.serialize.NarrativeTaggingSerializer;
+import rosa.archive.core.serialize.PermissionSerializer;
+import rosa.archive.core.serialize.ReferenceSheetSerializer;
+import rosa.archive.core.serialize.SHA1ChecksumSerializer;
+import rosa.archive.core.serialize.SerializerSet;
+import rosa.archive.core.serialize.TranscriptionXmlSerializer;
+import rosa.archive.model.BookCollection;
+
+/**
+ * Compare the time taken to load every book of a collection sequentially and in parallel.
+ * This is not run as part of the test suite.
+ *
+ * Usage: StoreImplLoadBookBenchmark archive_path collection [threads] [rounds]
+ */
+public class StoreImplLoadBookBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StoreImplLoadBookBenchmark archive_path collection [threads] [rounds]");
+            System.exit(1);
+        }
+
+        Path archive = Paths.get(args[0]);
+        String collection = args[1];
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        SerializerSet serializers = new SerializerSet(new HashSet<>(Arrays.asList(
+                new DeprecatedBookMetadataSerializer(),
+                new BookStructureSerializer(),
+                new CharacterNamesSerializer(),
+                new SHA1ChecksumSerializer(),
+                new CropInfoSerializer(),
+                new IllustrationTaggingSerializer(),
+                new IllustrationTitlesSerializer(),
+                new ImageListSerializer(),
+                new NarrativeSectionsSerializer(),
+                new NarrativeTaggingSerializer(),
+                new TranscriptionXmlSerializer(),
+                new PermissionSerializer(),
+                new BookMetadataSerializer(),
+                new AORAnnotatedPageSerializer(),
+                new ReferenceSheetSerializer(),
+                new BookReferenceSheetSerializer(),
+                new FileMapSerializer(),
+                new HTMLAnnotationsSerializer(),
+                new BookDescriptionSerializer()
+        )));
+
+        ByteStreamGroup base = new FSByteStreamGroup(archive);
+        BookChecker bookChecker = new BookChecker(serializers);
+        BookCollectionChecker collectionChecker = new BookCollectionChecker(serializers);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            Store sequential = new StoreImpl(serializers, bookChecker, collectionChecker, base, false);
+            Store parallel = new StoreImpl(serializers, bookChecker, collectionChecker, base, false, executor);
+
+            BookCollection col = sequential.loadBookCollection(collection, null);
+
+            if (col == null) {
+                System.err.println("No such collection: " + collection);
+                System.exit(1);
+            }
+
+            // Alternate so neither mode always benefits from a warm file system cache
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("Round " + round);
+                System.out.println("  sequential: " + time(sequential, col) + " ms");
+                System.out.println("  parallel (" + threads + " threads): " + time(parallel, col) + " ms");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long time(Store store, BookCollection col) throws IOException {
+        List<String> errors = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (String book : col.books()) {
+            store.loadBook(col, book, errors);
+        }
+
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
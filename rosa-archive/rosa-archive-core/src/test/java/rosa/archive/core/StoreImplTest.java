@@ -12,6 +12,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -19,6 +21,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
+import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.AnnotatedPageHeader;
 
 /**
  * Test StoreImpl functionality not tested elsewhere.
@@ -152,6 +156,112 @@ public class StoreImplTest extends BaseArchiveTest {
         assertEquals("Moo cow", book.getDeprecatedBookMetadata("en").getTexts()[0].getAuthors().get(0));
     }
 
+    /**
+     * Loading books in parallel must give the same books and the same errors, in the same
+     * order, as loading them sequentially.
+     *
+     * @throws Exception .
+     */
+    @Test
+    public void testParallelLoadBook() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            StoreImpl parallelStore = new StoreImpl(serializers, bookChecker, collectionChecker, base, true,
+                    executor);
+            BookCollection col = loadValidCollection();
+
+            for (String bookId : store.listBooks(VALID_COLLECTION)) {
+                List<String> errors = new ArrayList<>();
+                List<String> parallelErrors = new ArrayList<>();
+
+                Book book = store.loadBook(col, bookId, errors);
+                Book parallelBook = parallelStore.loadBook(col, bookId, parallelErrors);
+
+                assertNotNull(parallelBook);
+                assertEquals(book, parallelBook);
+                assertEquals(book.getAnnotatedPages(), parallelBook.getAnnotatedPages());
+                assertEquals(errors, parallelErrors);
+            }
+
+            // Errors are reported in a deterministic order
+            for (String page : new String[] {"001r", "005v", "010r"}) {
+                Files.write(getBookPath(VALID_COLLECTION, VALID_BOOK_FOLGERSHA2).resolve(
+                        VALID_BOOK_FOLGERSHA2 + ".aor." + page + ".xml"), "<broken".getBytes("UTF-8"));
+            }
+
+            List<String> errors = new ArrayList<>();
+            List<String> parallelErrors = new ArrayList<>();
+
+            store.loadBook(col, VALID_BOOK_FOLGERSHA2, errors);
+            parallelStore.loadBook(col, VALID_BOOK_FOLGERSHA2, parallelErrors);
+
+            assertEquals(3, errors.size());
+            assertEquals(errors.size(), parallelErrors.size());
+
+            for (int i = 0; i < errors.size(); i++) {
+                assertEquals(firstLine(errors.get(i)), firstLine(parallelErrors.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Annotated pages loaded on demand should match those loaded eagerly and a
+     * single page should be loaded without reading the others.
+     *
+     * @throws Exception .
+     */
+    @Test
+    public void testLazyAnnotatedPages() throws Exception {
+        StoreImpl lazyStore = new StoreImpl(serializers, bookChecker, collectionChecker, base, true);
+        lazyStore.setLazyAnnotatedPages(true);
+
+        BookCollection col = loadValidCollection();
+        Book book = loadValidFolgersHa2();
+
+        Book lazyBook = lazyStore.loadBook(col, VALID_BOOK_FOLGERSHA2, new ArrayList<>());
+
+        assertEquals(book.getAnnotatedPages(), lazyBook.getAnnotatedPages());
+        assertEquals(book, lazyBook);
+
+        lazyBook = lazyStore.loadBook(col, VALID_BOOK_FOLGERSHA2, new ArrayList<>());
+        int count = book.getAnnotatedPages().size();
+
+        assertEquals(count, lazyBook.getAnnotatedPageCount());
+        assertNull(lazyBook.getAnnotationPage(VALID_BOOK_FOLGERSHA2 + ".100r.tif"));
+
+        // Only the requested page is read
+        Path bookPath = getBookPath(VALID_COLLECTION, VALID_BOOK_FOLGERSHA2);
+
+        for (String name : lazyBook.getContent()) {
+            if (name.contains(".aor.") && !name.endsWith(".001r.xml")) {
+                Files.delete(bookPath.resolve(name));
+            }
+        }
+
+        // Headers read with the book still label every page
+        for (AnnotatedPage page : book.getAnnotatedPages()) {
+            AnnotatedPageHeader header = lazyBook.getAnnotatedPageHeader(page.getPage());
+
+            assertNotNull(header);
+            assertEquals(page.getPagination(), header.getPagination());
+            assertEquals(page.getSignature(), header.getSignature());
+        }
+
+        assertEquals(book.getAnnotationPage(VALID_BOOK_FOLGERSHA2 + ".001r.tif"),
+                lazyBook.getAnnotationPage(VALID_BOOK_FOLGERSHA2 + ".001r.tif"));
+        assertEquals(count, lazyBook.getAnnotatedPageCount());
+        assertEquals(1, lazyBook.getAnnotatedPages().size());
+    }
+
+    private static String firstLine(String s) {
+        int i = s.indexOf('\n');
+
+        return i == -1 ? s : s.substring(0, i);
+    }
+
     /**
      * Try to load a collection that is not in the archive. The operation should
      * complete and return NULL with no exceptions thrown.
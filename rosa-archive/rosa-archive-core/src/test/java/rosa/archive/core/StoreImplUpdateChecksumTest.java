@@ -10,6 +10,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
@@ -110,4 +112,53 @@ public class StoreImplUpdateChecksumTest extends BaseArchiveTest {
         assertEquals(expected.checksums().get(wrong_entry), test.checksums().get(wrong_entry));
         assertEquals(expected, test);
     }
-}
\ No newline at end of file
+
+    /**
+     * Check that hashing a collection and all its books at once gives the same
+     * checksums as updating them one at a time.
+     */
+    @Test
+    public void updateAllChecksumsInParallel() throws Exception {
+        removeCollectionFile(VALID_COLLECTION, VALID_COLLECTION + ".SHA1SUM");
+
+        for (String book : VALID_COLLECTION_BOOKS) {
+            removeBookFile(VALID_COLLECTION, book, book + ".SHA1SUM");
+        }
+
+        List<String> errors = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            StoreImpl parallel = new StoreImpl(serializers, bookChecker, collectionChecker, base, true, executor);
+
+            assertTrue(parallel.updateAllChecksums(VALID_COLLECTION, false, errors));
+            assertEquals(0, errors.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SHA1Checksum collectionChecksums = loadCollection(VALID_COLLECTION).getChecksum();
+        List<SHA1Checksum> bookChecksums = new ArrayList<>();
+
+        for (String book : VALID_COLLECTION_BOOKS) {
+            bookChecksums.add(loadBook(VALID_COLLECTION, book).getChecksum());
+        }
+
+        assertNotNull(collectionChecksums);
+        assertFalse(collectionChecksums.checksums().isEmpty());
+
+        assertTrue(store.updateChecksum(VALID_COLLECTION, true, errors));
+        assertEquals(collectionChecksums, loadCollection(VALID_COLLECTION).getChecksum());
+
+        for (int i = 0; i < VALID_COLLECTION_BOOKS.length; i++) {
+            String book = VALID_COLLECTION_BOOKS[i];
+
+            assertNotNull(bookChecksums.get(i));
+            assertFalse(bookChecksums.get(i).checksums().isEmpty());
+            assertTrue(store.updateChecksum(VALID_COLLECTION, book, true, errors));
+            assertEquals(bookChecksums.get(i), loadBook(VALID_COLLECTION, book).getChecksum());
+        }
+
+        assertEquals(0, errors.size());
+    }
+}
@@ -4,9 +4,15 @@ import org.junit.Before;
 import org.junit.Test;
 import rosa.archive.core.BaseArchiveTest;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -76,4 +82,54 @@ public class BookCheckerTest extends BaseArchiveTest {
 //        assertTrue("Warnings list should be empty.", warnings.isEmpty());
     }
 
+    /**
+     * Check LudwigXV7 with bits on several threads while keeping a fixity ledger.
+     * Checking again skips the verified items unless they change.
+     */
+    @Test
+    public void checkBitsWithFixityLedger() throws Exception {
+        store.updateChecksum(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7, false, errors);
+        assertTrue(errors.isEmpty());
+
+        Path ledgerFile = tempFolder.newFolder().toPath().resolve("fixity.ledger");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            FixityLedger ledger = new FixityLedger(ledgerFile);
+            bookChecker.setFixityExecutor(executor);
+            bookChecker.setFixityLedger(ledger);
+
+            assertTrue(store.check(loadValidCollection(), loadValidLudwigXV7(), true, errors, warnings));
+            assertTrue(errors.isEmpty());
+            assertTrue(warnings.isEmpty());
+            assertTrue(ledger.size() > 0);
+            ledger.close();
+
+            // A new ledger resumes from the file
+            FixityLedger resumed = new FixityLedger(ledgerFile);
+            resumed.load();
+            assertEquals(ledger.size(), resumed.size());
+            bookChecker.setFixityLedger(resumed);
+
+            assertTrue(store.check(loadValidCollection(), loadValidLudwigXV7(), true, errors, warnings));
+            assertTrue(errors.isEmpty());
+            assertEquals(1, warnings.size());
+            assertTrue(warnings.get(0).startsWith("Skipped " + resumed.size() + " items"));
+            warnings.clear();
+
+            // A changed item is hashed again
+            Path item = getBookPath(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7).resolve("LudwigXV7.transcription.001r.txt");
+            Files.write(item, "changed".getBytes("UTF-8"));
+
+            assertFalse(store.check(loadValidCollection(), loadValidLudwigXV7(), true, errors, warnings));
+            assertEquals(1, errors.size());
+            assertTrue(errors.get(0).contains("LudwigXV7.transcription.001r.txt"));
+            assertEquals(ledger.size() - 1, resumed.size());
+            resumed.close();
+        } finally {
+            bookChecker.setFixityExecutor(null);
+            bookChecker.setFixityLedger(null);
+            executor.shutdownNow();
+        }
+    }
 }
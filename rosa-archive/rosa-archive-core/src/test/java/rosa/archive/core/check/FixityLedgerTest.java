@@ -0,0 +1,90 @@
+package rosa.archive.core.check;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @see rosa.archive.core.check.FixityLedger
+ */
+public class FixityLedgerTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void recordAndReload() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("fixity.ledger");
+        FixityLedger ledger = new FixityLedger(file);
+
+        ledger.record("a", 10, 100, "ABC");
+        ledger.record("b", 20, 200, "def");
+        ledger.record("b", 20, 300, "def");
+        ledger.close();
+
+        assertTrue(ledger.isVerified("a", 10, 100, "abc"));
+        assertFalse(ledger.isVerified("a", 11, 100, "abc"));
+        assertFalse(ledger.isVerified("a", 10, 101, "abc"));
+        assertFalse(ledger.isVerified("a", 10, 100, "abd"));
+        assertFalse(ledger.isVerified("c", 10, 100, "abc"));
+
+        ledger = new FixityLedger(file);
+        ledger.load();
+
+        assertEquals(2, ledger.size());
+        assertTrue(ledger.isVerified("a", 10, 100, "abc"));
+        assertTrue(ledger.isVerified("b", 20, 300, "def"));
+        assertFalse(ledger.isVerified("b", 20, 200, "def"));
+
+        // Replaced lines are compacted away
+        assertEquals(2, Files.readAllLines(file).size());
+    }
+
+    @Test
+    public void removedItemsStayRemoved() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("fixity.ledger");
+        FixityLedger ledger = new FixityLedger(file);
+
+        ledger.record("a", 10, 100, "abc");
+        ledger.remove("a");
+        ledger.close();
+
+        ledger = new FixityLedger(file);
+        ledger.load();
+
+        assertEquals(0, ledger.size());
+        assertFalse(ledger.isVerified("a", 10, 100, "abc"));
+    }
+
+    @Test
+    public void partialLineIgnored() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("fixity.ledger");
+        FixityLedger ledger = new FixityLedger(file);
+
+        ledger.record("a", 10, 100, "abc");
+        ledger.close();
+
+        // Interrupted while appending
+        Files.write(file, "b\t20".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ledger = new FixityLedger(file);
+        ledger.load();
+        ledger.record("c", 30, 300, "ghi");
+        ledger.close();
+
+        ledger = new FixityLedger(file);
+        ledger.load();
+
+        assertEquals(2, ledger.size());
+        assertTrue(ledger.isVerified("a", 10, 100, "abc"));
+        assertTrue(ledger.isVerified("c", 30, 300, "ghi"));
+    }
+}
@@ -0,0 +1,86 @@
+package rosa.archive.core.serialize;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import rosa.archive.model.aor.AnnotatedPage;
+
+/**
+ * Compare the time and peak heap taken to read AoR transcriptions by building
+ * a DOM and by streaming. This is not run as part of the test suite. Without a
+ * directory, the transcriptions in the test data are used. Files are read into
+ * memory first so that only parsing is measured.
+ *
+ * Usage: AORAnnotatedPageReaderBenchmark [transcription_dir] [rounds] [passes]
+ */
+public class AORAnnotatedPageReaderBenchmark {
+    private interface Reader {
+        AnnotatedPage read(byte[] data, List<String> errors) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = args.length > 0 ? Paths.get(args[0])
+                : Paths.get(AORAnnotatedPageReaderBenchmark.class.getClassLoader().getResource("archive").toURI())
+                        .getParent();
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int passes = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<byte[]> files = new ArrayList<>();
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(".xml"))::iterator) {
+                byte[] data = Files.readAllBytes(path);
+
+                if (new String(data, StandardCharsets.UTF_8).contains("<transcription")) {
+                    files.add(data);
+                }
+            }
+        }
+
+        System.out.println("Transcriptions: " + files.size() + " in " + dir);
+
+        AORAnnotatedPageSerializer serializer = new AORAnnotatedPageSerializer();
+
+        for (int round = 0; round < rounds; round++) {
+            run("dom", files, passes, (data, errors) -> serializer.readDocument(new ByteArrayInputStream(data), errors));
+            run("stax", files, passes, (data, errors) -> serializer.read(new ByteArrayInputStream(data), errors));
+        }
+    }
+
+    private static void run(String name, List<byte[]> files, int passes, Reader reader) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+
+        long start = System.nanoTime();
+        long annotations = 0;
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (byte[] data : files) {
+                annotations += reader.read(data, new ArrayList<>()).getAnnotations().size();
+            }
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        int count = files.size() * passes;
+        long peak = pools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+        System.out.printf("%-6s %10.1f ms %8.3f ms/page %8d MB peak heap (%d annotations)%n", name, elapsed,
+                elapsed / count, peak / (1024 * 1024), annotations);
+    }
+}
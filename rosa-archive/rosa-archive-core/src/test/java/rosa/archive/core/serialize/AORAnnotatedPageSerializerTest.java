@@ -9,10 +9,16 @@ import static org.junit.Assert.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -268,4 +274,48 @@ public class AORAnnotatedPageSerializerTest extends BaseSerializerTest<Annotated
                 otherPerson.contains("á"));
     }
 
+    /**
+     * Every AoR transcription in the test data must be read the same way with
+     * the streaming reader as with a DOM.
+     *
+     * @throws Exception .
+     */
+    @Test
+    public void streamingMatchesDomTest() throws Exception {
+        AORAnnotatedPageSerializer aorSerializer = new AORAnnotatedPageSerializer();
+        Path root = Paths.get(getClass().getClassLoader().getResource("archive").toURI()).getParent();
+        List<Path> files;
+
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(p -> p.toString().endsWith(".xml")).filter(this::isTranscription)
+                    .collect(Collectors.toList());
+        }
+
+        assertFalse(files.isEmpty());
+
+        for (Path file : files) {
+            List<String> domErrors = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            AnnotatedPage expected;
+            AnnotatedPage page;
+
+            try (InputStream in = Files.newInputStream(file)) {
+                expected = aorSerializer.readDocument(in, domErrors);
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                page = aorSerializer.read(in, errors);
+            }
+
+            assertEquals(file.toString(), domErrors, errors);
+            assertEquals(file.toString(), expected, page);
+        }
+    }
+
+    private boolean isTranscription(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("<transcription");
+        } catch (IOException e) {
+            return false;
+        }
+    }
 }
@@ -12,6 +12,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -70,7 +71,7 @@ public class CropRunnableTest extends BaseArchiveTest {
     }
 
     @Test
-    public void cropTest() {
+    public void cropTest() throws Exception {
         CropRunnable runnable = new CropRunnable(bookPath.toString(), image, crop, "cropped", errors);
 
         Path expectedCropPath = bookPath.resolve("cropped").resolve(IMAGE_ID);
@@ -82,6 +83,11 @@ public class CropRunnableTest extends BaseArchiveTest {
 
         assertTrue("Errors were found while cropping image.", errors.isEmpty());
         assertTrue("Cropped image not found.", Files.exists(expectedCropPath));
+
+        // Only the crop region is decoded and written
+        int[] corners = runnable.calcPoints();
+        assertArrayEquals(new int[] {corners[3] - corners[2], corners[1] - corners[0]},
+                ImageUtil.readDimensions(expectedCropPath));
     }
 
 }
@@ -0,0 +1,133 @@
+package rosa.archive.core.util;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Compare the time and peak heap taken to find the dimensions of images by
+ * decoding them and by reading their headers, sequentially and in parallel.
+ * This is not run as part of the test suite. Without a directory of images,
+ * TIFFs are written to a temporary directory.
+ *
+ * Usage: ImageUtilBenchmark [image_dir] [threads] [rounds]
+ */
+public class ImageUtilBenchmark {
+    private static final int GENERATED_IMAGES = 20;
+    private static final int GENERATED_WIDTH = 3000;
+    private static final int GENERATED_HEIGHT = 4000;
+
+    private interface Prober {
+        int[] dimensions(Path path) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = args.length > 0 ? Paths.get(args[0]) : generate();
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<Path> images = new ArrayList<>();
+
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.{tif,tiff,jpg,png}")) {
+            ds.forEach(images::add);
+        }
+
+        System.out.println("Images: " + images.size() + " in " + dir);
+
+        Prober decode = path -> {
+            BufferedImage img = ImageIO.read(path.toFile());
+            return new int[] {img.getWidth(), img.getHeight()};
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (int round = 0; round < rounds; round++) {
+                run("decode", images, decode, null);
+                run("header", images, ImageUtil::readDimensions, null);
+                run("header, " + threads + " threads", images, ImageUtil::readDimensions, executor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void run(String name, List<Path> images, Prober prober, ExecutorService executor)
+            throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                pools.add(pool);
+            }
+        }
+
+        long start = System.nanoTime();
+        long pixels = 0;
+
+        if (executor == null) {
+            for (Path path : images) {
+                int[] dims = prober.dimensions(path);
+                pixels += (long) dims[0] * dims[1];
+            }
+        } else {
+            List<Future<int[]>> results = new ArrayList<>();
+
+            for (Path path : images) {
+                results.add(executor.submit(() -> prober.dimensions(path)));
+            }
+
+            for (Future<int[]> result : results) {
+                int[] dims = result.get();
+                pixels += (long) dims[0] * dims[1];
+            }
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        long peak = pools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+        System.out.printf("%-20s %10.1f ms %10.1f ms/image %8d MB peak heap (%d pixels)%n", name, elapsed,
+                elapsed / images.size(), peak / (1024 * 1024), pixels);
+    }
+
+    private static Path generate() throws Exception {
+        Path dir = Files.createTempDirectory("image-util-benchmark");
+        Random random = new Random(0);
+        BufferedImage img = new BufferedImage(GENERATED_WIDTH, GENERATED_HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+
+        for (int y = 0; y < GENERATED_HEIGHT; y += 16) {
+            for (int x = 0; x < GENERATED_WIDTH; x += 16) {
+                img.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        for (int i = 0; i < GENERATED_IMAGES; i++) {
+            Path path = dir.resolve(String.format("Bench.%03dr.tif", i));
+
+            if (!ImageIO.write(img, "tif", path.toFile())) {
+                throw new IllegalStateException("No TIFF writer");
+            }
+
+            path.toFile().deleteOnExit();
+        }
+
+        dir.toFile().deleteOnExit();
+
+        return dir;
+    }
+}
@@ -0,0 +1,55 @@
+package rosa.archive.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import rosa.archive.core.BaseArchiveTest;
+
+/**
+ * @see rosa.archive.core.util.ImageUtil
+ */
+public class ImageUtilTest extends BaseArchiveTest {
+    /**
+     * Dimensions read from headers must match those of the decoded images.
+     */
+    @Test
+    public void readDimensionsMatchesDecoded() throws Exception {
+        Path book = getBookPath(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7);
+
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(book, "*.tif")) {
+            for (Path path : ds) {
+                BufferedImage img = ImageIO.read(path.toFile());
+
+                assertArrayEquals(path.toString(), new int[] {img.getWidth(), img.getHeight()},
+                        ImageUtil.readDimensions(path));
+            }
+        }
+
+        Path png = tempFolder.newFile("test.png").toPath();
+        ImageIO.write(new BufferedImage(37, 21, BufferedImage.TYPE_INT_RGB), "png", png.toFile());
+
+        assertArrayEquals(new int[] {37, 21}, ImageUtil.readDimensions(png));
+    }
+
+    @Test
+    public void readDimensionsOfNonImage() throws Exception {
+        Path path = getBookPath(VALID_COLLECTION, VALID_BOOK_LUDWIGXV7).resolve("LudwigXV7.images.csv");
+
+        try {
+            ImageUtil.readDimensions(path);
+            fail("Expected exception");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
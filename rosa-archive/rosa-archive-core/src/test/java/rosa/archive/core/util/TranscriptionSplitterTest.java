@@ -25,6 +25,8 @@ import java.util.Map.Entry;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TranscriptionSplitterTest extends BaseArchiveTest {
@@ -54,6 +56,26 @@ public class TranscriptionSplitterTest extends BaseArchiveTest {
         }
     }
 
+    /**
+     * A transcription is only split again once its XML changes.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void splitTranscriptionKept() throws IOException {
+        Transcription transcription = loadValidLudwigXV7().getTranscription();
+        Map<String, String> map = TranscriptionSplitter.split(transcription);
+
+        assertEquals(TranscriptionSplitter.split(transcription.getXML()), map);
+        assertSame(map, TranscriptionSplitter.split(transcription));
+
+        transcription.setXML(transcription.getXML());
+        Map<String, String> resplit = TranscriptionSplitter.split(transcription);
+
+        assertNotSame(map, resplit);
+        assertEquals(map, resplit);
+    }
+
     private String loadLudwigTranscription() throws IOException {
         Book book = loadValidLudwigXV7();
         Transcription transcription = book.getTranscription();
@@ -1,13 +1,23 @@
 package rosa.archive.model;
 
 import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.AnnotatedPageHeader;
+import rosa.archive.model.aor.AnnotatedPageLoader;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A single book in the archive.
@@ -46,7 +56,28 @@ public class Book implements HasId, Serializable {
     private Map<String, BookDescription> descriptionMap;
     private Transcription transcription;
 
+    /**
+     * Null until all pages are loaded if there is an annotated page loader, and
+     * in a book written while there was one.
+     */
     private List<AnnotatedPage> annotatedPages;
+    /**
+     * Headers of the annotated pages, in order, while there is an annotated
+     * page loader and in a book written while there was one. Null otherwise.
+     */
+    private List<AnnotatedPageHeader> annotatedPageHeaders;
+    // Page to the header of its annotated page, for the headers
+    private transient Map<String, AnnotatedPageHeader> annotatedPageHeaderIndex;
+    private transient AnnotatedPageLoader annotatedPageLoader;
+    // Item name to the loading or loaded page, shared by the threads which want it
+    private transient ConcurrentMap<String, SoftReference<FutureTask<AnnotatedPage>>> loadedAnnotatedPages;
+    /**
+     * Page to its annotated page, for the annotated pages as they were when
+     * indexed.
+     */
+    private transient Map<String, AnnotatedPage> annotatedPageIndex;
+    private transient List<AnnotatedPage> indexedAnnotatedPages;
+    private transient int indexedAnnotatedPageCount;
 
     /**
      * Create an empty Book. Not persisted.
@@ -272,27 +303,269 @@ public class Book implements HasId, Serializable {
         this.transcription = transcription;
     }
 
+    /**
+     * If pages are loaded on demand, all remaining pages are loaded and kept.
+     *
+     * @return AoR transcriptions of all pages
+     */
     public List<AnnotatedPage> getAnnotatedPages() {
-        return annotatedPages;
+        AnnotatedPageLoader loader;
+        List<AnnotatedPageHeader> headers;
+        ConcurrentMap<String, SoftReference<FutureTask<AnnotatedPage>>> loaded;
+
+        synchronized (this) {
+            if (annotatedPageLoader == null) {
+                return annotatedPages;
+            }
+
+            loader = annotatedPageLoader;
+            headers = annotatedPageHeaders;
+            loaded = loadedAnnotatedPages;
+        }
+
+        List<AnnotatedPage> pages = new ArrayList<>();
+
+        for (AnnotatedPageHeader header : headers) {
+            AnnotatedPage page = loadAnnotatedPage(loader, loaded, header.getName());
+
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+
+        synchronized (this) {
+            if (annotatedPageLoader == loader) {
+                annotatedPages = pages;
+                annotatedPageHeaders = null;
+                annotatedPageHeaderIndex = null;
+                annotatedPageLoader = null;
+                loadedAnnotatedPages = null;
+            }
+
+            return annotatedPages == null ? pages : annotatedPages;
+        }
     }
 
     /**
-     * Get AoR transcriptions for a particular page.
+     * @return number of AoR transcriptions without loading them
+     */
+    public synchronized int getAnnotatedPageCount() {
+        if (annotatedPageLoader != null) {
+            return annotatedPageHeaders.size();
+        }
+
+        return annotatedPages == null ? 0 : annotatedPages.size();
+    }
+
+    /**
+     * Get AoR transcriptions for a particular page. If pages are loaded on
+     * demand, only the page for the image is loaded. Otherwise loaded pages
+     * are indexed by page when first needed.
      *
      * @param page the page
      * @return AoR transcription
      */
     public AnnotatedPage getAnnotationPage(String page) {
-        for (AnnotatedPage ap : annotatedPages) {
-            if (ap.getPage().contains(page)) {
-                return ap;
+        AnnotatedPageLoader loader;
+        ConcurrentMap<String, SoftReference<FutureTask<AnnotatedPage>>> loaded;
+        AnnotatedPageHeader header = null;
+
+        synchronized (this) {
+            loader = annotatedPageLoader;
+            loaded = loadedAnnotatedPages;
+
+            if (loader != null) {
+                header = findAnnotatedPageHeader(page);
+            }
+        }
+
+        if (loader != null) {
+            return header == null ? null : loadAnnotatedPage(loader, loaded, header.getName());
+        }
+
+        List<AnnotatedPage> pages = getAnnotatedPages();
+
+        if (pages == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (annotatedPageIndex == null || indexedAnnotatedPages != pages
+                    || indexedAnnotatedPageCount != pages.size()) {
+                annotatedPageIndex = new HashMap<>();
+                indexedAnnotatedPages = pages;
+                indexedAnnotatedPageCount = pages.size();
+
+                for (AnnotatedPage ap : pages) {
+                    if (ap.getPage() != null) {
+                        annotatedPageIndex.putIfAbsent(ap.getPage(), ap);
+                    }
+                }
+            }
+
+            AnnotatedPage result = annotatedPageIndex.get(page);
+
+            if (result != null) {
+                return result;
+            }
+
+            // Page may only be part of the name of its annotated page, so search and remember a match.
+            // Misses are not remembered, as pages come from requests.
+            for (AnnotatedPage ap : pages) {
+                if (ap.getPage() != null && ap.getPage().contains(page)) {
+                    annotatedPageIndex.put(page, ap);
+                    return ap;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Get the header of the AoR transcription for a particular page, which is
+     * enough to label the page. If pages are loaded on demand, no page is
+     * loaded.
+     *
+     * @param page the page
+     * @return header of the AoR transcription or null if there is none
+     */
+    public AnnotatedPageHeader getAnnotatedPageHeader(String page) {
+        synchronized (this) {
+            if (annotatedPageHeaders != null) {
+                return findAnnotatedPageHeader(page);
             }
         }
+
+        AnnotatedPage ap = getAnnotationPage(page);
+
+        return ap == null ? null
+                : new AnnotatedPageHeader(ap.getId(), ap.getPage(), ap.getPagination(), ap.getSignature());
+    }
+
+    /**
+     * @return headers of the AoR transcriptions of a book whose pages are or
+     *         were to be loaded on demand, otherwise null
+     */
+    public synchronized List<AnnotatedPageHeader> getAnnotatedPageHeaders() {
+        return annotatedPageHeaders;
+    }
+
+    // Must hold lock. Matches the header as the page of its transcription would be matched.
+    private AnnotatedPageHeader findAnnotatedPageHeader(String page) {
+        if (annotatedPageHeaderIndex == null) {
+            annotatedPageHeaderIndex = new HashMap<>();
+
+            for (AnnotatedPageHeader header : annotatedPageHeaders) {
+                if (header.getPage() != null) {
+                    annotatedPageHeaderIndex.putIfAbsent(header.getPage(), header);
+                }
+            }
+        }
+
+        AnnotatedPageHeader result = annotatedPageHeaderIndex.get(page);
+
+        if (result != null) {
+            return result;
+        }
+
+        for (AnnotatedPageHeader header : annotatedPageHeaders) {
+            if (header.getPage() != null && header.getPage().contains(page)) {
+                annotatedPageHeaderIndex.put(page, header);
+                return header;
+            }
+        }
+
         return null;
     }
 
-    public void setAnnotatedPages(List<AnnotatedPage> annotatedPages) {
+    public synchronized void setAnnotatedPages(List<AnnotatedPage> annotatedPages) {
         this.annotatedPages = annotatedPages;
+        this.annotatedPageHeaders = null;
+        this.annotatedPageHeaderIndex = null;
+        this.annotatedPageLoader = null;
+        this.loadedAnnotatedPages = null;
+        this.annotatedPageIndex = null;
+    }
+
+    /**
+     * Load AoR transcriptions when they are first needed instead of all at
+     * once. Loaded pages are only softly kept until all pages are requested.
+     * Annotated pages are only compared by equals once they have all been
+     * loaded by {@link #getAnnotatedPages()}.
+     *
+     * @param loader loads pages of this book
+     */
+    public synchronized void setAnnotatedPageLoader(AnnotatedPageLoader loader) {
+        this.annotatedPages = null;
+        this.annotatedPageHeaders = new ArrayList<>(loader.headers());
+        this.annotatedPageHeaderIndex = null;
+        this.annotatedPageLoader = loader;
+        this.loadedAnnotatedPages = new ConcurrentHashMap<>();
+        this.annotatedPageIndex = null;
+    }
+
+    /**
+     * Load a page without holding the lock. Threads wanting the same page wait
+     * for the one loading it.
+     */
+    private static AnnotatedPage loadAnnotatedPage(AnnotatedPageLoader loader,
+            ConcurrentMap<String, SoftReference<FutureTask<AnnotatedPage>>> loaded, String name) {
+        AtomicReference<FutureTask<AnnotatedPage>> found = new AtomicReference<>();
+
+        loaded.compute(name, (key, ref) -> {
+            FutureTask<AnnotatedPage> task = ref == null ? null : ref.get();
+
+            if (task == null) {
+                task = new FutureTask<>(() -> loader.load(name));
+                ref = new SoftReference<>(task);
+            }
+
+            found.set(task);
+            return ref;
+        });
+
+        FutureTask<AnnotatedPage> task = found.get();
+        AnnotatedPage page;
+
+        // Does nothing if the page is being or has been loaded
+        task.run();
+
+        try {
+            page = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException("Failed to load annotated page " + name, e.getCause());
+        }
+
+        // Try again next time
+        if (page == null) {
+            loaded.computeIfPresent(name, (key, ref) -> ref.get() == task ? null : ref);
+        }
+
+        return page;
+    }
+
+    /**
+     * A book written while its pages are loaded on demand is read back with
+     * only the headers of its annotated pages, as the loader cannot be
+     * serialized.
+     *
+     * @return whether AoR transcriptions are loaded or can be loaded on demand
+     */
+    public synchronized boolean hasAnnotatedPages() {
+        return annotatedPages != null || annotatedPageLoader != null;
+    }
+
+    // Pages which are loaded on demand are not loaded to be written
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
     }
 
     public void setBookMetadata(BookMetadata bookMetadata) {
@@ -386,6 +659,8 @@ public class Book implements HasId, Serializable {
             return false;
         if (transcription != null ? !transcription.equals(book.transcription) : book.transcription != null)
             return false;
+        if (annotatedPageHeaders != null ? !annotatedPageHeaders.equals(book.annotatedPageHeaders) : book.annotatedPageHeaders != null)
+            return false;
         return !(annotatedPages != null ? !annotatedPages.equals(book.annotatedPages) : book.annotatedPages != null);
 
     }
@@ -408,6 +683,7 @@ public class Book implements HasId, Serializable {
         result = 31 * result + (descriptionMap != null ? descriptionMap.hashCode() : 0);
         result = 31 * result + (transcription != null ? transcription.hashCode() : 0);
         result = 31 * result + (annotatedPages != null ? annotatedPages.hashCode() : 0);
+        result = 31 * result + (annotatedPageHeaders != null ? annotatedPageHeaders.hashCode() : 0);
         return result;
     }
 
@@ -1,5 +1,6 @@
 package rosa.archive.model;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,7 +8,9 @@ import java.util.Map;
  * A set of HTML annotations that target books, images, or collections.
  * The HTML should be a simple and able to be embedded in an existing HTML document easily.
  */
-public class HTMLAnnotations implements HasId {
+public class HTMLAnnotations implements HasId, Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private final Map<String, String> annotations;
 	private String id;
 	
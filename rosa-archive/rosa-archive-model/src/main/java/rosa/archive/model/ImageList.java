@@ -2,8 +2,10 @@ package rosa.archive.model;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -13,6 +15,8 @@ public class ImageList implements HasId, Serializable, Iterable<BookImage> {
 
     private String id;
     private List<BookImage> images;
+    // Built when first needed
+    private transient volatile Index index;
 
     public ImageList() {
         this.images = new ArrayList<>();
@@ -34,6 +38,75 @@ public class ImageList implements HasId, Serializable, Iterable<BookImage> {
 
     public void setImages(List<BookImage> images) {
         this.images = images;
+        this.index = null;
+    }
+
+    /**
+     * Find an image without searching the list. The images are indexed by id
+     * when first needed, and again when the list is replaced, its size changes,
+     * or an indexed image has moved. Other changes made to the list in place
+     * are only seen after {@link #setImages(List)}.
+     *
+     * @param id image id
+     * @return first image with the id or null if there is none
+     */
+    public BookImage getImage(String id) {
+        List<BookImage> list = images;
+        Index current = index;
+
+        if (current == null || current.list != list || current.size != list.size()) {
+            current = index(list);
+        }
+
+        Integer i = current.positions.get(id);
+
+        if (i == null) {
+            return null;
+        }
+
+        BookImage image = getImage(list, i, id);
+
+        if (image == null) {
+            // List changed in place since it was indexed
+            i = index(list).positions.get(id);
+            image = i == null ? null : getImage(list, i, id);
+        }
+
+        return image;
+    }
+
+    private Index index(List<BookImage> list) {
+        Index result = new Index(list);
+        index = result;
+
+        return result;
+    }
+
+    private static BookImage getImage(List<BookImage> list, int i, String id) {
+        if (i >= list.size()) {
+            return null;
+        }
+
+        BookImage image = list.get(i);
+
+        return id.equals(image.getId()) ? image : null;
+    }
+
+    // Positions of the images in a list when it was indexed
+    private static class Index {
+        final List<BookImage> list;
+        final int size;
+        final Map<String, Integer> positions;
+
+        Index(List<BookImage> list) {
+            this.list = list;
+            this.size = list.size();
+            this.positions = new HashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                positions.putIfAbsent(list.get(i).getId(), i);
+            }
+        }
     }
 
     @Override
@@ -1,8 +1,11 @@
 package rosa.archive.model;
 
+import java.io.Serializable;
 import java.util.Objects;
 
-public class ObjectRef {
+public class ObjectRef implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private String uri;
 
@@ -1,6 +1,7 @@
 package rosa.archive.model;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  *
@@ -10,6 +11,7 @@ public class Transcription implements HasId, Serializable {
 
     private String id;
     private String content;
+    private transient volatile Map<String, String> pages;
 
     public Transcription() {  }
 
@@ -29,6 +31,24 @@ public class Transcription implements HasId, Serializable {
 
     public void setXML(String xml) {
         this.content = xml;
+        this.pages = null;
+    }
+
+    /**
+     * @return transcription XML split by page if it has been split, otherwise null
+     */
+    public Map<String, String> getPages() {
+        return pages;
+    }
+
+    /**
+     * Keep the transcription XML split by page so that it need not be split
+     * again. Cleared when the XML changes.
+     *
+     * @param pages map of page to transcription XML fragment
+     */
+    public void setPages(Map<String, String> pages) {
+        this.pages = pages;
     }
 
     @Override
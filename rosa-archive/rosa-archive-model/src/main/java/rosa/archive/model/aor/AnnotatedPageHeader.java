@@ -0,0 +1,78 @@
+package rosa.archive.model.aor;
+
+import java.io.Serializable;
+
+/**
+ * The attributes of the &lt;page&gt; element of an AoR transcription, which can
+ * be read without reading its annotations. Enough to find the transcription
+ * of a page and to label the page.
+ */
+public class AnnotatedPageHeader implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final String page;
+    private final String pagination;
+    private final String signature;
+
+    /**
+     * @param name name of the item holding the transcription
+     * @param page page ID, null if it could not be read
+     * @param pagination pagination, empty if there is none
+     * @param signature signature, empty if there is none
+     */
+    public AnnotatedPageHeader(String name, String page, String pagination, String signature) {
+        this.name = name;
+        this.page = page;
+        this.pagination = pagination;
+        this.signature = signature;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPage() {
+        return page;
+    }
+
+    public String getPagination() {
+        return pagination;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AnnotatedPageHeader that = (AnnotatedPageHeader) o;
+
+        if (name != null ? !name.equals(that.name) : that.name != null) return false;
+        if (page != null ? !page.equals(that.page) : that.page != null) return false;
+        if (pagination != null ? !pagination.equals(that.pagination) : that.pagination != null) return false;
+        return signature != null ? signature.equals(that.signature) : that.signature == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name != null ? name.hashCode() : 0;
+        result = 31 * result + (page != null ? page.hashCode() : 0);
+        result = 31 * result + (pagination != null ? pagination.hashCode() : 0);
+        result = 31 * result + (signature != null ? signature.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AnnotatedPageHeader{" +
+                "name='" + name + '\'' +
+                ", page='" + page + '\'' +
+                ", pagination='" + pagination + '\'' +
+                ", signature='" + signature + '\'' +
+                '}';
+    }
+}
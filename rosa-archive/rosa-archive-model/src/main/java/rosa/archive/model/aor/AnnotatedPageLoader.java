@@ -0,0 +1,20 @@
+package rosa.archive.model.aor;
+
+import java.util.List;
+
+/**
+ * Loads the AoR annotated pages of a book on demand. Each page is stored in a
+ * named archive item. Pages may be loaded by many threads at once.
+ */
+public interface AnnotatedPageLoader {
+    /**
+     * @return headers of all items holding annotated pages of the book, in order
+     */
+    List<AnnotatedPageHeader> headers();
+
+    /**
+     * @param name item name
+     * @return annotated page or null if it could not be loaded
+     */
+    AnnotatedPage load(String name);
+}
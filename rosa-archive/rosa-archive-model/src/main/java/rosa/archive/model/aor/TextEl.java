@@ -1,11 +1,13 @@
 package rosa.archive.model.aor;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 /**
  * Element representing a bit of text
  */
-public class TextEl {
+public class TextEl implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private final String hand;
     private final String language;
@@ -120,6 +120,15 @@ public class AORModelEqualsAndHashCodeTest {
                 .verify();
     }
 
+    @Test
+    public void annotatedPageHeaderTest() {
+        EqualsVerifier
+                .forClass(AnnotatedPageHeader.class)
+                .usingGetClass()
+                .allFieldsShouldBeUsed()
+                .verify();
+    }
+
     @Test
     public void internalRefTest() {
         EqualsVerifier
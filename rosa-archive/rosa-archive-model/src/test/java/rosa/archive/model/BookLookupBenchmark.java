@@ -0,0 +1,79 @@
+package rosa.archive.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import rosa.archive.model.aor.AnnotatedPage;
+
+/**
+ * Compare the time taken to find the image and AoR transcription of a page,
+ * as done for each canvas and annotation list request, by searching the lists
+ * and by using the indexes of ImageList and Book. This is not run as part of
+ * the test suite.
+ *
+ * Usage: BookLookupBenchmark [pages] [rounds] [passes]
+ */
+public class BookLookupBenchmark {
+    public static void main(String[] args) {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int passes = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Book book = new Book();
+        List<BookImage> images = new ArrayList<>();
+        List<AnnotatedPage> annotatedPages = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < pages; i++) {
+            String id = String.format("Book.%03d%s.tif", i / 2 + 1, i % 2 == 0 ? "r" : "v");
+            AnnotatedPage page = new AnnotatedPage();
+            page.setPage(id);
+
+            images.add(new BookImage(id, 1000, 1500, false));
+            annotatedPages.add(page);
+            ids.add(id);
+        }
+
+        ImageList list = new ImageList();
+        list.setImages(images);
+        book.setImages(list);
+        book.setAnnotatedPages(annotatedPages);
+
+        System.out.println("Pages: " + pages);
+
+        for (int round = 0; round < rounds; round++) {
+            run("linear", ids, passes, id -> {
+                for (BookImage image : book.getImages()) {
+                    if (image.getId().equals(id)) {
+                        for (AnnotatedPage ap : book.getAnnotatedPages()) {
+                            if (ap.getPage().contains(id)) {
+                                return ap;
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+            run("index", ids, passes,
+                    id -> book.getImages().getImage(id) == null ? null : book.getAnnotationPage(id));
+        }
+    }
+
+    private static void run(String name, List<String> ids, int passes, Function<String, AnnotatedPage> lookup) {
+        long start = System.nanoTime();
+        int found = 0;
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (String id : ids) {
+                if (lookup.apply(id) != null) {
+                    found++;
+                }
+            }
+        }
+
+        double elapsed = System.nanoTime() - start;
+        System.out.printf("%-6s %10.1f ms %10.3f us/request (%d found)%n", name, elapsed / 1e6,
+                elapsed / 1e3 / (passes * ids.size()), found);
+    }
+}
@@ -2,10 +2,20 @@ package rosa.archive.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.AnnotatedPageHeader;
+import rosa.archive.model.aor.AnnotatedPageLoader;
+
 /**
  * Nothing but getters/setters currently. Not much to test...
  *
@@ -37,4 +47,86 @@ public class BookTest {
         assertNotNull(perms);
         assertEquals(3, perms.length);
     }
+
+    private static AnnotatedPage annotatedPage(String page) {
+        AnnotatedPage result = new AnnotatedPage();
+        result.setPage(page);
+        return result;
+    }
+
+    /**
+     * Annotated pages are found by page, also after the list of them changes.
+     */
+    @Test
+    public void getAnnotationPageTest() {
+        List<AnnotatedPage> pages = new ArrayList<>();
+        pages.add(annotatedPage("Book.001r.tif"));
+        pages.add(annotatedPage("Book.001v.tif"));
+        pages.add(annotatedPage("old/Book.002r.tif"));
+        book.setAnnotatedPages(pages);
+
+        assertSame(pages.get(1), book.getAnnotationPage("Book.001v.tif"));
+        assertSame(pages.get(2), book.getAnnotationPage("Book.002r.tif"));
+        assertNull(book.getAnnotationPage("Book.002v.tif"));
+
+        pages.add(annotatedPage("Book.002v.tif"));
+        assertSame(pages.get(3), book.getAnnotationPage("Book.002v.tif"));
+
+        List<AnnotatedPage> replaced = new ArrayList<>();
+        replaced.add(annotatedPage("Book.001v.tif"));
+        book.setAnnotatedPages(replaced);
+
+        assertSame(replaced.get(0), book.getAnnotationPage("Book.001v.tif"));
+        assertNull(book.getAnnotationPage("Book.001r.tif"));
+    }
+
+    /**
+     * Pages loaded on demand are found and labelled from their headers, so only
+     * the item holding a requested page is loaded.
+     */
+    @Test
+    public void getLazyAnnotationPageTest() {
+        List<AnnotatedPageHeader> headers = Arrays.asList(
+                new AnnotatedPageHeader("a.001r.xml", "Book.001v.tif", "1", ""),
+                new AnnotatedPageHeader("a.001v.xml", "Book.001r.tif", "", "A1"),
+                new AnnotatedPageHeader("a.002r.xml", "old/Book.002r.tif", "3", ""));
+        List<String> loaded = new ArrayList<>();
+
+        book.setAnnotatedPageLoader(new AnnotatedPageLoader() {
+            @Override
+            public List<AnnotatedPageHeader> headers() {
+                return headers;
+            }
+
+            @Override
+            public AnnotatedPage load(String name) {
+                loaded.add(name);
+
+                for (AnnotatedPageHeader header : headers) {
+                    if (header.getName().equals(name)) {
+                        return annotatedPage(header.getPage());
+                    }
+                }
+
+                return null;
+            }
+        });
+
+        AnnotatedPage page = book.getAnnotationPage("Book.001r.tif");
+        assertNotNull(page);
+        assertEquals("Book.001r.tif", page.getPage());
+        assertSame(page, book.getAnnotationPage("Book.001r.tif"));
+        assertEquals(Arrays.asList("a.001v.xml"), loaded);
+
+        assertEquals("A1", book.getAnnotatedPageHeader("Book.001r.tif").getSignature());
+        assertEquals("3", book.getAnnotatedPageHeader("Book.002r.tif").getPagination());
+        assertNull(book.getAnnotatedPageHeader("Book.003r.tif"));
+        assertNull(book.getAnnotationPage("Book.003r.tif"));
+        assertEquals(3, book.getAnnotatedPageCount());
+        assertEquals(Arrays.asList("a.001v.xml"), loaded);
+
+        assertEquals(3, book.getAnnotatedPages().size());
+        assertNull(book.getAnnotatedPageHeaders());
+        assertEquals("Book.001v.tif", book.getAnnotatedPageHeader("Book.001v.tif").getPage());
+    }
 }
@@ -0,0 +1,54 @@
+package rosa.archive.model;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @see rosa.archive.model.ImageList
+ */
+public class ImageListTest {
+
+    /**
+     * Images are found by id, also after the list of them changes size or is
+     * set again.
+     */
+    @Test
+    public void getImageTest() {
+        List<BookImage> images = new ArrayList<>();
+        images.add(new BookImage("Book.001r.tif", 10, 10, false));
+        images.add(new BookImage("Book.001v.tif", 10, 10, false));
+        images.add(new BookImage("Book.001v.tif", 20, 20, false));
+
+        ImageList list = new ImageList();
+        list.setImages(images);
+
+        assertSame(images.get(0), list.getImage("Book.001r.tif"));
+        assertSame(images.get(1), list.getImage("Book.001v.tif"));
+        assertNull(list.getImage("Book.002r.tif"));
+
+        images.remove(0);
+
+        assertNull(list.getImage("Book.001r.tif"));
+        assertSame(images.get(0), list.getImage("Book.001v.tif"));
+
+        images.add(new BookImage("Book.002r.tif", 10, 10, false));
+
+        assertSame(images.get(2), list.getImage("Book.002r.tif"));
+
+        // A moved image is found again, a replacement once the list is set
+        images.set(0, new BookImage("Book.002v.tif", 10, 10, false));
+
+        assertSame(images.get(1), list.getImage("Book.001v.tif"));
+
+        images.set(1, new BookImage("Book.003r.tif", 10, 10, false));
+        list.setImages(images);
+
+        assertSame(images.get(1), list.getImage("Book.003r.tif"));
+        assertNull(list.getImage("Book.001v.tif"));
+    }
+}
@@ -3,7 +3,10 @@ package rosa.archive.tool;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.apache.commons.cli.BasicParser;
@@ -25,6 +28,7 @@ import rosa.archive.core.Store;
 import rosa.archive.core.StoreImpl;
 import rosa.archive.core.check.BookChecker;
 import rosa.archive.core.check.BookCollectionChecker;
+import rosa.archive.core.check.FixityLedger;
 import rosa.archive.core.serialize.SerializerSet;
 import rosa.archive.tool.config.Command;
 import rosa.archive.tool.config.Flag;
@@ -33,17 +37,28 @@ import rosa.archive.tool.derivative.AbstractDerivative;
 import rosa.archive.tool.derivative.BookDerivative;
 import rosa.archive.tool.derivative.CollectionDerivative;
 import rosa.archive.tool.derivative.CropDerivative;
+import rosa.archive.tool.derivative.ImageInfoDerivative;
+import rosa.archive.tool.derivative.TileDerivative;
+import rosa.iiif.image.core.ImageIOService;
+import rosa.iiif.image.core.ImageInfoCache;
+import rosa.iiif.image.core.TilePyramidBuilder;
+import rosa.iiif.image.model.TileInfo;
 
 /**
  *
  */
 public class ArchiveTool {
+    // Must match the tiles advertised by the IIIF image servlet
+    private static final int DEFAULT_TILE_SIZE = 512;
+    private static final String DEFAULT_SCALE_FACTORS = "1,2,4";
+
     private final ToolConfig config;
     private final Store store;
     private final PrintStream report;
     private AORTranscriptionChecker aorTranscriptionChecker;
     private AORIdMapper idMapper;
     private ImageListDecorator imageListDecorator;
+    private ExecutorService bookExecutor;
 
     public ArchiveTool(Store store, ToolConfig config) {
         this(store, config, System.out);
@@ -105,20 +120,33 @@ public class ArchiveTool {
         
         // Set options for command
 
+        options.addOption(Flag.THREADS.shortName(), Flag.THREADS.longName(), true,
+                "Number of books of a collection to process at once. Output of each book is shown when it is "
+                        + "complete. Defaults to 1");
+
         switch (cmd) {
         case LIST:
             break;
         case CHECK:
             options.addOption(new Option(Flag.CHECK_BITS.shortName(),
                     Flag.CHECK_BITS.longName(), false, "check bit integrity of data in the archive"));
+            options.addOption(Flag.IO_THREADS.shortName(), Flag.IO_THREADS.longName(), true,
+                    "Number of files to hash at once when checking bit integrity. Defaults to 1");
+            options.addOption(Flag.FIXITY_LEDGER.shortName(), Flag.FIXITY_LEDGER.longName(), true,
+                    "File recording verified items. Unchanged items in it are not hashed again, which also "
+                            + "lets an interrupted check resume.");
             break;
         case UPDATE:
             options.addOption(Flag.FORCE.shortName(), Flag.FORCE.longName(), false,
                     "force the operation to execute fully, without skipping data");
+            options.addOption(Flag.IO_THREADS.shortName(), Flag.IO_THREADS.longName(), true,
+                    "Number of files to hash at once when updating checksums. Defaults to 1");
             break;
         case UPDATE_IMAGE_LIST:
             options.addOption(Flag.FORCE.shortName(), Flag.FORCE.longName(), false,
                     "force the operation to execute fully, overwriting any current image list.");
+            options.addOption(Flag.IO_THREADS.shortName(), Flag.IO_THREADS.longName(), true,
+                    "Number of image headers to read at once. Defaults to 1");
             break;
         case CROP_IMAGES:
             options.addOption(Flag.FORCE.shortName(), Flag.FORCE.longName(), false,
@@ -151,6 +179,20 @@ public class ArchiveTool {
             break;
         case DECORATE_IMAGE_LIST:
             break;
+        case BUILD_TILES:
+            options.addOption(Flag.FORCE.shortName(), Flag.FORCE.longName(), false,
+                    "force the operation to execute fully, overwriting any current tile files.");
+            options.addOption(Flag.TILE_DIR.shortName(), Flag.TILE_DIR.longName(), true,
+                    "Directory in which to write tile files. Must match tile.dir of the IIIF image servlet.");
+            options.addOption(Flag.TILE_SIZE.shortName(), Flag.TILE_SIZE.longName(), true,
+                    "Width and height of tiles in pixels. Defaults to " + DEFAULT_TILE_SIZE);
+            options.addOption(Flag.SCALE_FACTORS.shortName(), Flag.SCALE_FACTORS.longName(), true,
+                    "Comma separated list of scale factors. Defaults to " + DEFAULT_SCALE_FACTORS);
+            break;
+        case WRITE_IMAGE_INFO:
+            options.addOption(Flag.IMAGE_INFO_FILE.shortName(), Flag.IMAGE_INFO_FILE.longName(), true,
+                    "Image info cache file to add to. Must match cache.file.image.info of the IIIF image servlet.");
+            break;
         default:
             break;
         }
@@ -174,17 +216,75 @@ public class ArchiveTool {
             );
         }
 
+        // Items are hashed and image headers read by the store on its load executor
+        ExecutorService loadExecutor = null;
+
+        if (cmd == Command.UPDATE || cmd == Command.UPDATE_IMAGE_LIST) {
+            int ioThreads = Integer.parseInt(cmdline.getOptionValue(Flag.IO_THREADS.longName(), "1"));
+
+            if (ioThreads > 1) {
+                loadExecutor = Executors.newFixedThreadPool(ioThreads);
+            }
+        }
+
         // Create the tool and run the command
         ByteStreamGroup base = new FSByteStreamGroup(config.getArchivePath());
-        Store store = new StoreImpl(injector.getInstance(SerializerSet.class), injector.getInstance(BookChecker.class),
-                injector.getInstance(BookCollectionChecker.class), base, true);
+        BookChecker bookChecker = injector.getInstance(BookChecker.class);
+        BookCollectionChecker collectionChecker = injector.getInstance(BookCollectionChecker.class);
+        Store store = new StoreImpl(injector.getInstance(SerializerSet.class), bookChecker, collectionChecker, base,
+                true, loadExecutor);
 
         ArchiveTool tool = new ArchiveTool(store, config);
         tool.aorTranscriptionChecker = injector.getInstance(AORTranscriptionChecker.class);
         tool.idMapper = new AORIdMapper(base, tool.report);
         tool.imageListDecorator = new ImageListDecorator(store, base, tool.report);
 
-        tool.run(cmdline, cmd);
+        ExecutorService fixityExecutor = null;
+        FixityLedger fixityLedger = null;
+        int threads = Integer.parseInt(cmdline.getOptionValue(Flag.THREADS.longName(), "1"));
+
+        if (threads > 1) {
+            tool.bookExecutor = Executors.newWorkStealingPool(threads);
+        }
+
+        if (cmd == Command.CHECK) {
+            int ioThreads = Integer.parseInt(cmdline.getOptionValue(Flag.IO_THREADS.longName(), "1"));
+            String ledgerFile = cmdline.getOptionValue(Flag.FIXITY_LEDGER.longName(), null);
+
+            if (ioThreads > 1) {
+                fixityExecutor = Executors.newFixedThreadPool(ioThreads);
+            }
+
+            if (ledgerFile != null) {
+                fixityLedger = new FixityLedger(Paths.get(ledgerFile));
+                fixityLedger.load();
+            }
+
+            bookChecker.setFixityExecutor(fixityExecutor);
+            bookChecker.setFixityLedger(fixityLedger);
+            collectionChecker.setFixityExecutor(fixityExecutor);
+            collectionChecker.setFixityLedger(fixityLedger);
+        }
+
+        try {
+            tool.run(cmdline, cmd);
+        } finally {
+            if (fixityExecutor != null) {
+                fixityExecutor.shutdownNow();
+            }
+
+            if (loadExecutor != null) {
+                loadExecutor.shutdownNow();
+            }
+
+            if (tool.bookExecutor != null) {
+                tool.bookExecutor.shutdownNow();
+            }
+
+            if (fixityLedger != null) {
+                fixityLedger.close();
+            }
+        }
     }
 
     private void run(CommandLine cmdline, Command cmd) throws IOException {
@@ -268,6 +368,18 @@ public class ArchiveTool {
         case DECORATE_IMAGE_LIST:
             imageListDecorator.run(args[1], args[2]);
             break;
+        case BUILD_TILES:
+            TileDerivative tDer = tileDerivative(cmdline, args[1], args[2]);
+            if (tDer != null) {
+                tDer.buildTiles(has_option(cmdline, Flag.FORCE));
+            }
+            break;
+        case WRITE_IMAGE_INFO:
+            ImageInfoDerivative iDer = imageInfoDerivative(cmdline, args[1], args[2]);
+            if (iDer != null) {
+                iDer.writeImageInfo();
+            }
+            break;
         default:
             System.out.println("Command not supported on book");
             System.out.println(genericUsage());
@@ -288,6 +400,7 @@ public class ArchiveTool {
 
         for (String col : cols) {
             CollectionDerivative deriv = new CollectionDerivative(col, report, store);
+            deriv.setExecutor(bookExecutor);
 
             switch (cmd) {
             case LIST:
@@ -300,14 +413,19 @@ public class ArchiveTool {
                 deriv.updateChecksum(has_option(cmdline, Flag.FORCE));
                 break;
             case UPDATE_IMAGE_LIST:
+                deriv.generateAndWriteImageList(has_option(cmdline, Flag.FORCE));
                 break;
             case CROP_IMAGES:
                 CropDerivative cd = new CropDerivative(col, report, store);
+                cd.setExecutor(bookExecutor);
                 cd.cropImages(has_option(cmdline, Flag.FORCE));
                 break;
             case VALIDATE_XML:
                 deriv.validateXml();
                 break;
+            case GENERATE_TEI:
+                deriv.convertTranscriptionTexts();
+                break;
             case CHECK_AOR:
                 String sheet_dir = cmdline.getOptionValue(Flag.SPREADSHEET_DIR.longName(), null);
                 aorTranscriptionChecker.run(args[1], false, sheet_dir, report);
@@ -321,6 +439,18 @@ public class ArchiveTool {
             case DECORATE_IMAGE_LIST:
                 imageListDecorator.run(args[1], null);
                 break;
+            case BUILD_TILES:
+                TileDerivative td = tileDerivative(cmdline, col, null);
+                if (td != null) {
+                    td.buildTiles(has_option(cmdline, Flag.FORCE));
+                }
+                break;
+            case WRITE_IMAGE_INFO:
+                ImageInfoDerivative id = imageInfoDerivative(cmdline, col, null);
+                if (id != null) {
+                    id.writeImageInfo();
+                }
+                break;
             default:
                 System.out.println("Command not supported on collection");
                 System.out.println(genericUsage());
@@ -329,6 +459,45 @@ public class ArchiveTool {
         }
     }
 
+    private TileDerivative tileDerivative(CommandLine cmdline, String collection, String book) {
+        String tileDir = cmdline.getOptionValue(Flag.TILE_DIR.longName(), null);
+
+        if (tileDir == null) {
+            System.err.println("Must specify tile directory with -" + Flag.TILE_DIR.shortName());
+            return null;
+        }
+
+        int tileSize = Integer.parseInt(
+                cmdline.getOptionValue(Flag.TILE_SIZE.longName(), String.valueOf(DEFAULT_TILE_SIZE)));
+        int[] scaleFactors = Arrays.stream(
+                cmdline.getOptionValue(Flag.SCALE_FACTORS.longName(), DEFAULT_SCALE_FACTORS).split(","))
+                .mapToInt(f -> Integer.parseInt(f.trim())).toArray();
+
+        TileInfo tileInfo = new TileInfo();
+        tileInfo.setWidth(tileSize);
+        tileInfo.setHeight(tileSize);
+        tileInfo.setScaleFactors(scaleFactors);
+
+        // Tiles are rendered at full size so there is no maximum image size
+        ImageIOService service = new ImageIOService(Paths.get(config.getArchivePath()), -1, tileSize, tileSize,
+                scaleFactors, 1);
+
+        return new TileDerivative(collection, book, report, store, new TilePyramidBuilder(service, tileInfo),
+                Paths.get(tileDir));
+    }
+
+    private ImageInfoDerivative imageInfoDerivative(CommandLine cmdline, String collection, String book) {
+        String file = cmdline.getOptionValue(Flag.IMAGE_INFO_FILE.longName(), null);
+
+        if (file == null) {
+            System.err.println("Must specify image info file with -" + Flag.IMAGE_INFO_FILE.shortName());
+            return null;
+        }
+
+        return new ImageInfoDerivative(collection, book, report, store,
+                new ImageInfoCache(Paths.get(file), Integer.MAX_VALUE));
+    }
+
     private String genericUsage() {
         return "Valid commands: [" +
                 Arrays.stream(Command.values()).map(Command::display).collect(Collectors.joining(", ")) +
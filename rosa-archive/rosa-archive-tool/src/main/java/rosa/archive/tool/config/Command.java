@@ -19,7 +19,9 @@ public enum Command {
     CHECK_AOR("check-aor"),
     GENERATE_ANNOTATION_MAP("generate-annotation-map"),
     MIGRATE_TEI_METADATA("migrate-tei-metadata"),
-    DECORATE_IMAGE_LIST("decorate-image-list");
+    DECORATE_IMAGE_LIST("decorate-image-list"),
+    BUILD_TILES("build-tiles"),
+    WRITE_IMAGE_INFO("write-image-info");
 
     private String display;
 
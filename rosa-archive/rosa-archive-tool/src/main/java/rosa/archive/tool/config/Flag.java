@@ -9,7 +9,14 @@ public enum Flag {
     FORCE("f", "force"),
     CHANGE_ID("I", "change-id"),
     REVERSE("R", "reverse"),
-    SPREADSHEET_DIR("S", "spreadsheet-dir");
+    SPREADSHEET_DIR("S", "spreadsheet-dir"),
+    TILE_DIR("T", "tile-dir"),
+    TILE_SIZE("s", "tile-size"),
+    SCALE_FACTORS("F", "scale-factors"),
+    IMAGE_INFO_FILE("O", "image-info-file"),
+    IO_THREADS("j", "io-threads"),
+    FIXITY_LEDGER("L", "fixity-ledger"),
+    THREADS("t", "threads");
 
     private String longName;
     private String shortName;
@@ -1,10 +1,19 @@
 package rosa.archive.tool.derivative;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.FileUtils;
 
@@ -16,14 +25,132 @@ import rosa.archive.core.util.CSV;
  */
 public abstract class AbstractDerivative {
 
+    /**
+     * Work done for one book of a collection.
+     */
+    protected interface BookTask {
+        /**
+         * @param book book id
+         * @param out stream to write the report for the book to
+         * @return true if the book was processed without errors
+         * @throws IOException if the book cannot be processed
+         */
+        boolean run(String book, PrintStream out) throws IOException;
+    }
+
     protected PrintStream report;
     protected Store store;
+    protected ExecutorService executor;
 
     AbstractDerivative(PrintStream report, Store store) {
         this.report = report;
         this.store = store;
     }
 
+    /**
+     * @param executor executor used to process the books of a collection at
+     *            once, NULL to process them one at a time
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a task for each book. If there is an executor, the tasks run on it
+     * and the output of each is buffered so that the report is still written
+     * in the order of the books. A summary of the elapsed time taken, and of
+     * the CPU time taken by the whole process where the JVM reports it, is
+     * written at the end.
+     *
+     * @param books book ids
+     * @param task task to run
+     * @return true if every task succeeded
+     * @throws IOException if a task fails, after the output of the books
+     *             before it is written
+     */
+    protected boolean forEachBook(String[] books, BookTask task) throws IOException {
+        long cpuStart = processCpuTime();
+        long start = System.nanoTime();
+
+        List<FutureTask<Boolean>> tasks = new ArrayList<>();
+        List<ByteArrayOutputStream> buffers = new ArrayList<>();
+
+        for (String book : books) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream out = executor == null ? report
+                    : new PrintStream(buffer, true, StandardCharsets.UTF_8.name());
+
+            tasks.add(new FutureTask<>(() -> task.run(book, out)));
+            buffers.add(buffer);
+        }
+
+        boolean result = true;
+
+        try {
+            for (FutureTask<Boolean> t : tasks) {
+                if (executor == null) {
+                    t.run();
+                } else {
+                    executor.execute(t);
+                }
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                result &= get(tasks.get(i));
+                report.print(new String(buffers.get(i).toByteArray(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            tasks.forEach(t -> t.cancel(true));
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long cpuEnd = processCpuTime();
+
+        if (cpuStart == -1 || cpuEnd == -1) {
+            report.printf("%n  %d books in %.1f s elapsed%n", books.length, elapsed / 1e9);
+        } else {
+            report.printf("%n  %d books in %.1f s elapsed, %.1f s CPU%n", books.length, elapsed / 1e9,
+                    (cpuEnd - cpuStart) / 1e9);
+        }
+
+        return result;
+    }
+
+    /**
+     * Includes the threads of every pool the books use, such as those loading
+     * items, hashing files and cropping images.
+     *
+     * @return CPU time used by the process in nanoseconds, -1 if not known
+     */
+    private static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+
+        return -1;
+    }
+
+    private static boolean get(FutureTask<Boolean> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
     public abstract void list();
 
     public abstract void updateChecksum(boolean force) throws IOException;
@@ -44,14 +171,22 @@ public abstract class AbstractDerivative {
     }
 
     protected void reportError(String ... errors) {
+        reportError(report, errors);
+    }
+
+    protected void reportError(String title, List<String> errors) {
+        reportError(report, title, errors);
+    }
+
+    protected static void reportError(PrintStream out, String ... errors) {
         for (String err : errors) {
-            report.println("    " + err);
+            out.println("    " + err);
         }
     }
 
-    protected void reportError(String title, List<String> errors) {
-        report.println("\n  " + title);
-        reportError(errors.toArray(new String[errors.size()]));
+    protected static void reportError(PrintStream out, String title, List<String> errors) {
+        out.println("\n  " + title);
+        reportError(out, errors.toArray(new String[errors.size()]));
     }
     
 
@@ -71,24 +71,36 @@ public class CollectionDerivative extends AbstractDerivative {
 
         List<String> errors = new ArrayList<>();
 
-        report.print("  \nUpdating SHA1SUM for collection. [" + collection + "]");
-        store.updateChecksum(collection, force, errors);
-        report.println(" ... complete!");
-
-        if (!errors.isEmpty()) {
-            reportError("Errors", errors);
-            errors.clear();
-        }
-
-        for (String bookName : store.listBooks(collection)) {
-            report.print("  Updating SHA1SUM for book. [" + collection + ":" + bookName + "]");
-            store.updateChecksum(collection, bookName, force, errors);
-            report.println(" ... complete!");
+        if (executor != null) {
+            report.println("  \nUpdating SHA1SUM for collection. [" + collection + "]");
+            store.updateChecksum(collection, force, errors);
 
             if (!errors.isEmpty()) {
                 reportError("Errors", errors);
-                errors.clear();
             }
+
+            forEachBook(store.listBooks(collection), (book, out) -> {
+                List<String> bookErrors = new ArrayList<>();
+
+                out.println("Updating SHA1SUM for " + collection + ":" + book);
+                store.updateChecksum(collection, book, force, bookErrors);
+
+                if (!bookErrors.isEmpty()) {
+                    reportError(out, "Errors", bookErrors);
+                }
+
+                return bookErrors.isEmpty();
+            });
+
+            return;
+        }
+
+        report.print("  \nUpdating SHA1SUM for collection and books. [" + collection + "]");
+        store.updateAllChecksums(collection, force, errors);
+        report.println(" ... complete!");
+
+        if (!errors.isEmpty()) {
+            reportError("Errors", errors);
         }
     }
 
@@ -113,35 +125,35 @@ public class CollectionDerivative extends AbstractDerivative {
 
         if (!errors.isEmpty()) {
             reportError("Errors:", errors);
-            errors.clear();
         }
         if (!warnings.isEmpty()) {
             reportError("Warnings:", warnings);
-            warnings.clear();
         }
 
-        for (String bookName : store.listBooks(collection)) {
-            if (bookName.endsWith(".ignore")) {
-                continue;
-            }
+        String[] books = Arrays.stream(store.listBooks(collection)).filter(b -> !b.endsWith(".ignore"))
+                .toArray(String[]::new);
+
+        forEachBook(books, (bookName, out) -> {
+            List<String> bookErrors = new ArrayList<>();
+            List<String> bookWarnings = new ArrayList<>();
 
-            Book book = store.loadBook(col, bookName, loadingErrors);
+            Book book = store.loadBook(col, bookName, new ArrayList<>());
             if (book == null) {
-                report.println("Failed to read book. [" + collection + ":" + bookName + "]");
-                continue;
+                out.println("Failed to read book. [" + collection + ":" + bookName + "]");
+                return false;
             }
-            report.println("\n" + bookName);
-            store.check(col, book, checkBits, errors, warnings);
+            out.println("\n" + bookName);
+            store.check(col, book, checkBits, bookErrors, bookWarnings);
 
-            if (!errors.isEmpty()) {
-                reportError("Errors: ", errors);
-                errors.clear();
+            if (!bookErrors.isEmpty()) {
+                reportError(out, "Errors: ", bookErrors);
             }
-            if (!warnings.isEmpty()) {
-                reportError("Warnings: ", warnings);
-                warnings.clear();
+            if (!bookWarnings.isEmpty()) {
+                reportError(out, "Warnings: ", bookWarnings);
             }
-        }
+
+            return bookErrors.isEmpty();
+        });
     }
 
     @Override
@@ -150,15 +162,19 @@ public class CollectionDerivative extends AbstractDerivative {
             report.println("Failed to create image lists, collection not found in archive. (" + collection + ")");
             return;
         }
-        List<String> errors = new ArrayList<>();
-        for (String book : store.listBooks(collection)) {
-            report.println("Generating image list for " + collection + ":" + book);
+
+        forEachBook(store.listBooks(collection), (book, out) -> {
+            List<String> errors = new ArrayList<>();
+
+            out.println("Generating image list for " + collection + ":" + book);
             store.generateAndWriteImageList(collection, book, force, errors);
 
             if (!errors.isEmpty()) {
-                reportError("Errors:", errors);
+                reportError(out, "Errors:", errors);
             }
-        }
+
+            return errors.isEmpty();
+        });
     }
 
     @Override
@@ -167,20 +183,23 @@ public class CollectionDerivative extends AbstractDerivative {
             report.println("Cannot validate XML, collection not found in archive. (" + collection + ")");
             return;
         }
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
 
-        for (String book : store.listBooks(collection)) {
-            report.println("Validating XML files for " + collection + ":" + book);
+        forEachBook(store.listBooks(collection), (book, out) -> {
+            List<String> errors = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+
+            out.println("Validating XML files for " + collection + ":" + book);
             store.validateXml(collection, book, errors, warnings);
 
             if (!errors.isEmpty()) {
-                reportError("Errors:", errors);
+                reportError(out, "Errors:", errors);
             }
             if (!warnings.isEmpty()) {
-                reportError("Warnings:", warnings);
+                reportError(out, "Warnings:", warnings);
             }
-        }
+
+            return errors.isEmpty();
+        });
     }
 
     @Override
@@ -189,16 +208,19 @@ public class CollectionDerivative extends AbstractDerivative {
             report.println("Cannot rename images, collection not found in archive. (" + collection + ")");
             return;
         }
-        List<String> errors = new ArrayList<>();
 
-        for (String book : store.listBooks(collection)) {
-            report.println("Renaming images for " + collection + ":" + book);
+        forEachBook(store.listBooks(collection), (book, out) -> {
+            List<String> errors = new ArrayList<>();
+
+            out.println("Renaming images for " + collection + ":" + book);
             store.renameImages(collection, book, changeId, reverse, errors);
 
             if (!errors.isEmpty()) {
-                reportError("Errors:", errors);
+                reportError(out, "Errors:", errors);
             }
-        }
+
+            return errors.isEmpty();
+        });
     }
 
     @Override
@@ -207,15 +229,47 @@ public class CollectionDerivative extends AbstractDerivative {
             report.println("Cannot rename transcriptions, collection not found in archive. (" + collection + ")");
             return;
         }
-        List<String> errors = new ArrayList<>();
 
-        for (String book : store.listBooks(collection)) {
-            report.println("Validating XML files for " + collection + ":" + book);
+        forEachBook(store.listBooks(collection), (book, out) -> {
+            List<String> errors = new ArrayList<>();
+
+            out.println("Renaming AoR transcriptions for " + collection + ":" + book);
             store.renameTranscriptions(collection, book, reverse, errors);
 
             if (!errors.isEmpty()) {
-                reportError("Errors:", errors);
+                reportError(out, "Errors:", errors);
             }
+
+            return errors.isEmpty();
+        });
+    }
+
+    /**
+     * Generate TEI transcriptions for all books in the collection.
+     *
+     * @throws IOException if the collection is inaccessible
+     */
+    public void convertTranscriptionTexts() throws IOException {
+        if (!collectionExists) {
+            report.println("Cannot generate TEI, collection not found in archive. (" + collection + ")");
+            return;
         }
+
+        forEachBook(store.listBooks(collection), (book, out) -> {
+            List<String> errors = new ArrayList<>();
+            List<String> warnings = new ArrayList<>();
+
+            out.println("Generating TEI transcriptions for " + collection + ":" + book);
+            store.generateTEITranscriptions(collection, book, errors, warnings);
+
+            if (!warnings.isEmpty()) {
+                reportError(out, "Warning:", warnings);
+            }
+            if (!errors.isEmpty()) {
+                reportError(out, "Errors:", errors);
+            }
+
+            return errors.isEmpty();
+        });
     }
 }
@@ -26,29 +26,27 @@ public class CropDerivative extends BookDerivative {
 
         if (collection == null) {
             for (String col : store.listBookCollections()) {
-                for (String b : store.listBooks(col)) {
-                    result = result && cropForBook(b, force);
-                }
+                result &= forEachBook(store.listBooks(col), (b, out) -> cropForBook(col, b, force, out));
             }
         } else if (book == null) {
-            for (String b : store.listBooks(collection)) {
-                result = result && cropForBook(b, force);
-            }
+            result = forEachBook(store.listBooks(collection), (b, out) -> cropForBook(collection, b, force, out));
         } else {
-            result = cropForBook(book, force);
+            result = cropForBook(collection, book, force, report);
         }
 
         return result;
     }
 
-    private boolean cropForBook(String book, boolean force) throws IOException {
+    private boolean cropForBook(String collection, String book, boolean force, PrintStream out)
+            throws IOException {
         List<String> errors = new ArrayList<>();
 
+        out.println("Cropping images for " + collection + ":" + book);
         store.cropImages(collection, book, force, errors);
         store.generateAndWriteCropList(collection, book, force, errors);
 
         if (!errors.isEmpty()) {
-            reportError("Errors:", errors);
+            reportError(out, "Errors:", errors);
         }
 
         return errors.isEmpty();
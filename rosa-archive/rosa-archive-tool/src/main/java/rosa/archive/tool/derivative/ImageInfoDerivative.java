@@ -0,0 +1,81 @@
+package rosa.archive.tool.derivative;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import rosa.archive.core.Store;
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+import rosa.archive.model.BookImage;
+import rosa.archive.model.ImageList;
+import rosa.iiif.image.core.ImageInfoCache;
+
+/**
+ * Add the image dimensions recorded in the image lists of books to an image
+ * info cache snapshot used by the IIIF image servlet. Existing entries in the
+ * snapshot are kept.
+ */
+public class ImageInfoDerivative extends BookDerivative {
+    private final ImageInfoCache cache;
+
+    public ImageInfoDerivative(String collection, String book, PrintStream report, Store store,
+                               ImageInfoCache cache) {
+        super(collection, book, report, store);
+        this.cache = cache;
+    }
+
+    public boolean writeImageInfo() throws IOException {
+        cache.load();
+
+        boolean result = true;
+
+        if (book == null) {
+            for (String b : store.listBooks(collection)) {
+                result &= addBook(b);
+            }
+        } else {
+            result = addBook(book);
+        }
+
+        cache.save();
+        report.println("Image info entries: " + cache.size());
+
+        return result;
+    }
+
+    private boolean addBook(String bookId) throws IOException {
+        List<String> errors = new ArrayList<>();
+
+        BookCollection col = store.loadBookCollection(collection, errors);
+        Book b = col == null ? null : store.loadBook(col, bookId, errors);
+
+        if (b == null) {
+            report.println("Failed to read book. [" + collection + ":" + bookId + "]");
+            return false;
+        }
+
+        add(collection + "/" + bookId + "/", b.getImages());
+        add(collection + "/" + bookId + "/cropped/", b.getCroppedImages());
+
+        return true;
+    }
+
+    private void add(String prefix, ImageList list) {
+        if (list == null) {
+            return;
+        }
+
+        for (BookImage image : list) {
+            if (image.isMissing() || image.getWidth() <= 0 || image.getHeight() <= 0) {
+                continue;
+            }
+
+            String name = image.getId();
+            int i = name.lastIndexOf('.');
+
+            cache.put(prefix + (i > 0 ? name.substring(0, i) : name), image.getWidth(), image.getHeight());
+        }
+    }
+}
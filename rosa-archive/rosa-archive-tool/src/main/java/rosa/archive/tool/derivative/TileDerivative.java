@@ -0,0 +1,109 @@
+package rosa.archive.tool.derivative;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import rosa.archive.core.Store;
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+import rosa.archive.model.BookImage;
+import rosa.archive.model.ImageList;
+import rosa.iiif.image.core.IIIFException;
+import rosa.iiif.image.core.TilePyramidBuilder;
+
+/**
+ * Build the packed tile files served by the IIIF image servlet for the images
+ * and cropped images of books. Images which already have a tile file are
+ * skipped unless forced, so an interrupted build can be restarted.
+ */
+public class TileDerivative extends BookDerivative {
+    private final TilePyramidBuilder builder;
+    private final Path tileDir;
+
+    public TileDerivative(String collection, String book, PrintStream report, Store store,
+                          TilePyramidBuilder builder, Path tileDir) {
+        super(collection, book, report, store);
+        this.builder = builder;
+        this.tileDir = tileDir;
+    }
+
+    public boolean buildTiles(boolean force) throws IOException {
+        boolean result = true;
+
+        if (collection == null) {
+            for (String col : store.listBookCollections()) {
+                for (String b : store.listBooks(col)) {
+                    result &= buildForBook(col, b, force);
+                }
+            }
+        } else if (book == null) {
+            for (String b : store.listBooks(collection)) {
+                result &= buildForBook(collection, b, force);
+            }
+        } else {
+            result = buildForBook(collection, book, force);
+        }
+
+        return result;
+    }
+
+    private boolean buildForBook(String col, String bookId, boolean force) throws IOException {
+        List<String> errors = new ArrayList<>();
+
+        BookCollection bookCollection = store.loadBookCollection(col, errors);
+        Book b = bookCollection == null ? null : store.loadBook(bookCollection, bookId, errors);
+
+        if (b == null) {
+            report.println("Failed to read book. [" + col + ":" + bookId + "]");
+            return false;
+        }
+
+        report.println("Building tiles. [" + col + ":" + bookId + "]");
+
+        int images = build(col + "/" + bookId + "/", b.getImages(), force, errors);
+        images += build(col + "/" + bookId + "/cropped/", b.getCroppedImages(), force, errors);
+
+        report.println("  Images tiled: " + images);
+
+        if (!errors.isEmpty()) {
+            reportError("Errors:", errors);
+        }
+
+        return errors.isEmpty();
+    }
+
+    private int build(String prefix, ImageList list, boolean force, List<String> errors) throws IOException {
+        if (list == null) {
+            return 0;
+        }
+
+        int count = 0;
+
+        for (BookImage image : list) {
+            if (image.isMissing()) {
+                continue;
+            }
+
+            String imageId = prefix + stripExtension(image.getId());
+
+            try {
+                if (builder.build(imageId, tileDir, force) > 0) {
+                    count++;
+                }
+            } catch (IIIFException e) {
+                errors.add("Failed to build tiles for " + imageId + ": " + e.getMessage());
+            }
+        }
+
+        return count;
+    }
+
+    private String stripExtension(String name) {
+        int i = name.lastIndexOf('.');
+
+        return i > 0 ? name.substring(0, i) : name;
+    }
+}
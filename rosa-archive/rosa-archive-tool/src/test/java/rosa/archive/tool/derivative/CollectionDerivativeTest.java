@@ -0,0 +1,91 @@
+package rosa.archive.tool.derivative;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rosa.archive.core.BaseArchiveTest;
+
+/**
+ * @see rosa.archive.tool.derivative.CollectionDerivative
+ */
+public class CollectionDerivativeTest extends BaseArchiveTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setupExecutor() {
+        executor = Executors.newWorkStealingPool(4);
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private String check(ExecutorService executor) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream report = new PrintStream(out, true, StandardCharsets.UTF_8.name());
+
+        CollectionDerivative deriv = new CollectionDerivative(VALID_COLLECTION, report, store);
+        deriv.setExecutor(executor);
+        deriv.check(false);
+
+        String result = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        String summary = "books in ";
+
+        assertTrue(result.contains(summary));
+
+        // Timings differ between runs
+        return result.substring(0, result.lastIndexOf(summary));
+    }
+
+    /**
+     * Books checked at once are reported just as when they are checked in turn.
+     */
+    @Test
+    public void parallelReportMatchesSequential() throws Exception {
+        String expected = check(null);
+
+        assertTrue(expected.indexOf(VALID_BOOK_FOLGERSHA2) > 0);
+        assertTrue(expected.indexOf(VALID_BOOK_LUDWIGXV7) > 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, check(executor));
+        }
+    }
+
+    /**
+     * A failing book stops the operation after the books before it are
+     * reported.
+     */
+    @Test(expected = IOException.class)
+    public void failureReported() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CollectionDerivative deriv = new CollectionDerivative(VALID_COLLECTION, new PrintStream(out), store);
+        deriv.setExecutor(executor);
+
+        try {
+            deriv.forEachBook(new String[] {"one", "two"}, (book, report) -> {
+                report.println(book);
+
+                if (book.equals("two")) {
+                    throw new IOException(book);
+                }
+
+                return true;
+            });
+        } finally {
+            assertEquals("one" + System.lineSeparator(), out.toString());
+        }
+    }
+}
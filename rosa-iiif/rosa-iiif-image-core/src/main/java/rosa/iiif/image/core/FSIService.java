@@ -7,7 +7,6 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -38,10 +37,9 @@ import rosa.iiif.image.model.TileInfo;
  */
 public class FSIService implements IIIFService {
     private final String baseurl;
-    private final ConcurrentHashMap<String, ImageInfo> image_info_cache;
+    private final ImageInfoCache image_info_cache;
     private final ImageServerProfile profile;
     private final TileInfo tile_info;
-    private final int image_info_cache_size;
     private final int max_image_size;
 
     /**
@@ -56,12 +54,26 @@ public class FSIService implements IIIFService {
      */
     public FSIService(String baseurl, int max_image_size, int tile_width, int tile_height,
                       int[] scale_factors, int image_info_cache_size) {
+        this(baseurl, max_image_size, tile_width, tile_height, scale_factors, new ImageInfoCache(null, image_info_cache_size));
+    }
+
+    /**
+     * @param baseurl base URL to FSI webapp
+     * @param max_image_size
+     *            maximum dimension of a returned image, -1 for unlimited
+     * @param tile_width width of tiles in px
+     * @param tile_height height of tiles in px
+     * @param scale_factors scale factors
+     * @param image_info_cache
+     *            cache of image info lookups, may be prepopulated
+     */
+    public FSIService(String baseurl, int max_image_size, int tile_width, int tile_height,
+                      int[] scale_factors, ImageInfoCache image_info_cache) {
         // Add /server to FSI URL
         this.baseurl = (baseurl.endsWith("/") ? baseurl : baseurl + "/") + "server";
-        this.image_info_cache = new ConcurrentHashMap<>(image_info_cache_size);
+        this.image_info_cache = image_info_cache;
         this.profile = new ImageServerProfile();
         this.max_image_size = max_image_size;
-        this.image_info_cache_size = image_info_cache_size;
 
         profile.setFormats(ImageFormat.PNG);
         profile.setSupports(ImageServerSupports.REGION_BY_PCT, ImageServerSupports.SIZE_BY_FORCED_WH,
@@ -271,13 +283,16 @@ public class FSIService implements IIIFService {
         return lookup(req.getImageId());
     }
 
+    // Every lookup returns a new ImageInfo because callers modify it
     private ImageInfo lookup(String image_id) throws IIIFException {
-        ImageInfo info = image_info_cache.get(image_id);
+        int[] dims = image_info_cache.get(image_id);
 
-        if (info != null) {
-            return info;
+        if (dims != null) {
+            return create_image_info(image_id, dims[0], dims[1]);
         }
 
+        ImageInfo info;
+
         // Retrieve info from FSI
 
         String fsi_info_url = baseurl + "?type=info" + "&" + param("source", image_id);
@@ -294,21 +309,25 @@ public class FSIService implements IIIFService {
 
             try (InputStream is = con.getInputStream()) {
                 info = parse_image_info(is);
-
-                info.setImageId(image_id);
-                info.setCompliance(getCompliance());
-                info.setProfiles(profile);
-                info.setTiles(tile_info);
             }
         } catch (IOException e) {
             throw new IIIFException(e, HttpURLConnection.HTTP_INTERNAL_ERROR);
         }
 
-        if (image_info_cache.size() > image_info_cache_size) {
-            image_info_cache.clear();
-        }
+        image_info_cache.put(image_id, info.getWidth(), info.getHeight());
+
+        return create_image_info(image_id, info.getWidth(), info.getHeight());
+    }
+
+    private ImageInfo create_image_info(String image_id, int width, int height) {
+        ImageInfo info = new ImageInfo();
 
-        image_info_cache.putIfAbsent(image_id, info);
+        info.setImageId(image_id);
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setCompliance(getCompliance());
+        info.setProfiles(profile);
+        info.setTiles(tile_info);
 
         return info;
     }
@@ -0,0 +1,439 @@
+package rosa.iiif.image.core;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import rosa.iiif.image.model.ComplianceLevel;
+import rosa.iiif.image.model.ImageFormat;
+import rosa.iiif.image.model.ImageInfo;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.ImageServerProfile;
+import rosa.iiif.image.model.ImageServerSupports;
+import rosa.iiif.image.model.InfoRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+import rosa.iiif.image.model.TileInfo;
+
+/**
+ * Fulfill IIIF requests from image files on the local file system using
+ * ImageIO. An image id is a path relative to the image directory with or
+ * without a .tif extension.
+ *
+ * Only the requested region is decoded. Large regions are decoded and scaled a
+ * band at a time. The number of decodes running at once is limited in order to
+ * bound memory use.
+ */
+public class ImageIOService implements IIIFService {
+    private static final String[] IMAGE_EXTENSIONS = {"", ".tif", ".tiff"};
+
+    // Maximum number of source pixels decoded at a time for one request
+    private static final int MAX_BAND_PIXELS = 4 * 1024 * 1024;
+
+    private final Path image_dir;
+    private final ImageServerProfile profile;
+    private final TileInfo tile_info;
+    private final int max_image_size;
+    private final Semaphore decode_permits;
+
+    /**
+     * @param image_dir directory which image ids are resolved against
+     * @param max_image_size
+     *            maximum dimension of a returned image, -1 for unlimited
+     * @param tile_width width of tiles in px
+     * @param tile_height height of tiles in px
+     * @param scale_factors scale factors
+     * @param max_decodes
+     *            maximum number of images to decode at the same time
+     */
+    public ImageIOService(Path image_dir, int max_image_size, int tile_width, int tile_height,
+                          int[] scale_factors, int max_decodes) {
+        this.image_dir = image_dir.toAbsolutePath().normalize();
+        this.max_image_size = max_image_size;
+        this.decode_permits = new Semaphore(max_decodes, true);
+        this.profile = new ImageServerProfile();
+
+        profile.setFormats(ImageFormat.JPG, ImageFormat.PNG);
+        profile.setSupports(ImageServerSupports.REGION_BY_PX, ImageServerSupports.REGION_BY_PCT,
+                ImageServerSupports.SIZE_BY_W, ImageServerSupports.SIZE_BY_H, ImageServerSupports.SIZE_BY_PCT,
+                ImageServerSupports.SIZE_BY_WH, ImageServerSupports.SIZE_BY_FORCED_WH,
+                ImageServerSupports.ROTATION_BY_90S, ImageServerSupports.MIRRORING,
+                ImageServerSupports.PROFILE_LINK_HEADER, ImageServerSupports.JSONLD_MEDIA_TYPEType);
+        profile.setQualities(Quality.COLOR, Quality.GRAY, Quality.BITONAL);
+
+        this.tile_info = new TileInfo();
+        tile_info.setWidth(tile_width);
+        tile_info.setHeight(tile_height);
+        tile_info.setScaleFactors(scale_factors);
+    }
+
+    /**
+     * @param image_id image id
+     * @return path to image file
+     * @throws IIIFException if the image does not exist
+     */
+    protected Path resolve(String image_id) throws IIIFException {
+        for (String ext : IMAGE_EXTENSIONS) {
+            Path path = image_dir.resolve(image_id + ext).normalize();
+
+            // Do not allow ids to escape the image directory
+            if (path.startsWith(image_dir) && Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+
+        throw new IIIFException("Image not found: " + image_id, HttpURLConnection.HTTP_NOT_FOUND);
+    }
+
+    private ImageReader open_reader(Path path) throws IOException, IIIFException {
+        ImageInputStream iis = ImageIO.createImageInputStream(path.toFile());
+
+        if (iis == null) {
+            throw new IIIFException("Cannot read image: " + path.getFileName(), HttpURLConnection.HTTP_INTERNAL_ERROR);
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+
+        if (!readers.hasNext()) {
+            iis.close();
+            throw new IIIFException("No reader for image: " + path.getFileName(),
+                    HttpURLConnection.HTTP_INTERNAL_ERROR);
+        }
+
+        ImageReader reader = readers.next();
+        reader.setInput(iis, true, true);
+
+        return reader;
+    }
+
+    private void close_reader(ImageReader reader) {
+        Object input = reader.getInput();
+
+        reader.dispose();
+
+        if (input instanceof ImageInputStream) {
+            try {
+                ((ImageInputStream) input).close();
+            } catch (IOException e) {
+                // Nothing useful to do
+            }
+        }
+    }
+
+    @Override
+    public ImageInfo perform(InfoRequest req) throws IIIFException {
+        Path path = resolve(req.getImageId());
+
+        ImageInfo info = new ImageInfo();
+
+        try {
+            ImageReader reader = open_reader(path);
+
+            // Only the header is read
+            try {
+                info.setWidth(reader.getWidth(0));
+                info.setHeight(reader.getHeight(0));
+            } finally {
+                close_reader(reader);
+            }
+        } catch (IOException e) {
+            throw new IIIFException(e, HttpURLConnection.HTTP_INTERNAL_ERROR);
+        }
+
+        info.setImageId(req.getImageId());
+        info.setCompliance(getCompliance());
+        info.setProfiles(profile);
+        info.setTiles(tile_info);
+
+        return info;
+    }
+
+    @Override
+    public InputStream perform(ImageRequest req) throws IIIFException {
+        ImageFormat format = req.getFormat();
+
+        if (format != ImageFormat.JPG && format != ImageFormat.PNG) {
+            throw new IIIFException("Format unsupported: " + format.getFileExtension(),
+                    HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        Rotation rot = req.getRotation();
+        double angle = rot.getAngle() % 360.0;
+
+        if (angle % 90.0 != 0.0) {
+            throw new IIIFException("Rotation angle unsupported: " + rot.getAngle(),
+                    HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        Path path = resolve(req.getImageId());
+        BufferedImage image;
+
+        try {
+            decode_permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IIIFException("Interrupted waiting to decode image", e, HttpURLConnection.HTTP_UNAVAILABLE);
+        }
+
+        try {
+            ImageReader reader = open_reader(path);
+
+            try {
+                image = decode(reader, req);
+            } finally {
+                close_reader(reader);
+            }
+        } catch (IOException e) {
+            throw new IIIFException("Failure performing image request", e, HttpURLConnection.HTTP_INTERNAL_ERROR);
+        } finally {
+            decode_permits.release();
+        }
+
+        image = transform(image, rot.isMirrored(), (int) angle, req.getQuality(), format);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            if (!ImageIO.write(image, format == ImageFormat.JPG ? "jpeg" : "png", out)) {
+                throw new IIIFException("No writer for format: " + format.getFileExtension(),
+                        HttpURLConnection.HTTP_INTERNAL_ERROR);
+            }
+        } catch (IOException e) {
+            throw new IIIFException("Failure encoding image", e, HttpURLConnection.HTTP_INTERNAL_ERROR);
+        }
+
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Decode the requested region and scale it to the requested size. Large
+     * regions are decoded in horizontal bands which are scaled as they are
+     * read so the whole region is never held in memory at full resolution.
+     */
+    private BufferedImage decode(ImageReader reader, ImageRequest req) throws IOException, IIIFException {
+        int image_width = reader.getWidth(0);
+        int image_height = reader.getHeight(0);
+
+        Rectangle source = source_region(req.getRegion(), image_width, image_height);
+        int[] target = target_size(req.getSize(), source.width, source.height);
+
+        if (max_image_size != -1 && (target[0] > max_image_size || target[1] > max_image_size)) {
+            throw new IIIFException("Max size supported: " + max_image_size, HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        int band_height = Math.max(1, Math.min(source.height, MAX_BAND_PIXELS / source.width));
+        ImageReadParam param = reader.getDefaultReadParam();
+
+        if (band_height == source.height && source.width == target[0] && source.height == target[1]) {
+            param.setSourceRegion(source);
+            return reader.read(0, param);
+        }
+
+        BufferedImage result = null;
+        Graphics2D g = null;
+
+        try {
+            for (int y = source.y; y < source.y + source.height; y += band_height) {
+                Rectangle band = new Rectangle(source.x, y, source.width,
+                        Math.min(band_height, source.y + source.height - y));
+
+                param.setSourceRegion(band);
+                BufferedImage decoded = reader.read(0, param);
+
+                if (result == null) {
+                    result = new BufferedImage(target[0], target[1], decoded.getColorModel().hasAlpha()
+                            ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                    g = result.createGraphics();
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                }
+
+                int dy1 = (int) Math.round((double) (band.y - source.y) * target[1] / source.height);
+                int dy2 = (int) Math.round((double) (band.y + band.height - source.y) * target[1] / source.height);
+
+                if (dy2 > dy1) {
+                    g.drawImage(decoded, 0, dy1, target[0], dy2, 0, 0, decoded.getWidth(), decoded.getHeight(), null);
+                }
+            }
+        } finally {
+            if (g != null) {
+                g.dispose();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return region of the image in pixels, clipped to the image bounds
+     */
+    protected Rectangle source_region(Region reg, int image_width, int image_height) throws IIIFException {
+        Rectangle result;
+
+        if (reg.getRegionType() == RegionType.FULL) {
+            result = new Rectangle(0, 0, image_width, image_height);
+        } else if (reg.getRegionType() == RegionType.ABSOLUTE) {
+            result = new Rectangle(reg.getX(), reg.getY(), reg.getWidth(), reg.getHeight());
+        } else if (reg.getRegionType() == RegionType.PERCENTAGE) {
+            int x = (int) (reg.getPercentageX() * image_width / 100.0);
+            int y = (int) (reg.getPercentageY() * image_height / 100.0);
+            int w = (int) Math.round(reg.getPercentageWidth() * image_width / 100.0);
+            int h = (int) Math.round(reg.getPercentageHeight() * image_height / 100.0);
+
+            result = new Rectangle(x, y, w, h);
+        } else {
+            throw new IIIFException("Region unsupported: " + reg.getRegionType(),
+                    HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        result = result.intersection(new Rectangle(0, 0, image_width, image_height));
+
+        if (result.isEmpty()) {
+            throw new IIIFException("Region outside of image", HttpURLConnection.HTTP_BAD_REQUEST);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return [width, height] of the scaled region
+     */
+    protected int[] target_size(Size scale, int region_width, int region_height) throws IIIFException {
+        double width, height;
+
+        if (scale.getSizeType() == SizeType.FULL) {
+            width = region_width;
+            height = region_height;
+        } else if (scale.getSizeType() == SizeType.EXACT) {
+            width = scale.getWidth();
+            height = scale.getHeight();
+        } else if (scale.getSizeType() == SizeType.EXACT_WIDTH) {
+            width = scale.getWidth();
+            height = (double) region_height * scale.getWidth() / region_width;
+        } else if (scale.getSizeType() == SizeType.EXACT_HEIGHT) {
+            width = (double) region_width * scale.getHeight() / region_height;
+            height = scale.getHeight();
+        } else if (scale.getSizeType() == SizeType.PERCENTAGE) {
+            width = region_width * scale.getPercentage() / 100.0;
+            height = region_height * scale.getPercentage() / 100.0;
+        } else if (scale.getSizeType() == SizeType.BEST_FIT) {
+            double ratio = Math.min((double) scale.getWidth() / region_width,
+                    (double) scale.getHeight() / region_height);
+
+            width = region_width * ratio;
+            height = region_height * ratio;
+        } else {
+            throw new IIIFException("Scale unsupported: " + scale.getSizeType(), HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        int[] result = {(int) Math.round(width), (int) Math.round(height)};
+
+        if (result[0] <= 0 || result[1] <= 0) {
+            throw new IIIFException("Invalid size: " + result[0] + "x" + result[1], HttpURLConnection.HTTP_BAD_REQUEST);
+        }
+
+        return result;
+    }
+
+    /**
+     * Mirror, rotate by a multiple of 90 degrees, and apply quality. The result
+     * is suitable for encoding in the given format.
+     */
+    private BufferedImage transform(BufferedImage image, boolean mirrored, int angle, Quality quality,
+                                    ImageFormat format) throws IIIFException {
+        int type;
+
+        if (quality == Quality.DEFAULT || quality == Quality.COLOR) {
+            type = format == ImageFormat.PNG && image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+                    : BufferedImage.TYPE_INT_RGB;
+        } else if (quality == Quality.GRAY) {
+            type = BufferedImage.TYPE_BYTE_GRAY;
+        } else if (quality == Quality.BITONAL) {
+            type = BufferedImage.TYPE_BYTE_BINARY;
+        } else {
+            throw new IIIFException("Quality unsupported: " + quality.getKeyword(),
+                    HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+        }
+
+        if (angle < 0) {
+            angle += 360;
+        }
+
+        if (!mirrored && angle == 0 && image.getType() == type) {
+            return image;
+        }
+
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = angle == 90 || angle == 270;
+
+        AffineTransform at = new AffineTransform();
+
+        // Applied in reverse order: mirror, then rotate about the origin, then
+        // translate back into view
+        if (angle == 90) {
+            at.translate(h, 0);
+        } else if (angle == 180) {
+            at.translate(w, h);
+        } else if (angle == 270) {
+            at.translate(0, w);
+        }
+
+        at.rotate(Math.toRadians(angle));
+
+        if (mirrored) {
+            at.translate(w, 0);
+            at.scale(-1, 1);
+        }
+
+        BufferedImage result = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = result.createGraphics();
+
+        try {
+            g.drawImage(image, at, null);
+        } finally {
+            g.dispose();
+        }
+
+        return result;
+    }
+
+    @Override
+    public ImageServerProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public ComplianceLevel getCompliance() {
+        return ComplianceLevel.LEVEL_2;
+    }
+
+    @Override
+    public boolean supportsImageRequestURL() {
+        return false;
+    }
+
+    @Override
+    public String performURL(ImageRequest req) throws IIIFException {
+        throw new IIIFException("Image request URLs not supported", HttpURLConnection.HTTP_NOT_IMPLEMENTED);
+    }
+}
@@ -0,0 +1,189 @@
+package rosa.iiif.image.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of image dimensions by image id. When full, the least recently
+ * used image is removed.
+ *
+ * The cache may be backed by a snapshot file which is read by {@link #load()}
+ * and written by {@link #save()}. Each line of the snapshot is an image
+ * id, width, and height separated by tabs. The archive tool can write a
+ * snapshot from the image lists of the archive so lookups never have to go to
+ * the image server.
+ */
+public class ImageInfoCache {
+    private final Path snapshot;
+    private final int max_size;
+
+    // Access ordered, guarded by itself
+    private final LinkedHashMap<String, int[]> cache;
+    private boolean changed;
+
+    /**
+     * @param snapshot
+     *            file to load the cache from and save it to, may be null
+     * @param max_size
+     *            maximum number of images in the cache
+     */
+    public ImageInfoCache(Path snapshot, int max_size) {
+        this.snapshot = snapshot;
+        this.max_size = max_size;
+        this.cache = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > ImageInfoCache.this.max_size;
+            }
+        };
+    }
+
+    /**
+     * Add the images in the snapshot file to the cache.
+     *
+     * @return whether the snapshot exists and was read
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    public boolean load() throws IOException {
+        if (snapshot == null || !Files.exists(snapshot)) {
+            return false;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t");
+
+                if (parts.length != 3) {
+                    continue;
+                }
+
+                try {
+                    put(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed line in " + snapshot + ": " + line, e);
+                }
+            }
+        }
+
+        synchronized (cache) {
+            changed = false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param image_id image id
+     * @return [width, height] of image or null if not cached
+     */
+    public int[] get(String image_id) {
+        synchronized (cache) {
+            int[] dims = cache.get(image_id);
+
+            return dims == null ? null : dims.clone();
+        }
+    }
+
+    /**
+     * @param image_id image id
+     * @param width width of image
+     * @param height height of image
+     */
+    public void put(String image_id, int width, int height) {
+        synchronized (cache) {
+            int[] old = cache.put(image_id, new int[] {width, height});
+
+            if (old == null || old[0] != width || old[1] != height) {
+                changed = true;
+            }
+        }
+    }
+
+    /**
+     * @param image_id image id
+     * @return whether the image is cached
+     */
+    public boolean contains(String image_id) {
+        synchronized (cache) {
+            return cache.containsKey(image_id);
+        }
+    }
+
+    /**
+     * @return number of images in the cache
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Write the cache to the snapshot file if it has changed since it was
+     * loaded or last saved. The least recently used images are written first
+     * so that loading the snapshot restores the same order.
+     *
+     * @return whether the snapshot was written
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized boolean save() throws IOException {
+        if (snapshot == null) {
+            return false;
+        }
+
+        String[] ids;
+        int[][] dims;
+
+        synchronized (cache) {
+            if (!changed) {
+                return false;
+            }
+
+            ids = new String[cache.size()];
+            dims = new int[cache.size()][];
+
+            int i = 0;
+
+            for (Map.Entry<String, int[]> entry : cache.entrySet()) {
+                ids[i] = entry.getKey();
+                dims[i++] = entry.getValue();
+            }
+
+            changed = false;
+        }
+
+        if (snapshot.getParent() != null) {
+            Files.createDirectories(snapshot.getParent());
+        }
+
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ids.length; i++) {
+                out.write(ids[i] + "\t" + dims[i][0] + "\t" + dims[i][1]);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            synchronized (cache) {
+                changed = true;
+            }
+
+            throw e;
+        }
+
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return true;
+    }
+}
@@ -0,0 +1,385 @@
+package rosa.iiif.image.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import rosa.iiif.image.model.ImageRequest;
+
+/**
+ * Cache rendered images on disk up to a maximum total number of bytes. Images
+ * are keyed by the canonical form of their request. When the maximum is
+ * exceeded, the least recently used images are removed.
+ *
+ * Each image is stored in a file named by a hash of its key and a hash of its
+ * content. The content hash is used as a strong ETag. Because everything
+ * needed is in the file name, the cache is rebuilt from the directory when
+ * the cache is created.
+ */
+public class ImageResponseCache {
+    private static final Logger logger = Logger.getLogger(ImageResponseCache.class.getName());
+
+    private static final String TMP_EXTENSION = ".tmp";
+
+    private final Path dir;
+    private final long max_bytes;
+    private final IIIFRequestFormatter formatter;
+
+    // Access ordered by key hash, guarded by itself
+    private final LinkedHashMap<String, Entry> cache;
+    private long cache_bytes;
+
+    // Images currently being rendered
+    private final ConcurrentHashMap<String, FutureTask<Entry>> rendering;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Renders an image which is not in the cache.
+     */
+    public interface Renderer {
+        InputStream render() throws IIIFException, IOException;
+    }
+
+    /**
+     * A cached image.
+     */
+    public static class Entry {
+        private final Path path;
+        private final long size;
+        private final String etag;
+        private final long last_modified;
+
+        Entry(Path path, long size, String etag, long last_modified) {
+            this.path = path;
+            this.size = size;
+            this.etag = etag;
+            this.last_modified = last_modified;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return strong ETag including quotes
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return time image was cached in milliseconds since the epoch
+         */
+        public long getLastModified() {
+            return last_modified;
+        }
+    }
+
+    /**
+     * @param dir
+     *            directory to store images in, existing images are reused,
+     *            null to disable caching
+     * @param max_bytes
+     *            maximum total size of cached images
+     * @throws IOException if the directory cannot be read
+     */
+    public ImageResponseCache(Path dir, long max_bytes) throws IOException {
+        this.dir = dir;
+        this.max_bytes = max_bytes;
+        this.formatter = new IIIFRequestFormatter("http", "cache", -1, "");
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.rendering = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+
+        if (dir != null) {
+            Files.createDirectories(dir);
+            load();
+        }
+    }
+
+    /**
+     * @return whether images can be cached
+     */
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    // Rebuild the cache from the directory, least recently modified first
+    private void load() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String[] parts = name.split("-");
+
+                if (name.endsWith(TMP_EXTENSION)) {
+                    // Left over from an interrupted render
+                    Files.deleteIfExists(file);
+                    continue;
+                } else if (parts.length != 2) {
+                    continue;
+                }
+
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                entries.add(new Entry(file, attrs.size(), "\"" + parts[1] + "\"", attrs.lastModifiedTime().toMillis()));
+            }
+        }
+
+        entries.sort((a, b) -> Long.compare(a.last_modified, b.last_modified));
+
+        for (Entry entry : entries) {
+            put(entry.path.getFileName().toString().split("-")[0], entry);
+        }
+    }
+
+    /**
+     * @param req image request
+     * @return canonical key for the request
+     */
+    public String key(ImageRequest req) {
+        return formatter.format(req);
+    }
+
+    /**
+     * Return the cached image for a request. If the image is not cached, it is
+     * rendered and cached first. An image is only rendered once no matter how
+     * many threads request it at the same time.
+     *
+     * @param req image request
+     * @param renderer renders the image if it is not cached
+     * @return cached image
+     * @throws IIIFException if the image cannot be rendered
+     * @throws IOException if the image cannot be cached
+     */
+    public Entry get(ImageRequest req, Renderer renderer) throws IIIFException, IOException {
+        if (dir == null) {
+            throw new IllegalStateException("Image cache disabled");
+        }
+
+        String key = hex(digest(key(req).getBytes(StandardCharsets.UTF_8)));
+
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry;
+            }
+        }
+
+        misses.incrementAndGet();
+
+        FutureTask<Entry> task = new FutureTask<>(() -> render(key, renderer));
+        FutureTask<Entry> existing = rendering.putIfAbsent(key, task);
+
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                rendering.remove(key, task);
+            }
+
+            existing = task;
+        }
+
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IIIFException("Interrupted waiting for image", e, HttpURLConnection.HTTP_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IIIFException) {
+                throw (IIIFException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    private Entry render(String key, Renderer renderer) throws IIIFException, IOException {
+        Path tmp = Files.createTempFile(dir, key, TMP_EXTENSION);
+
+        try {
+            MessageDigest md = new_digest();
+
+            try (InputStream in = renderer.render();
+                    OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), md)) {
+                byte[] buf = new byte[64 * 1024];
+                int n;
+
+                while ((n = in.read(buf)) != -1) {
+                    out.write(buf, 0, n);
+                }
+            }
+
+            String content_hash = hex(md.digest());
+            Path path = dir.resolve(key + "-" + content_hash);
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Entry entry = new Entry(path, Files.size(path), "\"" + content_hash + "\"",
+                    Files.getLastModifiedTime(path).toMillis());
+            put(key, entry);
+
+            return entry;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        List<Path> removed = new ArrayList<>();
+
+        synchronized (cache) {
+            Entry old = cache.put(key, entry);
+
+            if (old != null) {
+                cache_bytes -= old.size;
+
+                if (!old.path.equals(entry.path)) {
+                    removed.add(old.path);
+                }
+            }
+
+            cache_bytes += entry.size;
+
+            // Evict least recently used, but always keep the newest image
+            Iterator<Map.Entry<String, Entry>> iter = cache.entrySet().iterator();
+
+            while (cache_bytes > max_bytes && cache.size() > 1) {
+                Entry eldest = iter.next().getValue();
+
+                cache_bytes -= eldest.size;
+                removed.add(eldest.path);
+                iter.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        // Readers which already opened a removed file can still finish
+        for (Path path : removed) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to remove cached image " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Remove an image from the cache, for example if its file has gone missing.
+     *
+     * @param entry cached image
+     */
+    public void remove(Entry entry) {
+        String key = entry.path.getFileName().toString().split("-")[0];
+
+        synchronized (cache) {
+            if (cache.get(key) == entry) {
+                cache.remove(key);
+                cache_bytes -= entry.size;
+            }
+        }
+    }
+
+    /**
+     * @return number of cached images
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return total size of cached images in bytes
+     */
+    public long getByteCount() {
+        synchronized (cache) {
+            return cache_bytes;
+        }
+    }
+
+    /**
+     * @return number of requests answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests which had to be rendered
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of images removed to stay under the maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static MessageDigest new_digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] digest(byte[] data) {
+        return new_digest().digest(data);
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder result = new StringBuilder(data.length * 2);
+
+        for (byte b : data) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package rosa.iiif.image.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.IOUtils;
+
+import rosa.iiif.image.model.ImageInfo;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.InfoRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+import rosa.iiif.image.model.TileInfo;
+
+/**
+ * Render every tile advertised by a TileInfo for an image and write them to a
+ * packed file which can be served by {@link TileStore}. Tiles are rendered by
+ * an IIIFService so they are identical to dynamically rendered tiles.
+ */
+public class TilePyramidBuilder {
+    private final IIIFService service;
+    private final TileInfo tile_info;
+
+    /**
+     * @param service used to render tiles
+     * @param tile_info size and scale factors of tiles to render
+     */
+    public TilePyramidBuilder(IIIFService service, TileInfo tile_info) {
+        this.service = service;
+        this.tile_info = tile_info;
+    }
+
+    /**
+     * Write the packed tile file for an image. The file is written to a
+     * temporary file first so an interrupted build never leaves a partial
+     * file in place.
+     *
+     * @param image_id image id
+     * @param tile_dir directory holding packed tile files
+     * @param force
+     *            overwrite an existing packed tile file
+     * @return number of tiles written, 0 if the packed tile file already exists
+     * @throws IIIFException if the image cannot be rendered
+     * @throws IOException if the packed tile file cannot be written
+     */
+    public int build(String image_id, Path tile_dir, boolean force) throws IIIFException, IOException {
+        Path path = TileStore.path(tile_dir, image_id);
+
+        if (!force && Files.exists(path)) {
+            return 0;
+        }
+
+        ImageInfo info = service.perform(new InfoRequest(image_id));
+
+        int width = info.getWidth();
+        int height = info.getHeight();
+        int tw = tile_info.getWidth();
+        int th = tile_info.getHeight();
+        int[] scale_factors = tile_info.getScaleFactors();
+
+        int count = 0;
+
+        for (int s : scale_factors) {
+            count += ceil_div(width, tw * s) * ceil_div(height, th * s);
+        }
+
+        // Header and index sizes are known up front so tiles can be written
+        // directly after them and the index filled in at the end.
+
+        int header_size = 4 * (7 + scale_factors.length);
+        int index_size = count * (4 + 4 + 4 + 8 + 4);
+
+        ByteArrayOutputStream header_bytes = new ByteArrayOutputStream(header_size + index_size);
+        DataOutputStream header = new DataOutputStream(header_bytes);
+
+        header.writeInt(TileStore.MAGIC);
+        header.writeInt(width);
+        header.writeInt(height);
+        header.writeInt(tw);
+        header.writeInt(th);
+        header.writeInt(scale_factors.length);
+
+        for (int s : scale_factors) {
+            header.writeInt(s);
+        }
+
+        header.writeInt(count);
+
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = header_size + index_size;
+            out.position(offset);
+
+            for (int s : scale_factors) {
+                int region_width = tw * s;
+                int region_height = th * s;
+
+                for (int row = 0; row * region_height < height; row++) {
+                    for (int col = 0; col * region_width < width; col++) {
+                        byte[] tile = render(image_id, col * region_width, row * region_height,
+                                Math.min(region_width, width - col * region_width),
+                                Math.min(region_height, height - row * region_height), s);
+
+                        write_fully(out, ByteBuffer.wrap(tile));
+
+                        header.writeInt(s);
+                        header.writeInt(col);
+                        header.writeInt(row);
+                        header.writeLong(offset);
+                        header.writeInt(tile.length);
+
+                        offset += tile.length;
+                    }
+                }
+            }
+
+            header.flush();
+            out.position(0);
+            write_fully(out, ByteBuffer.wrap(header_bytes.toByteArray()));
+        } catch (IIIFException | IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return count;
+    }
+
+    private byte[] render(String image_id, int x, int y, int w, int h, int scale_factor)
+            throws IIIFException, IOException {
+        Region region = new Region(RegionType.ABSOLUTE);
+        region.setX(x);
+        region.setY(y);
+        region.setWidth(w);
+        region.setHeight(h);
+
+        ImageRequest req = new ImageRequest();
+        req.setImageId(image_id);
+        req.setRegion(region);
+        req.setSize(new Size(SizeType.EXACT_WIDTH, ceil_div(w, scale_factor), -1));
+        req.setRotation(new Rotation(0));
+        req.setQuality(Quality.DEFAULT);
+        req.setFormat(TileStore.TILE_FORMAT);
+
+        try (InputStream is = service.perform(req)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    private static void write_fully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    private static int ceil_div(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,287 @@
+package rosa.iiif.image.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import rosa.iiif.image.model.ImageFormat;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+
+/**
+ * Serve precomputed tiles written by {@link TilePyramidBuilder}. Each image has
+ * one packed file in the tile directory named by the image id plus
+ * {@value #FILE_EXTENSION}. The file starts with a header and an index giving
+ * the position of every tile so a tile can be served with a single positioned
+ * transfer.
+ *
+ * <pre>
+ * int magic, int width, int height, int tile width, int tile height,
+ * int scale factor count, int[] scale factors, int tile count,
+ * (int scale factor, int column, int row, long offset, int length)[],
+ * tile data
+ * </pre>
+ *
+ * Tiles are JPG images of the regions advertised by the TileInfo of the image
+ * scaled to width ceil(region width / scale factor).
+ */
+public class TileStore {
+    public static final String FILE_EXTENSION = ".tiles";
+    public static final ImageFormat TILE_FORMAT = ImageFormat.JPG;
+
+    static final int MAGIC = 0x52545031;
+
+    private static final int INDEX_BUFFER_SIZE = 64 * 1024;
+
+    private final Path tile_dir;
+    private final int max_cached_indexes;
+
+    // Access ordered, guarded by itself
+    private final LinkedHashMap<Path, Pyramid> index_cache;
+
+    /**
+     * Location of a tile in a packed file.
+     */
+    public static class Tile {
+        private final Path path;
+        private final long offset;
+        private final int length;
+
+        Tile(Path path, long offset, int length) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    // Index of a packed file
+    private static class Pyramid {
+        FileTime modified;
+        int width;
+        int height;
+        int tile_width;
+        int tile_height;
+        int[] scale_factors;
+        Map<Long, long[]> tiles;
+    }
+
+    /**
+     * @param tile_dir
+     *            directory holding packed tile files, null if there are none
+     * @param max_cached_indexes
+     *            maximum number of packed file indexes to hold in memory
+     */
+    public TileStore(Path tile_dir, int max_cached_indexes) {
+        this.tile_dir = tile_dir == null ? null : tile_dir.toAbsolutePath().normalize();
+        this.max_cached_indexes = max_cached_indexes;
+        this.index_cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param tile_dir directory holding packed tile files
+     * @param image_id image id
+     * @return path of the packed tile file for an image
+     */
+    public static Path path(Path tile_dir, String image_id) {
+        return tile_dir.resolve(image_id + FILE_EXTENSION);
+    }
+
+    static long key(int scale_factor, int col, int row) {
+        return ((long) scale_factor << 48) | ((long) col << 24) | row;
+    }
+
+    /**
+     * @param req image request
+     * @return precomputed tile which fulfills the request or null if there is none
+     * @throws IOException if a packed tile file cannot be read
+     */
+    public Tile find(ImageRequest req) throws IOException {
+        if (tile_dir == null || !is_tile_request(req)) {
+            return null;
+        }
+
+        Path path = path(tile_dir, req.getImageId()).normalize();
+
+        if (!path.startsWith(tile_dir)) {
+            return null;
+        }
+
+        Pyramid pyr = load(path);
+
+        if (pyr == null) {
+            return null;
+        }
+
+        Region reg = req.getRegion();
+        Size size = req.getSize();
+
+        for (int s : pyr.scale_factors) {
+            int region_width = pyr.tile_width * s;
+            int region_height = pyr.tile_height * s;
+
+            if (reg.getX() % region_width != 0 || reg.getY() % region_height != 0) {
+                continue;
+            }
+
+            int w = Math.min(region_width, pyr.width - reg.getX());
+            int h = Math.min(region_height, pyr.height - reg.getY());
+
+            if (w != reg.getWidth() || h != reg.getHeight()) {
+                continue;
+            }
+
+            int tile_width = (w + s - 1) / s;
+            int tile_height = (int) Math.round((double) h * tile_width / w);
+
+            boolean size_matches;
+
+            if (size.getSizeType() == SizeType.EXACT_WIDTH) {
+                size_matches = size.getWidth() == tile_width;
+            } else if (size.getSizeType() == SizeType.EXACT) {
+                size_matches = size.getWidth() == tile_width && size.getHeight() == tile_height;
+            } else if (size.getSizeType() == SizeType.FULL) {
+                size_matches = s == 1;
+            } else {
+                size_matches = false;
+            }
+
+            if (size_matches) {
+                long[] loc = pyr.tiles.get(key(s, reg.getX() / region_width, reg.getY() / region_height));
+
+                if (loc != null) {
+                    return new Tile(path, loc[0], (int) loc[1]);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private boolean is_tile_request(ImageRequest req) {
+        Rotation rot = req.getRotation();
+
+        return req.getFormat() == TILE_FORMAT && req.getRegion().getRegionType() == RegionType.ABSOLUTE
+                && (req.getQuality() == Quality.DEFAULT || req.getQuality() == Quality.COLOR)
+                && rot.getAngle() == 0.0 && !rot.isMirrored();
+    }
+
+    /**
+     * Transfer a tile to a channel. The file system may be able to do this
+     * without copying the data through the JVM.
+     *
+     * @param tile tile
+     * @param out destination
+     * @throws IOException if the tile cannot be read or written
+     */
+    public void transfer(Tile tile, WritableByteChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(tile.path, StandardOpenOption.READ)) {
+            long pos = tile.offset;
+            long end = tile.offset + tile.length;
+
+            while (pos < end) {
+                long n = in.transferTo(pos, end - pos, out);
+
+                if (n <= 0) {
+                    throw new IOException("Truncated tile file: " + tile.path);
+                }
+
+                pos += n;
+            }
+        }
+    }
+
+    // Return cached index if file has not changed since it was read
+    private Pyramid load(Path path) throws IOException {
+        FileTime modified;
+
+        try {
+            modified = Files.getLastModifiedTime(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        synchronized (index_cache) {
+            Pyramid pyr = index_cache.get(path);
+
+            if (pyr != null && pyr.modified.equals(modified)) {
+                return pyr;
+            }
+        }
+
+        Pyramid pyr = read_index(path);
+        pyr.modified = modified;
+
+        synchronized (index_cache) {
+            index_cache.put(path, pyr);
+
+            while (index_cache.size() > max_cached_indexes) {
+                index_cache.remove(index_cache.keySet().iterator().next());
+            }
+        }
+
+        return pyr;
+    }
+
+    private Pyramid read_index(Path path) throws IOException {
+        // Buffer so the header and index are not read a few bytes at a time from the channel
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(
+                FileChannel.open(path, StandardOpenOption.READ)), INDEX_BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a tile file: " + path);
+            }
+
+            Pyramid pyr = new Pyramid();
+
+            pyr.width = in.readInt();
+            pyr.height = in.readInt();
+            pyr.tile_width = in.readInt();
+            pyr.tile_height = in.readInt();
+            pyr.scale_factors = new int[in.readInt()];
+
+            for (int i = 0; i < pyr.scale_factors.length; i++) {
+                pyr.scale_factors[i] = in.readInt();
+            }
+
+            int count = in.readInt();
+            pyr.tiles = new HashMap<>(count * 2);
+
+            for (int i = 0; i < count; i++) {
+                long key = key(in.readInt(), in.readInt(), in.readInt());
+                long offset = in.readLong();
+                int length = in.readInt();
+
+                pyr.tiles.put(key, new long[] {offset, length});
+            }
+
+            return pyr;
+        }
+    }
+}
@@ -67,6 +67,28 @@ public class FSIServiceTest {
         }
     }
 
+    /**
+     * Test that cached image info is used without contacting FSI and that
+     * callers get their own copy.
+     */
+    @Test
+    public void testInfoRequestCached() throws Exception {
+        ImageInfoCache cache = new ImageInfoCache(null, 10);
+        cache.put(test_image_id, test_image_width, test_image_height);
+
+        FSIService service = new FSIService("http://localhost:1/", 1000, 1000, 1000, new int[] {1, 2, 4}, cache);
+
+        ImageInfo info = service.perform(new InfoRequest(test_image_id));
+
+        assertEquals(test_image_id, info.getImageId());
+        assertEquals(test_image_width, info.getWidth());
+        assertEquals(test_image_height, info.getHeight());
+        assertNotNull(info.getCompliance());
+
+        info.setWidth(1);
+        assertEquals(test_image_width, service.perform(new InfoRequest(test_image_id)).getWidth());
+    }
+
     /**
      * Test parsing FSI XML info response.
      */
@@ -0,0 +1,295 @@
+package rosa.iiif.image.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import rosa.iiif.image.model.ImageFormat;
+import rosa.iiif.image.model.ImageInfo;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.InfoRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+
+/**
+ * Test against a generated TIFF whose left half is red and right half is blue.
+ * The TIFF is written by hand because the TIFF writer available does not
+ * produce images it can read back correctly.
+ */
+public class ImageIOServiceTest {
+    private static final int TEST_IMAGE_WIDTH = 400;
+    private static final int TEST_IMAGE_HEIGHT = 200;
+    private static final String TEST_IMAGE_ID = "col/book/book.001r";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ImageIOService service;
+
+    @Before
+    public void setup() throws Exception {
+        File dir = tmp.newFolder("col", "book");
+
+        BufferedImage image = new BufferedImage(TEST_IMAGE_WIDTH, TEST_IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, TEST_IMAGE_WIDTH / 2, TEST_IMAGE_HEIGHT);
+        g.setColor(Color.BLUE);
+        g.fillRect(TEST_IMAGE_WIDTH / 2, 0, TEST_IMAGE_WIDTH / 2, TEST_IMAGE_HEIGHT);
+        g.dispose();
+
+        write_tiff(image, new File(dir, "book.001r.tif"));
+
+        service = new ImageIOService(tmp.getRoot().toPath(), 1000, 256, 256, new int[] {1, 2, 4}, 2);
+    }
+
+    /**
+     * Write an uncompressed RGB TIFF with several strips like the archive
+     * images.
+     */
+    static void write_tiff(BufferedImage image, File file) throws IOException {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int rows_per_strip = 16;
+        int strips = (h + rows_per_strip - 1) / rows_per_strip;
+
+        int num_tags = 10;
+        int bps_offset = 8 + 2 + num_tags * 12 + 4;
+        int strip_offsets = bps_offset + 6;
+        int strip_counts = strip_offsets + 4 * strips;
+        int data_offset = strip_counts + 4 * strips;
+
+        ByteBuffer buf = ByteBuffer.allocate(data_offset + w * h * 3).order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        buf.putShort((short) num_tags);
+        tiff_tag(buf, 256, 4, 1, w);
+        tiff_tag(buf, 257, 4, 1, h);
+        tiff_tag(buf, 258, 3, 3, bps_offset);
+        tiff_tag(buf, 259, 3, 1, 1);
+        tiff_tag(buf, 262, 3, 1, 2);
+        tiff_tag(buf, 273, 4, strips, strip_offsets);
+        tiff_tag(buf, 277, 3, 1, 3);
+        tiff_tag(buf, 278, 4, 1, rows_per_strip);
+        tiff_tag(buf, 279, 4, strips, strip_counts);
+        tiff_tag(buf, 284, 3, 1, 1);
+        buf.putInt(0);
+
+        buf.putShort((short) 8).putShort((short) 8).putShort((short) 8);
+
+        for (int i = 0; i < strips; i++) {
+            buf.putInt(data_offset + i * rows_per_strip * w * 3);
+        }
+
+        for (int i = 0; i < strips; i++) {
+            buf.putInt(Math.min(rows_per_strip, h - i * rows_per_strip) * w * 3);
+        }
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgb = image.getRGB(x, y);
+                buf.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+            }
+        }
+
+        Files.write(file.toPath(), buf.array());
+    }
+
+    private static void tiff_tag(ByteBuffer buf, int tag, int type, int count, int value) {
+        buf.putShort((short) tag).putShort((short) type).putInt(count);
+
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value).putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+
+    private ImageRequest request(Region region, Size size, Rotation rot, Quality quality, ImageFormat fmt) {
+        ImageRequest req = new ImageRequest();
+
+        req.setImageId(TEST_IMAGE_ID);
+        req.setRegion(region);
+        req.setSize(size);
+        req.setRotation(rot);
+        req.setQuality(quality);
+        req.setFormat(fmt);
+
+        return req;
+    }
+
+    private BufferedImage perform(ImageRequest req) throws Exception {
+        try (InputStream is = service.perform(req)) {
+            BufferedImage result = ImageIO.read(is);
+            assertNotNull(result);
+
+            return result;
+        }
+    }
+
+    private static boolean isRed(int rgb) {
+        Color c = new Color(rgb);
+        return c.getRed() > 200 && c.getBlue() < 50;
+    }
+
+    private static boolean isBlue(int rgb) {
+        Color c = new Color(rgb);
+        return c.getBlue() > 200 && c.getRed() < 50;
+    }
+
+    @Test
+    public void testInfoRequest() throws Exception {
+        ImageInfo info = service.perform(new InfoRequest(TEST_IMAGE_ID));
+
+        assertNotNull(info);
+        assertEquals(TEST_IMAGE_WIDTH, info.getWidth());
+        assertEquals(TEST_IMAGE_HEIGHT, info.getHeight());
+        assertNotNull(info.getCompliance());
+        assertNotNull(info.getProfiles());
+        assertEquals(256, info.getTiles()[0].getWidth());
+
+        // Extension may be given
+        assertEquals(TEST_IMAGE_WIDTH, service.perform(new InfoRequest(TEST_IMAGE_ID + ".tif")).getWidth());
+    }
+
+    @Test
+    public void testImageNotFound() throws Exception {
+        for (String id : new String[] {"col/book/missing", "../col/book/book.001r"}) {
+            try {
+                service.perform(new InfoRequest(id));
+                fail("Expected exception for " + id);
+            } catch (IIIFException e) {
+                assertEquals(HttpURLConnection.HTTP_NOT_FOUND, e.getHttpCode());
+            }
+        }
+    }
+
+    @Test
+    public void testFullImage() throws Exception {
+        BufferedImage result = perform(request(new Region(RegionType.FULL), new Size(SizeType.FULL), new Rotation(0),
+                Quality.DEFAULT, ImageFormat.PNG));
+
+        assertEquals(TEST_IMAGE_WIDTH, result.getWidth());
+        assertEquals(TEST_IMAGE_HEIGHT, result.getHeight());
+        assertTrue(isRed(result.getRGB(10, 10)));
+        assertTrue(isBlue(result.getRGB(TEST_IMAGE_WIDTH - 10, 10)));
+    }
+
+    @Test
+    public void testRegionAndSize() throws Exception {
+        Region region = new Region(RegionType.ABSOLUTE);
+        region.setX(TEST_IMAGE_WIDTH / 2);
+        region.setY(0);
+        region.setWidth(TEST_IMAGE_WIDTH / 2);
+        region.setHeight(TEST_IMAGE_HEIGHT);
+
+        BufferedImage result = perform(request(region, new Size(SizeType.EXACT_WIDTH, 50, -1), new Rotation(0),
+                Quality.COLOR, ImageFormat.JPG));
+
+        assertEquals(50, result.getWidth());
+        assertEquals(50, result.getHeight());
+        assertTrue(isBlue(result.getRGB(25, 25)));
+
+        Size pct = new Size(SizeType.PERCENTAGE);
+        pct.setPercentage(25);
+
+        result = perform(request(new Region(RegionType.FULL), pct, new Rotation(0), Quality.DEFAULT,
+                ImageFormat.PNG));
+
+        assertEquals(TEST_IMAGE_WIDTH / 4, result.getWidth());
+        assertEquals(TEST_IMAGE_HEIGHT / 4, result.getHeight());
+
+        result = perform(request(new Region(RegionType.FULL), new Size(SizeType.BEST_FIT, 100, 100),
+                new Rotation(0), Quality.DEFAULT, ImageFormat.PNG));
+
+        assertEquals(100, result.getWidth());
+        assertEquals(50, result.getHeight());
+    }
+
+    @Test
+    public void testRotationAndMirroring() throws Exception {
+        BufferedImage result = perform(request(new Region(RegionType.FULL), new Size(SizeType.FULL),
+                new Rotation(90), Quality.DEFAULT, ImageFormat.PNG));
+
+        // Left half ends up on top
+        assertEquals(TEST_IMAGE_HEIGHT, result.getWidth());
+        assertEquals(TEST_IMAGE_WIDTH, result.getHeight());
+        assertTrue(isRed(result.getRGB(10, 10)));
+        assertTrue(isBlue(result.getRGB(10, TEST_IMAGE_WIDTH - 10)));
+
+        result = perform(request(new Region(RegionType.FULL), new Size(SizeType.FULL), new Rotation(0, true),
+                Quality.DEFAULT, ImageFormat.PNG));
+
+        assertTrue(isBlue(result.getRGB(10, 10)));
+        assertTrue(isRed(result.getRGB(TEST_IMAGE_WIDTH - 10, 10)));
+
+        try {
+            service.perform(request(new Region(RegionType.FULL), new Size(SizeType.FULL), new Rotation(45),
+                    Quality.DEFAULT, ImageFormat.PNG));
+            fail("Arbitrary rotation not supported");
+        } catch (IIIFException e) {
+            assertEquals(HttpURLConnection.HTTP_NOT_IMPLEMENTED, e.getHttpCode());
+        }
+    }
+
+    @Test
+    public void testGrayQuality() throws Exception {
+        BufferedImage result = perform(request(new Region(RegionType.FULL), new Size(SizeType.FULL),
+                new Rotation(0), Quality.GRAY, ImageFormat.PNG));
+
+        Color c = new Color(result.getRGB(10, 10));
+        assertEquals(c.getRed(), c.getGreen());
+        assertEquals(c.getRed(), c.getBlue());
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        try {
+            service.perform(request(new Region(RegionType.FULL), new Size(SizeType.EXACT, 2000, 2000),
+                    new Rotation(0), Quality.DEFAULT, ImageFormat.PNG));
+            fail("Image larger than max size");
+        } catch (IIIFException e) {
+            assertEquals(HttpURLConnection.HTTP_NOT_IMPLEMENTED, e.getHttpCode());
+        }
+
+        Region region = new Region(RegionType.ABSOLUTE);
+        region.setX(TEST_IMAGE_WIDTH + 10);
+        region.setY(0);
+        region.setWidth(10);
+        region.setHeight(10);
+
+        try {
+            service.perform(request(region, new Size(SizeType.FULL), new Rotation(0), Quality.DEFAULT,
+                    ImageFormat.PNG));
+            fail("Region outside of image");
+        } catch (IIIFException e) {
+            assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, e.getHttpCode());
+        }
+
+        assertFalse(service.supportsImageRequestURL());
+    }
+}
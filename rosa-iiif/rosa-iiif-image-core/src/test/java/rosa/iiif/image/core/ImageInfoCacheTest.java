@@ -0,0 +1,72 @@
+package rosa.iiif.image.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageInfoCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        ImageInfoCache cache = new ImageInfoCache(null, 2);
+
+        cache.put("a", 1, 2);
+        cache.put("b", 3, 4);
+
+        // Touch a so that b is the least recently used
+        assertArrayEquals(new int[] {1, 2}, cache.get("a"));
+        cache.put("c", 5, 6);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertNull(cache.get("b"));
+
+        // Modifying the result does not change the cache
+        cache.get("c")[0] = 100;
+        assertArrayEquals(new int[] {5, 6}, cache.get("c"));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        Path file = tmp.getRoot().toPath().resolve("info/snapshot.tsv");
+
+        ImageInfoCache cache = new ImageInfoCache(file, 10);
+
+        assertFalse(cache.load());
+        assertFalse(cache.save());
+
+        cache.put("col/book/a", 100, 200);
+        cache.put("col/book/cropped/a", 90, 190);
+
+        assertTrue(cache.save());
+        assertFalse(cache.save());
+
+        ImageInfoCache loaded = new ImageInfoCache(file, 10);
+
+        assertTrue(loaded.load());
+        assertEquals(2, loaded.size());
+        assertArrayEquals(new int[] {100, 200}, loaded.get("col/book/a"));
+        assertArrayEquals(new int[] {90, 190}, loaded.get("col/book/cropped/a"));
+
+        // Nothing changed since loading
+        assertFalse(loaded.save());
+
+        // Snapshot larger than the cache keeps the most recently used
+        ImageInfoCache small = new ImageInfoCache(file, 1);
+
+        assertTrue(small.load());
+        assertEquals(1, small.size());
+        assertTrue(small.contains("col/book/cropped/a"));
+    }
+}
@@ -0,0 +1,184 @@
+package rosa.iiif.image.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import rosa.iiif.image.model.ImageFormat;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+
+public class ImageResponseCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void setup() throws Exception {
+        dir = tmp.newFolder("cache").toPath();
+    }
+
+    private ImageRequest request(String image_id) {
+        ImageRequest req = new ImageRequest();
+
+        req.setImageId(image_id);
+        req.setRegion(new Region(RegionType.FULL));
+        req.setSize(new Size(SizeType.EXACT_WIDTH, 100, -1));
+        req.setRotation(new Rotation(0));
+        req.setQuality(Quality.DEFAULT);
+        req.setFormat(ImageFormat.JPG);
+
+        return req;
+    }
+
+    private static ImageResponseCache.Renderer bytes(int size) {
+        return () -> new ByteArrayInputStream(new byte[size]);
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        ImageResponseCache cache = new ImageResponseCache(dir, 1000);
+
+        ImageResponseCache.Entry entry = cache.get(request("a"), bytes(10));
+
+        assertEquals(10, entry.getSize());
+        assertTrue(entry.getETag().startsWith("\"") && entry.getETag().endsWith("\""));
+        assertArrayEquals(new byte[10], Files.readAllBytes(entry.getPath()));
+
+        // Same canonical request
+        assertEquals(entry, cache.get(request("a"), () -> {
+            fail("Should not render");
+            return null;
+        }));
+
+        // Different content has a different ETag
+        assertNotEquals(entry.getETag(), cache.get(request("b"), () -> new ByteArrayInputStream(new byte[] {1}))
+                .getETag());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+        assertEquals(11, cache.getByteCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        ImageResponseCache cache = new ImageResponseCache(dir, 30);
+
+        ImageResponseCache.Entry a = cache.get(request("a"), bytes(10));
+        ImageResponseCache.Entry b = cache.get(request("b"), bytes(10));
+        cache.get(request("c"), bytes(10));
+
+        // Touch a so that b is the least recently used
+        cache.get(request("a"), bytes(10));
+        cache.get(request("d"), bytes(10));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(30, cache.getByteCount());
+        assertTrue(Files.exists(a.getPath()));
+        assertFalse(Files.exists(b.getPath()));
+    }
+
+    @Test
+    public void testReloadFromDirectory() throws Exception {
+        ImageResponseCache cache = new ImageResponseCache(dir, 1000);
+        ImageResponseCache.Entry entry = cache.get(request("a"), bytes(10));
+
+        // Left over from an interrupted render
+        Path partial = Files.createFile(dir.resolve("abc.tmp"));
+
+        cache = new ImageResponseCache(dir, 1000);
+
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getByteCount());
+        assertFalse(Files.exists(partial));
+        assertEquals(entry.getETag(), cache.get(request("a"), () -> {
+            fail("Should not render");
+            return null;
+        }).getETag());
+    }
+
+    @Test
+    public void testRenderFailure() throws Exception {
+        ImageResponseCache cache = new ImageResponseCache(dir, 1000);
+
+        try {
+            cache.get(request("a"), () -> {
+                throw new IIIFException("Image not found", HttpURLConnection.HTTP_NOT_FOUND);
+            });
+            fail("Expected exception");
+        } catch (IIIFException e) {
+            assertEquals(HttpURLConnection.HTTP_NOT_FOUND, e.getHttpCode());
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals(0, Files.list(dir).count());
+    }
+
+    @Test
+    public void testConcurrentRenderOnce() throws Exception {
+        ImageResponseCache cache = new ImageResponseCache(dir, 1000);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<ImageResponseCache.Entry>> results = new ArrayList<>();
+
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+
+                    return cache.get(request("a"), () -> {
+                        renders.incrementAndGet();
+
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        return new ByteArrayInputStream(new byte[10]);
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<ImageResponseCache.Entry> result : results) {
+                assertEquals(10, result.get(10, TimeUnit.SECONDS).getSize());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, renders.get());
+    }
+}
@@ -0,0 +1,153 @@
+package rosa.iiif.image.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import rosa.iiif.image.model.ImageFormat;
+import rosa.iiif.image.model.ImageRequest;
+import rosa.iiif.image.model.Quality;
+import rosa.iiif.image.model.Region;
+import rosa.iiif.image.model.RegionType;
+import rosa.iiif.image.model.Rotation;
+import rosa.iiif.image.model.Size;
+import rosa.iiif.image.model.SizeType;
+import rosa.iiif.image.model.TileInfo;
+
+public class TileStoreTest {
+    private static final String TEST_IMAGE_ID = "col/book/book.001r";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ImageIOService service;
+    private TilePyramidBuilder builder;
+    private Path tile_dir;
+
+    @Before
+    public void setup() throws Exception {
+        File dir = tmp.newFolder("images", "col", "book");
+
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 150, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(150, 0, 150, 200);
+        g.dispose();
+
+        ImageIOServiceTest.write_tiff(image, new File(dir, "book.001r.tif"));
+
+        TileInfo tile_info = new TileInfo();
+        tile_info.setWidth(64);
+        tile_info.setHeight(64);
+        tile_info.setScaleFactors(1, 2, 4);
+
+        service = new ImageIOService(dir.getParentFile().getParentFile().toPath(), -1, 64, 64,
+                tile_info.getScaleFactors(), 2);
+        builder = new TilePyramidBuilder(service, tile_info);
+        tile_dir = tmp.newFolder("tiles").toPath();
+    }
+
+    private ImageRequest tile_request(int x, int y, int w, int h, Size size) {
+        Region region = new Region(RegionType.ABSOLUTE);
+        region.setX(x);
+        region.setY(y);
+        region.setWidth(w);
+        region.setHeight(h);
+
+        ImageRequest req = new ImageRequest();
+        req.setImageId(TEST_IMAGE_ID);
+        req.setRegion(region);
+        req.setSize(size);
+        req.setRotation(new Rotation(0));
+        req.setQuality(Quality.DEFAULT);
+        req.setFormat(ImageFormat.JPG);
+
+        return req;
+    }
+
+    private byte[] transfer(TileStore store, TileStore.Tile tile) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        store.transfer(tile, Channels.newChannel(out));
+
+        return out.toByteArray();
+    }
+
+    private byte[] render(ImageRequest req) throws Exception {
+        try (InputStream is = service.perform(req)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    @Test
+    public void testBuildAndFind() throws Exception {
+        // 5x4 + 3x2 + 2x1 tiles
+        assertEquals(28, builder.build(TEST_IMAGE_ID, tile_dir, false));
+        assertTrue(Files.exists(TileStore.path(tile_dir, TEST_IMAGE_ID)));
+
+        // Already built
+        assertEquals(0, builder.build(TEST_IMAGE_ID, tile_dir, false));
+
+        TileStore store = new TileStore(tile_dir, 10);
+
+        // Full size interior and edge tiles, half size edge tile, quarter size tile
+        ImageRequest[] reqs = {
+                tile_request(64, 64, 64, 64, new Size(SizeType.EXACT_WIDTH, 64, -1)),
+                tile_request(256, 192, 44, 8, new Size(SizeType.EXACT_WIDTH, 44, -1)),
+                tile_request(0, 0, 64, 64, new Size(SizeType.FULL)),
+                tile_request(256, 128, 44, 72, new Size(SizeType.EXACT_WIDTH, 22, -1)),
+                tile_request(256, 0, 44, 200, new Size(SizeType.EXACT, 11, 50))
+        };
+
+        for (ImageRequest req : reqs) {
+            TileStore.Tile tile = store.find(req);
+
+            assertNotNull(tile);
+            assertArrayEquals(render(req), transfer(store, tile));
+        }
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        builder.build(TEST_IMAGE_ID, tile_dir, false);
+
+        TileStore store = new TileStore(tile_dir, 10);
+
+        // Not aligned, wrong size, wrong format, rotated, no tiles for image
+        assertNull(store.find(tile_request(32, 0, 64, 64, new Size(SizeType.EXACT_WIDTH, 64, -1))));
+        assertNull(store.find(tile_request(0, 0, 64, 64, new Size(SizeType.EXACT_WIDTH, 32, -1))));
+
+        ImageRequest req = tile_request(0, 0, 64, 64, new Size(SizeType.EXACT_WIDTH, 64, -1));
+        req.setFormat(ImageFormat.PNG);
+        assertNull(store.find(req));
+
+        req = tile_request(0, 0, 64, 64, new Size(SizeType.EXACT_WIDTH, 64, -1));
+        req.setRotation(new Rotation(90));
+        assertNull(store.find(req));
+
+        req = tile_request(0, 0, 64, 64, new Size(SizeType.EXACT_WIDTH, 64, -1));
+        req.setImageId("col/book/book.002r");
+        assertNull(store.find(req));
+
+        assertNull(new TileStore(null, 10).find(tile_request(0, 0, 64, 64, new Size(SizeType.FULL))));
+    }
+}
@@ -7,6 +7,11 @@ import java.io.PrintStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -21,6 +26,8 @@ import rosa.iiif.image.core.IIIFException;
 import rosa.iiif.image.core.IIIFRequestParser;
 import rosa.iiif.image.core.IIIFResponseSerializer;
 import rosa.iiif.image.core.IIIFService;
+import rosa.iiif.image.core.ImageResponseCache;
+import rosa.iiif.image.core.TileStore;
 import rosa.iiif.image.model.ImageInfo;
 import rosa.iiif.image.model.ImageRequest;
 import rosa.iiif.image.model.InfoFormat;
@@ -40,6 +47,8 @@ public class IIIFServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
 
     private final IIIFService service;
+    private final TileStore tile_store;
+    private final ImageResponseCache image_cache;
     private final IIIFRequestParser parser;
     private final IIIFResponseSerializer serializer;
     private final Map<String, String> image_id_aliases; // alias -> image id
@@ -49,12 +58,17 @@ public class IIIFServlet extends HttpServlet {
      * Create a new IIIF servlet to handle IIIF image requests.
      *
      * @param service a service that knows how to handle requests
+     * @param tile_store precomputed tiles served instead of using the service
+     * @param image_cache cache of rendered images
      * @param image_id_aliases aliases
      */
     @Inject
-    public IIIFServlet(IIIFService service, @Named("image.aliases") Map<String, String> image_id_aliases,
+    public IIIFServlet(IIIFService service, TileStore tile_store, ImageResponseCache image_cache,
+                       @Named("image.aliases") Map<String, String> image_id_aliases,
                        @Named("rights") Map<String, Rights> rights_map) {
         this.service = service;
+        this.tile_store = tile_store;
+        this.image_cache = image_cache;
         this.serializer = new IIIFResponseSerializer();
         this.parser = new IIIFRequestParser();
         this.image_id_aliases = image_id_aliases;
@@ -181,7 +195,7 @@ public class IIIFServlet extends HttpServlet {
                     imgreq.setImageId(alias);
                 }
 
-                perform_image_request(imgreq, resp);
+                perform_image_request(imgreq, req, resp);
             } else if (type == RequestType.IMAGE) {
                 // Redirect to info request
                 resp.sendRedirect(req.getRequestURL() + "/info.json");
@@ -203,9 +217,30 @@ public class IIIFServlet extends HttpServlet {
         }
     }
 
-    // Either submit request to a URL or perform directly
-    private void perform_image_request(ImageRequest req, HttpServletResponse resp) throws IOException, IIIFException {
+    // Either serve a precomputed tile, a cached image, or render the image
+    private void perform_image_request(ImageRequest req, HttpServletRequest httpreq, HttpServletResponse resp)
+            throws IOException, IIIFException {
         OutputStream os = resp.getOutputStream();
+        TileStore.Tile tile = tile_store.find(req);
+
+        if (tile != null) {
+            resp.setContentType(TileStore.TILE_FORMAT.getMimeType());
+            resp.setContentLength(tile.getLength());
+
+            tile_store.transfer(tile, Channels.newChannel(os));
+            return;
+        }
+
+        if (image_cache.isEnabled()) {
+            ImageResponseCache.Entry entry = image_cache.get(req, () -> render(req));
+
+            if (serve_cached_image(req, entry, httpreq, resp)) {
+                return;
+            }
+
+            // File removed since lookup
+            image_cache.remove(entry);
+        }
 
         if (service.supportsImageRequestURL()) {
             URLConnection con = new URL(service.performURL(req)).openConnection();
@@ -226,4 +261,87 @@ public class IIIFServlet extends HttpServlet {
             }
         }
     }
+
+    // Submit request to a URL or perform directly
+    private InputStream render(ImageRequest req) throws IOException, IIIFException {
+        if (service.supportsImageRequestURL()) {
+            return new URL(service.performURL(req)).openStream();
+        } else {
+            return service.perform(req);
+        }
+    }
+
+    /**
+     * Send a cached image or a 304 if the client already has it.
+     *
+     * @return false if the image file no longer exists and nothing was sent
+     */
+    private boolean serve_cached_image(ImageRequest req, ImageResponseCache.Entry entry, HttpServletRequest httpreq,
+                                       HttpServletResponse resp) throws IOException {
+        if (not_modified(entry, httpreq)) {
+            resp.setHeader("ETag", entry.getETag());
+            resp.setDateHeader("Last-Modified", entry.getLastModified());
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+            return true;
+        }
+
+        FileChannel in;
+
+        try {
+            in = FileChannel.open(entry.getPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        try {
+            resp.setHeader("ETag", entry.getETag());
+            resp.setDateHeader("Last-Modified", entry.getLastModified());
+            resp.setContentType(req.getFormat().getMimeType());
+            resp.setContentLength((int) entry.getSize());
+
+            WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+            long pos = 0;
+
+            while (pos < entry.getSize()) {
+                long n = in.transferTo(pos, entry.getSize() - pos, out);
+
+                if (n <= 0) {
+                    throw new IOException("Truncated cached image: " + entry.getPath());
+                }
+
+                pos += n;
+            }
+        } finally {
+            in.close();
+        }
+
+        return true;
+    }
+
+    // If-None-Match takes precedence over If-Modified-Since
+    private boolean not_modified(ImageResponseCache.Entry entry, HttpServletRequest httpreq) {
+        String if_none_match = httpreq.getHeader("If-None-Match");
+
+        if (if_none_match != null) {
+            for (String etag : if_none_match.split(",")) {
+                etag = etag.trim();
+
+                if (etag.equals("*") || etag.equals(entry.getETag()) || etag.equals("W/" + entry.getETag())) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        try {
+            long if_modified_since = httpreq.getDateHeader("If-Modified-Since");
+
+            // HTTP dates only have second precision
+            return if_modified_since != -1 && entry.getLastModified() / 1000 <= if_modified_since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
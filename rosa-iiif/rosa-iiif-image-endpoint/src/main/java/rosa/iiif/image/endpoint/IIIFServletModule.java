@@ -4,16 +4,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import rosa.iiif.image.core.FSIService;
 import rosa.iiif.image.core.IIIFService;
+import rosa.iiif.image.core.ImageIOService;
+import rosa.iiif.image.core.ImageInfoCache;
+import rosa.iiif.image.core.ImageResponseCache;
+import rosa.iiif.image.core.TileStore;
 
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.google.inject.servlet.ServletModule;
@@ -27,6 +37,7 @@ public class IIIFServletModule extends ServletModule {
     private static final String SERVLET_CONFIG_PATH = "/iiif-servlet.properties";
     private static final String IMAGE_ALIASES_PATH = "/image-aliases.properties";
     private static final String RIGHTS_CONFIG_PATH = "/rights.properties";
+    private static final long IMAGE_INFO_SAVE_MINUTES = 5;
 
     @Override
     protected void configureServlets() {
@@ -88,13 +99,30 @@ public class IIIFServletModule extends ServletModule {
         return map;
     }
 
+    /**
+     * If image.dir is set, images are served directly from that directory.
+     * Otherwise requests are handed off to the FSI server.
+     */
     @Provides
     protected IIIFService provideImageService(@Named("fsi.url") String fsi_url,
+                                              @Named("image.dir") String image_dir,
+                                              @Named("max.decodes") int max_decodes,
                                               @Named("max.image.size") int max_image_size,
                                               @Named("tile.width") int tile_width,
                                               @Named("tile.height") int tile_height,
                                               @Named("scale.factors") String scale_factors,
-                                              @Named("cache.size.image.info") int cache_size) {
+                                              @Named("cache.size.image.info") int cache_size,
+                                              ImageInfoCache info_cache) {
+        int[] scaleFactors = parseScaleFactors(scale_factors);
+
+        if (image_dir != null && !image_dir.trim().isEmpty()) {
+            Logger.getLogger("").info("Getting image service: " + image_dir + "(" + max_image_size + ", "
+                    + tile_height + "x" + tile_width + ", (" + scale_factors + "), " + max_decodes + ")");
+
+            return new ImageIOService(Paths.get(image_dir.trim()), max_image_size, tile_width, tile_height,
+                    scaleFactors, max_decodes);
+        }
+
         Logger.getLogger("").info("Getting image service: " + fsi_url + "(" + max_image_size + ", "
                 + tile_height + "x" + tile_width + ", (" + scale_factors + "), " + cache_size + ")");
         // Ensure that base URL does NOT end in '/'
@@ -102,6 +130,86 @@ public class IIIFServletModule extends ServletModule {
             fsi_url = fsi_url.substring(0, fsi_url.length() - 1);
         }
 
+        return new FSIService(fsi_url, max_image_size, tile_width, tile_height, scaleFactors, info_cache);
+    }
+
+    /**
+     * The image info cache is loaded from cache.file.image.info if set and
+     * saved back to it periodically.
+     */
+    @Provides
+    @Singleton
+    protected ImageInfoCache provideImageInfoCache(@Named("cache.file.image.info") String cache_file,
+                                                   @Named("cache.size.image.info") int cache_size) {
+        if (cache_file == null || cache_file.trim().isEmpty()) {
+            return new ImageInfoCache(null, cache_size);
+        }
+
+        ImageInfoCache cache = new ImageInfoCache(Paths.get(cache_file.trim()), cache_size);
+
+        try {
+            cache.load();
+        } catch (IOException e) {
+            Logger.getLogger("").log(Level.WARNING, "Failed to load image info cache: " + cache_file, e);
+        }
+
+        Logger.getLogger("").info("Loaded image info cache: " + cache_file + " (" + cache.size() + ")");
+
+        ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "image-info-cache-save");
+            t.setDaemon(true);
+            return t;
+        });
+
+        saver.scheduleWithFixedDelay(() -> {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                Logger.getLogger("").log(Level.WARNING, "Failed to save image info cache: " + cache_file, e);
+            }
+        }, IMAGE_INFO_SAVE_MINUTES, IMAGE_INFO_SAVE_MINUTES, TimeUnit.MINUTES);
+
+        return cache;
+    }
+
+    /**
+     * If tile.dir is set, precomputed tiles in that directory are served.
+     */
+    @Provides
+    @Singleton
+    protected TileStore provideTileStore(@Named("tile.dir") String tile_dir,
+                                         @Named("cache.size.tile.index") int cache_size) {
+        if (tile_dir == null || tile_dir.trim().isEmpty()) {
+            return new TileStore(null, cache_size);
+        }
+
+        Logger.getLogger("").info("Serving tiles from: " + tile_dir);
+
+        return new TileStore(Paths.get(tile_dir.trim()), cache_size);
+    }
+
+    /**
+     * If cache.dir is set, rendered images are cached in that directory.
+     */
+    @Provides
+    @Singleton
+    protected ImageResponseCache provideImageResponseCache(@Named("cache.dir") String cache_dir,
+                                                           @Named("cache.size.images.mb") long max_mb) {
+        Path dir = null;
+
+        if (cache_dir != null && !cache_dir.trim().isEmpty()) {
+            dir = Paths.get(cache_dir.trim());
+            Logger.getLogger("").info("Caching images in: " + dir + " (" + max_mb + " MB)");
+        }
+
+        try {
+            return new ImageResponseCache(dir, max_mb * 1024 * 1024);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create image cache: " + cache_dir, e);
+        }
+    }
+
+    private int[] parseScaleFactors(String scale_factors) {
         int[] scaleFactors;
         // Split scale_factors to create array
         if (scale_factors != null && !scale_factors.isEmpty()) {
@@ -119,6 +227,6 @@ public class IIIFServletModule extends ServletModule {
             scaleFactors = new int[] {4};
         }
 
-        return new FSIService(fsi_url, max_image_size, tile_width, tile_height, scaleFactors, cache_size);
+        return scaleFactors;
     }
 }
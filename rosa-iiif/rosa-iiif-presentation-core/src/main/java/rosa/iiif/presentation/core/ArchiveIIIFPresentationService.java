@@ -1,5 +1,6 @@
 package rosa.iiif.presentation.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -12,6 +13,7 @@ import rosa.iiif.presentation.model.Canvas;
 import rosa.iiif.presentation.model.Collection;
 import rosa.iiif.presentation.model.Manifest;
 import rosa.iiif.presentation.model.PresentationRequest;
+import rosa.iiif.presentation.model.PresentationRequestType;
 import rosa.iiif.presentation.model.Range;
 
 /**
@@ -23,24 +25,41 @@ import rosa.iiif.presentation.model.Range;
  * collection.
  * 
  * Objects are loaded from the archive and transformed into IIIF Presentation objects and then serialized.
- * To improve performance, BookCollections, Collections, Books, and Manifests are cached.
+ * To improve performance, BookCollections, Books, and all the transformed objects are cached. A
+ * transformed object is reused while its Book or BookCollection stays cached. Serialized
+ * responses may also be cached, in which case a response is reused while its Book or BookCollection
+ * stays cached.
  */
 public class ArchiveIIIFPresentationService implements IIIFPresentationService {    
     private final PresentationSerializer serializer;
     private final PresentationTransformer transformer;
     private final IIIFPresentationCache cache;
+    private final PresentationResponseCache response_cache;
 
     /**
     *
     * @param cache loads and caches objects
     * @param jsonld_serializer serializer to write the response as json-ld
     * @param transformer transformer to transform archive data to IIIF presentation data
-    * @param max_cache_size max number of objects to cache at a time
+    * @param response_cache caches serialized responses, null to serialize every response
     */
-   public ArchiveIIIFPresentationService(IIIFPresentationCache cache, PresentationSerializer jsonld_serializer, PresentationTransformer transformer) {
+   public ArchiveIIIFPresentationService(IIIFPresentationCache cache, PresentationSerializer jsonld_serializer,
+           PresentationTransformer transformer, PresentationResponseCache response_cache) {
        this.serializer = jsonld_serializer;
        this.transformer = transformer;
        this.cache = cache;
+       this.response_cache = response_cache;
+   }
+
+   /**
+    * Serialized responses are not cached.
+    *
+    * @param cache loads and caches objects
+    * @param jsonld_serializer serializer to write the response as json-ld
+    * @param transformer transformer to transform archive data to IIIF presentation data
+    */
+   public ArchiveIIIFPresentationService(IIIFPresentationCache cache, PresentationSerializer jsonld_serializer, PresentationTransformer transformer) {
+       this(cache, jsonld_serializer, transformer, null);
    }
 
     @Override
@@ -66,6 +85,35 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
         }
     }
     
+    @Override
+    public PresentationResponseCache.Response handle_cached_request(PresentationRequest req) throws IOException {
+        if (response_cache == null) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+            return handle_request(req, os) ? new PresentationResponseCache.Response(null, os.toByteArray()) : null;
+        }
+
+        Object source = get_source(req);
+
+        if (source == null) {
+            return null;
+        }
+
+        return response_cache.get(req, source, os -> handle_request(req, os));
+    }
+
+    // Archive object the response to a request is made from
+    private Object get_source(PresentationRequest req) {
+        String[] identifier = req.getIdentifier();
+        BookCollection book_col = cache.getBookCollection(identifier[0]);
+
+        if (book_col == null || req.getType() == PresentationRequestType.COLLECTION || identifier.length < 2) {
+            return book_col;
+        }
+
+        return cache.getBook(book_col, identifier[1]);
+    }
+    
     private boolean handle_collection(String[] identifier, OutputStream os) throws IOException {
         String col_id = identifier[0];
         BookCollection book_col = cache.getBookCollection(col_id);
@@ -74,7 +122,7 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
             return false;
         }
         
-        Collection col = cache.get(col_id, Collection.class, () -> transformer.collection(book_col));
+        Collection col = cache.get(col_id, Collection.class, book_col, () -> transformer.collection(book_col));
         
         if (col == null) {
             return false;
@@ -102,7 +150,8 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
             return false;
         }
         
-        Range range = transformer.range(book_col, book, name);
+        Range range = cache.get(String.join(",", identifier), Range.class, book,
+                () -> transformer.range(book_col, book, name));
         
         if (range == null) {
             return false;
@@ -130,7 +179,7 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
             return false;
         }
 
-        Manifest man = cache.get(id, Manifest.class, () -> transformer.manifest(book_col, book));
+        Manifest man = cache.get(id, Manifest.class, book, () -> transformer.manifest(book_col, book));
         
         if (man == null) {
             return false;
@@ -158,7 +207,8 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
             return false;
         }
         
-        Canvas canvas = transformer.canvas(book_col, book, name);
+        Canvas canvas = cache.get(String.join(",", identifier), Canvas.class, book,
+                () -> transformer.canvas(book_col, book, name));
         
         if (canvas == null) {
             return false;
@@ -186,7 +236,8 @@ public class ArchiveIIIFPresentationService implements IIIFPresentationService {
             return false;
         }
         
-        AnnotationList list = transformer.annotationList(book_col, book, name);
+        AnnotationList list = cache.get(String.join(",", identifier), AnnotationList.class, book,
+                () -> transformer.annotationList(book_col, book, name));
         
         if (list == null) {
             return false;
@@ -1,7 +1,16 @@
 package rosa.iiif.presentation.core;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -11,30 +20,116 @@ import com.google.inject.Inject;
 import rosa.archive.core.Store;
 import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
+import rosa.iiif.presentation.model.AnnotationList;
+import rosa.iiif.presentation.model.Manifest;
+import rosa.iiif.presentation.model.Range;
+import rosa.iiif.presentation.model.Sequence;
 
 /**
- * Caches up to a given number of objects in memory. Helpers are provided to
- * access cached Book and BookCollection objects and load them from a Store as
- * needed.
+ * Caches objects in memory up to a maximum total weight. Helpers are provided
+ * to access cached Book and BookCollection objects and load them from a Store
+ * as needed.
+ *
+ * Every object has a weight of one plus the number of pages or annotations it
+ * holds so a large Book or Manifest counts for more than a Collection. When the
+ * maximum weight is exceeded, the least recently used objects are evicted one
+ * at a time. A value is only loaded once no matter how many threads request it
+ * at the same time.
+ *
+ * A type may be given its own maximum weight, so that many objects of that
+ * type cannot evict objects of other types. Types without one share the
+ * maximum weight given to the cache. Hits and misses are counted per type.
+ *
+ * An object made from another cached object, such as a Canvas made from a
+ * Book, may be cached along with that source object. It is then only returned
+ * while the same source object is given, so it is made again once its source
+ * is evicted and loaded again.
  */
-
 public class IIIFPresentationCache {
     private final static Logger logger = Logger.getLogger(IIIFPresentationCache.class.getName());
 
     private final Store store;
-    private final ConcurrentHashMap<String, Object> cache;
-    private final int max_cache_size;
+
+    // Objects of types without their own maximum weight
+    private final Segment shared;
+    private final ConcurrentHashMap<Class<?>, Segment> segments;
+    private final ConcurrentHashMap<Class<?>, Stats> stats;
+
+    // Values currently being loaded
+    private final ConcurrentHashMap<String, FutureTask<Object>> loading;
+
+    private static class CacheEntry {
+        final Object value;
+        final int weight;
+        final Stats stats;
+        // Null if the value does not depend on another object
+        final WeakReference<Object> source;
+
+        CacheEntry(Object value, int weight, Stats stats, Object source) {
+            this.value = value;
+            this.weight = weight;
+            this.stats = stats;
+            this.source = source == null ? null : new WeakReference<>(source);
+        }
+
+        boolean madeFrom(Object source) {
+            return this.source == null ? source == null : this.source.get() == source;
+        }
+    }
+
+    // Objects evicted together to stay under a maximum weight
+    private static class Segment {
+        final long max_weight;
+
+        // Access ordered, guarded by itself
+        final LinkedHashMap<String, CacheEntry> cache;
+        long cache_weight;
+
+        Segment(long max_weight) {
+            this.max_weight = max_weight;
+            this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    private static class Stats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
 
     /**
      * @param store
-     * @param max_cache_size
-     *            max number of objects to cache at a time
+     * @param max_cache_weight
+     *            max total weight of objects to cache at a time, not counting
+     *            types with their own maximum
      */
     @Inject
-    public IIIFPresentationCache(Store store, int max_cache_size) {
+    public IIIFPresentationCache(Store store, long max_cache_weight) {
         this.store = store;
-        this.max_cache_size = max_cache_size;
-        this.cache = new ConcurrentHashMap<>();
+        this.shared = new Segment(max_cache_weight);
+        this.segments = new ConcurrentHashMap<>();
+        this.stats = new ConcurrentHashMap<>();
+        this.loading = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Give objects of a type their own maximum total weight. Must be called
+     * before objects of the type are cached.
+     *
+     * @param type
+     * @param max_weight
+     *            max total weight of objects of the type to cache at a time
+     */
+    public void setMaxWeight(Class<?> type, long max_weight) {
+        segments.put(type, new Segment(max_weight));
+    }
+
+    private Segment segment(Class<?> type) {
+        return segments.getOrDefault(type, shared);
+    }
+
+    private Stats stats(Class<?> type) {
+        return stats.computeIfAbsent(type, t -> new Stats());
     }
 
     /**
@@ -43,16 +138,270 @@ public class IIIFPresentationCache {
      * @param type
      * @param supplier
      *            If object not in cache, it is retrieved from the supplier and
-     *            cached. The supplier must not itself call get. 
+     *            cached. The supplier may call get for other objects, but not
+     *            for the object being supplied.
      * @return value in cache if present or updates cache with supplied value, null
      *         indicates no value
      */
     public <T> T get(String id, Class<T> type, Supplier<T> supplier) {
-        if (cache.size() > max_cache_size) {
-            cache.clear();
+        return get(id, type, null, supplier);
+    }
+
+    /**
+     * @param id
+     *            uniquely identifies the object in the type
+     * @param type
+     * @param source
+     *            object the value is made from, a cached value made from
+     *            another object is supplied again
+     * @param supplier
+     *            If object not in cache, it is retrieved from the supplier and
+     *            cached. The supplier may call get for other objects, but not
+     *            for the object being supplied.
+     * @return value in cache if present or updates cache with supplied value, null
+     *         indicates no value
+     */
+    public <T> T get(String id, Class<T> type, Object source, Supplier<T> supplier) {
+        String key = id + "," + type.getName();
+        Segment segment = segment(type);
+        Stats type_stats = stats(type);
+
+        synchronized (segment.cache) {
+            CacheEntry entry = segment.cache.get(key);
+
+            if (entry != null && entry.madeFrom(source)) {
+                type_stats.hits.incrementAndGet();
+                return type.cast(entry.value);
+            }
+        }
+
+        type_stats.misses.incrementAndGet();
+
+        FutureTask<Object> task = new FutureTask<>(supplier::get);
+        FutureTask<Object> existing = loading.putIfAbsent(key, task);
+
+        if (existing == null) {
+            try {
+                task.run();
+                put(segment, type_stats, key, get_loaded_value(task), source);
+            } finally {
+                loading.remove(key, task);
+            }
+
+            existing = task;
+        }
+
+        return type.cast(get_loaded_value(existing));
+    }
+
+    private Object get_loaded_value(FutureTask<Object> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void put(Segment segment, Stats type_stats, String key, Object value, Object source) {
+        if (value == null) {
+            return;
+        }
+
+        int weight = weigh(value);
+
+        synchronized (segment.cache) {
+            CacheEntry old = segment.cache.put(key, new CacheEntry(value, weight, type_stats, source));
+
+            if (old != null) {
+                segment.cache_weight -= old.weight;
+            }
+
+            segment.cache_weight += weight;
+
+            // Evict least recently used, but always keep the newest value
+            Iterator<Map.Entry<String, CacheEntry>> iter = segment.cache.entrySet().iterator();
+
+            while (segment.cache_weight > segment.max_weight && segment.cache.size() > 1) {
+                CacheEntry eldest = iter.next().getValue();
+
+                segment.cache_weight -= eldest.weight;
+                iter.remove();
+                eldest.stats.evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param value
+     * @return weight of a value, one plus the number of pages or annotations
+     *         it holds
+     */
+    protected int weigh(Object value) {
+        int weight = 1;
+
+        if (value instanceof Book) {
+            Book book = (Book) value;
+
+            if (book.getImages() != null) {
+                weight += book.getImages().getImages().size();
+            }
+
+            // Count pages without loading them if they are loaded on demand
+            weight += book.getAnnotatedPageCount();
+        } else if (value instanceof BookCollection) {
+            weight += ((BookCollection) value).books().length;
+        } else if (value instanceof Manifest) {
+            Sequence seq = ((Manifest) value).getDefaultSequence();
+
+            if (seq != null && seq.getCanvases() != null) {
+                weight += seq.getCanvases().size();
+            }
+        } else if (value instanceof Range) {
+            Range range = (Range) value;
+
+            if (range.getCanvases() != null) {
+                weight += range.getCanvases().size();
+            }
+        } else if (value instanceof AnnotationList) {
+            AnnotationList list = (AnnotationList) value;
+
+            if (list.getAnnotations() != null) {
+                weight += list.getAnnotations().size();
+            }
+        }
+
+        return weight;
+    }
+
+    private Iterable<Segment> all_segments() {
+        List<Segment> result = new ArrayList<>(segments.values());
+        result.add(shared);
+        return result;
+    }
+
+    /**
+     * Remove all objects from the cache.
+     */
+    public void clear() {
+        for (Segment segment : all_segments()) {
+            synchronized (segment.cache) {
+                segment.cache.clear();
+                segment.cache_weight = 0;
+            }
         }
+    }
+
+    /**
+     * @return number of objects in the cache
+     */
+    public int size() {
+        int result = 0;
+
+        for (Segment segment : all_segments()) {
+            synchronized (segment.cache) {
+                result += segment.cache.size();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return total weight of objects in the cache
+     */
+    public long getWeight() {
+        long result = 0;
+
+        for (Segment segment : all_segments()) {
+            synchronized (segment.cache) {
+                result += segment.cache_weight;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of requests answered from the cache
+     */
+    public long getHitCount() {
+        return stats.values().stream().mapToLong(s -> s.hits.get()).sum();
+    }
+
+    /**
+     * @return number of requests which had to be supplied
+     */
+    public long getMissCount() {
+        return stats.values().stream().mapToLong(s -> s.misses.get()).sum();
+    }
+
+    /**
+     * @return number of objects removed to stay under the maximum weight
+     */
+    public long getEvictionCount() {
+        return stats.values().stream().mapToLong(s -> s.evictions.get()).sum();
+    }
+
+    /**
+     * @param type
+     * @return number of requests for the type answered from the cache
+     */
+    public long getHitCount(Class<?> type) {
+        return stats(type).hits.get();
+    }
+
+    /**
+     * @param type
+     * @return number of requests for the type which had to be supplied
+     */
+    public long getMissCount(Class<?> type) {
+        return stats(type).misses.get();
+    }
+
+    /**
+     * @param type
+     * @return number of objects of the type removed to stay under a maximum
+     *         weight
+     */
+    public long getEvictionCount(Class<?> type) {
+        return stats(type).evictions.get();
+    }
+
+    /**
+     * @param type
+     * @return fraction of requests for the type answered from the cache, 0 if
+     *         there were none
+     */
+    public double getHitRatio(Class<?> type) {
+        Stats type_stats = stats(type);
+        long hits = type_stats.hits.get();
+        long total = hits + type_stats.misses.get();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return hit ratio, hits, and misses of each type requested
+     */
+    public String getStatistics() {
+        StringBuilder result = new StringBuilder();
+
+        stats.forEach((type, type_stats) -> result.append(String.format("%s: %.3f hit ratio, %d hits, %d misses, "
+                + "%d evictions%n", type.getSimpleName(), getHitRatio(type), type_stats.hits.get(),
+                type_stats.misses.get(), type_stats.evictions.get())));
 
-        return type.cast(cache.computeIfAbsent(id + "," + type.getName(), k -> supplier.get()));
+        return result.toString();
     }
 
     public BookCollection getBookCollection(String col_id) {
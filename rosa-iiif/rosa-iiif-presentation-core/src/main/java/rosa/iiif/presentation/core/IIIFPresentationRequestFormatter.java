@@ -55,4 +55,21 @@ public class IIIFPresentationRequestFormatter {
 
         return result.toString();
     }
+
+    /**
+     * Return the encoded path of a URI after the prefix, as parsed by
+     * IIIFPresentationRequestParser.
+     *
+     * @param uri URI
+     * @return path starting with '/' or null if the URI does not start with the prefix
+     */
+    public String path(String uri) {
+        String base = base();
+
+        if (!uri.startsWith(base)) {
+            return null;
+        }
+
+        return uri.substring(base.length() - 1);
+    }
 }
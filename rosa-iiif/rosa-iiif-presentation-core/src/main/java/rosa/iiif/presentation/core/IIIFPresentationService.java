@@ -33,4 +33,14 @@ public interface IIIFPresentationService {
      * @throws java.io.IOException
      */
     boolean handle_request(PresentationRequest req, OutputStream os) throws IOException;
+
+    /**
+     * Serialize the IIIF Presentation API object referenced by the given
+     * request, reusing an earlier serialization of it if possible.
+     * 
+     * @param req presentation request, that contains information about the incoming request
+     * @return serialized response or null if the object does not exist
+     * @throws java.io.IOException
+     */
+    PresentationResponseCache.Response handle_cached_request(PresentationRequest req) throws IOException;
 }
@@ -0,0 +1,297 @@
+package rosa.iiif.presentation.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import rosa.iiif.presentation.model.PresentationRequest;
+
+/**
+ * Caches serialized presentation responses in memory up to a maximum total
+ * number of bytes. When the maximum is exceeded, the least recently used
+ * responses are evicted.
+ *
+ * A response is made from an archive object, a Book or BookCollection. The
+ * response is only reused while the same archive object is given, so a
+ * response is made again once its object is reloaded. A hash of the content is
+ * used as a strong ETag. No modification time is kept, since the time a
+ * response is made changes when it is evicted or the server restarts while
+ * the content does not.
+ *
+ * Responses larger than a minimum size are also kept gzip encoded.
+ */
+public class PresentationResponseCache {
+    // Smaller responses are not worth compressing
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private final long max_bytes;
+
+    // Access ordered, guarded by itself
+    private final LinkedHashMap<PresentationRequest, Response> cache;
+    private long cache_bytes;
+
+    // Responses currently being made
+    private final ConcurrentHashMap<PresentationRequest, FutureTask<Response>> making;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Writes a response which is not in the cache.
+     */
+    public interface Writer {
+        /**
+         * @param os output stream to write response
+         * @return whether or not the requested object exists
+         * @throws IOException
+         */
+        boolean write(OutputStream os) throws IOException;
+    }
+
+    /**
+     * A serialized response.
+     */
+    public static class Response {
+        private final WeakReference<Object> source;
+        private final byte[] content;
+        private final byte[] gzip_content;
+        private final String etag;
+
+        Response(Object source, byte[] content) throws IOException {
+            this.source = new WeakReference<>(source);
+            this.content = content;
+            this.etag = "\"" + hex(digest(content)) + "\"";
+
+            if (content.length >= MIN_GZIP_SIZE) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(content);
+                }
+
+                this.gzip_content = out.toByteArray();
+            } else {
+                this.gzip_content = null;
+            }
+        }
+
+        /**
+         * @return serialized response, must not be modified
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return gzip encoded response, must not be modified, or null if it is
+         *         not kept encoded
+         */
+        public byte[] getGzipContent() {
+            return gzip_content;
+        }
+
+        /**
+         * @param gzip
+         *            whether the gzip encoded response is sent
+         * @return strong ETag including quotes
+         */
+        public String getETag(boolean gzip) {
+            return gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+        }
+
+        int size() {
+            return content.length + (gzip_content == null ? 0 : gzip_content.length);
+        }
+    }
+
+    /**
+     * @param max_bytes
+     *            maximum total size of cached responses
+     */
+    public PresentationResponseCache(long max_bytes) {
+        this.max_bytes = max_bytes;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.making = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Return the cached response to a request. If the response is not cached
+     * or was made from another archive object, it is written and cached first.
+     * A response is only written once no matter how many threads request it at
+     * the same time.
+     *
+     * @param req
+     *            presentation request
+     * @param source
+     *            archive object the response is made from
+     * @param writer
+     *            writes the response if it is not cached
+     * @return cached response or null if the requested object does not exist
+     * @throws IOException
+     *             if the response cannot be written
+     */
+    public Response get(PresentationRequest req, Object source, Writer writer) throws IOException {
+        synchronized (cache) {
+            Response resp = cache.get(req);
+
+            if (resp != null && resp.source.get() == source) {
+                hits.incrementAndGet();
+                return resp;
+            }
+        }
+
+        misses.incrementAndGet();
+
+        FutureTask<Response> task = new FutureTask<>(() -> make(req, source, writer));
+        FutureTask<Response> existing = making.putIfAbsent(req, task);
+
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                making.remove(req, task);
+            }
+
+            existing = task;
+        }
+
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    private Response make(PresentationRequest req, Object source, Writer writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        if (!writer.write(out)) {
+            return null;
+        }
+
+        Response resp = new Response(source, out.toByteArray());
+
+        put(req, resp);
+
+        return resp;
+    }
+
+    private void put(PresentationRequest req, Response resp) {
+        synchronized (cache) {
+            Response old = cache.put(req, resp);
+
+            if (old != null) {
+                cache_bytes -= old.size();
+            }
+
+            cache_bytes += resp.size();
+
+            // Evict least recently used, but always keep the newest response
+            Iterator<Map.Entry<PresentationRequest, Response>> iter = cache.entrySet().iterator();
+
+            while (cache_bytes > max_bytes && cache.size() > 1) {
+                Response eldest = iter.next().getValue();
+
+                cache_bytes -= eldest.size();
+                iter.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove all responses from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+            cache_bytes = 0;
+        }
+    }
+
+    /**
+     * @return number of cached responses
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return total size of cached responses in bytes
+     */
+    public long getByteCount() {
+        synchronized (cache) {
+            return cache_bytes;
+        }
+    }
+
+    /**
+     * @return number of requests answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests which had to be written
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of responses removed to stay under the maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder result = new StringBuilder(data.length * 2);
+
+        for (byte b : data) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return result.toString();
+    }
+}
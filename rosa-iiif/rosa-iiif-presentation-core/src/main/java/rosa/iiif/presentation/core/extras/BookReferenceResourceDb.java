@@ -11,16 +11,12 @@ import java.util.function.Consumer;
 public class BookReferenceResourceDb implements ExternalResourceDb {
 //    private static final Logger logger = Logger.getLogger("BookReferenceResourceDb");
 
-    private Link type;
-    private BookReferenceSheet bookDb;
+    private final Link type;
+    private final BookReferenceSheet bookDb;
 
     public BookReferenceResourceDb(Link type, BookReferenceSheet bookDb) {
-        setBookDb(bookDb);
-        this.type = type;
-    }
-
-    public void setBookDb(BookReferenceSheet bookDb) {
         this.bookDb = bookDb;
+        this.type = type;
     }
 
     @Override
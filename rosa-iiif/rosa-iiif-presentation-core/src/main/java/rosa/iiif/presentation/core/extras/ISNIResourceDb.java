@@ -19,32 +19,14 @@ public class ISNIResourceDb implements ExternalResourceDb {
 
     private final Map<String, URI> db;
 
-    private String currentCollection;
-
-    public ISNIResourceDb() {
-        db = new ConcurrentHashMap<>();
-    }
-
+    /**
+     * Fill the database according to the 'people' spreadsheet available in the
+     * collection. The database is not changed afterwards.
+     *
+     * @param collection
+     */
     public ISNIResourceDb(BookCollection collection) {
         db = new ConcurrentHashMap<>();
-        setCollection(collection);
-    }
-
-    public String label() {
-        return label;
-    }
-
-    /*
-     * Reset the current book collection. This well empty and refill the database
-     * according to the 'people' spreadsheet available in the collection.
-     */
-    public void setCollection(BookCollection collection) {
-        if (collection.getId().equals(currentCollection)) {
-            return;
-        }
-
-        currentCollection = collection.getId();
-        db.clear();
 
         ReferenceSheet people = collection.getPeopleRef();
         if (people != null) {
@@ -64,6 +46,10 @@ public class ISNIResourceDb implements ExternalResourceDb {
         }
     }
 
+    public String label() {
+        return label;
+    }
+
     // Remove punctuation and trailing spaces
     public String normalize(String s) {
         return s.replaceAll("\\p{Punct}+", "").toLowerCase().trim();
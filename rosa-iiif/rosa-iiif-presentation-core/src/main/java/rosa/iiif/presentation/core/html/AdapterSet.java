@@ -8,7 +8,7 @@ import java.util.Set;
 
 public class AdapterSet {
 
-    private Map<Class<?>, AnnotationBaseHtmlAdapter<?>> map;
+    private final Map<Class<?>, AnnotationBaseHtmlAdapter<?>> map;
 
     @Inject
     public AdapterSet(Set<AnnotationBaseHtmlAdapter<?>> adapters) {
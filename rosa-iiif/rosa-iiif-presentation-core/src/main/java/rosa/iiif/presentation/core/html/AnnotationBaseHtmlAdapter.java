@@ -18,10 +18,8 @@ import rosa.search.model.SearchField;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
-import java.io.ByteArrayOutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.StringWriter;
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -34,28 +32,24 @@ import java.util.regex.Pattern;
  * This base class provides a starting point with useful utilities to adapt the content
  * of an annotation object to an HTML string that can be displayed to a user. The HTML
  * content will be generated and added to an XMLStreamWriter in
- * {@link #annotationAsHtml(BookCollection, Book, BookImage, Object)}
+ * {@link #annotationAsHtml(BookCollection, Book, BookImage, Object, XMLStreamWriter, ExternalResourceDb[])}
  * then stringified and sent back to the original caller.
  *
+ * Adapters hold no state for a call, so one adapter may be used by many threads at once.
+ *
  * @param <T>
  */
 public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstants {
     private static final Logger LOGGER = Logger.getLogger("AnnotationHtmlAdapter");
 //    protected static final boolean[] NO_ORIENTATION = new boolean[] { false, false, false, false };
 
-    protected final PresentationUris pres_uris;
-    private List<ExternalResourceDb> externalDbs;
+    // Factories may be shared once configured
+    private static final XMLOutputFactory OUTPUT_FACTORY = newOutputFactory();
 
-    protected XMLStreamWriter writer;
+    protected final PresentationUris pres_uris;
 
     AnnotationBaseHtmlAdapter(PresentationUris pres_uris) {
         this.pres_uris = pres_uris;
-        this.externalDbs = new ArrayList<>();
-    }
-
-    private void setExternalDbs(ExternalResourceDb ... externalDbs) {
-        this.externalDbs.clear();
-        this.externalDbs.addAll(Arrays.asList(externalDbs));
     }
 
     /**
@@ -69,16 +63,14 @@ public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstant
      * @return Stringified HTML
      */
     public String adapt(BookCollection col, Book book, BookImage page, T annotation, ExternalResourceDb ... externalDbs) {
-        XMLOutputFactory outF = newOutputFactory();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-
-        setExternalDbs(externalDbs);
+        StringWriter output = new StringWriter();
 
         try {
-            this.writer = outF.createXMLStreamWriter(output);
-            annotationAsHtml(col, book, page, annotation);
-            return output.toString("UTF-8");
-        } catch (XMLStreamException | UnsupportedEncodingException e) {
+            XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output);
+            annotationAsHtml(col, book, page, annotation, writer, externalDbs);
+            writer.flush();
+            return output.toString();
+        } catch (XMLStreamException e) {
             return "";
         }
     }
@@ -89,15 +81,18 @@ public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstant
     abstract Class<T> getAnnotationType();
 
     /**
-     * Adapt the given annotation to HTML as XML using the class' XMLStreamWriter.
+     * Adapt the given annotation to HTML as XML using the given XMLStreamWriter.
      *
      * @param col book collection object
      * @param book book object
      * @param page info for the page
      * @param annotation annotation to adapt
+     * @param writer XML writer
+     * @param externalDbs external DBs to lookup related URIs
      * @throws XMLStreamException .
      */
-    abstract void annotationAsHtml(BookCollection col, Book book, BookImage page, T annotation) throws XMLStreamException;
+    abstract void annotationAsHtml(BookCollection col, Book book, BookImage page, T annotation,
+                                   XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException;
 
     boolean isNotEmpty(String str) {
         return str != null && !str.isEmpty();
@@ -143,7 +138,8 @@ public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstant
     }
 
     void addSearchableList(String label, List<String> vals, SearchField searchField, String withinUri,
-                                   XMLStreamWriter writer, Class<?> ... desiredExternalDbs) throws XMLStreamException {
+                                   XMLStreamWriter writer, ExternalResourceDb[] externalDbs,
+                                   Class<?> ... desiredExternalDbs) throws XMLStreamException {
         if (vals == null || vals.size() == 0) {
             return;
         }
@@ -161,7 +157,7 @@ public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstant
 
             if (desiredExternalDbs != null && desiredExternalDbs.length > 0 && externalDbs != null) {
                 Arrays.stream(desiredExternalDbs).forEach(dbClass ->
-                    externalDbs.stream().filter(db -> dbClass.equals(db.getClass())).forEach(db -> {
+                    Arrays.stream(externalDbs).filter(db -> dbClass.equals(db.getClass())).forEach(db -> {
                         try {
                             URI result = db.lookup(val);
                             if (result != null) {
@@ -536,7 +532,7 @@ public abstract class AnnotationBaseHtmlAdapter<T> implements AnnotationConstant
         return pres_uris.getManifestURI(loc.getCollection(), loc.getBook());
     }
 
-    private XMLOutputFactory newOutputFactory() {
+    private static XMLOutputFactory newOutputFactory() {
         XMLOutputFactory outF = XMLOutputFactory.newInstance();
         outF.setProperty("escapeCharacters", false);
         return outF;
@@ -7,8 +7,10 @@ import rosa.archive.model.BookImage;
 import rosa.archive.model.aor.Calculation;
 import rosa.archive.model.aor.Location;
 import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.extras.ExternalResourceDb;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 public class CalculationHtmlAdapter extends AnnotationBaseHtmlAdapter<Calculation> {
 
@@ -23,7 +25,8 @@ public class CalculationHtmlAdapter extends AnnotationBaseHtmlAdapter<Calculatio
     }
 
     @Override
-    void annotationAsHtml(BookCollection col, Book book, BookImage page, Calculation calc) throws XMLStreamException {
+    void annotationAsHtml(BookCollection col, Book book, BookImage page, Calculation calc,
+                          XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException {
         writer.writeStartElement(ANNOTATION_ELEMENT);
 
         assembleLocationIcon(orientation(calc.getOrientation()), new Location[] {calc.getLocation()}, writer);
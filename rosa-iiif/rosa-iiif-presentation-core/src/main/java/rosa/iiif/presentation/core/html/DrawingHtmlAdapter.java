@@ -7,9 +7,11 @@ import rosa.archive.model.BookImage;
 import rosa.archive.model.aor.Drawing;
 import rosa.archive.model.aor.Location;
 import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.extras.ExternalResourceDb;
 import rosa.iiif.presentation.core.jhsearch.JHSearchField;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 public class DrawingHtmlAdapter extends AnnotationBaseHtmlAdapter<Drawing> {
 
@@ -24,7 +26,8 @@ public class DrawingHtmlAdapter extends AnnotationBaseHtmlAdapter<Drawing> {
     }
 
     @Override
-    void annotationAsHtml(BookCollection col, Book book, BookImage page, Drawing annotation) throws XMLStreamException {
+    void annotationAsHtml(BookCollection col, Book book, BookImage page, Drawing annotation,
+                          XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException {
         writer.writeStartElement(ANNOTATION_ELEMENT);
 
         int orientation = 0;
@@ -39,7 +42,7 @@ public class DrawingHtmlAdapter extends AnnotationBaseHtmlAdapter<Drawing> {
         addTranslation(annotation.getTranslation(), writer);
 
         addListOfValues(SYMBOLS_LABEL, annotation.getSymbols(), writer);
-        addSearchableList(PEOPLE_LABEL, annotation.getPeople(), JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer);
+        addSearchableList(PEOPLE_LABEL, annotation.getPeople(), JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer, externalDbs);
         addListOfValues(BOOKS_LABEL, annotation.getBooks(), writer);
         addListOfValues(LOCATIONS_LABEL, annotation.getLocations(), writer);
 
@@ -9,9 +9,11 @@ import rosa.archive.model.aor.GraphNode;
 import rosa.archive.model.aor.GraphText;
 import rosa.archive.model.aor.Location;
 import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.extras.ExternalResourceDb;
 import rosa.iiif.presentation.core.jhsearch.JHSearchField;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +30,8 @@ public class GraphHtmlAdapter extends AnnotationBaseHtmlAdapter<Graph> {
     }
 
     @Override
-    void annotationAsHtml(BookCollection col, Book book, BookImage page, Graph annotation) throws XMLStreamException{
+    void annotationAsHtml(BookCollection col, Book book, BookImage page, Graph annotation,
+                          XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException{
         List<String> people = new ArrayList<>();
         List<String> books = new ArrayList<>();
         List<String> locs = new ArrayList<>();
@@ -77,7 +80,7 @@ public class GraphHtmlAdapter extends AnnotationBaseHtmlAdapter<Graph> {
 
         addListOfValues(NOTES_LABEL, notes.toString(), writer);
         addListOfValues(NOTES_TRANS_LABEL, notesTr.toString(), writer);
-        addSearchableList(PEOPLE_LABEL, people, JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer);
+        addSearchableList(PEOPLE_LABEL, people, JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer, externalDbs);
         addListOfValues(BOOKS_LABEL, books, writer);
         addListOfValues(LOCATIONS_LABEL, locs, writer);
         addListOfValues(SYMBOLS_LABEL, symbols, writer);
@@ -13,10 +13,12 @@ import rosa.archive.model.aor.Position;
 import rosa.archive.model.aor.XRef;
 import rosa.iiif.presentation.core.PresentationUris;
 import rosa.iiif.presentation.core.extras.BookReferenceResourceDb;
+import rosa.iiif.presentation.core.extras.ExternalResourceDb;
 import rosa.iiif.presentation.core.extras.ISNIResourceDb;
 import rosa.iiif.presentation.core.jhsearch.JHSearchField;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,7 +35,8 @@ public class MarginaliaHtmlAdapter extends AnnotationBaseHtmlAdapter<Marginalia>
     }
 
     @Override
-    void annotationAsHtml(BookCollection col, Book book, BookImage page, Marginalia annotation) throws XMLStreamException{
+    void annotationAsHtml(BookCollection col, Book book, BookImage page, Marginalia annotation,
+                          XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException{
         final String COLLECTION_URI = pres_uris.getCollectionURI(col.getId());
 
         StringBuilder transcription = new StringBuilder();
@@ -107,9 +110,9 @@ public class MarginaliaHtmlAdapter extends AnnotationBaseHtmlAdapter<Marginalia>
 
         addListOfValues(SYMBOLS_LABEL, symb, writer);
 
-        addSearchableList(PEOPLE_LABEL, people, JHSearchField.PEOPLE, COLLECTION_URI, writer, ISNIResourceDb.class);
-        addSearchableList(BOOKS_LABEL, books, JHSearchField.BOOK, COLLECTION_URI, writer, BookReferenceResourceDb.class);
-        addSearchableList(LOCATIONS_LABEL, locs, JHSearchField.PLACE, COLLECTION_URI, writer);
+        addSearchableList(PEOPLE_LABEL, people, JHSearchField.PEOPLE, COLLECTION_URI, writer, externalDbs, ISNIResourceDb.class);
+        addSearchableList(BOOKS_LABEL, books, JHSearchField.BOOK, COLLECTION_URI, writer, externalDbs, BookReferenceResourceDb.class);
+        addSearchableList(LOCATIONS_LABEL, locs, JHSearchField.PLACE, COLLECTION_URI, writer, externalDbs);
 
         // Add list of X-refs
         addXRefs(xrefs, writer);
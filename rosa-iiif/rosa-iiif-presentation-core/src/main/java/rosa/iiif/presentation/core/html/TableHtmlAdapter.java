@@ -7,9 +7,11 @@ import rosa.archive.model.BookImage;
 import rosa.archive.model.aor.Table;
 import rosa.archive.model.aor.TextEl;
 import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.extras.ExternalResourceDb;
 import rosa.iiif.presentation.core.jhsearch.JHSearchField;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 public class TableHtmlAdapter extends AnnotationBaseHtmlAdapter<Table> {
 
@@ -24,7 +26,8 @@ public class TableHtmlAdapter extends AnnotationBaseHtmlAdapter<Table> {
     }
 
     @Override
-    void annotationAsHtml(BookCollection col, Book book, BookImage page, Table annotation) throws XMLStreamException {
+    void annotationAsHtml(BookCollection col, Book book, BookImage page, Table annotation,
+                          XMLStreamWriter writer, ExternalResourceDb[] externalDbs) throws XMLStreamException {
         writer.writeStartElement(ANNOTATION_ELEMENT);
 //            addSimpleElement(writer, "span", "Table", "class", "annotation-title");
         if (isNotEmpty(annotation.getType())) {
@@ -41,7 +44,7 @@ public class TableHtmlAdapter extends AnnotationBaseHtmlAdapter<Table> {
 
         addTranslation(annotation.getTranslation(), writer);
         addListOfValues(SYMBOLS_LABEL, annotation.getSymbols(), writer);
-        addSearchableList(PEOPLE_LABEL, annotation.getPeople(), JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer);
+        addSearchableList(PEOPLE_LABEL, annotation.getPeople(), JHSearchField.PEOPLE, pres_uris.getCollectionURI(col.getId()), writer, externalDbs);
         addListOfValues(BOOKS_LABEL, annotation.getBooks(), writer);
         addListOfValues(LOCATIONS_LABEL, annotation.getLocations(), writer);
         addInternalRefs(col, book, annotation, annotation.getInternalRefs(), writer);
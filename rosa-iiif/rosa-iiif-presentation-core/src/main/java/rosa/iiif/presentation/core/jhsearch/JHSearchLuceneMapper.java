@@ -37,6 +37,7 @@ import rosa.archive.model.ObjectRef;
 import rosa.archive.model.ReferenceSheet;
 import rosa.archive.model.Transcription;
 import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.AnnotatedPageHeader;
 import rosa.archive.model.aor.Annotation;
 import rosa.archive.model.aor.Calculation;
 import rosa.archive.model.aor.Drawing;
@@ -478,7 +479,7 @@ public class JHSearchLuceneMapper extends BaseLuceneMapper {
 		addField(doc, JHSearchField.OBJECT_TYPE, IIIFNames.SC_CANVAS);
 
 		String label = image.getName();
-		AnnotatedPage transcript = book.getAnnotationPage(image.getId());
+		AnnotatedPageHeader transcript = book.getAnnotatedPageHeader(image.getId());
 		if (transcript != null) {
 			if (transcript.getPagination() != null && !transcript.getPagination().isEmpty()) {
 				label = transcript.getPagination();
@@ -2,56 +2,62 @@ package rosa.iiif.presentation.core.jhsearch;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.json.JSONException;
-import org.json.JSONWriter;
 
+import rosa.iiif.presentation.core.util.JsonKeys;
+import rosa.iiif.presentation.core.util.JsonStreamWriter;
 import rosa.iiif.presentation.model.IIIFNames;
 import rosa.search.model.CategoryValueCount;
 import rosa.search.model.SearchCategoryMatch;
 import rosa.search.model.SearchMatch;
 import rosa.search.model.SearchResult;
 
-public class JHSearchSerializer implements IIIFNames {
+public class JHSearchSerializer implements IIIFNames, JsonKeys {
 
     public JHSearchSerializer() {}
 
     public void write(String request_url, String query, SearchResult result, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-        writeJsonld(request_url, query, result, jWriter);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(request_url, query, result, jWriter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
     
     public void write(JHSearchField[] fields, JHSearchCategory[] categories, OutputStream os) throws IOException {
-        Writer os_writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter writer = new JSONWriter(os_writer);
+        try (JsonStreamWriter writer = new JsonStreamWriter(os)) {
+            write(fields, categories, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
+    private void write(JHSearchField[] fields, JHSearchCategory[] categories, JsonStreamWriter writer) {
         writer.object();
-        writer.key("fields").array();
+        writer.key(KEY_FIELDS).array();
         
         for (JHSearchField sf: fields) {
             if (sf.isExposed()) {
                 writer.object();
-                writer.key("name").value(sf.getFieldName());
-                writer.key("label").value(sf.getLabel());
-                writer.key("description").value(sf.getDescription());
+                writer.key(KEY_NAME).value(sf.getFieldName());
+                writer.key(KEY_LABEL).value(sf.getLabel());
+                writer.key(KEY_DESCRIPTION).value(sf.getDescription());
                 
                 String[] pairs = sf.getValueLabelPairs();
                 
                 if (pairs != null && pairs.length > 0) {
-                    writer.key("values").array();
+                    writer.key(KEY_VALUES).array();
                     
                     for (int i = 0; i < pairs.length; ) {
                         String value = pairs[i++];
                         String label = pairs[i++];
                         
                         writer.object();
-                        writer.key("value").value(value);
-                        writer.key("label").value(label);
+                        writer.key(KEY_VALUE).value(value);
+                        writer.key(KEY_LABEL).value(label);
                         writer.endObject();
                     }
                     
@@ -64,19 +70,19 @@ public class JHSearchSerializer implements IIIFNames {
         
         writer.endArray();
 
-        writer.key("categories").array();
+        writer.key(KEY_CATEGORIES).array();
         
         for (JHSearchCategory cat: categories) {
             writer.object();
-            writer.key("name").value(cat.getFieldName());
-            writer.key("label").value(cat.getCategoryLabel());
+            writer.key(KEY_NAME).value(cat.getFieldName());
+            writer.key(KEY_LABEL).value(cat.getCategoryLabel());
             writer.endObject();
         }
         
         writer.endArray();
 
         
-        writer.key("default-fields").array();
+        writer.key(KEY_DEFAULT_FIELDS).array();
         for (JHSearchField sf: fields) {
             if (sf.isExposed()) {
                 writer.value(sf.getFieldName());
@@ -85,36 +91,34 @@ public class JHSearchSerializer implements IIIFNames {
         writer.endArray();
         
         writer.endObject();
-        
-        os_writer.flush();
     }
 
-    private void writeJsonld(String request_url, String query, SearchResult result, JSONWriter writer) {
+    private void writeJsonld(String request_url, String query, SearchResult result, JsonStreamWriter writer) {
         writer.object();
-        writer.key("@context").value(JHSearchService.CONTEXT_URI);
+        writer.key(KEY_CONTEXT).value(JHSearchService.CONTEXT_URI);
         
-        writer.key("@id").value(request_url);
-        writer.key("@type").value("jhiff:SearchResult");
+        writer.key(KEY_ID).value(request_url);
+        writer.key(KEY_TYPE).value("jhiff:SearchResult");
         
-        writer.key("query").value(query);
-        writer.key("debug").value(result.getDebugMessage());
+        writer.key(KEY_QUERY).value(query);
+        writer.key(KEY_DEBUG).value(result.getDebugMessage());
         
         if (result.getSortOrder() != null) {
-            writer.key("sort_order").value(result.getSortOrder().name().toLowerCase());
+            writer.key(KEY_SORT_ORDER).value(result.getSortOrder().name().toLowerCase());
         }
 
-        writer.key("offset").value(result.getOffset());
-        writer.key("total").value(result.getTotal());
-        writer.key("max_matches").value(result.getMaxMatches());
+        writer.key(KEY_OFFSET).value(result.getOffset());
+        writer.key(KEY_TOTAL).value(result.getTotal());
+        writer.key(KEY_MAX_MATCHES).value(result.getMaxMatches());
 
-        writer.key("matches").array();
+        writer.key(KEY_MATCHES).array();
         for (SearchMatch match: result.getMatches()) {
             writeJsonld(match, writer);
         }
         writer.endArray();
         
         if (result.getCategories() != null && !result.getCategories().isEmpty()) {
-            writer.key("categories").array();
+            writer.key(KEY_CATEGORIES).array();
             for (SearchCategoryMatch cat: result.getCategories()){
                 writeJsonld(cat, writer);
             }
@@ -124,16 +128,16 @@ public class JHSearchSerializer implements IIIFNames {
         writer.endObject();
     }
 
-    private void writeJsonld(SearchCategoryMatch cat, JSONWriter writer) {
+    private void writeJsonld(SearchCategoryMatch cat, JsonStreamWriter writer) {
         writer.object();
         
-        writer.key("name").value(cat.getFieldName());
-        writer.key("values").array();
+        writer.key(KEY_NAME).value(cat.getFieldName());
+        writer.key(KEY_VALUES).array();
 
         for (CategoryValueCount val : cat.getValues()) {
             writer.object();
-            writer.key("label").value(val.getValue());
-            writer.key("count").value(val.getCount());
+            writer.key(KEY_LABEL).value(val.getValue());
+            writer.key(KEY_COUNT).value(val.getCount());
             writer.endObject();
         }
         
@@ -146,7 +150,7 @@ public class JHSearchSerializer implements IIIFNames {
         return field.substring(0, 1).toUpperCase() + field.substring(1);
     }
     
-    private void writeJsonld(SearchMatch match, JSONWriter writer) {
+    private void writeJsonld(SearchMatch match, JsonStreamWriter writer) {
         writer.object();
 
         StringBuilder context_html = new StringBuilder();        
@@ -181,28 +185,28 @@ public class JHSearchSerializer implements IIIFNames {
             }
         }
         
-        writer.key("context").value(context_html.toString());
+        writer.key(KEY_SEARCH_CONTEXT).value(context_html.toString());
         
-        writer.key("object").object();
-        writer.key("@id").value(match.getId());
+        writer.key(KEY_OBJECT).object();
+        writer.key(KEY_ID).value(match.getId());
         
         if (object_type != null) {
-            writer.key("@type").value(object_type);
+            writer.key(KEY_TYPE).value(object_type);
         }
         
         if (object_label != null) {
-            writer.key("label").value(object_label);
+            writer.key(KEY_LABEL).value(object_label);
         }
         
         writer.endObject();
         
         if (manifest_id != null) {
-            writer.key("manifest").object();
-            writer.key("@id").value(manifest_id);
-            writer.key("@type").value(IIIFNames.SC_MANIFEST);
+            writer.key(KEY_MANIFEST).object();
+            writer.key(KEY_ID).value(manifest_id);
+            writer.key(KEY_TYPE).value(IIIFNames.SC_MANIFEST);
             
             if (manifest_label != null) {
-                writer.key("label").value(manifest_label);
+                writer.key(KEY_LABEL).value(manifest_label);
             }
             writer.endObject();
         }
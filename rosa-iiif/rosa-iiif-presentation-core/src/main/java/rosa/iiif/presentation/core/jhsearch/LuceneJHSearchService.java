@@ -5,6 +5,7 @@ import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import rosa.archive.core.Store;
 import rosa.iiif.presentation.core.PresentationUris;
@@ -113,7 +114,17 @@ public class LuceneJHSearchService extends LuceneSearchService implements JHSear
      * @throws IOException .
      */
     public LuceneJHSearchService(Path path, PresentationUris pres_uris) throws IOException {
-        super(path, new JHSearchLuceneMapper(pres_uris));
+        this(path, pres_uris, null);
+    }
+
+    /**
+     * @param path .
+     * @param pres_uris .
+     * @param index_executor executor used to index books, NULL to index sequentially
+     * @throws IOException .
+     */
+    public LuceneJHSearchService(Path path, PresentationUris pres_uris, ExecutorService index_executor) throws IOException {
+        super(path, new JHSearchLuceneMapper(pres_uris), index_executor);
 
         this.serializer = new JHSearchSerializer();
         this.pres_uris = pres_uris;
@@ -0,0 +1,294 @@
+package rosa.iiif.presentation.core.tool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
+import rosa.iiif.presentation.core.IIIFPresentationRequestParser;
+import rosa.iiif.presentation.core.IIIFPresentationService;
+import rosa.iiif.presentation.core.PresentationResponseCache;
+import rosa.iiif.presentation.core.transform.impl.TransformerConstants;
+import rosa.iiif.presentation.model.PresentationRequest;
+import rosa.iiif.presentation.model.PresentationRequestType;
+
+/**
+ * Write the IIIF Presentation responses of collections to files so they can be
+ * served without transforming anything.
+ *
+ * Starting from each collection, every collection, manifest, canvas, range, and
+ * annotation list referenced by a response is requested from the service and
+ * written. The top ranges of each book are also exported along with the ranges
+ * they reference. A response is written to a path made of the decoded segments of its
+ * URI after the presentation prefix, with a .json extension. For example
+ * {prefix}/valid/FolgersHa2/manifest is written to
+ * valid/FolgersHa2/manifest.json. Responses the service compresses are also
+ * written gzip encoded to a sibling file with a further .gz extension. Files
+ * are replaced atomically so an export may be written over one being served.
+ *
+ * A static file server must map a URI to its file by adding the .json
+ * extension, and send the .gz file as is with Content-Encoding: gzip to clients
+ * accepting it. For example with nginx, try_files $uri.json and gzip_static on,
+ * with application/ld+json as the type of .json files. The presentation
+ * endpoint serves an export in this way itself.
+ *
+ * The objects of each book are exported by a separate task.
+ */
+public class PresentationExporter {
+    private static final Logger logger = Logger.getLogger(PresentationExporter.class.toString());
+
+    // Types of requests the service answers
+    private static final Set<PresentationRequestType> EXPORTED_TYPES = EnumSet.of(PresentationRequestType.COLLECTION,
+            PresentationRequestType.MANIFEST, PresentationRequestType.CANVAS, PresentationRequestType.RANGE,
+            PresentationRequestType.ANNOTATION_LIST);
+
+    // Manifests do not reference ranges, so start from the top of each kind
+    private static final String[] TOP_RANGES = {
+            TransformerConstants.IMAGE_RANGE_TYPE + "." + TransformerConstants.TOP_RANGE_ID,
+            TransformerConstants.TEXT_RANGE_TYPE + "." + TransformerConstants.TOP_RANGE_ID,
+            TransformerConstants.ILLUSTRATION_RANGE_TYPE + "." + TransformerConstants.TOP_RANGE_ID};
+
+    private static final String EXTENSION = ".json";
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final IIIFPresentationService service;
+    private final IIIFPresentationRequestFormatter formatter;
+    private final IIIFPresentationRequestParser parser;
+    private final ExecutorService executor;
+
+    /**
+     * The executor is not shut down by the exporter.
+     *
+     * @param service service to request responses from, should not cache responses
+     * @param formatter formatter of the URIs in responses
+     * @param executor executor used to export books, NULL to export sequentially
+     */
+    public PresentationExporter(IIIFPresentationService service, IIIFPresentationRequestFormatter formatter,
+            ExecutorService executor) {
+        this.service = service;
+        this.formatter = formatter;
+        this.parser = new IIIFPresentationRequestParser();
+        this.executor = executor;
+    }
+
+    /**
+     * Export collections and everything they reference.
+     *
+     * @param collections identifiers of collections
+     * @param dir directory to write to
+     * @return number of responses written
+     * @throws IOException
+     */
+    public int export(Collection<String> collections, Path dir) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        Set<PresentationRequest> seen = new HashSet<>();
+        Queue<PresentationRequest> todo = new ArrayDeque<>();
+        List<Future<?>> books = new ArrayList<>();
+
+        for (String col : collections) {
+            todo.add(new PresentationRequest(PresentationRequestType.COLLECTION, col));
+        }
+
+        try {
+            // Collections are exported here, books by tasks
+
+            while (!todo.isEmpty()) {
+                PresentationRequest req = todo.remove();
+
+                if (!seen.add(req)) {
+                    continue;
+                }
+
+                if (req.getType() == PresentationRequestType.COLLECTION) {
+                    export_response(req, dir, count, todo::add);
+                } else if (req.getType() == PresentationRequestType.MANIFEST) {
+                    Callable<Void> task = () -> {
+                        export_book(req, dir, count);
+                        return null;
+                    };
+
+                    if (executor == null) {
+                        FutureTask<Void> future = new FutureTask<>(task);
+                        future.run();
+                        books.add(future);
+                    } else {
+                        books.add(executor.submit(task));
+                    }
+                }
+            }
+
+            for (Future<?> book : books) {
+                book.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            books.forEach(f -> f.cancel(true));
+            throw new InterruptedIOException("Interrupted exporting to " + dir);
+        } catch (ExecutionException e) {
+            books.forEach(f -> f.cancel(true));
+
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+
+        return count.get();
+    }
+
+    // Export a manifest and everything it references in the same book
+    private void export_book(PresentationRequest manifest_req, Path dir, AtomicInteger count) throws IOException {
+        String[] book_id = manifest_req.getIdentifier();
+        Set<PresentationRequest> seen = new HashSet<>();
+        Queue<PresentationRequest> todo = new ArrayDeque<>();
+
+        todo.add(manifest_req);
+
+        for (String range : TOP_RANGES) {
+            todo.add(new PresentationRequest(PresentationRequestType.RANGE, book_id[0], book_id[1], range));
+        }
+
+        while (!todo.isEmpty()) {
+            PresentationRequest req = todo.remove();
+
+            if (seen.add(req)) {
+                export_response(req, dir, count, ref -> {
+                    String[] id = ref.getIdentifier();
+
+                    if (ref.getType() != PresentationRequestType.COLLECTION && id.length > 2
+                            && id[0].equals(book_id[0]) && id[1].equals(book_id[1])) {
+                        todo.add(ref);
+                    }
+                });
+            }
+        }
+
+        logger.info("Exported book: [" + book_id[0] + ":" + book_id[1] + "]");
+    }
+
+    // Write the response to a request and pass on the requests it references
+    private void export_response(PresentationRequest req, Path dir, AtomicInteger count,
+            Consumer<PresentationRequest> references) throws IOException {
+        PresentationResponseCache.Response resp = service.handle_cached_request(req);
+
+        if (resp == null) {
+            logger.info("Object not found: " + Arrays.toString(req.getIdentifier()) + " " + req.getType());
+            return;
+        }
+
+        Path file = get_file(req, dir);
+
+        write(file, resp.getContent());
+
+        Path gzip_file = get_gzip_file(file);
+
+        if (resp.getGzipContent() == null) {
+            Files.deleteIfExists(gzip_file);
+        } else {
+            write(gzip_file, resp.getGzipContent());
+        }
+
+        count.incrementAndGet();
+
+        find_uris(new JSONObject(new String(resp.getContent(), StandardCharsets.UTF_8)), uri -> {
+            String path = formatter.path(uri);
+            PresentationRequest ref = path == null ? null : parser.parsePresentationRequest(path);
+
+            if (ref != null && EXPORTED_TYPES.contains(ref.getType())) {
+                references.accept(ref);
+            }
+        });
+    }
+
+    /**
+     * @param req presentation request
+     * @param dir export directory
+     * @return file the response to the request is exported to
+     * @throws IOException if the request cannot be mapped to a file in the directory
+     */
+    public static Path get_file(PresentationRequest req, Path dir) throws IOException {
+        Path result = dir;
+
+        for (String segment : req.getIdentifier()) {
+            result = result.resolve(check_segment(segment));
+        }
+
+        return result.resolve(req.getType().getKeyword() + EXTENSION);
+    }
+
+    /**
+     * @param file file a response is exported to
+     * @return file the gzip encoded response is exported to, if any
+     */
+    public static Path get_gzip_file(Path file) {
+        return file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+    }
+
+    private static String check_segment(String segment) throws IOException {
+        if (segment.isEmpty() || segment.equals(".") || segment.equals("..") || segment.contains("/")
+                || segment.contains("\\")) {
+            throw new IOException("Cannot export path segment: " + segment);
+        }
+
+        return segment;
+    }
+
+    // Write to a temporary file first so the file is never seen partly written
+    private void write(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+        try {
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Pass on every string value which could be a URI
+    private void find_uris(Object json, Consumer<String> uris) {
+        if (json instanceof JSONObject) {
+            JSONObject obj = (JSONObject) json;
+
+            for (Object key : obj.keySet()) {
+                find_uris(obj.get((String) key), uris);
+            }
+        } else if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+
+            for (int i = 0; i < array.length(); i++) {
+                find_uris(array.get(i), uris);
+            }
+        } else if (json instanceof String) {
+            uris.accept((String) json);
+        }
+    }
+}
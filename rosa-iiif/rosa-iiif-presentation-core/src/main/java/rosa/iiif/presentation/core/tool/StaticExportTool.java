@@ -0,0 +1,72 @@
+package rosa.iiif.presentation.core.tool;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+import rosa.archive.core.ArchiveCoreModule;
+import rosa.archive.core.ArchiveNameParser;
+import rosa.archive.core.Store;
+import rosa.iiif.image.core.IIIFRequestFormatter;
+import rosa.iiif.presentation.core.ArchiveIIIFPresentationService;
+import rosa.iiif.presentation.core.IIIFPresentationCache;
+import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
+import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.StaticResourceRequestFormatter;
+import rosa.iiif.presentation.core.transform.impl.JsonldSerializer;
+import rosa.iiif.presentation.core.transform.impl.PresentationTransformerImpl;
+
+// Write the IIIF Presentation responses for every collection of an archive to a directory
+// in the URI layout of the presentation servlet as .json files, with gzip encoded .json.gz
+// siblings for larger responses. The directory can then be served at iiif.pres.prefix by a
+// static file server set up as described in PresentationExporter, or by the presentation
+// endpoint from its export directory with iiif.pres.prefix ending in /export.
+//
+// Must set system properties as in iiif-servlet.properties and archive.path
+// Must pass one argument giving path to export directory and optionally the number of threads.
+
+public class StaticExportTool {
+    private static final long MAX_CACHE_WEIGHT = 100000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: <tool> <export_path> [threads]");
+            System.exit(1);
+        }
+
+        Injector injector = Guice.createInjector(new ToolModule(), new ArchiveCoreModule());
+        Store store = injector.getInstance(Store.class);
+        IIIFPresentationRequestFormatter reqFormatter = injector.getInstance(IIIFPresentationRequestFormatter.class);
+        IIIFRequestFormatter imageFormatter = injector.getInstance(IIIFRequestFormatter.class);
+        StaticResourceRequestFormatter staticFormatter = injector.getInstance(StaticResourceRequestFormatter.class);
+
+        Path export_path = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Files.createDirectories(export_path);
+
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, MAX_CACHE_WEIGHT);
+        PresentationUris pres_uris = new PresentationUris(reqFormatter, imageFormatter, staticFormatter);
+        ArchiveIIIFPresentationService service = new ArchiveIIIFPresentationService(cache, new JsonldSerializer(),
+                new PresentationTransformerImpl(cache, pres_uris, new ArchiveNameParser()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            System.out.println("## Exporting archive to " + export_path);
+
+            PresentationExporter exporter = new PresentationExporter(service, reqFormatter, executor);
+            int count = exporter.export(Arrays.asList(store.listBookCollections()), export_path);
+
+            System.out.println("## Exported " + count + " responses");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -51,14 +51,8 @@ public class AnnotationListTransformer implements TransformerConstants {
 
     private BookImage getPageImage(Book book, String short_image_id) {
     	String imageId = nameParser.fullImageIdFromShortId(book.getId(), short_image_id);
-    	
-        for (BookImage image : book.getImages()) {
-            if (image.getId().equals(imageId)) {
-                return image;
-            }
-        }
 
-        return null;
+        return book.getImages().getImage(imageId);
     }
 
     private AnnotationList annotationList(BookCollection collection, Book book, BookImage image, AnnotatedPage aPage,
@@ -2,11 +2,13 @@ package rosa.iiif.presentation.core.transform.impl;
 
 import java.io.ByteArrayOutputStream;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import javax.xml.stream.XMLOutputFactory;
@@ -45,32 +47,55 @@ import rosa.iiif.presentation.model.annotation.AnnotationSource;
 import rosa.iiif.presentation.model.annotation.AnnotationTarget;
 import rosa.iiif.presentation.model.selector.FragmentSelector;
 
+/**
+ * Transforms archive annotations into IIIF annotations. A transformer may be
+ * used by many threads at once.
+ */
 public class AnnotationTransformer implements TransformerConstants, AORAnnotatedPageConstants {
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     private final PresentationUris pres_uris;
     private final ArchiveNameParser nameParser;
     private final AdapterSet htmlAdapters;
-    private ISNIResourceDb isni_db;
 
-    private BookReferenceResourceDb[] bookReferenceResourceDbs;
+    // Collection id -> external DBs built from that collection
+    private final ConcurrentHashMap<String, ExternalDbs> externalDbs;
+
+    /**
+     * External DBs built from a collection. They are not changed once built.
+     */
+    private static class ExternalDbs {
+        final WeakReference<BookCollection> collection;
+        final ExternalResourceDb[] bookDbs;
+        // ISNI DB followed by the book DBs
+        final ExternalResourceDb[] allDbs;
+
+        ExternalDbs(BookCollection collection) {
+            this.collection = new WeakReference<>(collection);
+            this.bookDbs = Arrays.stream(BookReferenceSheet.Link.values())
+                    .map(link -> new BookReferenceResourceDb(link, collection.getBooksRef()))
+                    .toArray(ExternalResourceDb[]::new);
+            this.allDbs = Stream.concat(Stream.of(new ISNIResourceDb(collection)), Stream.of(bookDbs))
+                    .toArray(ExternalResourceDb[]::new);
+        }
+    }
 
     public AnnotationTransformer(PresentationUris pres_uris,
                                  ArchiveNameParser nameParser, AdapterSet htmlAdapters) {
         this.pres_uris = pres_uris;
         this.nameParser = nameParser;
         this.htmlAdapters = htmlAdapters;
+        this.externalDbs = new ConcurrentHashMap<>();
     }
 
-    private void setExternalDbs(BookCollection collection) {
-        if (isni_db == null) {
-            isni_db = new ISNIResourceDb(collection);
-        } else {
-            isni_db.setCollection(collection);
-        }
-
-        List<BookReferenceResourceDb> bookDbs = new ArrayList<>();
-        Arrays.stream(BookReferenceSheet.Link.values()).forEach(link ->
-                bookDbs.add(new BookReferenceResourceDb(link, collection.getBooksRef())));
-        this.bookReferenceResourceDbs = bookDbs.toArray(new BookReferenceResourceDb[0]);
+    /**
+     * @param collection
+     * @return external DBs of the collection, built once for each loaded
+     *         collection
+     */
+    private ExternalDbs getExternalDbs(BookCollection collection) {
+        return externalDbs.compute(collection.getId(), (id, dbs) ->
+                dbs != null && dbs.collection.get() == collection ? dbs : new ExternalDbs(collection));
     }
 
     public Annotation transform(BookCollection collection, Book book, String name) {    	
@@ -95,11 +120,12 @@ public class AnnotationTransformer implements TransformerConstants, AORAnnotated
     }
 
     private Annotation adaptAnnotation(BookCollection collection, Book book, rosa.archive.model.aor.Annotation anno, BookImage image) {
-        setExternalDbs(collection);
         if (anno == null) {
             return null;
         }
 
+        ExternalDbs dbs = getExternalDbs(collection);
+
         String language = anno.getLanguage() != null && !anno.getLanguage().isEmpty() ? anno.getLanguage() : "en";
         String locationIcon = AnnotationLocationUtil.locationToHtml(anno.getLocation());
 
@@ -112,16 +138,15 @@ public class AnnotationTransformer implements TransformerConstants, AORAnnotated
 
         String text = locationIcon + " " + anno.toPrettyString();
         if (anno instanceof Marginalia) {
-            text = htmlAdapters.get(Marginalia.class).adapt(collection, book, image, (Marginalia) anno,
-                    Stream.concat(Stream.of(isni_db), Stream.of(bookReferenceResourceDbs)).toArray(ExternalResourceDb[]::new));
+            text = htmlAdapters.get(Marginalia.class).adapt(collection, book, image, (Marginalia) anno, dbs.allDbs);
         } else if (anno instanceof Drawing) {
-            text = htmlAdapters.get(Drawing.class).adapt(collection, book, image, (Drawing) anno, bookReferenceResourceDbs);
+            text = htmlAdapters.get(Drawing.class).adapt(collection, book, image, (Drawing) anno, dbs.bookDbs);
         } else if (anno instanceof Table) {
-            text = htmlAdapters.get(Table.class).adapt(collection, book, image, (Table) anno, bookReferenceResourceDbs);
+            text = htmlAdapters.get(Table.class).adapt(collection, book, image, (Table) anno, dbs.bookDbs);
         } else if (anno instanceof Graph) {
-            text = htmlAdapters.get(Graph.class).adapt(collection, book, image, (Graph) anno, bookReferenceResourceDbs);
+            text = htmlAdapters.get(Graph.class).adapt(collection, book, image, (Graph) anno, dbs.bookDbs);
         } else if (anno instanceof Calculation) {
-            text = htmlAdapters.get(Calculation.class).adapt(collection, book, image, (Calculation) anno, bookReferenceResourceDbs);
+            text = htmlAdapters.get(Calculation.class).adapt(collection, book, image, (Calculation) anno, dbs.bookDbs);
         }
 
         a.setDefaultSource(new AnnotationSource(null, IIIFNames.DC_TEXT, "text/html", text, language));
@@ -230,14 +255,8 @@ public class AnnotationTransformer implements TransformerConstants, AORAnnotated
 
     private BookImage getPageImage(Book book, String short_image_id) {
     	String imageId = nameParser.fullImageIdFromShortId(book.getId(), short_image_id);
-    	
-        for (BookImage image : book.getImages()) {
-            if (image.getId().equals(imageId)) {
-                return image;
-            }
-        }
 
-        return null;
+        return book.getImages().getImage(imageId);
     }
 
     private String getAnnotationPage(String name) {
@@ -271,7 +290,6 @@ public class AnnotationTransformer implements TransformerConstants, AORAnnotated
         }
         String page = getStandardPage(image);
 
-        // TODO only want to do this once, not once PER PAGE
         Map<String, String> transcriptionMap = TranscriptionSplitter.split(book.getTranscription());
 
         String transcription = transcriptionMap.get(page);
@@ -352,7 +370,7 @@ public class AnnotationTransformer implements TransformerConstants, AORAnnotated
             String content;
             ByteArrayOutputStream output = new ByteArrayOutputStream();
             try {
-                XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(output);
+                XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter(output);
 
                 addSimpleElement(xml, "p", "Illustration", "class", "annotation-title");
 
@@ -7,7 +7,7 @@ import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
 import rosa.archive.model.BookImage;
 import rosa.archive.model.BookImageLocation;
-import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.AnnotatedPageHeader;
 import rosa.iiif.presentation.core.PresentationUris;
 import rosa.iiif.presentation.model.AnnotationListType;
 import rosa.iiif.presentation.model.Canvas;
@@ -50,7 +50,7 @@ public class CanvasTransformer implements TransformerConstants {
          */
         String label = image.getName();
 
-        AnnotatedPage annotations = book.getAnnotationPage(image.getId());
+        AnnotatedPageHeader annotations = book.getAnnotatedPageHeader(image.getId());
         if (annotations != null) {
             if (annotations.getPagination() != null && !annotations.getPagination().isEmpty()) {
                 label = annotations.getPagination();
@@ -102,7 +102,7 @@ public class CanvasTransformer implements TransformerConstants {
     // TODO Cannot access cropped image.
     
     /**
-     * Avoid this method, requires a lookup in the image list.
+     * Look up the image of the page by id in the image list.
      * 
      * @param collection book collection holding the book
      * @param book book containing the page
@@ -113,14 +113,10 @@ public class CanvasTransformer implements TransformerConstants {
         // Look for the image representing 'page'
         
     	String full_image_id = nameParser.fullImageIdFromShortId(book.getId(), name);
-    	
-        for (BookImage image : book.getImages()) {
-            if (full_image_id.equals(image.getId())) {
-                return transform(collection, book, image, false);
-            }
-        }
+        BookImage image = book.getImages().getImage(full_image_id);
+
         // Return NULL if the page was not found in the list of images
-        return null;
+        return image == null ? null : transform(collection, book, image, false);
     }
 
     /**
@@ -1,9 +1,11 @@
 package rosa.iiif.presentation.core.transform.impl;
 
 import org.json.JSONException;
-import org.json.JSONWriter;
 
 import rosa.iiif.presentation.core.transform.PresentationSerializer;
+import rosa.iiif.presentation.core.util.JsonKeys;
+import rosa.iiif.presentation.core.util.JsonStreamWriter;
+import rosa.iiif.presentation.core.util.JsonStreamWriter.Name;
 import rosa.iiif.presentation.model.AnnotationList;
 import rosa.iiif.presentation.model.Canvas;
 import rosa.iiif.presentation.model.Collection;
@@ -28,13 +30,13 @@ import rosa.iiif.presentation.model.selector.SvgSelector;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 // TODO handle multiple languages?
-public class JsonldSerializer implements PresentationSerializer, IIIFNames {
-    private static final String IIIF_PRESENTATION_CONTEXT = "http://iiif.io/api/presentation/2/context.json";
+public class JsonldSerializer implements PresentationSerializer, IIIFNames, JsonKeys {
+    private static final Name IIIF_PRESENTATION_CONTEXT = JsonStreamWriter.name(
+            "http://iiif.io/api/presentation/2/context.json");
 
     /**
      * Create a JsonldSerializer
@@ -43,74 +45,74 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
 
     @Override
     public void write(Collection collection, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(collection, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(collection, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Manifest manifest, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(manifest, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(manifest, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Sequence sequence, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(sequence, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(sequence, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Canvas canvas, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(canvas, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(canvas, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Annotation annotation, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(annotation, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(annotation, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(AnnotationList annotationList, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(annotationList, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(annotationList, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Range range, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(range, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(range, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public void write(Layer layer, OutputStream os) throws JSONException, IOException {
-        Writer writer = new OutputStreamWriter(os, "UTF-8");
-        JSONWriter jWriter = new JSONWriter(writer);
-
-        writeJsonld(layer, jWriter, true);
-        writer.flush();
+        try (JsonStreamWriter jWriter = new JsonStreamWriter(os)) {
+            writeJsonld(layer, jWriter, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -120,13 +122,13 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param included is this context included in the final document?
      * @throws JSONException
      */
-    protected void addIiifContext(JSONWriter jWriter, boolean included) throws JSONException {
+    protected void addIiifContext(JsonStreamWriter jWriter, boolean included) throws JSONException {
         if (included) {
-            jWriter.key("@context").value(IIIF_PRESENTATION_CONTEXT);
+            jWriter.key(KEY_CONTEXT).value(IIIF_PRESENTATION_CONTEXT);
         }
     }
 
-    private void writeJsonld(Collection collection, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(Collection collection, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
@@ -134,7 +136,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         writeBaseData(collection, jWriter);
 
         if (collection.getCollections().size() > 0) {
-            jWriter.key("collections");
+            jWriter.key(KEY_COLLECTIONS);
             jWriter.array();
             for (Reference ref : collection.getCollections()) {
                 writeJsonld(ref, jWriter);
@@ -143,7 +145,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
 
         if (collection.getManifests().size() > 0) {
-            jWriter.key("manifests");
+            jWriter.key(KEY_MANIFESTS);
             jWriter.array();
             for (Reference ref : collection.getManifests()) {
                 writeJsonld(ref, jWriter);
@@ -154,7 +156,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         jWriter.endObject();
     }
     
-    private void writeJsonld(Range range, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(Range range, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
@@ -162,7 +164,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         writeBaseData(range, jWriter);
 
         if (!range.getCanvases().isEmpty()) {
-            jWriter.key("canvases");
+            jWriter.key(KEY_CANVASES);
             jWriter.array();
             for (String s : range.getCanvases()) {
                 jWriter.value(s);
@@ -171,7 +173,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
         
         if (!range.getRanges().isEmpty()) {
-            jWriter.key("ranges");
+            jWriter.key(KEY_RANGES);
             jWriter.array();
             for (String s : range.getRanges()) {
                 jWriter.value(s);
@@ -182,7 +184,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         jWriter.endObject();
     }
 
-    private void writeJsonld(Reference ref, JSONWriter jWriter) {
+    private void writeJsonld(Reference ref, JsonStreamWriter jWriter) {
         jWriter.object();
         writeBaseData(ref, jWriter);
         jWriter.endObject();
@@ -198,20 +200,20 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    private void writeJsonld(Manifest manifest, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(Manifest manifest, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
         addIiifContext(jWriter, isRequested);
         writeBaseData(manifest, jWriter);
-        writeIfNotNull("viewingDirection",
+        writeIfNotNull(KEY_VIEWING_DIRECTION,
                 manifest.getViewingDirection() != null ? manifest.getViewingDirection().getKeyword() : null, jWriter);
 
         if (manifest.getDefaultSequence() == null && (manifest.getOtherSequences() == null
                 || manifest.getOtherSequences().isEmpty())) {
 
         } else {
-            jWriter.key("sequences").array();
+            jWriter.key(KEY_SEQUENCES).array();
 
             if (manifest.getDefaultSequence() != null) {
                 writeJsonld(manifest.getDefaultSequence(), jWriter, false);
@@ -224,7 +226,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
         
         if (!manifest.getRanges().isEmpty()) {
-            jWriter.key("structures").array();
+            jWriter.key(KEY_STRUCTURES).array();
 
             for (Range range: manifest.getRanges()) {
                 if (range != null) { // TODO find out what is generating NULL ranges...
@@ -249,21 +251,21 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    private void writeJsonld(Sequence sequence, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(Sequence sequence, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
         addIiifContext(jWriter, isRequested);
         writeBaseData(sequence, jWriter);
-        writeIfNotNull("viewingDirection",
+        writeIfNotNull(KEY_VIEWING_DIRECTION,
                 sequence.getViewingDirection() != null ? sequence.getViewingDirection().getKeyword() : null, jWriter);
 
         if (sequence.getStartCanvas() >= 0) {
             Canvas start = sequence.getCanvases().get(sequence.getStartCanvas());
-            jWriter.key("startCanvas").value(start.getId());
+            jWriter.key(KEY_START_CANVAS).value(start.getId());
         }
 
-        jWriter.key("canvases");
+        jWriter.key(KEY_CANVASES);
         jWriter.array();
         for (Canvas canvas : sequence) {
             writeJsonld(canvas, jWriter, false);
@@ -283,17 +285,17 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    private void writeJsonld(Canvas canvas, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(Canvas canvas, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
         addIiifContext(jWriter, isRequested);
         writeBaseData(canvas, jWriter);
-        writeIfNotNull("height", canvas.getHeight(), jWriter);
-        writeIfNotNull("width", canvas.getWidth(), jWriter);
+        writeIfNotNull(KEY_HEIGHT, canvas.getHeight(), jWriter);
+        writeIfNotNull(KEY_WIDTH, canvas.getWidth(), jWriter);
 
         if (canvas.getImages().size() > 0) {
-            jWriter.key("images");
+            jWriter.key(KEY_IMAGES);
             jWriter.array();
             for (Annotation imageAnno : canvas.getImages()) {
                 writeJsonld(imageAnno, jWriter, false);
@@ -302,7 +304,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
 
         if (canvas.getOtherContent() != null && canvas.getOtherContent().size() > 0) {
-            jWriter.key("otherContent").array();
+            jWriter.key(KEY_OTHER_CONTENT).array();
             for (Reference ref : canvas.getOtherContent()) {
                 writeJsonld(ref, jWriter);
             }
@@ -322,7 +324,7 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    protected void writeJsonld(Annotation annotation, JSONWriter jWriter, boolean isRequested)
+    protected void writeJsonld(Annotation annotation, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
@@ -330,16 +332,16 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         writeBaseData(annotation, jWriter);
 
         if (!annotation.getSources().isEmpty()) {
-            jWriter.key("resource");
+            jWriter.key(KEY_RESOURCE);
             writeResource(annotation, jWriter);
         }
 
-        writeIfNotNull("motivation", annotation.getMotivation(), jWriter);
+        writeIfNotNull(KEY_MOTIVATION, annotation.getMotivation(), jWriter);
 
         // TODO write target with the possibility of it being a specific resource
         writeTarget(annotation, jWriter);
 //        AnnotationTarget target = annotation.getDefaultTarget();
-//        jWriter.key("on").value(target.getUri());
+//        jWriter.key(KEY_ON).value(target.getUri());
 
         jWriter.endObject();
     }
@@ -354,17 +356,17 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    private void writeJsonld(AnnotationList annoList, JSONWriter jWriter, boolean isRequested)
+    private void writeJsonld(AnnotationList annoList, JsonStreamWriter jWriter, boolean isRequested)
             throws JSONException {
         jWriter.object();
 
         addIiifContext(jWriter, isRequested);
         writeBaseData(annoList, jWriter);
-//        jWriter.key("@id").value(annoList.getId());
-//        jWriter.key("@type").value(IIIFNames.SC_ANNOTATION_LIST);
+//        jWriter.key(KEY_ID).value(annoList.getId());
+//        jWriter.key(KEY_TYPE).value(IIIFNames.SC_ANNOTATION_LIST);
 
         if (isRequested) {
-            jWriter.key("resources").array();
+            jWriter.key(KEY_RESOURCES).array();
             for (Annotation anno : annoList) {
                 writeJsonld(anno, jWriter, false);
             }
@@ -381,13 +383,13 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @param isRequested was this object requested directly?
      */
-    private void writeJsonld(Layer layer, JSONWriter jWriter, boolean isRequested) {
+    private void writeJsonld(Layer layer, JsonStreamWriter jWriter, boolean isRequested) {
         jWriter.object();
 
         addIiifContext(jWriter, isRequested);
         writeBaseData(layer, jWriter);
 
-        jWriter.key("otherContent").array();
+        jWriter.key(KEY_OTHER_CONTENT).array();
         for (String uri : layer.getOtherContent()) {
             jWriter.value(uri);
         }
@@ -404,21 +406,21 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param jWriter JSON-LD writer
      * @throws JSONException
      */
-    private void writeResource(Annotation annotation, JSONWriter jWriter) throws JSONException {
+    private void writeResource(Annotation annotation, JsonStreamWriter jWriter) throws JSONException {
         jWriter.object();
         if (annotation.getSources().size() == 1) {
             writeSource(annotation.getDefaultSource(), annotation.getLabel("en"),
                     annotation.getWidth(), annotation.getHeight(), jWriter);
         } else {
-            jWriter.key("@type").value(IIIFNames.OA_CHOICE);
+            jWriter.key(KEY_TYPE).value(IIIFNames.OA_CHOICE);
 
             boolean isFirst = true;
             for (AnnotationSource source : annotation.getSources()) {
                 if (isFirst) {
-                    jWriter.key("default");
+                    jWriter.key(KEY_DEFAULT);
                     isFirst = false;
                 } else {
-                    jWriter.key("item");
+                    jWriter.key(KEY_ITEM);
                 }
 
                 jWriter.object();
@@ -442,62 +444,62 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @throws JSONException
      */
     private void writeSource(AnnotationSource source, String label, int width,
-                             int height, JSONWriter jWriter) throws JSONException {
+                             int height, JsonStreamWriter jWriter) throws JSONException {
     
     	if (source.getUri() != null) {
-    		jWriter.key("@id").value(source.getUri());
+    		jWriter.key(KEY_ID).value(source.getUri());
     	}
     	
         if (source.isEmbeddedText()) {
-            jWriter.key("@type").value(IIIFNames.CNT_CONTENT_AS_TEXT);
-            jWriter.key("chars").value(source.getEmbeddedText());
+            jWriter.key(KEY_TYPE).value(IIIFNames.CNT_CONTENT_AS_TEXT);
+            jWriter.key(KEY_CHARS).value(source.getEmbeddedText());
         } else if (source.isImage()) {
-            jWriter.key("@type").value(IIIFNames.DC_IMAGE);
-            writeIfNotNull("format", source.getFormat(), jWriter);
-            writeIfNotNull("width", width, jWriter);
-            writeIfNotNull("height", height, jWriter);
+            jWriter.key(KEY_TYPE).value(IIIFNames.DC_IMAGE);
+            writeIfNotNull(KEY_FORMAT, source.getFormat(), jWriter);
+            writeIfNotNull(KEY_WIDTH, width, jWriter);
+            writeIfNotNull(KEY_HEIGHT, height, jWriter);
             writeService(source.getService(), true, jWriter);
         }
-        writeIfNotNull("label", label, jWriter);
+        writeIfNotNull(KEY_LABEL, label, jWriter);
 
         if (source.isSpecificResource()) {
             writeSelector(source.getSelector(), jWriter);
         }
     }
 
-    protected void writeTarget(Annotation annotation, JSONWriter jWriter) throws JSONException {
+    protected void writeTarget(Annotation annotation, JsonStreamWriter jWriter) throws JSONException {
         AnnotationTarget target = annotation.getDefaultTarget();
 
         if (target.isSpecificResource()) {
             Selector selector = target.getSelector();
             if (selector instanceof FragmentSelector) {
-                jWriter.key("on").value(target.getUri() + "#xywh=" + selector.content());
+                jWriter.key(KEY_ON).value(target.getUri() + "#xywh=" + selector.content());
             } else if (selector instanceof SvgSelector) {
                 writeSelector(target.getSelector(), jWriter);
             }
         } else {
-            jWriter.key("on").value(target.getUri());
+            jWriter.key(KEY_ON).value(target.getUri());
         }
 
     }
 
-    protected void writeSelector(Selector selector, JSONWriter jWriter) throws JSONException {
-        jWriter.key("selector");
+    protected void writeSelector(Selector selector, JsonStreamWriter jWriter) throws JSONException {
+        jWriter.key(KEY_SELECTOR);
         jWriter.object();
-        writeIfNotNull("@context", selector.context(), jWriter);
+        writeIfNotNull(KEY_CONTEXT, selector.context(), jWriter);
         // TODO not very flexible for new selectors...
         if (selector instanceof SvgSelector) {
-            jWriter.key("@type");
+            jWriter.key(KEY_TYPE);
 
             jWriter.array();
             jWriter.value(selector.type());
             jWriter.value(IIIFNames.CNT_CONTENT_AS_TEXT);
             jWriter.endArray();
 
-            jWriter.key("chars").value(selector.content());
+            jWriter.key(KEY_CHARS).value(selector.content());
         } else if (selector instanceof FragmentSelector) {
-            jWriter.key("@type").value(selector.type());
-            jWriter.key("region").value(selector.content());
+            jWriter.key(KEY_TYPE).value(selector.type());
+            jWriter.key(KEY_REGION).value(selector.content());
         }
 
         jWriter.endObject();
@@ -511,23 +513,23 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
      * @param <T> type
      * @throws JSONException
      */
-    protected <T extends PresentationBase> void writeBaseData(T obj, JSONWriter jWriter)
+    protected <T extends PresentationBase> void writeBaseData(T obj, JsonStreamWriter jWriter)
             throws JSONException {
-        jWriter.key("@id").value(obj.getId());
-        jWriter.key("@type").value(obj.getType());
+        jWriter.key(KEY_ID).value(obj.getId());
+        jWriter.key(KEY_TYPE).value(obj.getType());
 
-        writeIfNotNull("label", obj.getLabel("en"), jWriter);
-        writeIfNotNull("description", obj.getDescription("en"), jWriter);
-        writeIfNotNull("viewingHint", obj.getViewingHint() != null ? obj.getViewingHint().getKeyword() : null, jWriter);
+        writeIfNotNull(KEY_LABEL, obj.getLabel("en"), jWriter);
+        writeIfNotNull(KEY_DESCRIPTION, obj.getDescription("en"), jWriter);
+        writeIfNotNull(KEY_VIEWING_HINT, obj.getViewingHint() != null ? obj.getViewingHint().getKeyword() : null, jWriter);
 
         if (obj.getMetadata() != null && obj.getMetadata().size() > 0) {
-            jWriter.key("metadata");
+            jWriter.key(KEY_METADATA);
             jWriter.array();
 
             for (String mKey : obj.getMetadata().keySet()) {
                 jWriter.object();
-                jWriter.key("label").value(mKey);
-                jWriter.key("value").value(obj.getMetadata().get(mKey).getValue());
+                jWriter.key(KEY_LABEL).value(mKey);
+                jWriter.key(KEY_VALUE).value(obj.getMetadata().get(mKey).getValue());
                 jWriter.endObject();
             }
 
@@ -535,10 +537,10 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
 
         if (obj.getThumbnails().size() == 1) {
-            jWriter.key("thumbnail");
+            jWriter.key(KEY_THUMBNAIL);
             writeThumbnail(obj.getThumbnails().get(0), jWriter);
         } else if (obj.getThumbnails().size() > 1) {
-            jWriter.key("thumbnail").array();
+            jWriter.key(KEY_THUMBNAIL).array();
             obj.getThumbnails().forEach(thumb -> writeThumbnail(thumb, jWriter));
             jWriter.endArray();
         }
@@ -548,22 +550,22 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         if (preziRights != null) {
             if (preziRights.hasMultipleLicenses()) {
                 // Array of license URIs
-                jWriter.key("license").array();
+                jWriter.key(KEY_LICENSE).array();
                 for (String uri : preziRights.getLicenseUris()) {
                     jWriter.value(uri);
                 }
                 jWriter.endArray();
             } else if (preziRights.hasOneLicense()) {
-                writeIfNotNull("license", obj.getRights().getFirstLicense(), jWriter);
+                writeIfNotNull(KEY_LICENSE, obj.getRights().getFirstLicense(), jWriter);
             }
 
-            writeIfNotNull("attribution", preziRights.getAttribution("en"), jWriter);
+            writeIfNotNull(KEY_ATTRIBUTION, preziRights.getAttribution("en"), jWriter);
 
             if (preziRights.hasMultipleLogos()) {
-                jWriter.key("logo").array();
+                jWriter.key(KEY_LOGO).array();
                 for (String logo : preziRights.getLogoUris()) {
                     if (preziRights.hasLogoService()) {
-                        jWriter.object().key("@id").value(logo);
+                        jWriter.object().key(KEY_ID).value(logo);
                         writeService(preziRights.getLogoService(), true, jWriter);
                         jWriter.endObject();
                     } else {
@@ -573,38 +575,38 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
                 jWriter.endArray();
             } else if (preziRights.hasOneLogo()) {
                 if (preziRights.hasLogoService()) {
-                    jWriter.key("logo").object();
-                    jWriter.key("@id").value(preziRights.getFirstLogo());
+                    jWriter.key(KEY_LOGO).object();
+                    jWriter.key(KEY_ID).value(preziRights.getFirstLogo());
                     writeService(preziRights.getLogoService(), true, jWriter);
                     jWriter.endObject();
                 } else {
-                    writeIfNotNull("logo", preziRights.getFirstLogo(), jWriter);
+                    writeIfNotNull(KEY_LOGO, preziRights.getFirstLogo(), jWriter);
                 }
             }
         }
 
         // Links
         if (obj.getRelatedUri() != null) {
-            jWriter.key("related");
+            jWriter.key(KEY_RELATED);
             jWriter.object();
 
-            jWriter.key("@id").value(obj.getRelatedUri());
-            writeIfNotNull("format", obj.getRelatedFormat(), jWriter);
+            jWriter.key(KEY_ID).value(obj.getRelatedUri());
+            writeIfNotNull(KEY_FORMAT, obj.getRelatedFormat(), jWriter);
 
             jWriter.endObject();
         }
         writeServices(obj.getServices(), jWriter);
-        writeIfNotNull("seeAlso", obj.getSeeAlso(), jWriter);
+        writeIfNotNull(KEY_SEE_ALSO, obj.getSeeAlso(), jWriter);
         writeWithins(obj.getWithin(), jWriter);
     }
 
-    private void writeWithins(List<Within> withins, JSONWriter writer) {
+    private void writeWithins(List<Within> withins, JsonStreamWriter writer) {
         if (withins == null || withins.size() == 0) {
             return;
         }
 
         boolean multi = withins.size() > 1;
-        writer.key("within");
+        writer.key(KEY_WITHIN);
         if (multi) {
             writer.array();
         }
@@ -616,28 +618,28 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
     }
 
-    private void writeWithin(Within within, JSONWriter writer) throws JSONException {
+    private void writeWithin(Within within, JsonStreamWriter writer) throws JSONException {
         if (within.onlyId()) {
             writer.value(within.getId());
         } else {
             writer.object();
 
-            writeIfNotNull("@id", within.getId(), writer);
-            writeIfNotNull("@type", within.getType(), writer);
-            writeIfNotNull("label", within.getLabel(), writer);
+            writeIfNotNull(KEY_ID, within.getId(), writer);
+            writeIfNotNull(KEY_TYPE, within.getType(), writer);
+            writeIfNotNull(KEY_LABEL, within.getLabel(), writer);
             writeWithins(within.getWithins(), writer);
 
             writer.endObject();
         }
     }
 
-    private void writeServices(List<Service> services, JSONWriter jWriter) throws JSONException {
+    private void writeServices(List<Service> services, JsonStreamWriter jWriter) throws JSONException {
         if (services == null || services.size() == 0) {
             return;
         }
         boolean multi = services.size() > 1;
 
-        jWriter.key("service");
+        jWriter.key(KEY_SERVICE);
         if (multi) {
             jWriter.array();
         }
@@ -649,53 +651,53 @@ public class JsonldSerializer implements PresentationSerializer, IIIFNames {
         }
     }
 
-    private void writeService(Service service, boolean writeKey, JSONWriter jWriter) throws JSONException {
+    private void writeService(Service service, boolean writeKey, JsonStreamWriter jWriter) throws JSONException {
         if (service == null) {
             return;
         }
 
         if (writeKey) {
-            jWriter.key("service");
+            jWriter.key(KEY_SERVICE);
         }
         jWriter.object();
-        writeIfNotNull("@context", service.getContext(), jWriter);
-        writeIfNotNull("@id", service.getId(), jWriter);
-        writeIfNotNull("profile", service.getProfile(), jWriter);
-        writeIfNotNull("label", service.getLabel(), jWriter);
+        writeIfNotNull(KEY_CONTEXT, service.getContext(), jWriter);
+        writeIfNotNull(KEY_ID, service.getId(), jWriter);
+        writeIfNotNull(KEY_PROFILE, service.getProfile(), jWriter);
+        writeIfNotNull(KEY_LABEL, service.getLabel(), jWriter);
 
         if (service instanceof IIIFImageService) {
             IIIFImageService iiif = (IIIFImageService) service;
-            writeIfNotNull("width", iiif.getWidth(), jWriter);
-            writeIfNotNull("height", iiif.getHeight(), jWriter);
+            writeIfNotNull(KEY_WIDTH, iiif.getWidth(), jWriter);
+            writeIfNotNull(KEY_HEIGHT, iiif.getHeight(), jWriter);
         }
 
         jWriter.endObject();
     }
 
-    private void writeThumbnail(Image thumb, JSONWriter jWriter) throws JSONException {
+    private void writeThumbnail(Image thumb, JsonStreamWriter jWriter) throws JSONException {
         jWriter.object();
         
         // TODO Bad hack for static image uri.
         String static_image_url = thumb.getUri().replace("/full/full/", "/full/!128,128/");
         
-        jWriter.key("@id").value(static_image_url);
-        writeIfNotNull("@type", thumb.getType(), jWriter);
-        writeIfNotNull("format", thumb.getFormat(), jWriter);
+        jWriter.key(KEY_ID).value(static_image_url);
+        writeIfNotNull(KEY_TYPE, thumb.getType(), jWriter);
+        writeIfNotNull(KEY_FORMAT, thumb.getFormat(), jWriter);
         writeService(thumb.getService(), true, jWriter);
-        writeIfNotNull("width", thumb.getWidth(), jWriter);
-        writeIfNotNull("height", thumb.getHeight(), jWriter);
-        writeIfNotNull("depicts", thumb.getDepicts(), jWriter);
+        writeIfNotNull(KEY_WIDTH, thumb.getWidth(), jWriter);
+        writeIfNotNull(KEY_HEIGHT, thumb.getHeight(), jWriter);
+        writeIfNotNull(KEY_DEPICTS, thumb.getDepicts(), jWriter);
         jWriter.endObject();
     }
 
-    protected void writeIfNotNull(String key, Object value, JSONWriter jWriter)
+    protected void writeIfNotNull(Name key, Object value, JsonStreamWriter jWriter)
             throws JSONException {
         if (value != null && !value.toString().equals("")) {
             jWriter.key(key).value(value.toString());
         }
     }
 
-    protected void writeIfNotNull(String key, int value, JSONWriter jWriter) throws JSONException {
+    protected void writeIfNotNull(Name key, int value, JsonStreamWriter jWriter) throws JSONException {
         if (value != -1) {
             jWriter.key(key).value(value);
         }
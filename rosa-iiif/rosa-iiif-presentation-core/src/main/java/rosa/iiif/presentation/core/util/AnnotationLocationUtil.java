@@ -9,10 +9,12 @@ import java.io.ByteArrayOutputStream;
 import java.util.stream.Stream;
 
 public class AnnotationLocationUtil {
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     public static String locationToHtml(Location... locations) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+            XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
             writeLocationAsHtml(writer, locations);
 
             return out.toString();
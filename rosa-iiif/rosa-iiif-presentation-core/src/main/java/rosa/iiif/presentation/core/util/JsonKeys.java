@@ -0,0 +1,66 @@
+package rosa.iiif.presentation.core.util;
+
+import rosa.iiif.presentation.core.util.JsonStreamWriter.Name;
+
+/**
+ * Keys of the JSON-LD documents written for the IIIF Presentation and search
+ * APIs, encoded once for JsonStreamWriter.
+ */
+public interface JsonKeys {
+    Name KEY_CONTEXT = JsonStreamWriter.name("@context");
+    Name KEY_ID = JsonStreamWriter.name("@id");
+    Name KEY_TYPE = JsonStreamWriter.name("@type");
+    Name KEY_ATTRIBUTION = JsonStreamWriter.name("attribution");
+    Name KEY_CANVASES = JsonStreamWriter.name("canvases");
+    Name KEY_CATEGORIES = JsonStreamWriter.name("categories");
+    Name KEY_CHARS = JsonStreamWriter.name("chars");
+    Name KEY_COLLECTIONS = JsonStreamWriter.name("collections");
+    Name KEY_SEARCH_CONTEXT = JsonStreamWriter.name("context");
+    Name KEY_COUNT = JsonStreamWriter.name("count");
+    Name KEY_DEBUG = JsonStreamWriter.name("debug");
+    Name KEY_DEFAULT = JsonStreamWriter.name("default");
+    Name KEY_DEFAULT_FIELDS = JsonStreamWriter.name("default-fields");
+    Name KEY_DEPICTS = JsonStreamWriter.name("depicts");
+    Name KEY_DESCRIPTION = JsonStreamWriter.name("description");
+    Name KEY_FIELDS = JsonStreamWriter.name("fields");
+    Name KEY_FORMAT = JsonStreamWriter.name("format");
+    Name KEY_HEIGHT = JsonStreamWriter.name("height");
+    Name KEY_IMAGES = JsonStreamWriter.name("images");
+    Name KEY_ITEM = JsonStreamWriter.name("item");
+    Name KEY_LABEL = JsonStreamWriter.name("label");
+    Name KEY_LICENSE = JsonStreamWriter.name("license");
+    Name KEY_LOGO = JsonStreamWriter.name("logo");
+    Name KEY_MANIFEST = JsonStreamWriter.name("manifest");
+    Name KEY_MANIFESTS = JsonStreamWriter.name("manifests");
+    Name KEY_MATCHES = JsonStreamWriter.name("matches");
+    Name KEY_MAX_MATCHES = JsonStreamWriter.name("max_matches");
+    Name KEY_METADATA = JsonStreamWriter.name("metadata");
+    Name KEY_MOTIVATION = JsonStreamWriter.name("motivation");
+    Name KEY_NAME = JsonStreamWriter.name("name");
+    Name KEY_OBJECT = JsonStreamWriter.name("object");
+    Name KEY_OFFSET = JsonStreamWriter.name("offset");
+    Name KEY_ON = JsonStreamWriter.name("on");
+    Name KEY_OTHER_CONTENT = JsonStreamWriter.name("otherContent");
+    Name KEY_PROFILE = JsonStreamWriter.name("profile");
+    Name KEY_QUERY = JsonStreamWriter.name("query");
+    Name KEY_RANGES = JsonStreamWriter.name("ranges");
+    Name KEY_REGION = JsonStreamWriter.name("region");
+    Name KEY_RELATED = JsonStreamWriter.name("related");
+    Name KEY_RESOURCE = JsonStreamWriter.name("resource");
+    Name KEY_RESOURCES = JsonStreamWriter.name("resources");
+    Name KEY_SEE_ALSO = JsonStreamWriter.name("seeAlso");
+    Name KEY_SELECTOR = JsonStreamWriter.name("selector");
+    Name KEY_SEQUENCES = JsonStreamWriter.name("sequences");
+    Name KEY_SERVICE = JsonStreamWriter.name("service");
+    Name KEY_SORT_ORDER = JsonStreamWriter.name("sort_order");
+    Name KEY_START_CANVAS = JsonStreamWriter.name("startCanvas");
+    Name KEY_STRUCTURES = JsonStreamWriter.name("structures");
+    Name KEY_THUMBNAIL = JsonStreamWriter.name("thumbnail");
+    Name KEY_TOTAL = JsonStreamWriter.name("total");
+    Name KEY_VALUE = JsonStreamWriter.name("value");
+    Name KEY_VALUES = JsonStreamWriter.name("values");
+    Name KEY_VIEWING_DIRECTION = JsonStreamWriter.name("viewingDirection");
+    Name KEY_VIEWING_HINT = JsonStreamWriter.name("viewingHint");
+    Name KEY_WIDTH = JsonStreamWriter.name("width");
+    Name KEY_WITHIN = JsonStreamWriter.name("within");
+}
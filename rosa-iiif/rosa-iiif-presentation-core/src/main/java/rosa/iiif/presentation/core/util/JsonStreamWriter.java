@@ -0,0 +1,445 @@
+package rosa.iiif.presentation.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.json.JSONException;
+
+/**
+ * Writes JSON text as UTF-8 directly to an OutputStream. The methods may be
+ * chained like those of org.json.JSONWriter and strings are escaped the same
+ * way, so the output is identical. Unlike JSONWriter, duplicate keys are not
+ * detected.
+ *
+ * Output is collected in a buffer taken from a shared pool and written when the
+ * buffer is full or flushed. The writer must be closed to return the buffer.
+ * Closing does not close the underlying stream. A writer must not be used by
+ * more than one thread.
+ *
+ * Errors writing to the stream are thrown as UncheckedIOException so that
+ * writing can be done in lambdas. Misplaced keys or values throw a
+ * JSONException.
+ */
+public class JsonStreamWriter implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    // Most bytes one char can be written as
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private static final ArrayBlockingQueue<byte[]> buffer_pool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c',
+            'd', 'e', 'f'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    /**
+     * A string encoded once so that it can be written repeatedly as a key or
+     * value without being escaped again.
+     */
+    public static final class Name {
+        private final String value;
+        private final byte[] quoted;
+
+        private Name(String value, byte[] quoted) {
+            this.value = value;
+            this.quoted = quoted;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * @param value
+     * @return value encoded as a quoted JSON string
+     */
+    public static Name name(String value) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(value.length() + 2);
+
+        try (JsonStreamWriter writer = new JsonStreamWriter(os)) {
+            writer.value(value);
+        }
+
+        return new Name(value, os.toByteArray());
+    }
+
+    private final OutputStream os;
+    private byte[] buf;
+    private int pos;
+
+    // Kind and whether it has items of each open object or array
+    private byte[] kinds;
+    private boolean[] has_items;
+    private int depth;
+    private boolean after_key;
+    private boolean done;
+
+    /**
+     * @param os
+     *            stream to write UTF-8 encoded JSON
+     */
+    public JsonStreamWriter(OutputStream os) {
+        this.os = os;
+        this.kinds = new byte[16];
+        this.has_items = new boolean[16];
+
+        byte[] pooled = buffer_pool.poll();
+        this.buf = pooled == null ? new byte[BUFFER_SIZE] : pooled;
+    }
+
+    /**
+     * Begin an object.
+     *
+     * @return this
+     */
+    public JsonStreamWriter object() {
+        begin_value();
+        push(OBJECT);
+        write('{');
+        return this;
+    }
+
+    /**
+     * End the current object.
+     *
+     * @return this
+     */
+    public JsonStreamWriter endObject() {
+        pop(OBJECT);
+        write('}');
+        return this;
+    }
+
+    /**
+     * Begin an array.
+     *
+     * @return this
+     */
+    public JsonStreamWriter array() {
+        begin_value();
+        push(ARRAY);
+        write('[');
+        return this;
+    }
+
+    /**
+     * End the current array.
+     *
+     * @return this
+     */
+    public JsonStreamWriter endArray() {
+        pop(ARRAY);
+        write(']');
+        return this;
+    }
+
+    /**
+     * @param key
+     *            key of the next value in the current object
+     * @return this
+     */
+    public JsonStreamWriter key(String key) {
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+
+        begin_key();
+        write_string(key);
+        write(':');
+        return this;
+    }
+
+    /**
+     * @param key
+     *            key of the next value in the current object
+     * @return this
+     */
+    public JsonStreamWriter key(Name key) {
+        begin_key();
+        write(key.quoted);
+        write(':');
+        return this;
+    }
+
+    /**
+     * @param value
+     *            string or null
+     * @return this
+     */
+    public JsonStreamWriter value(String value) {
+        begin_value();
+
+        if (value == null) {
+            write(NULL);
+        } else {
+            write_string(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * @param value
+     * @return this
+     */
+    public JsonStreamWriter value(Name value) {
+        begin_value();
+        write(value.quoted);
+        return this;
+    }
+
+    /**
+     * @param value
+     * @return this
+     */
+    public JsonStreamWriter value(long value) {
+        begin_value();
+        write_long(value);
+        return this;
+    }
+
+    /**
+     * @param value
+     * @return this
+     */
+    public JsonStreamWriter value(boolean value) {
+        begin_value();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Write out everything written so far.
+     */
+    @Override
+    public void flush() {
+        try {
+            drain();
+            os.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush the writer and return its buffer to the pool. The underlying
+     * stream is left open.
+     */
+    @Override
+    public void close() {
+        if (buf == null) {
+            return;
+        }
+
+        try {
+            flush();
+        } finally {
+            buffer_pool.offer(buf);
+            buf = null;
+        }
+    }
+
+    private void begin_key() {
+        if (depth == 0 || kinds[depth - 1] != OBJECT || after_key) {
+            throw new JSONException("Misplaced key.");
+        }
+
+        if (has_items[depth - 1]) {
+            write(',');
+        }
+
+        has_items[depth - 1] = true;
+        after_key = true;
+    }
+
+    private void begin_value() {
+        if (depth == 0) {
+            if (done) {
+                throw new JSONException("Misplaced value.");
+            }
+
+            done = true;
+        } else if (kinds[depth - 1] == OBJECT) {
+            if (!after_key) {
+                throw new JSONException("Misplaced value.");
+            }
+
+            after_key = false;
+        } else {
+            if (has_items[depth - 1]) {
+                write(',');
+            }
+
+            has_items[depth - 1] = true;
+        }
+    }
+
+    private void push(byte kind) {
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            has_items = Arrays.copyOf(has_items, depth * 2);
+        }
+
+        kinds[depth] = kind;
+        has_items[depth] = false;
+        depth++;
+    }
+
+    private void pop(byte kind) {
+        if (depth == 0 || kinds[depth - 1] != kind || after_key) {
+            throw new JSONException("Misplaced " + (kind == OBJECT ? "endObject." : "endArray."));
+        }
+
+        depth--;
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) {
+            os.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void ensure(int len) {
+        if (pos + len > buf.length) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void write(char c) {
+        ensure(1);
+        buf[pos++] = (byte) c;
+    }
+
+    private void write(byte[] data) {
+        if (data.length > buf.length) {
+            try {
+                drain();
+                os.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            ensure(data.length);
+            System.arraycopy(data, 0, buf, pos, data.length);
+            pos += data.length;
+        }
+    }
+
+    private void write_long(long value) {
+        // Rarely used, not worth avoiding the String
+        String s = Long.toString(value);
+        int len = s.length();
+
+        ensure(len);
+
+        for (int i = 0; i < len; i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * Write a quoted string escaped as done by org.json.JSONObject.quote and
+     * encoded as UTF-8.
+     */
+    private void write_string(String s) {
+        int len = s.length();
+        char prev = 0;
+
+        ensure(1);
+        buf[pos++] = '"';
+
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+
+            if (pos + MAX_CHAR_BYTES > buf.length) {
+                ensure(MAX_CHAR_BYTES);
+            }
+
+            if (c >= ' ' && c < 0x80) {
+                if (c == '"' || c == '\\' || (c == '/' && prev == '<')) {
+                    buf[pos++] = '\\';
+                }
+
+                buf[pos++] = (byte) c;
+            } else if (c < ' ') {
+                switch (c) {
+                case '\b':
+                    write_escape('b');
+                    break;
+                case '\t':
+                    write_escape('t');
+                    break;
+                case '\n':
+                    write_escape('n');
+                    break;
+                case '\f':
+                    write_escape('f');
+                    break;
+                case '\r':
+                    write_escape('r');
+                    break;
+                default:
+                    write_unicode_escape(c);
+                    break;
+                }
+            } else if (c < 0xa0 || (c >= 0x2000 && c < 0x2100)) {
+                write_unicode_escape(c);
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Replaced as done by the UTF-8 encoder of OutputStreamWriter
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+
+            prev = c;
+        }
+
+        ensure(1);
+        buf[pos++] = '"';
+    }
+
+    private void write_escape(char c) {
+        buf[pos++] = '\\';
+        buf[pos++] = (byte) c;
+    }
+
+    private void write_unicode_escape(char c) {
+        buf[pos++] = '\\';
+        buf[pos++] = 'u';
+        buf[pos++] = HEX_DIGITS[(c >> 12) & 0xf];
+        buf[pos++] = HEX_DIGITS[(c >> 8) & 0xf];
+        buf[pos++] = HEX_DIGITS[(c >> 4) & 0xf];
+        buf[pos++] = HEX_DIGITS[c & 0xf];
+    }
+}
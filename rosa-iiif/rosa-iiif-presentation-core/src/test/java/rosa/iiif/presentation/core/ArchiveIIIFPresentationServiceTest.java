@@ -1,7 +1,11 @@
 package rosa.iiif.presentation.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
@@ -24,10 +28,12 @@ import rosa.iiif.presentation.model.PresentationRequestType;
  */
 public class ArchiveIIIFPresentationServiceTest extends BaseSearchTest {
     private static ArchiveIIIFPresentationService service;
+    private static JsonldSerializer serializer;
+    private static PresentationUris pres_uris;
 
     @BeforeClass
     public static void setup() throws Exception {
-        JsonldSerializer serializer = new JsonldSerializer();
+        serializer = new JsonldSerializer();
 
         String scheme = "http";
         String host = "serenity.dkc.jhu.edu";
@@ -43,7 +49,7 @@ public class ArchiveIIIFPresentationServiceTest extends BaseSearchTest {
         ArchiveNameParser nameParser = new ArchiveNameParser();
         
         IIIFPresentationCache cache = new IIIFPresentationCache(store, 10);
-        PresentationUris pres_uris = new PresentationUris(requestFormatter, imageFormatter, staticFormatter);
+        pres_uris = new PresentationUris(requestFormatter, imageFormatter, staticFormatter);
 
         PresentationTransformer transformer = new PresentationTransformerImpl(cache, pres_uris, nameParser);
 
@@ -101,4 +107,36 @@ public class ArchiveIIIFPresentationServiceTest extends BaseSearchTest {
         assertTrue(json.has("sequences"));
 //        assertTrue(json.has("structures"));
     }
+
+    /**
+     * A serialized response is reused while its book stays cached.
+     */
+    @Test
+    public void testCachedManifestRequest() throws IOException {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 100000);
+        PresentationResponseCache response_cache = new PresentationResponseCache(Long.MAX_VALUE);
+        ArchiveIIIFPresentationService cached_service = new ArchiveIIIFPresentationService(cache, serializer,
+                new PresentationTransformerImpl(cache, pres_uris, new ArchiveNameParser()), response_cache);
+        PresentationRequest req = new PresentationRequest(PresentationRequestType.MANIFEST, VALID_COLLECTION, VALID_BOOK_FOLGERSHA2);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertTrue(service.handle_request(req, os));
+
+        PresentationResponseCache.Response resp = cached_service.handle_cached_request(req);
+        assertArrayEquals(os.toByteArray(), resp.getContent());
+        assertArrayEquals(os.toByteArray(), service.handle_cached_request(req).getContent());
+
+        assertSame(resp, cached_service.handle_cached_request(req));
+        assertEquals(1, response_cache.getHitCount());
+
+        // Book evicted and loaded again
+        cache.clear();
+        PresentationResponseCache.Response reloaded = cached_service.handle_cached_request(req);
+
+        assertNotSame(resp, reloaded);
+        assertEquals(resp.getETag(false), reloaded.getETag(false));
+
+        assertNull(cached_service.handle_cached_request(
+                new PresentationRequest(PresentationRequestType.MANIFEST, VALID_COLLECTION, "foo")));
+    }
 }
@@ -0,0 +1,162 @@
+package rosa.iiif.presentation.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import rosa.archive.core.BaseSearchTest;
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+import rosa.iiif.presentation.model.AnnotationList;
+import rosa.iiif.presentation.model.Manifest;
+
+public class IIIFPresentationCacheTest extends BaseSearchTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 100);
+
+        assertEquals("a", cache.get("1", String.class, () -> "a"));
+        assertEquals("a", cache.get("1", String.class, () -> "b"));
+        assertNull(cache.get("2", String.class, () -> null));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getWeight());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 3);
+
+        cache.get("1", String.class, () -> "a");
+        cache.get("2", String.class, () -> "b");
+        cache.get("3", String.class, () -> "c");
+
+        // Touch 1 so that 2 is the least recently used
+        cache.get("1", String.class, () -> "x");
+        cache.get("4", String.class, () -> "d");
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.size());
+        assertEquals("a", cache.get("1", String.class, () -> "x"));
+        assertEquals("x", cache.get("2", String.class, () -> "x"));
+    }
+
+    @Test
+    public void testBookWeight() throws Exception {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 100000);
+
+        BookCollection col = cache.getBookCollection(VALID_COLLECTION);
+        assertNotNull(col);
+        assertEquals(1 + col.books().length, cache.getWeight());
+
+        Book book = cache.getBook(col, VALID_BOOK_LUDWIGXV7);
+        assertNotNull(book);
+
+        int expected = 1 + book.getImages().getImages().size() + book.getAnnotatedPages().size();
+        assertEquals(1 + col.books().length + expected, cache.getWeight());
+        assertSame(book, cache.getBook(col, VALID_BOOK_LUDWIGXV7));
+    }
+
+    /**
+     * Objects of a type with its own maximum weight only evict each other.
+     */
+    @Test
+    public void testSeparateMaxWeights() {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 2);
+        cache.setMaxWeight(AnnotationList.class, 3);
+
+        Manifest man = cache.get("book", Manifest.class, Manifest::new);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get("page" + i, AnnotationList.class, AnnotationList::new);
+        }
+
+        assertSame(man, cache.get("book", Manifest.class, Manifest::new));
+        assertEquals(4, cache.size());
+        assertEquals(7, cache.getEvictionCount(AnnotationList.class));
+        assertEquals(0, cache.getEvictionCount(Manifest.class));
+        assertEquals(7, cache.getEvictionCount());
+
+        assertEquals(1, cache.getHitCount(Manifest.class));
+        assertEquals(1, cache.getMissCount(Manifest.class));
+        assertEquals(0.5, cache.getHitRatio(Manifest.class), 0);
+        assertEquals(0, cache.getHitCount(AnnotationList.class));
+        assertEquals(10, cache.getMissCount(AnnotationList.class));
+        assertEquals(0, cache.getHitRatio(AnnotationList.class), 0);
+    }
+
+    /**
+     * An object made from another is made again once given a different source.
+     */
+    @Test
+    public void testSourceChanged() {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 100);
+        Object source = new Object();
+
+        AnnotationList list = cache.get("page", AnnotationList.class, source, AnnotationList::new);
+        assertSame(list, cache.get("page", AnnotationList.class, source, AnnotationList::new));
+
+        AnnotationList changed = cache.get("page", AnnotationList.class, new Object(), AnnotationList::new);
+        assertNotSame(list, changed);
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testConcurrentLoadOnce() throws Exception {
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+
+                    return cache.get("1", String.class, () -> {
+                        loads.incrementAndGet();
+
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        return "a";
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("a", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+}
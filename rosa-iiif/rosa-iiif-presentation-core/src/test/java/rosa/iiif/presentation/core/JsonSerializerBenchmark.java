@@ -0,0 +1,152 @@
+package rosa.iiif.presentation.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.json.JSONObject;
+
+import rosa.archive.core.ArchiveNameParser;
+import rosa.archive.core.BaseSearchTest;
+import rosa.archive.model.Book;
+import rosa.archive.model.BookCollection;
+import rosa.iiif.image.core.IIIFRequestFormatter;
+import rosa.iiif.presentation.core.jhsearch.JHSearchField;
+import rosa.iiif.presentation.core.jhsearch.JHSearchSerializer;
+import rosa.iiif.presentation.core.transform.PresentationTransformer;
+import rosa.iiif.presentation.core.transform.impl.JsonldSerializer;
+import rosa.iiif.presentation.core.transform.impl.PresentationTransformerImpl;
+import rosa.iiif.presentation.model.IIIFNames;
+import rosa.iiif.presentation.model.Manifest;
+import rosa.search.model.SearchMatch;
+import rosa.search.model.SearchResult;
+
+/**
+ * Measure the throughput and allocation of JsonldSerializer writing the
+ * manifest of the AoR test book and of JHSearchSerializer writing a search
+ * result with 100 matches. For comparison, the same documents are written by
+ * org.json from parsed JSONObjects. This is not run as part of the test suite.
+ *
+ * Usage: JsonSerializerBenchmark [seconds] [rounds]
+ */
+public class JsonSerializerBenchmark extends BaseSearchTest {
+    private interface Operation {
+        void run(OutputStream os) throws Exception;
+    }
+
+    // Counts bytes written without keeping them
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        tempFolder.create();
+
+        try {
+            setupArchiveStore();
+
+            IIIFPresentationCache cache = new IIIFPresentationCache(store, 100000);
+            PresentationUris uris = new PresentationUris(
+                    new IIIFPresentationRequestFormatter("http", "localhost", "/pres", 80),
+                    new IIIFRequestFormatter("http", "localhost", 80, "/image"),
+                    new StaticResourceRequestFormatter("http", "localhost", "/pres", 80));
+            PresentationTransformer transformer = new PresentationTransformerImpl(cache, uris,
+                    new ArchiveNameParser());
+
+            BookCollection col = cache.getBookCollection(VALID_COLLECTION);
+            Book book = cache.getBook(col, VALID_BOOK_FOLGERSHA2);
+            Manifest manifest = transformer.manifest(col, book);
+            SearchResult result = search_result(100);
+
+            JsonldSerializer jsonld = new JsonldSerializer();
+            JHSearchSerializer search = new JHSearchSerializer();
+
+            Operation write_manifest = os -> jsonld.write(manifest, os);
+            Operation write_search = os -> search.write("http://localhost/pres/search?q=test", "test", result, os);
+
+            JSONObject manifest_json = parse(write_manifest);
+            JSONObject search_json = parse(write_search);
+
+            for (int round = 0; round < rounds; round++) {
+                System.out.println("Round " + (round + 1));
+                run("manifest", write_manifest, seconds);
+                run("manifest org.json", os -> write(manifest_json, os), seconds);
+                run("search", write_search, seconds);
+                run("search org.json", os -> write(search_json, os), seconds);
+            }
+        } finally {
+            tempFolder.delete();
+        }
+    }
+
+    private static SearchResult search_result(int size) {
+        SearchMatch[] matches = new SearchMatch[size];
+
+        for (int i = 0; i < size; i++) {
+            String id = "http://localhost/pres/valid.FolgersHa2/canvas/" + i;
+
+            matches[i] = new SearchMatch(id,
+                    Arrays.asList("marginalia", "A <b>test</b> of the \"marginal\" note on page " + i),
+                    Arrays.asList(JHSearchField.OBJECT_TYPE.getFieldName(), IIIFNames.SC_CANVAS,
+                            JHSearchField.OBJECT_LABEL.getFieldName(), i + "r",
+                            JHSearchField.MANIFEST_ID.getFieldName(),
+                            "http://localhost/pres/valid.FolgersHa2/manifest",
+                            JHSearchField.MANIFEST_LABEL.getFieldName(), "Folgers Ha2"));
+        }
+
+        return new SearchResult(0, 1000, 100, matches, null, "");
+    }
+
+    private static JSONObject parse(Operation op) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        op.run(os);
+
+        return new JSONObject(new String(os.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void write(JSONObject json, OutputStream os) throws Exception {
+        Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+        json.write(writer);
+        writer.flush();
+    }
+
+    private static void run(String name, Operation op, int seconds) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        CountingOutputStream os = new CountingOutputStream();
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1000000000L;
+        long start_alloc = threads.getThreadAllocatedBytes(thread);
+        long ops = 0;
+
+        while (System.nanoTime() < end) {
+            op.run(os);
+            ops++;
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long alloc = threads.getThreadAllocatedBytes(thread) - start_alloc;
+
+        System.out.printf("  %-18s %8d bytes %10.1f ops/s %8.1f MB/s %10d bytes allocated/op%n", name,
+                os.count / ops, ops / elapsed, os.count / elapsed / 1e6, alloc / ops);
+    }
+}
@@ -0,0 +1,117 @@
+package rosa.iiif.presentation.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import rosa.iiif.presentation.model.PresentationRequest;
+import rosa.iiif.presentation.model.PresentationRequestType;
+
+public class PresentationResponseCacheTest {
+    private static PresentationRequest request(String book) {
+        return new PresentationRequest(PresentationRequestType.MANIFEST, "col", book);
+    }
+
+    private static PresentationResponseCache.Writer writer(String content) {
+        return os -> {
+            os.write(content.getBytes(StandardCharsets.UTF_8));
+            return true;
+        };
+    }
+
+    @Test
+    public void testHitsAndMisses() throws IOException {
+        PresentationResponseCache cache = new PresentationResponseCache(1000);
+        Object source = new Object();
+
+        PresentationResponseCache.Response resp = cache.get(request("a"), source, writer("a"));
+
+        assertEquals("a", new String(resp.getContent(), StandardCharsets.UTF_8));
+        assertSame(resp, cache.get(request("a"), source, writer("b")));
+        assertNull(cache.get(request("b"), source, os -> false));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getByteCount());
+    }
+
+    /**
+     * A response is made again once its archive object changes, and has a
+     * different ETag if its content differs.
+     */
+    @Test
+    public void testSourceChanged() throws IOException {
+        PresentationResponseCache cache = new PresentationResponseCache(1000);
+
+        PresentationResponseCache.Response resp = cache.get(request("a"), new Object(), writer("a"));
+        assertTrue(resp.getETag(false).startsWith("\"") && resp.getETag(false).endsWith("\""));
+
+        PresentationResponseCache.Response same = cache.get(request("a"), new Object(), writer("a"));
+        assertEquals(resp.getETag(false), same.getETag(false));
+
+        PresentationResponseCache.Response changed = cache.get(request("a"), new Object(), writer("b"));
+        assertNotEquals(resp.getETag(false), changed.getETag(false));
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws IOException {
+        PresentationResponseCache cache = new PresentationResponseCache(3);
+        Object source = new Object();
+
+        cache.get(request("1"), source, writer("a"));
+        cache.get(request("2"), source, writer("b"));
+        cache.get(request("3"), source, writer("c"));
+
+        // Touch 1 so that 2 is the least recently used
+        cache.get(request("1"), source, writer("x"));
+        cache.get(request("4"), source, writer("d"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.size());
+        assertEquals("a", new String(cache.get(request("1"), source, writer("x")).getContent(),
+                StandardCharsets.UTF_8));
+        assertEquals("x", new String(cache.get(request("2"), source, writer("x")).getContent(),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        PresentationResponseCache cache = new PresentationResponseCache(100000);
+        char[] large = new char[4096];
+        Arrays.fill(large, 'a');
+
+        assertNull(cache.get(request("small"), this, writer("a")).getGzipContent());
+
+        PresentationResponseCache.Response resp = cache.get(request("large"), this, writer(new String(large)));
+        assertNotNull(resp.getGzipContent());
+        assertTrue(resp.getGzipContent().length < resp.getContent().length);
+        assertNotEquals(resp.getETag(false), resp.getETag(true));
+        assertEquals(1 + resp.getContent().length + resp.getGzipContent().length, cache.getByteCount());
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(resp.getGzipContent()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtils.copy(in, out);
+
+            assertArrayEquals(resp.getContent(), out.toByteArray());
+        }
+    }
+}
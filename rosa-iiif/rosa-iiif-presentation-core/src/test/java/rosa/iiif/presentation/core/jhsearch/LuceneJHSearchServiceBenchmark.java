@@ -0,0 +1,102 @@
+package rosa.iiif.presentation.core.jhsearch;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+
+import rosa.iiif.image.core.IIIFRequestFormatter;
+import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
+import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.StaticResourceRequestFormatter;
+import rosa.iiif.presentation.model.IIIFNames;
+import rosa.search.model.Query;
+import rosa.search.model.QueryTerm;
+import rosa.search.model.SearchOptions;
+
+/**
+ * Measure the throughput of faceted browse queries against an existing index,
+ * such as the WEB-INF/lucene index written by WebAppResourceTool for the rose
+ * and aor collections. The time to build the facet state, which used to be paid
+ * by every faceted query, is reported for comparison.
+ * This is not run as part of the test suite.
+ *
+ * Usage: LuceneJHSearchServiceBenchmark index_path [threads] [seconds]
+ */
+public class LuceneJHSearchServiceBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LuceneJHSearchServiceBenchmark index_path [threads] [seconds]");
+            System.exit(1);
+        }
+
+        Path index = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(index))) {
+            int rounds = 20;
+            long start = System.nanoTime();
+
+            for (int i = 0; i < rounds; i++) {
+                new DefaultSortedSetDocValuesReaderState(reader);
+            }
+
+            System.out.println("Documents: " + reader.numDocs());
+            System.out.println("Facet state build: " + ((System.nanoTime() - start) / 1000 / rounds) + " us");
+        }
+
+        PresentationUris uris = new PresentationUris(
+                new IIIFPresentationRequestFormatter("http", "localhost", "/pres", 80),
+                new IIIFRequestFormatter("http", "localhost", 80, "/image"),
+                new StaticResourceRequestFormatter("http", "localhost", "/pres", 80));
+        LuceneJHSearchService service = new LuceneJHSearchService(index, uris);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            // Warm up
+            run(service, 2000L);
+
+            List<Future<Long>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> run(service, seconds * 1000L)));
+            }
+
+            long queries = 0;
+
+            for (Future<Long> result : results) {
+                queries += result.get();
+            }
+
+            System.out.println("Faceted queries (" + threads + " threads): " + (queries / seconds) + " per second");
+        } finally {
+            executor.shutdownNow();
+            service.shutdown();
+        }
+    }
+
+    private static long run(LuceneJHSearchService service, long millis) throws Exception {
+        Query query = new Query(JHSearchField.OBJECT_TYPE, IIIFNames.SC_MANIFEST);
+        SearchOptions opts = new SearchOptions();
+        opts.setCategories(Arrays.asList(new QueryTerm(JHSearchCategory.LOCATION.getFieldName(), "")));
+
+        long end = System.currentTimeMillis() + millis;
+        long count = 0;
+
+        while (System.currentTimeMillis() < end) {
+            service.search(query, opts);
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -4,18 +4,32 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -26,7 +40,9 @@ import org.junit.rules.TemporaryFolder;
 import rosa.archive.core.BaseSearchTest;
 import rosa.archive.core.Store;
 import rosa.archive.core.StoreImpl;
+import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
+import rosa.archive.model.SHA1Checksum;
 import rosa.iiif.image.core.IIIFRequestFormatter;
 import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
 import rosa.iiif.presentation.core.PresentationUris;
@@ -45,6 +61,7 @@ import rosa.search.model.SortOrder;
 
 public class LuceneJHSearchServiceTest extends BaseSearchTest {
     private static LuceneJHSearchService service;
+    private static PresentationUris service_uris;
 
     @ClassRule
     public static TemporaryFolder tmpfolder = new TemporaryFolder();
@@ -61,7 +78,8 @@ public class LuceneJHSearchServiceTest extends BaseSearchTest {
         IIIFRequestFormatter imageFormatter = new IIIFRequestFormatter(scheme, host, port, image_prefix);
         StaticResourceRequestFormatter staticFormatter = new StaticResourceRequestFormatter(scheme, host, pres_prefix, port);
         
-        service = new LuceneJHSearchService(tmpfolder.newFolder().toPath(), new PresentationUris(presFormatter, imageFormatter, staticFormatter));
+        service_uris = new PresentationUris(presFormatter, imageFormatter, staticFormatter);
+        service = new LuceneJHSearchService(tmpfolder.newFolder().toPath(), service_uris);
         service.update(store, VALID_COLLECTION);
         
         assertTrue(service.has_content());
@@ -74,6 +92,180 @@ public class LuceneJHSearchServiceTest extends BaseSearchTest {
         }
     }
 
+    /**
+     * Updating an unchanged collection should not change the index and clearing
+     * the index should cause everything to be indexed again.
+     */
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        Path path = tmpfolder.newFolder().toPath();
+        LuceneJHSearchService incremental = new LuceneJHSearchService(path, service_uris);
+
+        try {
+            Query query = new Query(JHSearchField.SYMBOL, "Sun");
+
+            incremental.update(store, VALID_COLLECTION);
+
+            long version = index_version(path);
+            assertEquals(37, incremental.search(query, null).getTotal());
+
+            incremental.update(store, VALID_COLLECTION);
+
+            assertEquals(version, index_version(path));
+            assertEquals(37, incremental.search(query, null).getTotal());
+
+            incremental.clear();
+            assertTrue(incremental.isEmpty());
+
+            incremental.update(store, VALID_COLLECTION);
+            assertEquals(37, incremental.search(query, null).getTotal());
+        } finally {
+            incremental.shutdown();
+        }
+    }
+
+    /**
+     * A book whose checksums change should be indexed again with its old
+     * documents replaced, without loading unchanged books. A book removed from
+     * the collection should have its documents deleted.
+     */
+    @Test
+    public void testIncrementalUpdateChangedAndRemoved() throws Exception {
+        LuceneJHSearchService incremental = new LuceneJHSearchService(tmpfolder.newFolder().toPath(), service_uris);
+
+        try {
+            Query symbol_query = new Query(JHSearchField.SYMBOL, "Sun");
+            Query manifest_query = new Query(JHSearchField.OBJECT_TYPE, IIIFNames.SC_MANIFEST);
+
+            incremental.update(store, VALID_COLLECTION);
+
+            long manifests = incremental.search(manifest_query, null).getTotal();
+            assertEquals(37, incremental.search(symbol_query, null).getTotal());
+
+            // FolgersHa2 changes and loses all of its annotations
+
+            Store changed = spy(store);
+
+            doAnswer(invocation -> {
+                SHA1Checksum result = new SHA1Checksum();
+                result.checksums().putAll(store.loadBookChecksum((BookCollection) invocation.getArguments()[0],
+                        VALID_BOOK_FOLGERSHA2, null).checksums());
+                result.checksums().put("changed.txt", "0000");
+                return result;
+            }).when(changed).loadBookChecksum(any(BookCollection.class), eq(VALID_BOOK_FOLGERSHA2),
+                    anyListOf(String.class));
+
+            doAnswer(invocation -> {
+                Book result = store.loadBook((BookCollection) invocation.getArguments()[0],
+                        VALID_BOOK_FOLGERSHA2, null);
+                result.setAnnotatedPages(new ArrayList<>());
+                return result;
+            }).when(changed).loadBook(any(BookCollection.class), eq(VALID_BOOK_FOLGERSHA2),
+                    anyListOf(String.class));
+
+            incremental.update(changed, VALID_COLLECTION);
+
+            verify(changed, never()).loadBook(any(BookCollection.class), eq(VALID_BOOK_LUDWIGXV7),
+                    anyListOf(String.class));
+            assertEquals(0, incremental.search(symbol_query, null).getTotal());
+            assertEquals(manifests, incremental.search(manifest_query, null).getTotal());
+
+            // FolgersHa2 is removed from the collection
+
+            Store removed = spy(store);
+
+            doAnswer(invocation -> {
+                BookCollection result = store.loadBookCollection(VALID_COLLECTION, null);
+                result.setBooks(new String[] {VALID_BOOK_LUDWIGXV7});
+                return result;
+            }).when(removed).loadBookCollection(eq(VALID_COLLECTION), anyListOf(String.class));
+
+            incremental.update(removed, VALID_COLLECTION);
+
+            assertEquals(manifests - 1, incremental.search(manifest_query, null).getTotal());
+
+            // Back to the original collection
+
+            incremental.update(store, VALID_COLLECTION);
+
+            assertEquals(manifests, incremental.search(manifest_query, null).getTotal());
+            assertEquals(37, incremental.search(symbol_query, null).getTotal());
+        } finally {
+            incremental.shutdown();
+        }
+    }
+
+    /**
+     * Indexing books in parallel should give the same results.
+     */
+    @Test
+    public void testParallelUpdate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        LuceneJHSearchService parallel = new LuceneJHSearchService(tmpfolder.newFolder().toPath(), service_uris,
+                executor);
+
+        try {
+            parallel.update(store, VALID_COLLECTION);
+
+            for (Query query : new Query[] {new Query(JHSearchField.SYMBOL, "Sun"),
+                    new Query(JHSearchField.OBJECT_TYPE, IIIFNames.SC_MANIFEST),
+                    new Query(JHSearchField.MARGINALIA, "supra")}) {
+                assertEquals(service.search(query, null).getTotal(), parallel.search(query, null).getTotal());
+            }
+        } finally {
+            parallel.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * When a book fails, books still being indexed should finish before the
+     * update is rolled back, and the index should be left as it was.
+     */
+    @Test
+    public void testFailedParallelUpdate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        LuceneJHSearchService parallel = new LuceneJHSearchService(tmpfolder.newFolder().toPath(), service_uris,
+                executor);
+
+        try {
+            String[] books = store.loadBookCollection(VALID_COLLECTION, null).books();
+            Store failing = spy(store);
+            AtomicBoolean slow_done = new AtomicBoolean();
+
+            doThrow(new IOException("Failed")).when(failing).loadBookChecksum(any(BookCollection.class),
+                    eq(books[0]), anyListOf(String.class));
+
+            doAnswer(invocation -> {
+                Thread.sleep(500);
+                Book result = store.loadBook((BookCollection) invocation.getArguments()[0], books[1], null);
+                slow_done.set(true);
+                return result;
+            }).when(failing).loadBook(any(BookCollection.class), eq(books[1]), anyListOf(String.class));
+
+            try {
+                parallel.update(failing, VALID_COLLECTION);
+                fail("Update should fail");
+            } catch (IOException e) {
+                assertTrue(slow_done.get());
+            }
+
+            assertTrue(parallel.isEmpty());
+
+            parallel.update(store, VALID_COLLECTION);
+            assertEquals(37, parallel.search(new Query(JHSearchField.SYMBOL, "Sun"), null).getTotal());
+        } finally {
+            parallel.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    private static long index_version(Path path) throws Exception {
+        try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(path))) {
+            return reader.getVersion();
+        }
+    }
+
     @Test
     public void testRequiredResultsFields() throws Exception {
         Query query = new Query(JHSearchField.TEXT, "Moo");
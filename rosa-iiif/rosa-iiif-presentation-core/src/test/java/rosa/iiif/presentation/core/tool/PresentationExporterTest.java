@@ -0,0 +1,154 @@
+package rosa.iiif.presentation.core.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import rosa.archive.core.ArchiveNameParser;
+import rosa.archive.core.BaseSearchTest;
+import rosa.iiif.presentation.core.ArchiveIIIFPresentationService;
+import rosa.iiif.presentation.core.IIIFPresentationCache;
+import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
+import rosa.iiif.presentation.core.IIIFPresentationRequestParser;
+import rosa.iiif.presentation.core.PresentationUris;
+import rosa.iiif.presentation.core.StaticResourceRequestFormatter;
+import rosa.iiif.presentation.core.transform.impl.JsonldSerializer;
+import rosa.iiif.presentation.core.transform.impl.PresentationTransformerImpl;
+import rosa.iiif.presentation.model.PresentationRequest;
+import rosa.iiif.presentation.model.PresentationRequestType;
+
+/**
+ * Export the test collection and check the files against live responses.
+ */
+public class PresentationExporterTest extends BaseSearchTest {
+    private static ArchiveIIIFPresentationService service;
+    private static IIIFPresentationRequestFormatter formatter;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        formatter = new IIIFPresentationRequestFormatter("http", "serenity.dkc.jhu.edu", "/pres", 80);
+
+        rosa.iiif.image.core.IIIFRequestFormatter imageFormatter = new rosa.iiif.image.core.IIIFRequestFormatter(
+                "http", "serenity.dkc.jhu.edu", 80, "/image");
+        StaticResourceRequestFormatter staticFormatter = new StaticResourceRequestFormatter("http",
+                "serenity.dkc.jhu.edu", "/pres", 80);
+
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, 10000);
+        PresentationUris pres_uris = new PresentationUris(formatter, imageFormatter, staticFormatter);
+
+        service = new ArchiveIIIFPresentationService(cache, new JsonldSerializer(),
+                new PresentationTransformerImpl(cache, pres_uris, new ArchiveNameParser()));
+    }
+
+    private static List<Path> list_files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        Path dir = tempFolder.newFolder().toPath();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        int count;
+
+        try {
+            count = new PresentationExporter(service, formatter, executor)
+                    .export(Collections.singletonList(VALID_COLLECTION), dir);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(Files.isRegularFile(dir.resolve("valid/collection.json")));
+        assertTrue(Files.isRegularFile(dir.resolve("valid/FolgersHa2/manifest.json")));
+        assertTrue(Files.isRegularFile(dir.resolve("valid/FolgersHa2/manifest.json.gz")));
+        assertTrue(Files.isRegularFile(dir.resolve("valid/LudwigXV7/manifest.json")));
+
+        IIIFPresentationRequestParser parser = new IIIFPresentationRequestParser();
+        List<Path> files = list_files(dir);
+        int responses = 0;
+        int canvases = 0;
+        int ranges = 0;
+        int lists = 0;
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+
+            assertFalse(name, name.endsWith(".tmp"));
+
+            if (name.endsWith(".gz")) {
+                continue;
+            }
+
+            // Files must be at the path of their URI with an extension
+
+            assertTrue(name, name.endsWith(".json"));
+
+            StringBuilder path = new StringBuilder();
+
+            for (Path segment : dir.relativize(file)) {
+                path.append('/').append(rosa.iiif.image.core.UriUtil.encodePathSegment(segment.toString()));
+            }
+
+            path.setLength(path.length() - ".json".length());
+
+            PresentationRequest req = parser.parsePresentationRequest(path.toString());
+            assertNotNull(path.toString(), req);
+            assertEquals(file, PresentationExporter.get_file(req, dir));
+
+            if (req.getType() == PresentationRequestType.CANVAS) {
+                canvases++;
+            } else if (req.getType() == PresentationRequestType.RANGE) {
+                ranges++;
+            } else if (req.getType() == PresentationRequestType.ANNOTATION_LIST) {
+                lists++;
+            }
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            assertTrue(service.handle_request(req, expected));
+
+            byte[] content = Files.readAllBytes(file);
+            assertArrayEquals(path.toString(), expected.toByteArray(), content);
+
+            Path gzip_file = PresentationExporter.get_gzip_file(file);
+
+            if (Files.exists(gzip_file)) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip_file))) {
+                    assertArrayEquals(path.toString(), content, IOUtils.toByteArray(in));
+                }
+            }
+
+            responses++;
+        }
+
+        assertEquals(count, responses);
+        assertTrue(canvases > 0);
+        assertTrue(ranges > 0);
+        assertTrue(lists > 0);
+
+        // Export again over the same files
+
+        assertEquals(count, new PresentationExporter(service, formatter, null)
+                .export(Collections.singletonList(VALID_COLLECTION), dir));
+        assertEquals(files.size(), list_files(dir).size());
+    }
+}
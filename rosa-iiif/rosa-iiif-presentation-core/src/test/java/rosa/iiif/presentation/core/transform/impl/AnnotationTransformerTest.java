@@ -6,7 +6,13 @@ import static org.junit.Assert.assertNotNull;
 
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -18,6 +24,7 @@ import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
 import rosa.archive.model.BookImage;
 import rosa.archive.model.aor.AnnotatedPage;
+import rosa.archive.model.aor.Marginalia;
 import rosa.archive.model.aor.Symbol;
 import rosa.iiif.image.core.IIIFRequestFormatter;
 import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
@@ -183,4 +190,67 @@ public class AnnotationTransformerTest extends BaseArchiveTest {
         System.err.println(text);
         assertFalse(text.contains("mirabili"));
     }
+
+    /**
+     * Annotations of different collections transformed by many threads at once
+     * must be the same as when transformed one at a time.
+     */
+    @Test
+    public void concurrentTransformTest() throws Exception {
+        BookCollection validCol = loadValidCollection();
+        Book folgers = loadValidFolgersHa2();
+
+        List<Runnable> checks = new ArrayList<>();
+
+        for (AnnotatedPage page : folgers.getAnnotatedPages()) {
+            BookImage image = folgers.getImages().getImage(page.getPage());
+
+            for (rosa.archive.model.aor.Annotation anno : page.getAnnotations()) {
+                checks.add(check(validCol, folgers, image, anno));
+            }
+        }
+
+        for (Marginalia marg : loadedPage.getMarginalia()) {
+            checks.add(check(col, book, img, marg));
+        }
+
+        assertFalse(checks.isEmpty());
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                List<Runnable> order = new ArrayList<>(checks);
+                Collections.shuffle(order, new Random(i));
+
+                results.add(executor.submit(() -> {
+                    for (int pass = 0; pass < 5; pass++) {
+                        order.forEach(Runnable::run);
+                    }
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Transform the annotation now and return a check that it transforms the same way again
+    private Runnable check(BookCollection col, Book book, BookImage image, rosa.archive.model.aor.Annotation anno) {
+        Annotation expected = transformer.transform(col, book, image, anno);
+        assertNotNull(expected);
+
+        return () -> {
+            Annotation actual = transformer.transform(col, book, image, anno);
+
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getDefaultSource().getEmbeddedText(), actual.getDefaultSource().getEmbeddedText());
+        };
+    }
 }
@@ -0,0 +1,129 @@
+package rosa.iiif.presentation.core.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.json.JSONException;
+import org.json.JSONWriter;
+import org.junit.Test;
+
+public class JsonStreamWriterTest {
+    private static final String[] TRICKY_STRINGS = {"", "plain", "quote \" backslash \\", "</script> a/b",
+            "\b\t\n\f\r\u0000\u001f\u007f", "\u0080\u009f \u00e9", "\u2028\u2029\u20ac\u2100",
+            "\u4e2d\u6587", "\ud83d\ude00 emoji", "lone \ud83d surrogate", "lone \ude00 low", "end \ud83d"};
+
+    private static String expected(String... values) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+        JSONWriter json = new JSONWriter(writer);
+
+        json.object();
+        json.key("values").array();
+        for (String value : values) {
+            json.value(value);
+        }
+        json.endArray();
+        json.key("number").value(-1234567890123L);
+        json.key("flag").value(true);
+        json.key("none").value(null);
+        json.endObject();
+        writer.flush();
+
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String actual(String... values) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        try (JsonStreamWriter json = new JsonStreamWriter(os)) {
+            json.object();
+            json.key(JsonStreamWriter.name("values")).array();
+            for (String value : values) {
+                json.value(value);
+            }
+            json.endArray();
+            json.key("number").value(-1234567890123L);
+            json.key("flag").value(true);
+            json.key("none").value((String) null);
+            json.endObject();
+        }
+
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output must be the same as that of org.json so responses do not change.
+     */
+    @Test
+    public void matchesJSONWriter() throws IOException {
+        assertEquals(expected(TRICKY_STRINGS), actual(TRICKY_STRINGS));
+
+        for (String s : TRICKY_STRINGS) {
+            assertEquals(expected(s), actual(s));
+        }
+    }
+
+    @Test
+    public void matchesJSONWriterRandom() throws IOException {
+        Random rand = new Random(42);
+
+        for (int i = 0; i < 200; i++) {
+            char[] chars = new char[rand.nextInt(20000)];
+
+            for (int j = 0; j < chars.length; j++) {
+                // Mostly ASCII with some of everything else
+                chars[j] = (char) (rand.nextInt(4) == 0 ? rand.nextInt(0x10000) : rand.nextInt(0x80));
+            }
+
+            String s = new String(chars);
+            assertEquals(expected(s, s), actual(s, s));
+        }
+    }
+
+    @Test
+    public void nested() {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        try (JsonStreamWriter json = new JsonStreamWriter(os)) {
+            json.array();
+            for (int i = 0; i < 40; i++) {
+                json.object().key("a").array();
+            }
+            for (int i = 0; i < 40; i++) {
+                json.endArray().endObject();
+            }
+            json.value(JsonStreamWriter.name("x")).endArray();
+        }
+
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 40; i++) {
+            expected.append("{\"a\":[");
+        }
+        for (int i = 0; i < 40; i++) {
+            expected.append("]}");
+        }
+        expected.append(",\"x\"]");
+
+        assertEquals(expected.toString(), os.toString());
+    }
+
+    @Test(expected = JSONException.class)
+    public void valueWithoutKey() {
+        try (JsonStreamWriter json = new JsonStreamWriter(new ByteArrayOutputStream())) {
+            json.object().value("a");
+        }
+    }
+
+    @Test(expected = JSONException.class)
+    public void mismatchedEnd() {
+        try (JsonStreamWriter json = new JsonStreamWriter(new ByteArrayOutputStream())) {
+            json.object().endArray();
+        }
+    }
+}
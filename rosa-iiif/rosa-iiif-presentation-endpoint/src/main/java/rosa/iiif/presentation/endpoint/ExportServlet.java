@@ -0,0 +1,133 @@
+package rosa.iiif.presentation.endpoint;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import rosa.iiif.presentation.core.IIIFPresentationRequestParser;
+import rosa.iiif.presentation.core.tool.PresentationExporter;
+import rosa.iiif.presentation.model.PresentationRequest;
+
+/**
+ * Serve IIIF Presentation responses written by the PresentationExporter
+ * without transforming anything. A request is answered with the file its
+ * response was exported to, sent with the same headers as the presentation
+ * servlet would send. The gzip encoded file is sent as is to clients which
+ * accept it.
+ *
+ * For the references in exported responses to stay within the export, export
+ * with a presentation prefix ending in the path of this servlet.
+ */
+@Singleton
+public class ExportServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final Path export_path;
+    private final IIIFPresentationRequestParser parser;
+    private final int max_age;
+
+    @Inject
+    public ExportServlet(@Named("iiif.pres.max_cache_age") int max_age) {
+        this(Util.getExportPath(), max_age);
+    }
+
+    /**
+     * @param export_path
+     *            directory responses were exported to
+     * @param max_age
+     *            seconds responses may be cached, 0 to leave it to clients
+     */
+    public ExportServlet(Path export_path, int max_age) {
+        this.export_path = export_path;
+        this.parser = new IIIFPresentationRequestParser();
+        this.max_age = max_age;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        do_request(req, resp, false);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        do_request(req, resp, true);
+    }
+
+    private void do_request(HttpServletRequest req, HttpServletResponse resp, boolean head) throws IOException {
+        Path file = get_file(req);
+
+        if (file == null || !Files.isRegularFile(file)) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path gzip_file = PresentationExporter.get_gzip_file(file);
+        boolean gzip = Util.acceptsGzip(req) && Files.isRegularFile(gzip_file);
+        Path sent = gzip ? gzip_file : file;
+
+        // Exports replace files rather than rewrite them, so a file changes with its time
+        BasicFileAttributes attrs = Files.readAttributes(sent, BasicFileAttributes.class);
+        String etag = "\"" + Long.toHexString(attrs.lastModifiedTime().toMillis()) + "-"
+                + Long.toHexString(attrs.size()) + (gzip ? "-gzip" : "") + "\"";
+
+        resp.setHeader("Access-Control-Allow-Origin", "*");
+        resp.setCharacterEncoding("utf-8");
+
+        if (max_age > 0) {
+            resp.setHeader("Cache-Control", "max-age=" + max_age);
+        }
+
+        Util.setJsonContentType(req, resp);
+        resp.setHeader("Vary", "Accept, Accept-Encoding");
+        resp.setHeader("ETag", etag);
+
+        if (Util.notModified(req, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+        }
+
+        resp.setContentLength((int) attrs.size());
+
+        if (!head) {
+            Files.copy(sent, resp.getOutputStream());
+        }
+
+        resp.flushBuffer();
+    }
+
+    // File of the request, or null if there is none
+    private Path get_file(HttpServletRequest req) {
+        String uri = req.getRequestURI();
+        String prefix = req.getContextPath() + req.getServletPath();
+
+        if (!uri.startsWith(prefix)) {
+            return null;
+        }
+
+        PresentationRequest presreq = parser.parsePresentationRequest(uri.substring(prefix.length()));
+
+        if (presreq == null) {
+            return null;
+        }
+
+        try {
+            return PresentationExporter.get_file(presreq, export_path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.google.inject.name.Named;
 import rosa.archive.core.Store;
 import rosa.iiif.presentation.core.IIIFPresentationRequestParser;
 import rosa.iiif.presentation.core.IIIFPresentationService;
+import rosa.iiif.presentation.core.PresentationResponseCache;
 import rosa.iiif.presentation.core.jhsearch.JHSearchService;
 import rosa.iiif.presentation.model.PresentationRequest;
 
@@ -29,8 +30,6 @@ import rosa.iiif.presentation.model.PresentationRequest;
 public class IIIFPresentationServlet extends HttpServlet {
     private static final Logger logger = Logger.getLogger("");
     private static final long serialVersionUID = 1L;
-    private static final String JSON_MIME_TYPE = "application/json";
-    private static final String JSON_LD_MIME_TYPE = "application/ld+json";
 
     private final IIIFPresentationService service;
     private final IIIFPresentationRequestParser parser;
@@ -38,6 +37,12 @@ public class IIIFPresentationServlet extends HttpServlet {
     private final Store store;
     private final int max_age;
 
+    // Updates the search index after startup
+    private Thread index_thread;
+
+    // Whether searches must wait for the index to be built
+    private volatile boolean indexing;
+
     /**
      * Create a servlet for the IIIF presentation layer.
      * 
@@ -56,23 +61,47 @@ public class IIIFPresentationServlet extends HttpServlet {
 
     @Override
     public void init() throws ServletException {
+        // Update the index in the background so requests can be served meanwhile.
+        // Only changed books are indexed again, so an existing index keeps
+        // answering searches while it is updated.
+
         try {
-            if (searchService.has_content()) {
-                logger.info("Using existing IIIF Presentation Search Service index.");
-            } else {
+            indexing = !searchService.has_content();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to check index for IIIF Presentation Search Service.", e);
+            indexing = true;
+        }
+
+        index_thread = new Thread(() -> {
+            try {
                 logger.info("Updating IIIF Presentation Search Service index.");
 
                 searchService.update(store);
 
                 logger.info("Done updating IIIF Presentation Search Service index.");
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to update index for IIIF Presentation Search Service.", e);
+            } finally {
+                indexing = false;
             }
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Failed to update index for IIIF Presentation Search Service.", e);
-        }
+        }, "search-index-update");
+
+        index_thread.setDaemon(true);
+        index_thread.start();
     }
 
     @Override
     public void destroy() {
+        if (index_thread != null) {
+            index_thread.interrupt();
+
+            try {
+                index_thread.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         try {
             searchService.shutdown();
         } catch (IOException e) {
@@ -94,16 +123,6 @@ public class IIIFPresentationServlet extends HttpServlet {
         return sb.substring(i + context.length());
     }
 
-    private boolean want_json_ld_mime_type(HttpServletRequest req) {
-        String accept = req.getHeader("Accept");
-
-        if (accept != null && accept.contains(JSON_LD_MIME_TYPE)) {
-            return true;
-        }
-
-        return false;
-    }
-
     private int get_int_param(HttpServletRequest req, String param, int default_val) {
         int result = default_val;
 
@@ -127,6 +146,34 @@ public class IIIFPresentationServlet extends HttpServlet {
         resp.getOutputStream().write(message.getBytes(resp.getCharacterEncoding()));
     }
 
+    /**
+     * Send a serialized response, gzip encoded if the client accepts that, or a
+     * 304 if the client already has it. Only the ETag is used to tell, as the
+     * time a response was made says nothing about when its content changed.
+     */
+    private void send_response(HttpServletRequest req, HttpServletResponse resp,
+            PresentationResponseCache.Response presresp) throws IOException {
+        boolean gzip = presresp.getGzipContent() != null && Util.acceptsGzip(req);
+        String etag = presresp.getETag(gzip);
+
+        resp.setHeader("Vary", "Accept, Accept-Encoding");
+        resp.setHeader("ETag", etag);
+
+        if (Util.notModified(req, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] content = gzip ? presresp.getGzipContent() : presresp.getContent();
+
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+        }
+
+        resp.setContentLength(content.length);
+        resp.getOutputStream().write(content);
+    }
+
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setHeader("Access-Control-Allow-Origin", "*");
         resp.setCharacterEncoding("utf-8");
@@ -135,13 +182,7 @@ public class IIIFPresentationServlet extends HttpServlet {
             resp.setHeader("Cache-Control", "max-age=" + max_age);
         }
         
-        if (want_json_ld_mime_type(req)) {
-            resp.setContentType(JSON_LD_MIME_TYPE);
-        } else {
-            resp.setContentType(JSON_MIME_TYPE);
-            resp.addHeader("Link",
-                    "<http://iiif.io/api/presentation/2/context.json>;rel=\"http://www.w3.org/ns/json-ld#context\";type=\"application/ld+json\"");
-        }
+        Util.setJsonContentType(req, resp);
 
         OutputStream os = resp.getOutputStream();
         String raw_path = get_raw_path(req);
@@ -184,6 +225,9 @@ public class IIIFPresentationServlet extends HttpServlet {
 
             if (presreq == null) {
                 send_error(resp, HttpURLConnection.HTTP_NOT_FOUND, "No such object: " + req.getRequestURL());
+            } else if (indexing) {
+                resp.setHeader("Retry-After", "60");
+                send_error(resp, HttpURLConnection.HTTP_UNAVAILABLE, "Search index is being built");
             } else {
                 try {
                     searchService.handle_request(presreq, query, offset, max, sort_order, categories, os);
@@ -198,8 +242,14 @@ public class IIIFPresentationServlet extends HttpServlet {
             
             if (presreq == null) {
                 send_error(resp, HttpURLConnection.HTTP_BAD_REQUEST, "Malformed request: " + req.getRequestURL());
-            } else if (!service.handle_request(presreq, os)) {
-                send_error(resp, HttpURLConnection.HTTP_NOT_FOUND, "No such object: " + req.getRequestURL());
+            } else {
+                PresentationResponseCache.Response presresp = service.handle_cached_request(presreq);
+
+                if (presresp == null) {
+                    send_error(resp, HttpURLConnection.HTTP_NOT_FOUND, "No such object: " + req.getRequestURL());
+                } else {
+                    send_response(req, resp, presresp);
+                }
             }
         }
 
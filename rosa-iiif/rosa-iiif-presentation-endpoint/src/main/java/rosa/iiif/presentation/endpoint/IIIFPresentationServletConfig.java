@@ -1,14 +1,40 @@
 package rosa.iiif.presentation.endpoint;
 
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.ServletContextEvent;
+
 import rosa.archive.core.ArchiveCoreModule;
+import rosa.archive.core.FSDirectoryCache;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.servlet.GuiceServletContextListener;
 
 public class IIIFPresentationServletConfig extends GuiceServletContextListener {
+    private static final Logger LOG = Logger.getLogger(IIIFPresentationServletConfig.class.toString());
+
+    private Injector injector;
+
     @Override
     protected Injector getInjector() {
-        return Guice.createInjector(new ArchiveCoreModule(), new IIIFPresentationServletModule());
+        injector = Guice.createInjector(new ArchiveCoreModule(), new IIIFPresentationServletModule());
+        return injector;
+    }
+
+    // Stop watching the archive so that a redeployed servlet does not leave the watch thread behind
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (injector != null) {
+            try {
+                injector.getInstance(FSDirectoryCache.class).close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to close directory cache", e);
+            }
+        }
+
+        super.contextDestroyed(event);
     }
 }
@@ -4,16 +4,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.google.inject.servlet.ServletModule;
 
 import rosa.archive.core.ArchiveNameParser;
 import rosa.archive.core.ByteStreamGroup;
-import rosa.archive.core.FSByteStreamGroup;
+import rosa.archive.core.CachingFSByteStreamGroup;
+import rosa.archive.core.FSDirectoryCache;
+import rosa.archive.core.SnapshotStore;
 import rosa.archive.core.Store;
 import rosa.archive.core.StoreImpl;
 import rosa.archive.core.check.BookChecker;
@@ -25,6 +30,7 @@ import rosa.iiif.presentation.core.IIIFPresentationCache;
 import rosa.iiif.presentation.core.IIIFPresentationRequestFormatter;
 import rosa.iiif.presentation.core.IIIFPresentationRequestParser;
 import rosa.iiif.presentation.core.IIIFPresentationService;
+import rosa.iiif.presentation.core.PresentationResponseCache;
 import rosa.iiif.presentation.core.PresentationUris;
 import rosa.iiif.presentation.core.StaticResourceRequestFormatter;
 import rosa.iiif.presentation.core.jhsearch.JHSearchService;
@@ -33,6 +39,10 @@ import rosa.iiif.presentation.core.transform.PresentationSerializer;
 import rosa.iiif.presentation.core.transform.PresentationTransformer;
 import rosa.iiif.presentation.core.transform.impl.JsonldSerializer;
 import rosa.iiif.presentation.core.transform.impl.PresentationTransformerImpl;
+import rosa.iiif.presentation.model.AnnotationList;
+import rosa.iiif.presentation.model.Canvas;
+import rosa.iiif.presentation.model.Manifest;
+import rosa.iiif.presentation.model.Range;
 
 /**
  * The servlet is configured by iiif-servlet.properties.
@@ -41,6 +51,15 @@ import rosa.iiif.presentation.core.transform.impl.PresentationTransformerImpl;
 public class IIIFPresentationServletModule extends ServletModule {
     private static final Logger LOG = Logger.getLogger(IIIFPresentationServletModule.class.toString());
 
+    // Objects weigh one plus the number of pages or annotations they hold
+    private static final long MAX_CACHE_WEIGHT = 100000;
+    private static final long MAX_MANIFEST_CACHE_WEIGHT = 50000;
+    private static final long MAX_CANVAS_CACHE_WEIGHT = 20000;
+    private static final long MAX_RANGE_CACHE_WEIGHT = 10000;
+    private static final long MAX_ANNOTATION_LIST_CACHE_WEIGHT = 100000;
+    private static final long MAX_RESPONSE_CACHE_BYTES = 256L * 1024 * 1024;
+    private static final long MAX_DIRECTORY_SNAPSHOT_AGE = 60 * 1000;
+
     @Override
     protected void configureServlets() {
         bind(ArchiveNameParser.class);
@@ -51,6 +70,7 @@ public class IIIFPresentationServletModule extends ServletModule {
         Names.bindProperties(binder(), loadProperties(Util.SERVLET_CONFIG_PATH));
          
         serve("/data/*").with(DataServlet.class);
+        serve("/export/*").with(ExportServlet.class);
         serve("/*").with(IIIFPresentationServlet.class);
     }
 
@@ -66,25 +86,72 @@ public class IIIFPresentationServletModule extends ServletModule {
         return props;
     }
 
+    // Closed by IIIFPresentationServletConfig
+    @Provides
+    @Singleton
+    FSDirectoryCache provideFSDirectoryCache() {
+        return new FSDirectoryCache(MAX_DIRECTORY_SNAPSHOT_AGE, true);
+    }
+
     @Provides
+    @Singleton
     Store provideStore(SerializerSet serializers,
-            BookChecker bookChecker, BookCollectionChecker collectionChecker) {
+            BookChecker bookChecker, BookCollectionChecker collectionChecker, FSDirectoryCache directory_cache) {
         Path archive_path = Util.getArchivePath();
         LOG.info("Loading archive :: " + archive_path);
         
-        ByteStreamGroup base = new FSByteStreamGroup(archive_path);
-        return new StoreImpl(serializers, bookChecker, collectionChecker, base, false);
+        // Answer listings and stats from directory snapshots
+        ByteStreamGroup base = new CachingFSByteStreamGroup(archive_path, directory_cache);
+        
+        // Load the items of a book in parallel on daemon threads
+        ExecutorService load_executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "archive-load");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        StoreImpl store = new StoreImpl(serializers, bookChecker, collectionChecker, base, false, load_executor);
+        
+        // Requests usually need a single page of annotations
+        store.setLazyAnnotatedPages(true);
+        
+        // Keep parsed books across restarts, writing them in the background
+        Path snapshot_path = Util.getSnapshotPath();
+        LOG.info("Using snapshot path :: " + snapshot_path);
+        
+        ExecutorService snapshot_executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "archive-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        return new SnapshotStore(store, base, snapshot_path, snapshot_executor);
     }
 
     @Provides
+    @Singleton
     IIIFPresentationCache provideIIIFPresentationCache(Store store) {
-            return new IIIFPresentationCache(store, 5000);
+        IIIFPresentationCache cache = new IIIFPresentationCache(store, MAX_CACHE_WEIGHT);
+
+        // Many small objects of one type must not evict the others
+        cache.setMaxWeight(Manifest.class, MAX_MANIFEST_CACHE_WEIGHT);
+        cache.setMaxWeight(Canvas.class, MAX_CANVAS_CACHE_WEIGHT);
+        cache.setMaxWeight(Range.class, MAX_RANGE_CACHE_WEIGHT);
+        cache.setMaxWeight(AnnotationList.class, MAX_ANNOTATION_LIST_CACHE_WEIGHT);
+
+        return cache;
+    }
+
+    @Provides
+    @Singleton
+    PresentationResponseCache providePresentationResponseCache() {
+        return new PresentationResponseCache(MAX_RESPONSE_CACHE_BYTES);
     }
 
     @Provides
     IIIFPresentationService providesIIIFPresentationService(IIIFPresentationCache cache, PresentationSerializer jsonld_serializer,
-                                    PresentationTransformer transformer) {
-        return new ArchiveIIIFPresentationService(cache, jsonld_serializer, transformer);
+                                    PresentationTransformer transformer, PresentationResponseCache response_cache) {
+        return new ArchiveIIIFPresentationService(cache, jsonld_serializer, transformer, response_cache);
     }
 
     @Provides
@@ -123,7 +190,14 @@ public class IIIFPresentationServletModule extends ServletModule {
             Path index_path = Util.getLucenePath();
             LOG.info("Using lucene index path :: " + index_path);
             
-            return new LuceneJHSearchService(index_path, pres_uris);
+            // Load and index books in parallel on daemon threads
+            ExecutorService index_executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "search-index");
+                t.setDaemon(true);
+                return t;
+            });
+            
+            return new LuceneJHSearchService(index_path, pres_uris, index_executor);
         } catch (IOException e) {
             throw new RuntimeException("Failed to create LuceneIIIFSearchService", e);
         }
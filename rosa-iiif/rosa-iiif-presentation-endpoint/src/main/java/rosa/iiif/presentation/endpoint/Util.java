@@ -4,10 +4,17 @@ import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 public class Util {
     public static final String SERVLET_CONFIG_PATH = "/iiif-servlet.properties";
     private static final String LUCENE_DIRECTORY = "lucene";
     private static final String ARCHIVE_DIRECTORY = "archive";
+    private static final String SNAPSHOT_DIRECTORY = "snapshot";
+    private static final String EXPORT_DIRECTORY = "export";
+    private static final String JSON_MIME_TYPE = "application/json";
+    private static final String JSON_LD_MIME_TYPE = "application/ld+json";
     
     // Derive the web app path from location of iiif-servlet.properties    
     private static Path get_webapp_path() {
@@ -25,4 +32,76 @@ public class Util {
     public static Path getLucenePath() {
         return get_webapp_path().resolve(LUCENE_DIRECTORY);
     }
+    
+    public static Path getSnapshotPath() {
+        return get_webapp_path().resolve(SNAPSHOT_DIRECTORY);
+    }
+    
+    public static Path getExportPath() {
+        return get_webapp_path().resolve(EXPORT_DIRECTORY);
+    }
+    
+    /**
+     * Send JSON-LD as such if the client asks for it, otherwise as JSON with
+     * a link to the context.
+     * 
+     * @param req request
+     * @param resp response
+     */
+    public static void setJsonContentType(HttpServletRequest req, HttpServletResponse resp) {
+        String accept = req.getHeader("Accept");
+
+        if (accept != null && accept.contains(JSON_LD_MIME_TYPE)) {
+            resp.setContentType(JSON_LD_MIME_TYPE);
+        } else {
+            resp.setContentType(JSON_MIME_TYPE);
+            resp.addHeader("Link",
+                    "<http://iiif.io/api/presentation/2/context.json>;rel=\"http://www.w3.org/ns/json-ld#context\";type=\"application/ld+json\"");
+        }
+    }
+    
+    /**
+     * @param req request
+     * @param etag strong ETag of the response
+     * @return whether the client already has the response
+     */
+    public static boolean notModified(HttpServletRequest req, String etag) {
+        String if_none_match = req.getHeader("If-None-Match");
+
+        if (if_none_match == null) {
+            return false;
+        }
+
+        for (String tag : if_none_match.split(",")) {
+            tag = tag.trim();
+
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+    
+    /**
+     * @param req request
+     * @return whether the client accepts a gzip encoded response
+     */
+    public static boolean acceptsGzip(HttpServletRequest req) {
+        String accept = req.getHeader("Accept-Encoding");
+
+        if (accept == null) {
+            return false;
+        }
+
+        for (String coding : accept.split(",")) {
+            String[] parts = coding.trim().split(";");
+
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
+    }
 }
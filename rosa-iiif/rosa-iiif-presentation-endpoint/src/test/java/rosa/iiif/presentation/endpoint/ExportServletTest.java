@@ -0,0 +1,196 @@
+package rosa.iiif.presentation.endpoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import rosa.iiif.presentation.core.tool.PresentationExporter;
+import rosa.iiif.presentation.model.PresentationRequest;
+import rosa.iiif.presentation.model.PresentationRequestType;
+
+/**
+ * Check the headers and content a client receives for exported responses.
+ */
+public class ExportServletTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ExportServlet servlet;
+    private byte[] content;
+    private byte[] gzip_content;
+
+    // Headers, body, and status received by the client
+    private Map<String, String> headers;
+    private ByteArrayOutputStream body;
+    private int status;
+
+    @Before
+    public void setup() throws IOException {
+        Path dir = tempFolder.newFolder().toPath();
+        Path file = PresentationExporter.get_file(
+                new PresentationRequest(PresentationRequestType.MANIFEST, "valid", "FolgersHa2"), dir);
+
+        content = "{\"@id\": \"http://example.org/pres/export/valid/FolgersHa2/manifest\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+
+        gzip_content = out.toByteArray();
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        Files.write(PresentationExporter.get_gzip_file(file), gzip_content);
+
+        servlet = new ExportServlet(dir, 10);
+    }
+
+    private HttpServletRequest request(String path) {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+
+        when(req.getRequestURI()).thenReturn("/pres/export" + path);
+        when(req.getContextPath()).thenReturn("/pres");
+        when(req.getServletPath()).thenReturn("/export");
+
+        return req;
+    }
+
+    private HttpServletResponse response() throws IOException {
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        headers = new HashMap<>();
+        body = new ByteArrayOutputStream();
+        status = HttpServletResponse.SC_OK;
+
+        doAnswer(invocation -> headers.put((String) invocation.getArguments()[0],
+                (String) invocation.getArguments()[1])).when(resp).setHeader(anyString(), anyString());
+        doAnswer(invocation -> headers.put((String) invocation.getArguments()[0],
+                (String) invocation.getArguments()[1])).when(resp).addHeader(anyString(), anyString());
+        doAnswer(invocation -> headers.put("Content-Type", (String) invocation.getArguments()[0]))
+                .when(resp).setContentType(anyString());
+        doAnswer(invocation -> headers.put("Content-Length", String.valueOf(invocation.getArguments()[0])))
+                .when(resp).setContentLength(anyInt());
+        doAnswer(invocation -> status = (Integer) invocation.getArguments()[0]).when(resp).setStatus(anyInt());
+        doAnswer(invocation -> status = (Integer) invocation.getArguments()[0]).when(resp).sendError(anyInt());
+
+        when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+
+        return resp;
+    }
+
+    @Test
+    public void testGzipJsonLd() throws Exception {
+        HttpServletRequest req = request("/valid/FolgersHa2/manifest");
+
+        when(req.getHeader("Accept")).thenReturn("application/ld+json");
+        when(req.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+        servlet.doGet(req, response());
+
+        assertEquals(HttpServletResponse.SC_OK, status);
+        assertEquals("application/ld+json", headers.get("Content-Type"));
+        assertEquals("gzip", headers.get("Content-Encoding"));
+        assertEquals("Accept, Accept-Encoding", headers.get("Vary"));
+        assertEquals("*", headers.get("Access-Control-Allow-Origin"));
+        assertEquals("max-age=10", headers.get("Cache-Control"));
+        assertEquals(String.valueOf(gzip_content.length), headers.get("Content-Length"));
+        assertNotNull(headers.get("ETag"));
+        assertArrayEquals(gzip_content, body.toByteArray());
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertArrayEquals(content, IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void testIdentityJson() throws Exception {
+        servlet.doGet(request("/valid/FolgersHa2/manifest"), response());
+
+        assertEquals(HttpServletResponse.SC_OK, status);
+        assertEquals("application/json", headers.get("Content-Type"));
+        assertTrue(headers.get("Link").contains("http://iiif.io/api/presentation/2/context.json"));
+        assertNull(headers.get("Content-Encoding"));
+        assertEquals(String.valueOf(content.length), headers.get("Content-Length"));
+        assertArrayEquals(content, body.toByteArray());
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        servlet.doGet(request("/valid/FolgersHa2/manifest"), response());
+        String etag = headers.get("ETag");
+
+        HttpServletRequest req = request("/valid/FolgersHa2/manifest");
+        when(req.getHeader("If-None-Match")).thenReturn(etag);
+
+        servlet.doGet(req, response());
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, status);
+        assertEquals(etag, headers.get("ETag"));
+        assertEquals(0, body.size());
+
+        // The gzip encoded response is a different representation
+        req = request("/valid/FolgersHa2/manifest");
+        when(req.getHeader("If-None-Match")).thenReturn(etag);
+        when(req.getHeader("Accept-Encoding")).thenReturn("gzip");
+
+        servlet.doGet(req, response());
+
+        assertEquals(HttpServletResponse.SC_OK, status);
+        assertFalse(etag.equals(headers.get("ETag")));
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        HttpServletResponse resp = response();
+
+        servlet.doGet(request("/valid/LudwigXV7/manifest"), resp);
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, status);
+
+        servlet.doGet(request("/valid/FolgersHa2/manifest.json"), resp = response());
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, status);
+
+        servlet.doGet(request("/valid/%2E%2E/manifest"), resp = response());
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, status);
+        verify(resp, never()).getOutputStream();
+    }
+}
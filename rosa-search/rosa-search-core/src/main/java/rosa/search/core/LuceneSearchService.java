@@ -1,15 +1,34 @@
 package rosa.search.core;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.facet.DrillDownQuery;
 import org.apache.lucene.facet.FacetResult;
 import org.apache.lucene.facet.Facets;
@@ -18,11 +37,14 @@ import org.apache.lucene.facet.LabelAndValue;
 import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
@@ -35,6 +57,7 @@ import org.apache.lucene.store.FSDirectory;
 import rosa.archive.core.Store;
 import rosa.archive.model.Book;
 import rosa.archive.model.BookCollection;
+import rosa.archive.model.SHA1Checksum;
 import rosa.search.model.CategoryValueCount;
 import rosa.search.model.Query;
 import rosa.search.model.QueryTerm;
@@ -52,13 +75,54 @@ import rosa.search.model.SortOrder;
 public class LuceneSearchService implements SearchService {
     private final static Logger logger = Logger.getLogger(LuceneSearchService.class.getName());
 
+    // Added to every document to identify the book it was created from
+    private static final String BOOK_FIELD = "_book";
+
+    // Prefix of commit user data keys recording the fingerprint of each indexed book
+    private static final String INDEXED_PREFIX = "indexed:";
+
+    // Maximum number of books being loaded or indexed at once
+    private static final int MAX_PENDING_BOOKS = 16;
+
     private final Directory dir;
     private final SearcherManager searcher_manager;
     private final LuceneMapper mapper;
     private final String lucene_id_field;
+    private final ExecutorService index_executor;
+
+    // Held while the index is being written
+    private final Object update_lock = new Object();
+
+    // Facet state of the newest reader seen, replaced when the searcher is refreshed
+    private volatile FacetState facet_state;
+
+    private static class FacetState {
+        final DirectoryReader reader;
+        final SortedSetDocValuesReaderState state;
+
+        FacetState(DirectoryReader reader, SortedSetDocValuesReaderState state) {
+            this.reader = reader;
+            this.state = state;
+        }
+    }
 
     public LuceneSearchService(Path path, LuceneMapper mapper) throws IOException {
+        this(path, mapper, null);
+    }
+
+    /**
+     * Create a search service which loads books and creates their documents in
+     * parallel when updating the index. The executor is not shut down by the
+     * service.
+     *
+     * @param path location of the index
+     * @param mapper creates documents and queries
+     * @param index_executor executor used to index books, NULL to index sequentially
+     * @throws IOException if the index cannot be opened
+     */
+    public LuceneSearchService(Path path, LuceneMapper mapper, ExecutorService index_executor) throws IOException {
         this.mapper = mapper;
+        this.index_executor = index_executor;
         this.dir = FSDirectory.open(path);
 
         // Create index if it does not exist
@@ -67,6 +131,19 @@ public class LuceneSearchService implements SearchService {
 
         this.searcher_manager = new SearcherManager(dir, null);
 
+        // Build the facet state for a new reader before the first query needs it
+        searcher_manager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {}
+
+            @Override
+            public void afterRefresh(boolean did_refresh) throws IOException {
+                if (did_refresh) {
+                    warm_facet_state();
+                }
+            }
+        });
+
         SearchField id_field = mapper.getIdentifierSearchField();
 
         this.lucene_id_field = mapper.getLuceneField(id_field, id_field.getFieldTypes()[0]);
@@ -86,6 +163,51 @@ public class LuceneSearchService implements SearchService {
         return new IndexWriter(dir, iwc);
     }
 
+    private void warm_facet_state() throws IOException {
+        IndexSearcher searcher = searcher_manager.acquire();
+
+        try {
+            DirectoryReader reader = (DirectoryReader) searcher.getIndexReader();
+
+            facet_state = new FacetState(reader, new DefaultSortedSetDocValuesReaderState(reader));
+        } catch (IllegalArgumentException e) {
+            // Nothing indexed with facets yet
+            facet_state = null;
+        } finally {
+            searcher_manager.release(searcher);
+        }
+    }
+
+    /**
+     * Building the facet state reads every facet value in the index, so it is
+     * only done once per reader. A query still holding an older reader gets a
+     * state for that reader which is not kept.
+     */
+    private SortedSetDocValuesReaderState get_facet_state(IndexSearcher searcher) throws IOException {
+        DirectoryReader reader = (DirectoryReader) searcher.getIndexReader();
+        FacetState fs = facet_state;
+
+        if (fs != null && fs.reader == reader) {
+            return fs.state;
+        }
+
+        synchronized (this) {
+            fs = facet_state;
+
+            if (fs != null && fs.reader == reader) {
+                return fs.state;
+            }
+
+            SortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(reader);
+
+            if (fs == null || reader.getVersion() > fs.reader.getVersion()) {
+                facet_state = new FacetState(reader, state);
+            }
+
+            return state;
+        }
+    }
+
     private List<String> get_match_context(Highlighter hilighter, Document doc, Set<String> context_fields)
             throws IOException {
         List<String> context = new ArrayList<>();
@@ -147,11 +269,11 @@ public class LuceneSearchService implements SearchService {
                 // Categories indicate a faceted search
 
                 FacetsCollector fc = new FacetsCollector(true);
-                SortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(searcher.getIndexReader());
+                SortedSetDocValuesReaderState state = get_facet_state(searcher);
                 
                 hits = FacetsCollector.search(searcher, create_dill_down_query(opts.getCategories(), q),
                         offset + opts.getMatchCount(), lucene_order, fc);
-                category_matches = get_category_matches(fc, state);
+                category_matches = get_category_matches(fc, state, searcher.getIndexReader().numDocs());
             } else {
                 hits = searcher.search(q, offset + opts.getMatchCount(), lucene_order);
                 category_matches = null;
@@ -223,15 +345,16 @@ public class LuceneSearchService implements SearchService {
      * is the maximum that this number can be:
      * <em>topN</em> must be less than org.apache.lucene.util.ArrayUtil.MAX_ARRAY_LENGTH,
      * which is Integer.MAX_VALUE - whatever overhead arrays require.
+     * The number of documents in the searched index is used.
      *
      */
-    private List<SearchCategoryMatch> get_category_matches(FacetsCollector fc, SortedSetDocValuesReaderState state) throws IOException {
+    private List<SearchCategoryMatch> get_category_matches(FacetsCollector fc, SortedSetDocValuesReaderState state,
+            int max_results) throws IOException {
         Facets facets = new SortedSetDocValuesFacetCounts(state, fc);
 
         List<SearchCategoryMatch> result = new ArrayList<>();
 
-        int mamResults = searcher_manager.acquire().getIndexReader().numDocs();
-        facets.getAllDims(mamResults).forEach(f -> result.add(get_category_matches(f)));
+        facets.getAllDims(max_results).forEach(f -> result.add(get_category_matches(f)));
 
         result.sort((o1, o2) -> o1.getFieldName().compareToIgnoreCase(o2.getFieldName()));
 
@@ -311,7 +434,9 @@ public class LuceneSearchService implements SearchService {
 
     @Override
     public void clear() throws IOException {
-        try (IndexWriter iw = get_index_writer(true)) {
+        synchronized (update_lock) {
+            try (IndexWriter iw = get_index_writer(true)) {
+            }
         }
 
         searcher_manager.maybeRefresh();
@@ -320,8 +445,13 @@ public class LuceneSearchService implements SearchService {
     
     @Override
     public boolean isEmpty() throws IOException {
-        try (IndexWriter iw = get_index_writer(false)) {
-        	return iw.numDocs() == 0;
+        // Use a searcher rather than a writer so this can be called during an update
+        IndexSearcher searcher = searcher_manager.acquire();
+
+        try {
+            return searcher.getIndexReader().numDocs() == 0;
+        } finally {
+            searcher_manager.release(searcher);
         }
     }
     
@@ -338,50 +468,258 @@ public class LuceneSearchService implements SearchService {
         return doc.get(lucene_id_field);
     }
 
+    /**
+     * Only books whose archive checksums differ from when they were last
+     * indexed are indexed again. The checksums are recorded with each commit.
+     * Documents of books no longer in the collection are deleted. Searches can
+     * continue while the index is updated, but updates are done one at a time.
+     */
     @Override
     public void update(Store store, String collection_id) throws IOException {
-        try (IndexWriter writer = get_index_writer(false)) {
-            List<String> errors = new ArrayList<>();
+        synchronized (update_lock) {
+            if (update_collection(store, collection_id)) {
+                searcher_manager.maybeRefresh();
+            }
+        }
+    }
 
-            BookCollection col = store.loadBookCollection(collection_id, errors);
+    // Return whether the index changed
+    private boolean update_collection(Store store, String collection_id) throws IOException {
+        List<String> errors = new ArrayList<>();
 
-            if (errors.size() > 0) {
-                logger.warning("Errors loading collection: " + collection_id);
+        BookCollection col = store.loadBookCollection(collection_id, errors);
 
-                for (String error : errors) {
-                    logger.warning("  " + error);
-                }
+        if (errors.size() > 0) {
+            logger.warning("Errors loading collection: " + collection_id);
+
+            for (String error : errors) {
+                logger.warning("  " + error);
             }
+        }
 
-            for (String book_id : col.books()) {
-                errors.clear();
+        Map<String, String> indexed = new HashMap<>(SegmentInfos.readLatestCommit(dir).getUserData());
+        String key_prefix = INDEXED_PREFIX + collection_id + "/";
+        Set<String> books = new HashSet<>(Arrays.asList(col.books()));
+        boolean changed = false;
+
+        try (IndexWriter writer = get_index_writer(false)) {
+            // Remove books which have gone from the collection
 
-                Book book = store.loadBook(col, book_id, errors);
+            for (String key : new ArrayList<>(indexed.keySet())) {
+                if (key.startsWith(key_prefix) && !books.contains(key.substring(key_prefix.length()))) {
+                    logger.info("Removing book from index: [" + collection_id + ":" + key.substring(key_prefix.length()) + "]");
+
+                    writer.deleteDocuments(new Term(BOOK_FIELD, key.substring(INDEXED_PREFIX.length())));
+                    indexed.remove(key);
+                    changed = true;
+                }
+            }
 
-                if (errors.size() > 0) {
-                    logger.warning("Errors loading book: " + book_id);
+            // Books are loaded and mapped by workers which add documents to the
+            // thread safe writer. The number of books waiting for or being worked
+            // on is bounded so a large collection is not held in memory at once.
 
-                    for (String error : errors) {
-                        logger.warning("  " + error);
+            String[] book_ids = col.books();
+            List<Future<String>> fingerprints = new ArrayList<>();
+            AtomicInteger done = new AtomicInteger();
+            Semaphore pending = new Semaphore(MAX_PENDING_BOOKS);
+            AtomicBoolean stopped = new AtomicBoolean();
+
+            try {
+                for (String book_id : book_ids) {
+                    String indexed_fingerprint = indexed.get(key_prefix + book_id);
+
+                    Callable<String> task = () -> {
+                        try {
+                            if (stopped.get()) {
+                                return null;
+                            }
+
+                            return update_book(writer, store, col, book_id, indexed_fingerprint,
+                                    done.incrementAndGet(), book_ids.length);
+                        } finally {
+                            pending.release();
+                        }
+                    };
+
+                    pending.acquire();
+
+                    if (index_executor == null) {
+                        FutureTask<String> future = new FutureTask<>(task);
+                        future.run();
+                        fingerprints.add(future);
+                    } else {
+                        fingerprints.add(index_executor.submit(task));
                     }
                 }
 
-                logger.info("Updating index for: [" + collection_id + ":" + book_id + "]");
-                for (Document doc : mapper.createDocuments(col, book)) {
-                    String id = get_id(doc);
+                for (int i = 0; i < book_ids.length; i++) {
+                    String key = key_prefix + book_ids[i];
+                    String old_fingerprint = indexed.get(key);
+                    String fingerprint = fingerprints.get(i).get();
 
-                    if (id == null) {
-                        logger.severe("Document does not have id: [" + collection_id + ":" + book_id + "]");
-                        continue;
+                    if (fingerprint == null || !fingerprint.equals(old_fingerprint)) {
+                        changed = true;
                     }
 
-                    writer.updateDocument(new Term(lucene_id_field, id), doc);
+                    if (fingerprint == null) {
+                        indexed.remove(key);
+                    } else {
+                        indexed.put(key, fingerprint);
+                    }
+                }
+            } catch (InterruptedException e) {
+                stopped.set(true);
+                await_all(fingerprints);
+                Thread.currentThread().interrupt();
+                writer.rollback();
+                throw new InterruptedIOException("Interrupted updating index for " + collection_id);
+            } catch (ExecutionException e) {
+                stopped.set(true);
+                await_all(fingerprints);
+                writer.rollback();
+
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
+
+                throw new IOException(e.getCause());
             }
 
-            writer.forceMerge(1);
+            if (changed) {
+                writer.setLiveCommitData(indexed.entrySet());
+            }
         }
 
-        searcher_manager.maybeRefresh();
+        return changed;
+    }
+
+    /**
+     * Wait for tasks to finish without interrupting them, so that the writer is
+     * not rolled back while they still use it. Tasks which have not started
+     * are expected to return at once. The interrupt status is kept.
+     */
+    private static void await_all(List<? extends Future<?>> futures) {
+        boolean interrupted = false;
+
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Index a book if its fingerprint differs from when it was indexed.
+     *
+     * @return fingerprint of the book
+     */
+    private String update_book(IndexWriter writer, Store store, BookCollection col, String book_id,
+            String indexed_fingerprint, int count, int total) throws IOException {
+        List<String> errors = new ArrayList<>();
+        String collection_id = col.getId();
+
+        // Only the checksums are read to decide whether the book must be loaded
+        String fingerprint = get_fingerprint(col.getChecksum(), store.loadBookChecksum(col, book_id, errors));
+
+        if (fingerprint != null && fingerprint.equals(indexed_fingerprint)) {
+            return fingerprint;
+        }
+
+        Book book = store.loadBook(col, book_id, errors);
+
+        if (errors.size() > 0) {
+            logger.warning("Errors loading book: " + book_id);
+
+            for (String error : errors) {
+                logger.warning("  " + error);
+            }
+        }
+
+        if (book == null) {
+            fingerprint = null;
+        }
+
+        logger.info("Updating index for: [" + collection_id + ":" + book_id + "] (" + count + " of " + total + ")");
+
+        // Delete first so documents for removed pages do not linger
+        String book_value = collection_id + "/" + book_id;
+        writer.deleteDocuments(new Term(BOOK_FIELD, book_value));
+
+        for (Document doc : mapper.createDocuments(col, book)) {
+            String id = get_id(doc);
+
+            if (id == null) {
+                logger.severe("Document does not have id: [" + collection_id + ":" + book_id + "]");
+                continue;
+            }
+
+            doc.add(new StringField(BOOK_FIELD, book_value, Field.Store.NO));
+
+            // Update by id in case the document was indexed without a book
+            writer.updateDocument(new Term(lucene_id_field, id), doc);
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * The fingerprint of a book is a hash of the archive checksums of the book
+     * and its collection, which also contributes to documents.
+     *
+     * @param col_checksum checksums of the collection, may be null
+     * @param book_checksum checksums of the book, may be null
+     * @return fingerprint or null if there are no checksums and so the book must always be indexed
+     */
+    private String get_fingerprint(SHA1Checksum col_checksum, SHA1Checksum book_checksum) {
+        if (book_checksum == null || book_checksum.checksums().isEmpty()) {
+            return null;
+        }
+
+        MessageDigest md;
+
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        digest(md, col_checksum);
+        digest(md, book_checksum);
+
+        StringBuilder result = new StringBuilder();
+
+        for (byte b : md.digest()) {
+            result.append(String.format("%02x", b));
+        }
+
+        return result.toString();
+    }
+
+    private void digest(MessageDigest md, SHA1Checksum checksum) {
+        if (checksum == null) {
+            return;
+        }
+
+        // Sort so the fingerprint does not depend on map order
+        new TreeMap<>(checksum.checksums()).forEach((id, value) -> {
+            md.update(id.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(value.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        });
     }
 }
@@ -29,7 +29,8 @@ public interface SearchService {
     
     /**
      * Index the collection indicated. Existing content in the index with same
-     * identifier will be replaced.
+     * identifier will be replaced. Implementations may skip content which has
+     * not changed since it was last indexed.
      * 
      * @param store archive store
      * @param collection_id ID of collection to index